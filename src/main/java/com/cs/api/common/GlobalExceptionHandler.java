@@ -1,7 +1,9 @@
 package com.cs.api.common;
 
+import com.cs.api.common.bulkhead.ServiceOverloadedException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.validation.BindException;
 import org.springframework.validation.FieldError;
@@ -13,6 +15,7 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.servlet.NoHandlerFoundException;
 
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import java.util.List;
 
 /**
@@ -91,6 +94,18 @@ public class GlobalExceptionHandler {
         return Result.error(ResultCode.NOT_FOUND.getCode(), "请求的资源不存在: " + request.getRequestURI());
     }
     
+    /**
+     * 处理服务过载异常：接口并发和等待队列已满，请客户端稍后重试
+     */
+    @ExceptionHandler({ServiceOverloadedException.class})
+    @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+    public Result<Object> handleServiceOverloadedException(ServiceOverloadedException ex, HttpServletRequest request,
+                                                          HttpServletResponse response) {
+        logger.warn("服务过载，拒绝请求: {} {}, {}", request.getMethod(), request.getRequestURI(), ex.getMessage());
+        response.setHeader(HttpHeaders.RETRY_AFTER, "5");
+        return Result.error(ResultCode.TOO_MANY_REQUESTS.getCode(), ex.getMessage());
+    }
+    
     /**
      * 处理运行时异常
      */
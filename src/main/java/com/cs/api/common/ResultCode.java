@@ -18,6 +18,7 @@ public enum ResultCode {
     FORBIDDEN(403, "禁止访问"),
     NOT_FOUND(404, "资源不存在"),
     METHOD_NOT_ALLOWED(405, "请求方法不支持"),
+    TOO_MANY_REQUESTS(429, "请求过多，请稍后重试"),
     
     // 业务错误 1xxx
     PARAM_INVALID(1001, "参数校验失败"),
@@ -0,0 +1,103 @@
+package com.cs.api.common.bulkhead;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 调用AI的耗时接口的舱壁
+ * 代码聚类、三元组搜索和概念关系分析每次请求要等待DeepSeek数十秒。
+ * 每个接口使用独立的线程池和等待队列执行，请求线程提交后即释放，
+ * 突发请求只会在本接口排队或被拒绝（429），不会占满Tomcat线程而拖慢概念验证、健康检查等轻量接口。
+ *
+ * @author YK
+ * @since 1.0.0
+ */
+@Component
+public class AiEndpointBulkheads {
+
+    private static final Logger logger = LoggerFactory.getLogger(AiEndpointBulkheads.class);
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Value("${bulkhead.analyze-clusters.max-concurrent:2}")
+    private int analyzeClustersConcurrency;
+
+    @Value("${bulkhead.analyze-clusters.queue-capacity:8}")
+    private int analyzeClustersQueueCapacity;
+
+    @Value("${bulkhead.triples-search.max-concurrent:4}")
+    private int triplesSearchConcurrency;
+
+    @Value("${bulkhead.triples-search.queue-capacity:16}")
+    private int triplesSearchQueueCapacity;
+
+    @Value("${bulkhead.relationships-analyze.max-concurrent:4}")
+    private int relationshipsAnalyzeConcurrency;
+
+    @Value("${bulkhead.relationships-analyze.queue-capacity:16}")
+    private int relationshipsAnalyzeQueueCapacity;
+
+    private Bulkhead analyzeClusters;
+    private Bulkhead triplesSearch;
+    private Bulkhead relationshipsAnalyze;
+
+    @PostConstruct
+    public void init() {
+        this.analyzeClusters = new Bulkhead("analyze-clusters",
+            analyzeClustersConcurrency, analyzeClustersQueueCapacity, meterRegistry);
+        this.triplesSearch = new Bulkhead("triples-search",
+            triplesSearchConcurrency, triplesSearchQueueCapacity, meterRegistry);
+        this.relationshipsAnalyze = new Bulkhead("relationships-analyze",
+            relationshipsAnalyzeConcurrency, relationshipsAnalyzeQueueCapacity, meterRegistry);
+        logger.info("AI接口舱壁初始化完成: {}", getStatistics().values());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        analyzeClusters.shutdown();
+        triplesSearch.shutdown();
+        relationshipsAnalyze.shutdown();
+    }
+
+    /**
+     * 代码聚类分析 /api/entity-link/code/analyze-clusters
+     */
+    public Bulkhead analyzeClusters() {
+        return analyzeClusters;
+    }
+
+    /**
+     * 三元组搜索 /api/entity-link/triples/search
+     */
+    public Bulkhead triplesSearch() {
+        return triplesSearch;
+    }
+
+    /**
+     * 概念关系分析 /api/entity-link/relationships/analyze
+     */
+    public Bulkhead relationshipsAnalyze() {
+        return relationshipsAnalyze;
+    }
+
+    /**
+     * 获取各舱壁的统计信息
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (Bulkhead bulkhead : new Bulkhead[] {analyzeClusters, triplesSearch, relationshipsAnalyze}) {
+            stats.put(bulkhead.getName(), bulkhead.getStatistics());
+        }
+        return stats;
+    }
+}
@@ -0,0 +1,126 @@
+package com.cs.api.common.bulkhead;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 舱壁（bulkhead）：限制一类耗时任务的并发数
+ * 任务在独立的线程池中执行，最多同时执行 maxConcurrent 个，另有容量为 queueCapacity 的等待队列；
+ * 队列也满时立即拒绝并抛出 {@link ServiceOverloadedException}，不占用请求线程等待。
+ * 队列长度、执行中任务数和拒绝次数注册为Micrometer指标（标签 name）。
+ *
+ * @author YK
+ * @since 1.0.0
+ */
+public class Bulkhead {
+
+    private final String name;
+    private final int maxConcurrent;
+    private final int queueCapacity;
+    private final ThreadPoolExecutor executor;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final Counter rejectedCounter;
+
+    /**
+     * @param name 名称，用于线程名、指标标签和拒绝信息
+     * @param maxConcurrent 最大并发执行数
+     * @param queueCapacity 等待队列容量
+     * @param meterRegistry 指标注册表，为null时不注册指标
+     */
+    public Bulkhead(String name, int maxConcurrent, int queueCapacity, MeterRegistry meterRegistry) {
+        if (maxConcurrent <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("舱壁" + name + "的并发数和队列容量必须大于0: "
+                + maxConcurrent + ", " + queueCapacity);
+        }
+        this.name = name;
+        this.maxConcurrent = maxConcurrent;
+        this.queueCapacity = queueCapacity;
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+            maxConcurrent, maxConcurrent, 60L, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            r -> {
+                Thread thread = new Thread(r, "bulkhead-" + name + "-" + threadCounter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+
+        if (meterRegistry != null) {
+            Gauge.builder("bulkhead.queue.depth", executor, pool -> pool.getQueue().size())
+                .tag("name", name)
+                .description("等待执行的任务数")
+                .register(meterRegistry);
+            Gauge.builder("bulkhead.active", executor, ThreadPoolExecutor::getActiveCount)
+                .tag("name", name)
+                .description("正在执行的任务数")
+                .register(meterRegistry);
+            this.rejectedCounter = Counter.builder("bulkhead.rejected")
+                .tag("name", name)
+                .description("因队列已满被拒绝的任务数")
+                .register(meterRegistry);
+        } else {
+            this.rejectedCounter = null;
+        }
+    }
+
+    /**
+     * 提交任务
+     *
+     * @param task 任务
+     * @return 任务结果
+     * @throws ServiceOverloadedException 并发数和等待队列都已满
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        try {
+            CompletableFuture<T> future = CompletableFuture.supplyAsync(task, executor);
+            submitted.increment();
+            return future;
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            if (rejectedCounter != null) {
+                rejectedCounter.increment();
+            }
+            throw new ServiceOverloadedException(name, "服务繁忙，请稍后重试（" + name + "：并发" + maxConcurrent
+                + "，排队" + executor.getQueue().size() + "/" + queueCapacity + "）");
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 获取统计信息
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("name", name);
+        stats.put("maxConcurrent", maxConcurrent);
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("active", executor.getActiveCount());
+        stats.put("queueDepth", executor.getQueue().size());
+        stats.put("submitted", submitted.sum());
+        stats.put("rejected", rejected.sum());
+        return stats;
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,24 @@
+package com.cs.api.common.bulkhead;
+
+/**
+ * 服务过载异常
+ * 接口的并发数和等待队列都已满时抛出，由全局异常处理器转换为 429 响应
+ *
+ * @author YK
+ * @since 1.0.0
+ */
+public class ServiceOverloadedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String bulkheadName;
+
+    public ServiceOverloadedException(String bulkheadName, String message) {
+        super(message);
+        this.bulkheadName = bulkheadName;
+    }
+
+    public String getBulkheadName() {
+        return bulkheadName;
+    }
+}
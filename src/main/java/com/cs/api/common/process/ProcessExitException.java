@@ -0,0 +1,25 @@
+package com.cs.api.common.process;
+
+import java.io.IOException;
+
+/**
+ * 外部命令以非零退出码结束
+ *
+ * @author YK
+ * @since 1.0.0
+ */
+public class ProcessExitException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int exitCode;
+
+    public ProcessExitException(String command, int exitCode) {
+        super(command + " 退出码 " + exitCode);
+        this.exitCode = exitCode;
+    }
+
+    public int getExitCode() {
+        return exitCode;
+    }
+}
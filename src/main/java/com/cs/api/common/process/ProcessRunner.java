@@ -0,0 +1,95 @@
+package com.cs.api.common.process;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 外部命令（git等）执行工具
+ * 超时从进程启动开始计算，由看门狗结束进程：写入标准输入和读取输出期间同样生效，
+ * 持续输出或不再读取输入的进程不会让调用方无限等待。标准错误输出被丢弃。
+ *
+ * @author YK
+ * @since 1.0.0
+ */
+public final class ProcessRunner {
+
+    private static final ScheduledExecutorService WATCHDOG = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "process-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private ProcessRunner() {
+    }
+
+    /**
+     * 执行命令并读取标准输出
+     *
+     * @param pb 要执行的命令
+     * @param input 写入标准输入的内容，为null时直接关闭标准输入
+     * @param timeoutSeconds 超时时间（秒）
+     * @return 标准输出的全部内容
+     * @throws ProcessExitException 命令以非零退出码结束
+     * @throws IOException 启动失败、超时或被中断
+     */
+    public static byte[] run(ProcessBuilder pb, byte[] input, long timeoutSeconds) throws IOException {
+        String name = describe(pb.command());
+        pb.redirectError(ProcessBuilder.Redirect.DISCARD);
+        Process process = pb.start();
+        AtomicBoolean timedOut = new AtomicBoolean();
+        ScheduledFuture<?> watchdog = WATCHDOG.schedule(() -> {
+            if (process.isAlive()) {
+                timedOut.set(true);
+                process.destroyForcibly();
+            }
+        }, timeoutSeconds, TimeUnit.SECONDS);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try {
+            try (OutputStream stdin = process.getOutputStream()) {
+                if (input != null) {
+                    stdin.write(input);
+                }
+            } catch (IOException e) {
+                // 进程提前退出时写入失败，结果以退出码为准
+            }
+            try (InputStream stdout = process.getInputStream()) {
+                stdout.transferTo(output);
+            } catch (IOException e) {
+                // 看门狗结束进程时读取可能以异常结束，按超时处理
+                if (!timedOut.get()) {
+                    process.destroyForcibly();
+                    throw e;
+                }
+            }
+            process.waitFor();
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+            throw new IOException("等待 " + name + " 时被中断", e);
+        } finally {
+            watchdog.cancel(false);
+        }
+        if (timedOut.get()) {
+            throw new IOException(name + " 超时(" + timeoutSeconds + "s)");
+        }
+        if (process.exitValue() != 0) {
+            throw new ProcessExitException(name, process.exitValue());
+        }
+        return output.toByteArray();
+    }
+
+    /**
+     * 日志和异常中使用的命令名，如 `git log`
+     */
+    private static String describe(List<String> command) {
+        return "`" + String.join(" ", command.subList(0, Math.min(2, command.size()))) + "`";
+    }
+}
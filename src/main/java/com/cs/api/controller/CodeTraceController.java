@@ -8,14 +8,23 @@ import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.cs.api.common.Result;
+import com.cs.api.common.bulkhead.ServiceOverloadedException;
+import com.cs.api.dto.CodeTraceBatchRequestDTO;
+import com.cs.api.dto.CodeTraceBatchResultDTO;
 import com.cs.api.dto.CodeTraceRequestDTO;
 import com.cs.api.dto.CodeTraceResponseDTO;
 import com.cs.api.service.CodeTraceService;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Linux内核代码追溯控制器
@@ -31,6 +40,11 @@ import java.util.List;
 public class CodeTraceController {
 
     private static final Logger logger = LoggerFactory.getLogger(CodeTraceController.class);
+
+    /**
+     * 批量追溯流式响应的超时时间
+     */
+    private static final long BATCH_STREAM_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(30);
     
     @Autowired
     private CodeTraceService codeTraceService;
@@ -55,12 +69,7 @@ public class CodeTraceController {
         
         try {  
             // 执行代码追溯
-            List<CodeTraceResponseDTO> traceResults = codeTraceService.traceMethodHistory(
-                traceRequest.getFilePath(), 
-                traceRequest.getMethodName(), 
-                traceRequest.getVersion(),
-                traceRequest.getTargetCommit()
-            );
+            List<CodeTraceResponseDTO> traceResults = codeTraceService.traceMethodHistory(traceRequest);
             
             if (traceResults.isEmpty()) {
                 logger.info("未找到匹配的commit历史: methodName={}, filePath={}, version={}", 
@@ -92,6 +101,96 @@ public class CodeTraceController {
         }
     }
     
+    /**
+     * 批量追溯多个方法的演化历史
+     */
+    @PostMapping("/method/history/batch")
+    @Operation(
+        summary = "批量追溯方法演化历史", 
+        description = "一次追溯多个 (文件路径, 方法名) 的演化历史，tracker调用并发执行，同一文件的方法共享文件版本解析，结果与请求顺序一致"
+    )
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "追溯完成"),
+        @ApiResponse(responseCode = "400", description = "请求参数错误"),
+        @ApiResponse(responseCode = "429", description = "批量追溯任务过多"),
+        @ApiResponse(responseCode = "500", description = "服务器内部错误")
+    })
+    public CompletableFuture<Result<List<CodeTraceBatchResultDTO>>> traceMethodHistoryBatch(
+            @Valid @RequestBody CodeTraceBatchRequestDTO batchRequest) {
+        logger.info("接收批量代码追溯请求: 请求数={}", batchRequest.getRequests().size());
+        
+        // 追溯在批量线程池中执行，请求线程立即释放；线程池队列已满时抛出ServiceOverloadedException（429）
+        try {
+            return codeTraceService.traceMethodHistoryBatch(batchRequest.getRequests())
+                .handle((results, error) -> {
+                    if (error != null) {
+                        logger.error("批量代码追溯服务异常", error);
+                        return Result.error(500, "服务器内部发生错误，批量代码追溯失败: " + error.getMessage());
+                    }
+                    logger.info("批量代码追溯完成: 请求数={}", results.size());
+                    return Result.success(results);
+                });
+            
+        } catch (IllegalArgumentException e) {
+            logger.error("请求参数错误: {}", e.getMessage());
+            return CompletableFuture.completedFuture(Result.error(400, "请求参数错误: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 批量追溯多个方法的演化历史，以SSE流式返回
+     * 每个方法完成后立即推送一个 result 事件（id为请求下标），全部完成后推送 done 事件
+     */
+    @PostMapping(value = "/method/history/batch/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(
+        summary = "批量追溯方法演化历史（流式）", 
+        description = "与批量追溯相同，但每个方法完成后立即以SSE事件推送结果"
+    )
+    public SseEmitter traceMethodHistoryBatchStream(@Valid @RequestBody CodeTraceBatchRequestDTO batchRequest) {
+        logger.info("接收流式批量代码追溯请求: 请求数={}", batchRequest.getRequests().size());
+        SseEmitter emitter = new SseEmitter(BATCH_STREAM_TIMEOUT_MILLIS);
+        
+        try {
+            codeTraceService.traceMethodHistoryBatch(batchRequest.getRequests(), result -> {
+                // 回调可能来自多个线程，SseEmitter不支持并发发送
+                synchronized (emitter) {
+                    try {
+                        emitter.send(SseEmitter.event()
+                            .name("result")
+                            .id(String.valueOf(result.getIndex()))
+                            .data(result, MediaType.APPLICATION_JSON));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            }).whenComplete((ignored, error) -> {
+                synchronized (emitter) {
+                    if (error != null) {
+                        logger.error("流式批量代码追溯异常", error);
+                        emitter.completeWithError(error);
+                        return;
+                    }
+                    try {
+                        emitter.send(SseEmitter.event().name("done").data(batchRequest.getRequests().size()));
+                        emitter.complete();
+                    } catch (IOException e) {
+                        emitter.completeWithError(e);
+                    }
+                }
+            });
+            
+        } catch (IllegalArgumentException | ServiceOverloadedException e) {
+            logger.error("流式批量代码追溯请求被拒绝: {}", e.getMessage());
+            try {
+                String message = e instanceof ServiceOverloadedException ? e.getMessage() : "请求参数错误: " + e.getMessage();
+                emitter.send(SseEmitter.event().name("error").data(message));
+                emitter.complete();
+            } catch (IOException ioException) {
+                emitter.completeWithError(ioException);
+            }
+        }
+        return emitter;
+    }
     
     /**
      * 健康检查接口
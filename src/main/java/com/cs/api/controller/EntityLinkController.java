@@ -11,6 +11,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
 import com.cs.api.common.Result;
+import com.cs.api.common.bulkhead.AiEndpointBulkheads;
 import com.cs.api.dto.ConceptRequestDTO;
 import com.cs.api.dto.CodeSearchResultDTO;
 import com.cs.api.dto.CodeClusterResultDTO;
@@ -24,6 +25,7 @@ import com.cs.api.service.EntityLinkService;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Linux内核代码搜索控制器
@@ -43,6 +45,9 @@ public class EntityLinkController {
     @Autowired
     private EntityLinkService entityLinkService;
     
+    @Autowired
+    private AiEndpointBulkheads aiEndpointBulkheads;
+    
     /**
      * 搜索Linux内核代码
      */
@@ -107,45 +112,49 @@ public class EntityLinkController {
         @ApiResponse(responseCode = "200", description = "分析成功"),
         @ApiResponse(responseCode = "400", description = "请求参数错误"),
         @ApiResponse(responseCode = "404", description = "指定版本不存在"),
+        @ApiResponse(responseCode = "429", description = "请求过多，服务繁忙"),
         @ApiResponse(responseCode = "500", description = "服务器内部错误")
     })
-    public Result<CodeClusterResultDTO> analyzeCodeClusters(
+    public CompletableFuture<Result<CodeClusterResultDTO>> analyzeCodeClusters(
             @Valid @RequestBody ConceptRequestDTO searchRequest) {
         logger.info("接收代码聚类分析请求: {}", searchRequest);
         
-        try {
-            // 1. 通过eid查询概念信息
-            EntityExtractionDTO concept = entityLinkService.getConceptByEid(searchRequest.getEid());
-            String conceptName = concept.getNameEn();
-            String context = concept.getDefinitionEn();
-            
-            logger.info("通过eid查询到概念: eid={}, concept={}, context={}", 
-                searchRequest.getEid(), conceptName, context);
-            
-            // 2. 执行代码聚类分析
-            CodeClusterResultDTO clusterResult = entityLinkService.analyzeCodeClusters(
-                conceptName, 
-                context, 
-                searchRequest.getVersion()
-            );
-            
-            if (clusterResult.getTotalCodeLines() == 0) {
-                logger.info("未找到可分析的代码: eid={}, concept={}, context={}, version={}", 
-                    searchRequest.getEid(), conceptName, context, searchRequest.getVersion());
-                return Result.success("未找到可分析的代码", clusterResult);
+        // 在本接口的独立线程池中执行，请求线程立即释放；并发和队列已满时抛出ServiceOverloadedException（429）
+        return aiEndpointBulkheads.analyzeClusters().submit(() -> {
+            try {
+                // 1. 通过eid查询概念信息
+                EntityExtractionDTO concept = entityLinkService.getConceptByEid(searchRequest.getEid());
+                String conceptName = concept.getNameEn();
+                String context = concept.getDefinitionEn();
+                
+                logger.info("通过eid查询到概念: eid={}, concept={}, context={}", 
+                    searchRequest.getEid(), conceptName, context);
+                
+                // 2. 执行代码聚类分析
+                CodeClusterResultDTO clusterResult = entityLinkService.analyzeCodeClusters(
+                    conceptName, 
+                    context, 
+                    searchRequest.getVersion()
+                );
+                
+                if (clusterResult.getTotalCodeLines() == 0) {
+                    logger.info("未找到可分析的代码: eid={}, concept={}, context={}, version={}", 
+                        searchRequest.getEid(), conceptName, context, searchRequest.getVersion());
+                    return Result.success("未找到可分析的代码", clusterResult);
+                }
+                
+                logger.info("代码聚类分析成功，分析了{}行代码，生成{}个聚类", 
+                    clusterResult.getTotalCodeLines(), clusterResult.getTotalClusters());
+                return Result.success(clusterResult);
+                
+            } catch (IllegalArgumentException e) {
+                logger.error("请求参数错误: {}", e.getMessage());
+                return Result.error(400, "请求体格式错误或缺少必须的参数: " + e.getMessage());
+            } catch (Exception e) {
+                logger.error("代码聚类分析服务异常", e);
+                return Result.error(500, "服务器内部发生错误，代码聚类分析服务失败: " + e.getMessage());
             }
-            
-            logger.info("代码聚类分析成功，分析了{}行代码，生成{}个聚类", 
-                clusterResult.getTotalCodeLines(), clusterResult.getTotalClusters());
-            return Result.success(clusterResult);
-            
-        } catch (IllegalArgumentException e) {
-            logger.error("请求参数错误: {}", e.getMessage());
-            return Result.error(400, "请求体格式错误或缺少必须的参数: " + e.getMessage());
-        } catch (Exception e) {
-            logger.error("代码聚类分析服务异常", e);
-            return Result.error(500, "服务器内部发生错误，代码聚类分析服务失败: " + e.getMessage());
-        }
+        });
     }
     
     /**
@@ -203,43 +212,46 @@ public class EntityLinkController {
     @ApiResponses({
         @ApiResponse(responseCode = "200", description = "搜索成功"),
         @ApiResponse(responseCode = "400", description = "请求参数错误"),
+        @ApiResponse(responseCode = "429", description = "请求过多，服务繁忙"),
         @ApiResponse(responseCode = "500", description = "服务器内部错误")
     })
-    public Result<List<TripleSearchResultDTO>> searchTriples(
+    public CompletableFuture<Result<List<TripleSearchResultDTO>>> searchTriples(
             @Valid @RequestBody ConceptRequestDTO request) {
         logger.info("接收三元组搜索请求: {}", request);
         
-        try {
-            // 1. 通过eid查询概念信息
-            EntityExtractionDTO concept = entityLinkService.getConceptByEid(request.getEid());
-            String conceptName = concept.getNameEn();
-            String context = concept.getDefinitionEn();
-            
-            logger.info("通过eid查询到概念: eid={}, concept={}, context={}", 
-                request.getEid(), conceptName, context);
-            
-            // 2. 执行三元组搜索
-            List<TripleSearchResultDTO> results = entityLinkService.searchTriples(
-                conceptName, 
-                context
-            );
-            
-            if (results.isEmpty()) {
-                logger.info("未找到匹配的三元组: eid={}, concept={}, context={}", 
+        return aiEndpointBulkheads.triplesSearch().submit(() -> {
+            try {
+                // 1. 通过eid查询概念信息
+                EntityExtractionDTO concept = entityLinkService.getConceptByEid(request.getEid());
+                String conceptName = concept.getNameEn();
+                String context = concept.getDefinitionEn();
+                
+                logger.info("通过eid查询到概念: eid={}, concept={}, context={}", 
                     request.getEid(), conceptName, context);
-                return Result.success("未找到包含该概念的数据", new ArrayList<>());
+                
+                // 2. 执行三元组搜索
+                List<TripleSearchResultDTO> results = entityLinkService.searchTriples(
+                    conceptName, 
+                    context
+                );
+                
+                if (results.isEmpty()) {
+                    logger.info("未找到匹配的三元组: eid={}, concept={}, context={}", 
+                        request.getEid(), conceptName, context);
+                    return Result.success("未找到包含该概念的数据", new ArrayList<>());
+                }
+                
+                logger.info("三元组搜索成功，找到{}个结果", results.size());
+                return Result.success(results);
+                
+            } catch (IllegalArgumentException e) {
+                logger.error("请求参数错误: {}", e.getMessage());
+                return Result.error(400, "请求体格式错误或缺少必须的参数: " + e.getMessage());
+            } catch (Exception e) {
+                logger.error("三元组搜索服务异常", e);
+                return Result.error(500, "服务器内部发生错误，三元组搜索服务失败: " + e.getMessage());
             }
-            
-            logger.info("三元组搜索成功，找到{}个结果", results.size());
-            return Result.success(results);
-            
-        } catch (IllegalArgumentException e) {
-            logger.error("请求参数错误: {}", e.getMessage());
-            return Result.error(400, "请求体格式错误或缺少必须的参数: " + e.getMessage());
-        } catch (Exception e) {
-            logger.error("三元组搜索服务异常", e);
-            return Result.error(500, "服务器内部发生错误，三元组搜索服务失败: " + e.getMessage());
-        }
+        });
     }
     
     /**
@@ -253,44 +265,47 @@ public class EntityLinkController {
     @ApiResponses({
         @ApiResponse(responseCode = "200", description = "分析成功"),
         @ApiResponse(responseCode = "400", description = "请求参数错误"),
+        @ApiResponse(responseCode = "429", description = "请求过多，服务繁忙"),
         @ApiResponse(responseCode = "500", description = "服务器内部错误")
     })
-    public Result<ConceptRelationshipResultDTO> analyzeConceptRelationships(
+    public CompletableFuture<Result<ConceptRelationshipResultDTO>> analyzeConceptRelationships(
             @Valid @RequestBody ConceptRequestDTO request) {
         logger.info("接收概念关系分析请求: {}", request);
         
-        try {
-            // 1. 通过eid查询概念信息
-            EntityExtractionDTO concept = entityLinkService.getConceptByEid(request.getEid());
-            String conceptName = concept.getNameEn();
-            String context = concept.getDefinitionEn();
-            
-            logger.info("通过eid查询到概念: eid={}, concept={}, context={}", 
-                request.getEid(), conceptName, context);
-            
-            // 2. 执行概念关系分析
-            ConceptRelationshipResultDTO result = entityLinkService.analyzeConceptRelationships(
-                conceptName, 
-                context,
-                request.getAnalysisDepth()
-            );
-            
-            if (result.getTotalRelatedConcepts() == 0) {
-                logger.info("未发现概念关系: eid={}, concept={}, context={}", 
+        return aiEndpointBulkheads.relationshipsAnalyze().submit(() -> {
+            try {
+                // 1. 通过eid查询概念信息
+                EntityExtractionDTO concept = entityLinkService.getConceptByEid(request.getEid());
+                String conceptName = concept.getNameEn();
+                String context = concept.getDefinitionEn();
+                
+                logger.info("通过eid查询到概念: eid={}, concept={}, context={}", 
                     request.getEid(), conceptName, context);
-                return Result.success("未发现明显的概念关系", result);
+                
+                // 2. 执行概念关系分析
+                ConceptRelationshipResultDTO result = entityLinkService.analyzeConceptRelationships(
+                    conceptName, 
+                    context,
+                    request.getAnalysisDepth()
+                );
+                
+                if (result.getTotalRelatedConcepts() == 0) {
+                    logger.info("未发现概念关系: eid={}, concept={}, context={}", 
+                        request.getEid(), conceptName, context);
+                    return Result.success("未发现明显的概念关系", result);
+                }
+                
+                logger.info("概念关系分析成功，发现{}个关系", result.getTotalRelatedConcepts());
+                return Result.success(result);
+                
+            } catch (IllegalArgumentException e) {
+                logger.error("请求参数错误: {}", e.getMessage());
+                return Result.error(400, "请求体格式错误或缺少必须的参数: " + e.getMessage());
+            } catch (Exception e) {
+                logger.error("概念关系分析服务异常", e);
+                return Result.error(500, "服务器内部发生错误，概念关系分析服务失败: " + e.getMessage());
             }
-            
-            logger.info("概念关系分析成功，发现{}个关系", result.getTotalRelatedConcepts());
-            return Result.success(result);
-            
-        } catch (IllegalArgumentException e) {
-            logger.error("请求参数错误: {}", e.getMessage());
-            return Result.error(400, "请求体格式错误或缺少必须的参数: " + e.getMessage());
-        } catch (Exception e) {
-            logger.error("概念关系分析服务异常", e);
-            return Result.error(500, "服务器内部发生错误，概念关系分析服务失败: " + e.getMessage());
-        }
+        });
     }
     
     /**
@@ -1,5 +1,6 @@
 package com.cs.api.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.swagger.v3.oas.annotations.media.Schema;
 import java.util.ArrayList;
 import java.util.List;
@@ -139,6 +140,12 @@ public class CodeClusterResultDTO {
         @Schema(description = "代码行来源类型", example = "definitions")
         private String sourceType;
 
+        /**
+         * 标识符分词后的词编号（聚类分析内部使用，不输出）
+         */
+        @JsonIgnore
+        private int[] tokenIds;
+
         public CodeLineInfo() {}
 
         public CodeLineInfo(String filePath, Integer lineNumber, String codeContent, 
@@ -200,6 +207,14 @@ public class CodeClusterResultDTO {
             this.sourceType = sourceType;
         }
 
+        public int[] getTokenIds() {
+            return tokenIds;
+        }
+
+        public void setTokenIds(int[] tokenIds) {
+            this.tokenIds = tokenIds;
+        }
+
     }
 
     public CodeClusterResultDTO() {}
@@ -0,0 +1,44 @@
+package com.cs.api.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.List;
+
+/**
+ * 批量代码追溯请求 DTO
+ * 
+ * @author YK
+ * @since 1.0.0
+ */
+@Schema(description = "批量代码追溯请求参数")
+public class CodeTraceBatchRequestDTO {
+
+    @Schema(description = "追溯请求列表，每项为一个 (文件路径, 方法名) 组合")
+    @NotEmpty(message = "追溯请求列表不能为空")
+    @Valid
+    private List<CodeTraceRequestDTO> requests;
+
+    // 默认构造函数
+    public CodeTraceBatchRequestDTO() {}
+
+    public CodeTraceBatchRequestDTO(List<CodeTraceRequestDTO> requests) {
+        this.requests = requests;
+    }
+
+    public List<CodeTraceRequestDTO> getRequests() {
+        return requests;
+    }
+
+    public void setRequests(List<CodeTraceRequestDTO> requests) {
+        this.requests = requests;
+    }
+
+    @Override
+    public String toString() {
+        return "CodeTraceBatchRequestDTO{" +
+                "requests=" + requests +
+                '}';
+    }
+}
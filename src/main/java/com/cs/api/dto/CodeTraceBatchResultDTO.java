@@ -0,0 +1,66 @@
+package com.cs.api.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+/**
+ * 批量代码追溯中单个方法的追溯结果
+ * 
+ * @author YK
+ * @since 1.0.0
+ */
+@Schema(description = "批量代码追溯的单项结果")
+public class CodeTraceBatchResultDTO {
+
+    @Schema(description = "对应请求在批量请求列表中的下标", example = "0")
+    private int index;
+
+    @Schema(description = "对应的追溯请求")
+    private CodeTraceRequestDTO request;
+
+    @Schema(description = "该方法的演化历史")
+    private List<CodeTraceResponseDTO> history;
+
+    // 默认构造函数
+    public CodeTraceBatchResultDTO() {}
+
+    public CodeTraceBatchResultDTO(int index, CodeTraceRequestDTO request, List<CodeTraceResponseDTO> history) {
+        this.index = index;
+        this.request = request;
+        this.history = history;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public CodeTraceRequestDTO getRequest() {
+        return request;
+    }
+
+    public void setRequest(CodeTraceRequestDTO request) {
+        this.request = request;
+    }
+
+    public List<CodeTraceResponseDTO> getHistory() {
+        return history;
+    }
+
+    public void setHistory(List<CodeTraceResponseDTO> history) {
+        this.history = history;
+    }
+
+    @Override
+    public String toString() {
+        return "CodeTraceBatchResultDTO{" +
+                "index=" + index +
+                ", request=" + request +
+                ", history=" + history +
+                '}';
+    }
+}
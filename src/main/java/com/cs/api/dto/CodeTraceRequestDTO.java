@@ -28,6 +28,13 @@ public class CodeTraceRequestDTO {
     @Schema(description = "当前的commitId，用于追溯到上一次提交涉及的commitId", defaultValue = "",example = "bda807d4445414e8e77da704f116bb0880fe0c76")
     private String targetCommit;
 
+    @Schema(description = "是否返回commit的text/h1/h2等描述字段，不需要时关闭可减少内存和响应大小", defaultValue = "true", example = "true")
+    private boolean includeCommitDetails = true;
+
+    @Schema(description = "追溯引擎：tracker（外部tracker服务）、local（本地git历史）、auto（tracker不可用时改用本地git），为空时使用服务端默认配置",
+        allowableValues = {"tracker", "local", "auto"}, example = "auto")
+    private String engine;
+
     // 默认构造函数
     public CodeTraceRequestDTO() {}
 
@@ -72,6 +79,22 @@ public class CodeTraceRequestDTO {
         this.targetCommit = targetCommit;
     }
 
+    public boolean isIncludeCommitDetails() {
+        return includeCommitDetails;
+    }
+
+    public void setIncludeCommitDetails(boolean includeCommitDetails) {
+        this.includeCommitDetails = includeCommitDetails;
+    }
+
+    public String getEngine() {
+        return engine;
+    }
+
+    public void setEngine(String engine) {
+        this.engine = engine;
+    }
+
     @Override
     public String toString() {
         return "CodeTraceRequestDTO{" +
@@ -79,6 +102,8 @@ public class CodeTraceRequestDTO {
                 ", methodName='" + methodName + '\'' +
                 ", version='" + version + '\'' +
                 ", targetCommit='" + targetCommit + '\'' +
+                ", includeCommitDetails=" + includeCommitDetails +
+                ", engine='" + engine + '\'' +
                 '}';
     }
 } 
\ No newline at end of file
@@ -32,6 +32,9 @@ public class CodeTraceResponseDTO {
     @Schema(description = "代码解释说明")
     private String explanation;
 
+    @Schema(description = "该commit中文件内容与上一个commit相同（同一blob），代码片段未变化", example = "false")
+    private boolean unchangedSincePrevious;
+
 
     @Schema(description = "错误消息（如果有）")
     private String errorMessage;
@@ -118,6 +121,14 @@ public class CodeTraceResponseDTO {
         this.explanation = explanation;
     }
 
+    public boolean isUnchangedSincePrevious() {
+        return unchangedSincePrevious;
+    }
+
+    public void setUnchangedSincePrevious(boolean unchangedSincePrevious) {
+        this.unchangedSincePrevious = unchangedSincePrevious;
+    }
+
     @Override
     public String toString() {
         return "CodeTraceResponseDTO{" +
@@ -128,6 +139,7 @@ public class CodeTraceResponseDTO {
                 ", startLine=" + startLine +
                 ", endLine=" + endLine +
                 ", explanation='" + explanation + '\'' +
+                ", unchangedSincePrevious=" + unchangedSincePrevious +
                 ", errorMessage='" + errorMessage + '\'' +
                 '}';
     }
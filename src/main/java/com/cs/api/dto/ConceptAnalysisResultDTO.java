@@ -0,0 +1,138 @@
+package com.cs.api.dto;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.LocalDateTime;
+
+/**
+ * 概念分析结果持久化对象
+ * 对应数据库表 concept_analysis_result
+ *
+ * @author YK
+ * @since 1.0.0
+ */
+@TableName("concept_analysis_result")
+public class ConceptAnalysisResultDTO {
+
+    /**
+     * 唯一id，整型递增
+     */
+    @TableId(value = "id", type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 结果类型：relationship / triples
+     */
+    private String resultType;
+
+    /**
+     * 概念名称
+     */
+    private String concept;
+
+    /**
+     * 结果键：关系分析为分析深度，三元组为feature集合哈希
+     */
+    private String resultKey;
+
+    /**
+     * 相关feature数据指纹，用于判断结果是否失效
+     */
+    private String dataVersion;
+
+    /**
+     * 结果内容，json字符串
+     */
+    private String payload;
+
+    /**
+     * 创建时间
+     */
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime createTime;
+
+    /**
+     * 更新时间
+     */
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime updateTime;
+
+    // 构造函数
+    public ConceptAnalysisResultDTO() {}
+
+    public ConceptAnalysisResultDTO(String resultType, String concept, String resultKey, String dataVersion, String payload) {
+        this.resultType = resultType;
+        this.concept = concept;
+        this.resultKey = resultKey;
+        this.dataVersion = dataVersion;
+        this.payload = payload;
+    }
+
+    // Getter 和 Setter 方法
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getResultType() {
+        return resultType;
+    }
+
+    public void setResultType(String resultType) {
+        this.resultType = resultType;
+    }
+
+    public String getConcept() {
+        return concept;
+    }
+
+    public void setConcept(String concept) {
+        this.concept = concept;
+    }
+
+    public String getResultKey() {
+        return resultKey;
+    }
+
+    public void setResultKey(String resultKey) {
+        this.resultKey = resultKey;
+    }
+
+    public String getDataVersion() {
+        return dataVersion;
+    }
+
+    public void setDataVersion(String dataVersion) {
+        this.dataVersion = dataVersion;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+
+    public LocalDateTime getCreateTime() {
+        return createTime;
+    }
+
+    public void setCreateTime(LocalDateTime createTime) {
+        this.createTime = createTime;
+    }
+
+    public LocalDateTime getUpdateTime() {
+        return updateTime;
+    }
+
+    public void setUpdateTime(LocalDateTime updateTime) {
+        this.updateTime = updateTime;
+    }
+}
@@ -0,0 +1,129 @@
+package com.cs.api.dto;
+
+/**
+ * DTO for a function-scoped diff: only the hunks that touch the traced function
+ * between a commit and its first parent.
+ *
+ * @author Yujia
+ * @since 1.0.0
+ */
+public class FunctionDiffDTO {
+
+    private String commitId;
+
+    private String filePath;
+
+    private String functionName;
+
+    /**
+     * Line range of the function in the parent commit, null if the function did not exist.
+     */
+    private Integer oldStartLine;
+
+    private Integer oldEndLine;
+
+    /**
+     * Line range of the function in this commit, null if the function was removed.
+     */
+    private Integer newStartLine;
+
+    private Integer newEndLine;
+
+    private int added;
+
+    private int deleted;
+
+    /**
+     * Unified-diff hunks limited to the function body, using file line numbers.
+     */
+    private String patch;
+
+    public FunctionDiffDTO() {
+    }
+
+    public FunctionDiffDTO(String commitId, String filePath, String functionName) {
+        this.commitId = commitId;
+        this.filePath = filePath;
+        this.functionName = functionName;
+    }
+
+    public String getCommitId() {
+        return commitId;
+    }
+
+    public void setCommitId(String commitId) {
+        this.commitId = commitId;
+    }
+
+    public String getFilePath() {
+        return filePath;
+    }
+
+    public void setFilePath(String filePath) {
+        this.filePath = filePath;
+    }
+
+    public String getFunctionName() {
+        return functionName;
+    }
+
+    public void setFunctionName(String functionName) {
+        this.functionName = functionName;
+    }
+
+    public Integer getOldStartLine() {
+        return oldStartLine;
+    }
+
+    public void setOldStartLine(Integer oldStartLine) {
+        this.oldStartLine = oldStartLine;
+    }
+
+    public Integer getOldEndLine() {
+        return oldEndLine;
+    }
+
+    public void setOldEndLine(Integer oldEndLine) {
+        this.oldEndLine = oldEndLine;
+    }
+
+    public Integer getNewStartLine() {
+        return newStartLine;
+    }
+
+    public void setNewStartLine(Integer newStartLine) {
+        this.newStartLine = newStartLine;
+    }
+
+    public Integer getNewEndLine() {
+        return newEndLine;
+    }
+
+    public void setNewEndLine(Integer newEndLine) {
+        this.newEndLine = newEndLine;
+    }
+
+    public int getAdded() {
+        return added;
+    }
+
+    public void setAdded(int added) {
+        this.added = added;
+    }
+
+    public int getDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(int deleted) {
+        this.deleted = deleted;
+    }
+
+    public String getPatch() {
+        return patch;
+    }
+
+    public void setPatch(String patch) {
+        this.patch = patch;
+    }
+}
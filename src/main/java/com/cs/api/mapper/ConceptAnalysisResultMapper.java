@@ -0,0 +1,47 @@
+package com.cs.api.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.cs.api.dto.ConceptAnalysisResultDTO;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+/**
+ * 概念分析结果数据访问层
+ *
+ * @author YK
+ * @since 1.0.0
+ */
+@Mapper
+public interface ConceptAnalysisResultMapper extends BaseMapper<ConceptAnalysisResultDTO> {
+
+    /**
+     * 根据结果类型、概念和结果键查询已保存的结果
+     *
+     * @param resultType 结果类型
+     * @param concept 概念名称
+     * @param resultKey 结果键
+     * @return 已保存的结果，不存在时返回null
+     */
+    @Select("SELECT * FROM concept_analysis_result WHERE result_type = #{resultType} AND concept = #{concept} AND result_key = #{resultKey}")
+    ConceptAnalysisResultDTO findByKey(@Param("resultType") String resultType,
+                                       @Param("concept") String concept,
+                                       @Param("resultKey") String resultKey);
+
+    /**
+     * 保存结果，已存在时覆盖数据版本和内容
+     *
+     * @param result 结果对象
+     * @return 影响行数
+     */
+    @Insert({
+        "INSERT INTO concept_analysis_result (result_type, concept, result_key, data_version, payload)",
+        "VALUES (#{result.resultType}, #{result.concept}, #{result.resultKey}, #{result.dataVersion}, #{result.payload})",
+        "ON DUPLICATE KEY UPDATE",
+        "data_version = VALUES(data_version),",
+        "payload = VALUES(payload),",
+        "update_time = CURRENT_TIMESTAMP"
+    })
+    int upsert(@Param("result") ConceptAnalysisResultDTO result);
+}
@@ -3,11 +3,17 @@ package com.cs.api.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.cs.api.dto.EntityExtractionDTO;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.ResultType;
 import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.session.ResultHandler;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 实体提取数据访问层
@@ -37,6 +43,70 @@ public interface EntityExtractionMapper extends BaseMapper<EntityExtractionDTO>
     @Select("SELECT * FROM entities_extraction WHERE feature_id = #{featureId}")
     List<EntityExtractionDTO> findByFeatureId(@Param("featureId") Integer featureId);
     
+    /**
+     * 根据一组特征ID批量查询实体（仅返回name_en和feature_id列）
+     * 用于概念关系发现，避免逐个featureId查询
+     * 
+     * @param featureIds 特征ID集合（不能为空）
+     * @return 实体列表，只填充nameEn和featureId
+     */
+    @Select({
+        "<script>",
+        "SELECT name_en, feature_id FROM entities_extraction WHERE feature_id IN",
+        "<foreach collection='featureIds' item='featureId' open='(' separator=',' close=')'>",
+        "#{featureId}",
+        "</foreach>",
+        "</script>"
+    })
+    List<EntityExtractionDTO> findNameEnByFeatureIds(@Param("featureIds") Collection<Integer> featureIds);
+    
+    /**
+     * 根据一组英文名称批量查询其所在的特征（仅返回name_en和feature_id列）
+     * 用于概念关系的多跳扩展
+     * 
+     * @param nameEns 英文名称集合（不能为空）
+     * @return 实体列表，只填充nameEn和featureId
+     */
+    @Select({
+        "<script>",
+        "SELECT name_en, feature_id FROM entities_extraction WHERE name_en IN",
+        "<foreach collection='nameEns' item='nameEn' open='(' separator=',' close=')'>",
+        "#{nameEn}",
+        "</foreach>",
+        "</script>"
+    })
+    List<EntityExtractionDTO> findFeatureIdByNameEns(@Param("nameEns") Collection<String> nameEns);
+    
+    /**
+     * 按特征ID汇总实体数量和最近更新时间
+     * 用于计算一组feature的数据指纹，判断已保存的分析结果是否失效
+     *
+     * @param featureIds 特征ID集合（不能为空）
+     * @return 每个feature一行，包含featureId、entityCount、lastUpdate、maxEid
+     */
+    @Select({
+        "<script>",
+        "SELECT feature_id AS featureId, COUNT(*) AS entityCount, MAX(update_time) AS lastUpdate, MAX(eid) AS maxEid",
+        "FROM entities_extraction WHERE feature_id IN",
+        "<foreach collection='featureIds' item='featureId' open='(' separator=',' close=')'>",
+        "#{featureId}",
+        "</foreach>",
+        "GROUP BY feature_id ORDER BY feature_id",
+        "</script>"
+    })
+    List<Map<String, Object>> summarizeByFeatureIds(@Param("featureIds") Collection<Integer> featureIds);
+
+    /**
+     * 流式遍历全部 (name_en, feature_id) 对
+     * 使用MySQL流式结果集，避免一次性把整张表加载到内存，用于构建概念共现图
+     * 
+     * @param handler 逐行处理结果的回调
+     */
+    @Select("SELECT name_en, feature_id FROM entities_extraction WHERE feature_id IS NOT NULL AND name_en IS NOT NULL")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    @ResultType(EntityExtractionDTO.class)
+    void scanNameEnAndFeatureId(ResultHandler<EntityExtractionDTO> handler);
+    
     /**
      * 根据英文名称模糊查询实体
      * 
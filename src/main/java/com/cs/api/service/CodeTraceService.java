@@ -1,7 +1,11 @@
 package com.cs.api.service;
 
+import com.cs.api.dto.CodeTraceBatchResultDTO;
+import com.cs.api.dto.CodeTraceRequestDTO;
 import com.cs.api.dto.CodeTraceResponseDTO;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 
 /**
@@ -24,4 +28,29 @@ public interface CodeTraceService {
      */
     List<CodeTraceResponseDTO> traceMethodHistory(String filePath, String methodName, String version, String targetCommit);
 
+    /**
+     * 追溯指定方法/函数的演化历史
+     * 
+     * @param request 追溯请求，可指定是否返回commit的描述字段
+     * @return 代码追溯响应结果
+     */
+    List<CodeTraceResponseDTO> traceMethodHistory(CodeTraceRequestDTO request);
+
+    /**
+     * 批量追溯多个方法的演化历史，同一文件的方法共享blob和解析结果
+     * 
+     * @param requests 追溯请求列表
+     * @return 全部方法追溯完成时结束的Future，结果与请求顺序一致
+     */
+    CompletableFuture<List<CodeTraceBatchResultDTO>> traceMethodHistoryBatch(List<CodeTraceRequestDTO> requests);
+
+    /**
+     * 批量追溯多个方法的演化历史，每个方法完成后立即回调
+     * 
+     * @param requests 追溯请求列表
+     * @param onResult 单个方法追溯完成时的回调，可能在不同线程中并发调用
+     * @return 全部方法追溯完成时结束的Future
+     */
+    CompletableFuture<Void> traceMethodHistoryBatch(List<CodeTraceRequestDTO> requests, Consumer<CodeTraceBatchResultDTO> onResult);
+
 }
\ No newline at end of file
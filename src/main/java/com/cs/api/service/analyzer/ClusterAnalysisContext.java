@@ -0,0 +1,123 @@
+package com.cs.api.service.analyzer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 单次代码聚类分析的工作上下文
+ * 一次 analyzeCodeClusters 中，同一文件会被提取代码行时逐行读取、获取完整代码片段时逐行解析。
+ * 该上下文随请求传递，保存文件内容和CDT解析结果：每个 (版本, 文件) 在一次请求内最多读取一次、解析一次。
+ * 两个映射的值为 CompletableFuture，正在加载的文件也在其中：并发请求同一文件时只有第一个线程执行加载，
+ * 其余线程等待同一结果。请求结束后随上下文一起释放，不跨请求共享。
+ *
+ * @author YK
+ * @since 1.0.0
+ */
+public class ClusterAnalysisContext {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterAnalysisContext.class);
+
+    private final String kernelSourcePath;
+
+    // "版本:文件路径" -> 文件内容（文件不存在或读取失败时为空）
+    private final ConcurrentMap<String, CompletableFuture<Optional<SourceFile>>> files = new ConcurrentHashMap<>();
+
+    // "版本:文件路径" -> CDT解析结果（解析失败时为空）
+    private final ConcurrentMap<String, CompletableFuture<Optional<KernelCodeAnalyzer.ParsedSource>>> parsedSources = new ConcurrentHashMap<>();
+
+    private final AtomicInteger fileReads = new AtomicInteger();
+    private final AtomicInteger parses = new AtomicInteger();
+
+    public ClusterAnalysisContext(String kernelSourcePath) {
+        this.kernelSourcePath = kernelSourcePath;
+    }
+
+    /**
+     * 读取文件的所有行
+     *
+     * @param version 版本标签或提交ID
+     * @param filePath 文件路径（相对于内核源码根目录）
+     * @return 文件行列表，文件不存在或读取失败时返回null
+     */
+    public List<String> lines(String version, String filePath) {
+        return file(version, filePath).map(SourceFile::lines).orElse(null);
+    }
+
+    /**
+     * 获取文件的CDT解析结果
+     *
+     * @param version 版本标签或提交ID
+     * @param filePath 文件路径（相对于内核源码根目录）
+     * @return 解析结果，文件不存在或解析失败时返回null
+     */
+    public KernelCodeAnalyzer.ParsedSource parsedSource(String version, String filePath) {
+        return loadOnce(parsedSources, key(version, filePath), () -> file(version, filePath).map(source -> {
+            parses.incrementAndGet();
+            return KernelCodeAnalyzer.parseSource(filePath, source.content());
+        })).orElse(null);
+    }
+
+    /**
+     * 读取的文件数和解析的文件数，用于日志
+     */
+    public String statistics() {
+        return String.format("读取文件%d次, 解析文件%d次", fileReads.get(), parses.get());
+    }
+
+    private Optional<SourceFile> file(String version, String filePath) {
+        return loadOnce(files, key(version, filePath), () -> {
+            fileReads.incrementAndGet();
+            try {
+                byte[] content = KernelCodeAnalyzer.readFile(kernelSourcePath, filePath, version);
+                if (content == null) {
+                    logger.debug("文件不存在: file={}, version={}", filePath, version);
+                    return Optional.empty();
+                }
+                return Optional.of(new SourceFile(content, new String(content, StandardCharsets.UTF_8).lines().toList()));
+            } catch (IOException e) {
+                logger.debug("读取文件失败: file={}, version={}, error={}", filePath, version, e.getMessage());
+                return Optional.empty();
+            }
+        });
+    }
+
+    /**
+     * 同一key只执行一次加载：第一个调用者在自己的线程中加载，其余调用者等待同一个future
+     * 加载在映射的锁之外执行，不阻塞其他key
+     */
+    private static <T> Optional<T> loadOnce(ConcurrentMap<String, CompletableFuture<Optional<T>>> map,
+                                            String key, Supplier<Optional<T>> loader) {
+        CompletableFuture<Optional<T>> created = new CompletableFuture<>();
+        CompletableFuture<Optional<T>> existing = map.putIfAbsent(key, created);
+        if (existing != null) {
+            return existing.join();
+        }
+        try {
+            Optional<T> value = loader.get();
+            created.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            logger.warn("加载失败: key={}, error={}", key, e.getMessage());
+            return Optional.empty();
+        } finally {
+            // 加载失败时也要结束future，避免等待的线程一直阻塞
+            created.complete(Optional.empty());
+        }
+    }
+
+    private static String key(String version, String filePath) {
+        return version + ":" + filePath;
+    }
+
+    private record SourceFile(byte[] content, List<String> lines) {}
+}
@@ -1,18 +1,34 @@
 package com.cs.api.service.analyzer;
 
+import com.cs.api.common.cache.BoundedCache;
+import com.cs.api.common.process.ProcessRunner;
 import com.cs.api.dto.CommitDetailsDTO;
+import com.cs.api.dto.FunctionDiffDTO;
 import com.cs.api.dto.TrackerApiResponseDTO;
 import com.cs.api.dto.CodeTraceResponseDTO;
+import com.cs.api.dto.CodeTraceResultDTO;
+import com.cs.api.service.cache.CommitMetadataStore;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Analyzes the evolution of a piece of code by identifying key commits.
@@ -26,83 +42,468 @@ public class CodeEvolutionAnalyzer {
     private static final Logger logger = LoggerFactory.getLogger(CodeEvolutionAnalyzer.class);
 
     /**
-     * 使用大语言模型获取关键的变更.
-     * TODO: 可以先通过启发式规则，减少大模型的调用次数.
-     * 
-     * @param commitHistory 代码变更的完整历史.
-     * @return 关键的版本历史.
+     * 标题中表示无实质变化的关键字（空白、格式、拼写等清理类提交）
      */
-    public List<CodeTraceResponseDTO> filterKeyCommits(List<CodeTraceResponseDTO> codeTraceHistroy) {
+    private static final Pattern CLEANUP_TITLE = Pattern.compile(
+        "(?i)\\b(white\\s*space|cleanup|clean\\s+up|coding\\s+style|checkpatch|typo|spelling|indent(ation)?|comment(s)?|reformat|trivial)\\b");
+
+    private static final Pattern TOKEN = Pattern.compile("[A-Za-z_]\\w*|\\d+|\\S");
+
+    /**
+     * 函数级diff的LCS表格上限（行数乘积），超过时整体替换
+     */
+    private static final long MAX_LCS_CELLS = 4_000_000L;
+
+    // git show 输出中提交信息的结束标记，之后为patch
+    private static final char COMMIT_RECORD_END = '\u001e';
+
+    // git show 的超时时间
+    private static final long GIT_SHOW_TIMEOUT_SECONDS = 30;
+
+    /**
+     * 启发式筛选后保留的关键commit数量，不大于0时不筛选
+     */
+    @Value("${code-trace.evolution.key-commits:10}")
+    private int keyCommitLimit;
+
+    /**
+     * 按blob缓存的文件行和声明索引数量
+     */
+    @Value("${code-trace.diff.index-cache-size:64}")
+    private int indexCacheSize;
+
+    /**
+     * 函数级diff的上下文行数
+     */
+    @Value("${code-trace.diff.context-lines:3}")
+    private int contextLines;
+
+    @Autowired
+    private CommitMetadataStore commitMetadataStore;
 
-        
-        return codeTraceHistroy;
+    private BoundedCache<String, Optional<IndexedBlob>> indexCache;
+
+    @PostConstruct
+    public void init() {
+        this.indexCache = new BoundedCache<>("declarationIndexByBlob", indexCacheSize, Duration.ofDays(3650));
     }
 
+    /**
+     * 使用大语言模型获取关键的变更前，先通过启发式规则筛选出关键commit，
+     * 后续大模型调用次数只与保留数量有关，与历史长度无关。
+     * 评分依据：commit的增删行数、相邻版本函数体的token差异、标题模式（Revert、Merge、清理类）和版本边界，
+     * 函数首次出现的commit始终保留。
+     *
+     * @param codeTraceHistroy 代码变更的完整历史（从新到旧）
+     * @return 关键的版本历史，保持原有顺序
+     */
+    public List<CodeTraceResponseDTO> filterKeyCommits(List<CodeTraceResponseDTO> codeTraceHistroy) {
+        if (codeTraceHistroy == null || keyCommitLimit <= 0) {
+            return codeTraceHistroy;
+        }
+        List<Integer> candidates = new ArrayList<>();
+        for (int i = 0; i < codeTraceHistroy.size(); i++) {
+            CodeTraceResponseDTO response = codeTraceHistroy.get(i);
+            if (response != null && response.isSuccess() && response.getCommitHistory() != null) {
+                candidates.add(i);
+            }
+        }
+        if (candidates.size() <= keyCommitLimit) {
+            return candidates.stream().map(codeTraceHistroy::get).toList();
+        }
+
+        double[] scores = scoreCommits(candidates.stream().map(codeTraceHistroy::get).toList());
+        // 按分数从高到低排序，同分时新的commit优先，保证结果确定
+        List<Integer> ranked = new ArrayList<>();
+        for (int i = 0; i < candidates.size(); i++) {
+            ranked.add(i);
+        }
+        ranked.sort(Comparator.comparingDouble((Integer i) -> -scores[i]).thenComparingInt(i -> i));
+
+        boolean[] keep = new boolean[candidates.size()];
+        for (int i = 0; i < keyCommitLimit; i++) {
+            keep[ranked.get(i)] = true;
+        }
+        List<CodeTraceResponseDTO> keyCommits = new ArrayList<>();
+        for (int i = 0; i < candidates.size(); i++) {
+            if (keep[i]) {
+                keyCommits.add(codeTraceHistroy.get(candidates.get(i)));
+            }
+        }
+        logger.debug("关键commit筛选: 历史={}, 保留={}", codeTraceHistroy.size(), keyCommits.size());
+        return keyCommits;
+    }
 
     /**
-     * Retrieves the commit message and patch (diff) for a specific commit and file.
+     * 计算每个commit的启发式分数
      *
-     * @param kernelSourcePath The absolute path to the kernel source code repository.
-     * @param filePath         The path of the file relative to the repository root.
-     * @param commitId         The ID of the commit.
-     * @return A DTO containing the commit message and patch, or null if an error occurs.
+     * @param history 成功的追溯结果（从新到旧）
+     * @return 与history一一对应的分数，函数首次出现的commit为正无穷
      */
-    public CommitDetailsDTO getCommitDetails(String kernelSourcePath, String filePath, String commitId) {
-        logger.debug("Getting details for commit: {}, file: {}", commitId, filePath);
+    double[] scoreCommits(List<CodeTraceResponseDTO> history) {
+        double[] scores = new double[history.size()];
+        int oldest = history.size() - 1;
+        for (int i = 0; i < history.size(); i++) {
+            CodeTraceResponseDTO response = history.get(i);
+            CodeTraceResultDTO commit = response.getCommitHistory();
+            if (i == oldest) {
+                scores[i] = Double.POSITIVE_INFINITY;
+                continue;
+            }
+            CodeTraceResponseDTO previous = history.get(i + 1);
 
-        // The command to get the commit message and the patch for the specific file
-        ProcessBuilder pb = new ProcessBuilder("git", "show", "--pretty=fuller", "--patch", commitId, "--", filePath);
-        pb.directory(new File(kernelSourcePath));
+            int churn = nullToZero(commit.getAdded()) + nullToZero(commit.getDeleted());
+            double score = Math.log1p(churn);
+            if (response.isUnchangedSincePrevious()) {
+                // 文件内容未变化，函数体一定未变化
+                score *= 0.1;
+            } else if (response.getCodeSnippet() != null && previous.getCodeSnippet() != null) {
+                int bodyDelta = tokenDiffSize(previous.getCodeSnippet(), response.getCodeSnippet());
+                score = bodyDelta == 0 ? score * 0.1 : score + 2 * Math.log1p(bodyDelta);
+            }
 
-        try {
-            Process process = pb.start();
+            String title = commit.getCommitTitle() != null ? commit.getCommitTitle() : "";
+            if (title.startsWith("Merge ")) {
+                score *= 0.2;
+            } else if (title.startsWith("Revert ")) {
+                score *= 0.5;
+            } else if (CLEANUP_TITLE.matcher(title).find()) {
+                score *= 0.3;
+            }
 
-            StringBuilder output = new StringBuilder();
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    output.append(line).append("\n");
-                }
+            // 版本边界：该版本中第一次修改此函数的commit
+            if (commit.getVersion() != null && previous.getCommitHistory() != null
+                    && !commit.getVersion().equals(previous.getCommitHistory().getVersion())) {
+                score += 1;
             }
+            scores[i] = score;
+        }
+        return scores;
+    }
 
-            boolean finished = process.waitFor(30, TimeUnit.SECONDS);
-            if (!finished) {
-                process.destroyForcibly();
-                logger.warn("Git show command timed out for commit {}", commitId);
-                return null;
+    /**
+     * 两个函数体之间的token差异数（按token多重集合比较，忽略空白和格式）
+     */
+    static int tokenDiffSize(String before, String after) {
+        Map<String, Integer> counts = new HashMap<>();
+        Matcher matcher = TOKEN.matcher(before);
+        while (matcher.find()) {
+            counts.merge(matcher.group(), 1, Integer::sum);
+        }
+        int added = 0;
+        matcher = TOKEN.matcher(after);
+        while (matcher.find()) {
+            Integer count = counts.get(matcher.group());
+            if (count == null || count == 0) {
+                added++;
+            } else {
+                counts.put(matcher.group(), count - 1);
             }
+        }
+        return added + counts.values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    private static int nullToZero(Integer value) {
+        return value != null ? value : 0;
+    }
 
-            if (process.exitValue() != 0) {
-                logger.warn("Git show command failed for commit {} with exit code {}", commitId, process.exitValue());
+    /**
+     * 获取commit中指定函数的diff，只比较父commit和该commit中函数所在的行范围。
+     * 与 getCommitDetails 不同，不输出整个文件的patch；同一blob的文件内容和声明索引只解析一次。
+     *
+     * @param kernelSourcePath 内核源码根路径
+     * @param filePath 文件路径
+     * @param commitId commit ID
+     * @param functionName 函数名
+     * @return 函数级diff，函数在两个版本中都不存在或读取失败时返回null
+     */
+    public FunctionDiffDTO getFunctionDiff(String kernelSourcePath, String filePath, String commitId, String functionName) {
+        try {
+            String parentRef = commitId + "^";
+            Map<String, String> blobIds = KernelCodeAnalyzer.resolveBlobIds(kernelSourcePath, filePath, List.of(commitId, parentRef));
+            String newBlob = blobIds.get(commitId);
+            String oldBlob = blobIds.get(parentRef);
+
+            FunctionDiffDTO diff = new FunctionDiffDTO(commitId, filePath, functionName);
+            List<String> oldLines = List.of();
+            List<String> newLines = List.of();
+            int oldStart = 1;
+            int newStart = 1;
+            IndexedBlob oldIndexed = indexedBlob(kernelSourcePath, filePath, oldBlob);
+            KernelCodeAnalyzer.DeclarationRange oldRange = oldIndexed != null ? oldIndexed.declarations().get(functionName) : null;
+            if (oldRange != null) {
+                oldLines = oldIndexed.lines(oldRange);
+                oldStart = oldRange.startLine();
+                diff.setOldStartLine(oldRange.startLine());
+                diff.setOldEndLine(oldRange.endLine());
+            }
+            IndexedBlob newIndexed = indexedBlob(kernelSourcePath, filePath, newBlob);
+            KernelCodeAnalyzer.DeclarationRange newRange = newIndexed != null ? newIndexed.declarations().get(functionName) : null;
+            if (newRange != null) {
+                newLines = newIndexed.lines(newRange);
+                newStart = newRange.startLine();
+                diff.setNewStartLine(newRange.startLine());
+                diff.setNewEndLine(newRange.endLine());
+            }
+            if (oldRange == null && newRange == null) {
+                logger.debug("函数在commit {} 及其父commit中都不存在: {} {}", commitId, filePath, functionName);
                 return null;
             }
 
-            String fullOutput = output.toString();
-            String commitMessage = extractCommitMessage(fullOutput);
-            String patch = extractPatch(fullOutput);
+            int[] stat = new int[2];
+            diff.setPatch(unifiedDiff(oldLines, oldStart, newLines, newStart, contextLines, stat));
+            diff.setAdded(stat[0]);
+            diff.setDeleted(stat[1]);
+            return diff;
+        } catch (IOException | UncheckedIOException e) {
+            logger.warn("获取函数级diff失败: commit={}, file={}, function={}, error={}", commitId, filePath, functionName, e.getMessage());
+            return null;
+        }
+    }
 
-            return new CommitDetailsDTO(commitId, commitMessage, patch);
+    /**
+     * 获取blob的声明索引，按blob ID缓存
+     * 只缓存实际完成解析的结果（包括解析失败）；读取blob失败时抛出异常，不写入缓存，下次请求重新读取
+     */
+    IndexedBlob indexedBlob(String kernelSourcePath, String filePath, String blobId) {
+        if (blobId == null) {
+            return null;
+        }
+        Optional<IndexedBlob> indexed = indexCache.get(blobId, key -> {
+            try {
+                return indexBlob(kernelSourcePath, filePath, blobId);
+            } catch (IOException e) {
+                logger.warn("读取blob失败: {} {}, error={}", filePath, blobId, e.getMessage());
+                throw new UncheckedIOException(e);
+            }
+        });
+        return indexed != null ? indexed.orElse(null) : null;
+    }
 
-        } catch (IOException | InterruptedException e) {
-            logger.error("Error while executing git show for commit {}: {}", commitId, e.getMessage());
-            Thread.currentThread().interrupt();
+    /**
+     * 读取并解析blob
+     *
+     * @return 解析结果，解析失败时为空；仓库不可用导致未读取到内容时返回null（不缓存）
+     */
+    private Optional<IndexedBlob> indexBlob(String kernelSourcePath, String filePath, String blobId) throws IOException {
+        byte[] content = KernelCodeAnalyzer.readBlob(kernelSourcePath, blobId);
+        if (content == null) {
             return null;
         }
+        Map<String, KernelCodeAnalyzer.DeclarationRange> declarations = KernelCodeAnalyzer.buildDeclarationIndex(filePath, content);
+        if (declarations == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new IndexedBlob(List.of(new String(content, StandardCharsets.UTF_8).split("\\R", -1)), declarations));
+    }
+
+    /**
+     * 生成统一diff格式的hunk，行号为文件中的行号
+     * 基于最长公共子序列，函数体很大时退化为整体替换
+     *
+     * @param stat 输出参数：[新增行数, 删除行数]
+     */
+    static String unifiedDiff(List<String> oldLines, int oldStart, List<String> newLines, int newStart, int context, int[] stat) {
+        int n = oldLines.size();
+        int m = newLines.size();
+        // 操作序列：' ' 相同，'-' 删除，'+' 新增
+        StringBuilder ops = new StringBuilder(n + m);
+        if ((long) n * m > MAX_LCS_CELLS) {
+            ops.append("-".repeat(n)).append("+".repeat(m));
+        } else {
+            int[][] lcs = new int[n + 1][m + 1];
+            for (int i = n - 1; i >= 0; i--) {
+                for (int j = m - 1; j >= 0; j--) {
+                    lcs[i][j] = oldLines.get(i).equals(newLines.get(j))
+                        ? lcs[i + 1][j + 1] + 1
+                        : Math.max(lcs[i + 1][j], lcs[i][j + 1]);
+                }
+            }
+            int i = 0;
+            int j = 0;
+            while (i < n || j < m) {
+                if (i < n && j < m && oldLines.get(i).equals(newLines.get(j))) {
+                    ops.append(' ');
+                    i++;
+                    j++;
+                } else if (i < n && (j == m || lcs[i + 1][j] >= lcs[i][j + 1])) {
+                    // 与git一致，删除行在新增行之前
+                    ops.append('-');
+                    i++;
+                } else {
+                    ops.append('+');
+                    j++;
+                }
+            }
+        }
+
+        StringBuilder patch = new StringBuilder();
+        int opIndex = 0;
+        int oldLine = 0;
+        int newLine = 0;
+        while (opIndex < ops.length()) {
+            // 找到下一处变化，向前取上下文
+            int change = opIndex;
+            while (change < ops.length() && ops.charAt(change) == ' ') {
+                change++;
+            }
+            if (change == ops.length()) {
+                break;
+            }
+            int skip = Math.max(0, change - opIndex - context);
+            oldLine += skip;
+            newLine += skip;
+            int hunkStart = opIndex + skip;
+            // 向后延伸，直到连续的相同行超过两倍上下文
+            int hunkEnd = change;
+            int unchanged = 0;
+            for (int k = change; k < ops.length(); k++) {
+                if (ops.charAt(k) == ' ') {
+                    if (++unchanged > 2 * context) {
+                        break;
+                    }
+                } else {
+                    unchanged = 0;
+                    hunkEnd = k + 1;
+                }
+            }
+            hunkEnd = Math.min(ops.length(), hunkEnd + context);
+
+            StringBuilder body = new StringBuilder();
+            int oldCount = 0;
+            int newCount = 0;
+            int o = oldLine;
+            int nw = newLine;
+            for (int k = hunkStart; k < hunkEnd; k++) {
+                char op = ops.charAt(k);
+                if (op == ' ') {
+                    body.append(' ').append(oldLines.get(o++)).append('\n');
+                    nw++;
+                    oldCount++;
+                    newCount++;
+                } else if (op == '-') {
+                    body.append('-').append(oldLines.get(o++)).append('\n');
+                    oldCount++;
+                    stat[1]++;
+                } else {
+                    body.append('+').append(newLines.get(nw++)).append('\n');
+                    newCount++;
+                    stat[0]++;
+                }
+            }
+            patch.append("@@ -").append(hunkLine(oldStart, oldLine, oldCount)).append(',').append(oldCount)
+                .append(" +").append(hunkLine(newStart, newLine, newCount)).append(',').append(newCount).append(" @@\n")
+                .append(body);
+            oldLine = o;
+            newLine = nw;
+            opIndex = hunkEnd;
+        }
+        return patch.toString();
+    }
+
+    /**
+     * hunk起始行号，与git一致：行数为0时为前一行
+     */
+    private static int hunkLine(int start, int offset, int count) {
+        return count == 0 ? start + offset - 1 : start + offset;
+    }
+
+    /**
+     * 某个blob的文件行和顶层声明索引
+     */
+    private record IndexedBlob(List<String> fileLines, Map<String, KernelCodeAnalyzer.DeclarationRange> declarations) {
+
+        List<String> lines(KernelCodeAnalyzer.DeclarationRange range) {
+            int start = Math.max(1, range.startLine());
+            int end = Math.min(fileLines.size(), range.endLine());
+            return start > end ? List.of() : fileLines.subList(start - 1, end);
+        }
+    }
+
+    /**
+     * Retrieves the commit message and patch (diff) for a specific commit and file.
+     *
+     * @param kernelSourcePath The absolute path to the kernel source code repository.
+     * @param filePath         The path of the file relative to the repository root.
+     * @param commitId         The ID of the commit.
+     * @return A DTO containing the commit message and patch, or null if an error occurs.
+     */
+    public CommitDetailsDTO getCommitDetails(String kernelSourcePath, String filePath, String commitId) {
+        return getCommitDetails(kernelSourcePath, filePath, List.of(commitId)).get(commitId);
+    }
+
+    /**
+     * 批量获取多个commit的提交信息和文件patch
+     * 提交信息和作者信息通过 CommitMetadataStore 一次批量读取（已缓存的commit不启动git），
+     * 每个commit只执行一次不带提交信息的 git show 获取patch。
+     * 只请求一个commit且未缓存时不单独调用 git log，由 git show 同时输出提交信息和patch；
+     * 两种情况下提交信息格式相同
+     *
+     * @return commitId -> 详情，读取失败的commit不包含在结果中，保持输入顺序
+     */
+    public Map<String, CommitDetailsDTO> getCommitDetails(String kernelSourcePath, String filePath, List<String> commitIds) {
+        Map<String, CommitMetadataStore.CommitMetadata> metadata = commitIds.size() > 1
+            ? commitMetadataStore.getAll(commitIds) : commitMetadataStore.getCached(commitIds);
+        Map<String, CommitDetailsDTO> details = new LinkedHashMap<>();
+        for (String commitId : commitIds) {
+            CommitMetadataStore.CommitMetadata commitMetadata = metadata.get(commitId);
+            String output = gitShow(kernelSourcePath, filePath, commitId, commitMetadata == null);
+            if (output == null) {
+                continue;
+            }
+            String patch = output;
+            if (commitMetadata == null) {
+                // 输出格式: RS + 元数据字段 + RS + patch
+                int end = output.indexOf(COMMIT_RECORD_END, 1);
+                commitMetadata = end > 0 ? CommitMetadataStore.parseRecord(output.substring(1, end)) : null;
+                if (commitMetadata == null) {
+                    logger.warn("无法解析commit {} 的提交信息", commitId);
+                    continue;
+                }
+                patch = output.substring(end + 1);
+                commitMetadataStore.put(commitMetadata);
+            }
+            details.put(commitId, new CommitDetailsDTO(commitId, formatCommitMessage(commitMetadata), patch.trim()));
+        }
+        return details;
     }
 
-    private String extractCommitMessage(String gitShowOutput) {
-        int patchStart = gitShowOutput.indexOf("\ndiff --git");
-        if (patchStart != -1) {
-            return gitShowOutput.substring(0, patchStart).trim();
+    /**
+     * 执行 git show 获取commit中指定文件的patch
+     *
+     * @param withMessage 是否在patch之前输出 CommitMetadataStore.GIT_FORMAT 格式的提交信息
+     * @return 命令输出，失败时返回null
+     */
+    private String gitShow(String kernelSourcePath, String filePath, String commitId, boolean withMessage) {
+        logger.debug("Getting details for commit: {}, file: {}", commitId, filePath);
+
+        ProcessBuilder pb = new ProcessBuilder("git", "show",
+            "--format=" + (withMessage ? CommitMetadataStore.GIT_FORMAT + COMMIT_RECORD_END : ""),
+            "--patch", commitId, "--", filePath);
+        pb.directory(new File(kernelSourcePath));
+
+        try {
+            return new String(ProcessRunner.run(pb, null, GIT_SHOW_TIMEOUT_SECONDS), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            logger.warn("Git show command failed for commit {}: {}", commitId, e.getMessage());
+            return null;
         }
-        return gitShowOutput.trim(); // No patch found, the whole output is the message
     }
 
-    private String extractPatch(String gitShowOutput) {
-        int patchStart = gitShowOutput.indexOf("\ndiff --git");
-        if (patchStart != -1) {
-            return gitShowOutput.substring(patchStart).trim();
+    /**
+     * 按 git show --pretty=fuller 的布局输出提交信息，时间为带时区偏移的ISO 8601格式
+     */
+    private static String formatCommitMessage(CommitMetadataStore.CommitMetadata metadata) {
+        StringBuilder message = new StringBuilder();
+        message.append("commit ").append(metadata.commitId()).append('\n');
+        message.append("Author:     ").append(metadata.authorName()).append(" <").append(metadata.authorEmail()).append(">\n");
+        message.append("AuthorDate: ").append(metadata.authorTime()).append('\n');
+        message.append("Commit:     ").append(metadata.committerName()).append(" <").append(metadata.committerEmail()).append(">\n");
+        message.append("CommitDate: ").append(metadata.commitTime()).append('\n');
+        message.append('\n');
+        for (String line : metadata.message().strip().split("\n", -1)) {
+            message.append("    ").append(line).append('\n');
         }
-        return ""; // No patch found
+        return message.toString().trim();
     }
 }
@@ -0,0 +1,388 @@
+package com.cs.api.service.analyzer;
+
+import com.cs.api.mapper.EntityExtractionMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 概念共现图
+ * 基于entities_extraction离线构建的内存邻接结构：概念映射为int id，
+ * 两个概念出现在同一个feature中即视为共现，边权为共享feature的数量。
+ * 邻接关系以CSR数组存储，每个概念的邻居按边权降序排列；
+ * 重新加载时整体构建新快照后原子替换，读取方无需加锁。
+ *
+ * @author YK
+ * @since 1.0.0
+ */
+@Component
+public class ConceptCooccurrenceGraph {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConceptCooccurrenceGraph.class);
+
+    @Autowired
+    private EntityExtractionMapper entityExtractionMapper;
+
+    @Value("${concept.graph.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 定时重建间隔（分钟），小于等于0时只在启动时构建一次
+     */
+    @Value("${concept.graph.refresh-minutes:60}")
+    private long refreshMinutes;
+
+    /**
+     * 单个feature的实体数超过该值时不参与共现计算，避免超大feature产生平方级的边
+     */
+    @Value("${concept.graph.max-feature-size:200}")
+    private int maxFeatureSize;
+
+    private volatile Snapshot snapshot;
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            logger.info("概念共现图未启用");
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "concept-graph-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (refreshMinutes > 0) {
+            scheduler.scheduleWithFixedDelay(this::reload, 0, refreshMinutes, TimeUnit.MINUTES);
+        } else {
+            scheduler.execute(this::reload);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * 从数据库重新构建共现图并原子替换当前快照
+     */
+    public void reload() {
+        long start = System.currentTimeMillis();
+        try {
+            Builder builder = new Builder();
+            entityExtractionMapper.scanNameEnAndFeatureId(context -> {
+                var entity = context.getResultObject();
+                builder.add(entity.getNameEn(), entity.getFeatureId());
+            });
+            Snapshot built = builder.build(maxFeatureSize);
+            this.snapshot = built;
+            logger.info("概念共现图构建完成: 概念数={}, 边数={}, 耗时={}ms",
+                built.conceptCount(), built.edgeCount(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            logger.warn("概念共现图构建失败，保留旧快照: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 获取当前快照，尚未构建完成时返回null
+     */
+    public Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * 共现图是否已可用
+     */
+    public boolean isReady() {
+        return snapshot != null;
+    }
+
+    /**
+     * 排序后的关联概念
+     */
+    public static class RankedConcept {
+        private final String name;
+        private final int weight;
+        private final double score;
+        private final int hop;
+
+        RankedConcept(String name, int weight, double score, int hop) {
+            this.name = name;
+            this.weight = weight;
+            this.score = score;
+            this.hop = hop;
+        }
+
+        /** 概念名称 */
+        public String getName() { return name; }
+        /** 与核心概念直接共享的feature数，间接关联为0 */
+        public int getWeight() { return weight; }
+        /** 归一化的关联得分(0,1]，随跳数衰减 */
+        public double getScore() { return score; }
+        /** 距核心概念的跳数 */
+        public int getHop() { return hop; }
+    }
+
+    /**
+     * 不可变的CSR快照
+     */
+    public static final class Snapshot {
+        private static final double HOP_DECAY = 0.5;
+
+        private final String[] names;
+        private final Map<String, Integer> ids;
+        private final int[] offsets;
+        private final int[] neighbors;
+        private final int[] weights;
+
+        Snapshot(String[] names, Map<String, Integer> ids, int[] offsets, int[] neighbors, int[] weights) {
+            this.names = names;
+            this.ids = ids;
+            this.offsets = offsets;
+            this.neighbors = neighbors;
+            this.weights = weights;
+        }
+
+        public int conceptCount() {
+            return names.length;
+        }
+
+        public int edgeCount() {
+            return offsets[names.length];
+        }
+
+        public boolean contains(String concept) {
+            return concept != null && ids.containsKey(concept);
+        }
+
+        /**
+         * 获取与核心概念直接共现的概念及边权，按边权降序
+         */
+        public Map<String, Integer> directNeighbors(String concept, int limit) {
+            Map<String, Integer> result = new LinkedHashMap<>();
+            Integer id = concept != null ? ids.get(concept) : null;
+            if (id == null) {
+                return result;
+            }
+            for (int i = offsets[id]; i < offsets[id + 1] && result.size() < limit; i++) {
+                result.put(names[neighbors[i]], weights[i]);
+            }
+            return result;
+        }
+
+        /**
+         * 按得分对核心概念的多跳邻居排序
+         * 第一跳得分为边权/最大边权，之后每跳乘以归一化边权并衰减；每一跳只展开得分最高的若干节点
+         *
+         * @param concept 核心概念
+         * @param depth 最大跳数(1-3)
+         * @param limit 返回数量上限
+         * @param minNameLength 概念名最短长度（不含）
+         * @return 按得分降序的关联概念
+         */
+        public List<RankedConcept> rankRelated(String concept, int depth, int limit, int minNameLength) {
+            Integer root = concept != null ? ids.get(concept) : null;
+            if (root == null || limit <= 0) {
+                return new ArrayList<>();
+            }
+            int frontierLimit = Math.max(limit * 4, 16);
+
+            Map<Integer, Double> best = new HashMap<>();
+            Map<Integer, Integer> hops = new HashMap<>();
+            Set<Integer> visited = new HashSet<>();
+            visited.add(root);
+
+            Map<Integer, Double> frontier = new HashMap<>();
+            frontier.put(root, 1.0);
+            for (int hop = 1; hop <= depth && !frontier.isEmpty(); hop++) {
+                Map<Integer, Double> next = new HashMap<>();
+                for (Map.Entry<Integer, Double> entry : frontier.entrySet()) {
+                    int u = entry.getKey();
+                    int begin = offsets[u];
+                    int end = offsets[u + 1];
+                    if (begin == end) {
+                        continue;
+                    }
+                    double maxWeight = weights[begin];
+                    double decay = hop == 1 ? 1.0 : HOP_DECAY;
+                    for (int i = begin; i < end; i++) {
+                        int v = neighbors[i];
+                        if (visited.contains(v)) {
+                            continue;
+                        }
+                        double score = entry.getValue() * decay * (weights[i] / maxWeight);
+                        next.merge(v, score, Math::max);
+                    }
+                }
+                visited.addAll(next.keySet());
+                for (Map.Entry<Integer, Double> entry : next.entrySet()) {
+                    best.put(entry.getKey(), entry.getValue());
+                    hops.put(entry.getKey(), hop);
+                }
+                frontier = topEntries(next, frontierLimit);
+            }
+
+            Map<String, Integer> direct = directNeighbors(concept, Integer.MAX_VALUE);
+            List<RankedConcept> ranked = new ArrayList<>();
+            for (Map.Entry<Integer, Double> entry : topEntries(best, best.size()).entrySet()) {
+                String name = names[entry.getKey()];
+                if (name.length() <= minNameLength) {
+                    continue;
+                }
+                ranked.add(new RankedConcept(name, direct.getOrDefault(name, 0), entry.getValue(), hops.get(entry.getKey())));
+                if (ranked.size() >= limit) {
+                    break;
+                }
+            }
+            return ranked;
+        }
+
+        private static Map<Integer, Double> topEntries(Map<Integer, Double> scores, int limit) {
+            Map<Integer, Double> top = new LinkedHashMap<>();
+            scores.entrySet().stream()
+                .sorted((a, b) -> {
+                    int cmp = Double.compare(b.getValue(), a.getValue());
+                    return cmp != 0 ? cmp : Integer.compare(a.getKey(), b.getKey());
+                })
+                .limit(limit)
+                .forEach(e -> top.put(e.getKey(), e.getValue()));
+            return top;
+        }
+    }
+
+    /**
+     * 共现图构建器
+     * 先把 (feature, concept) 编码为long排序去重，再逐行用稠密累加器计算 A·Aᵀ 得到CSR
+     */
+    public static final class Builder {
+        private final Map<String, Integer> conceptIds = new HashMap<>();
+        private final List<String> conceptNames = new ArrayList<>();
+        private final Map<Integer, Integer> featureIndexes = new HashMap<>();
+        private long[] pairs = new long[1024];
+        private int pairCount;
+
+        public void add(String conceptName, Integer featureId) {
+            if (conceptName == null || featureId == null) {
+                return;
+            }
+            int conceptId = conceptIds.computeIfAbsent(conceptName, k -> {
+                conceptNames.add(k);
+                return conceptNames.size() - 1;
+            });
+            int featureIndex = featureIndexes.computeIfAbsent(featureId, k -> featureIndexes.size());
+            if (pairCount == pairs.length) {
+                pairs = Arrays.copyOf(pairs, pairs.length * 2);
+            }
+            pairs[pairCount++] = ((long) featureIndex << 32) | conceptId;
+        }
+
+        public Snapshot build(int maxFeatureSize) {
+            int conceptCount = conceptNames.size();
+            int featureCount = featureIndexes.size();
+
+            // 1. 排序去重 (feature, concept) 对
+            long[] sorted = Arrays.copyOf(pairs, pairCount);
+            Arrays.sort(sorted);
+            int unique = 0;
+            for (int i = 0; i < sorted.length; i++) {
+                if (i == 0 || sorted[i] != sorted[i - 1]) {
+                    sorted[unique++] = sorted[i];
+                }
+            }
+
+            // 2. feature -> concepts 的CSR（已按feature有序）
+            int[] featureOffsets = new int[featureCount + 1];
+            int[] featureMembers = new int[unique];
+            for (int i = 0; i < unique; i++) {
+                featureOffsets[(int) (sorted[i] >>> 32) + 1]++;
+                featureMembers[i] = (int) sorted[i];
+            }
+            for (int f = 0; f < featureCount; f++) {
+                featureOffsets[f + 1] += featureOffsets[f];
+            }
+
+            // 3. concept -> features 的CSR
+            int[] conceptOffsets = new int[conceptCount + 1];
+            for (int i = 0; i < unique; i++) {
+                conceptOffsets[featureMembers[i] + 1]++;
+            }
+            for (int c = 0; c < conceptCount; c++) {
+                conceptOffsets[c + 1] += conceptOffsets[c];
+            }
+            int[] conceptFeatures = new int[unique];
+            int[] cursor = Arrays.copyOf(conceptOffsets, conceptCount);
+            for (int i = 0; i < unique; i++) {
+                conceptFeatures[cursor[featureMembers[i]]++] = (int) (sorted[i] >>> 32);
+            }
+
+            // 4. 逐行累加共现次数，生成按边权降序的邻接CSR
+            int[] offsets = new int[conceptCount + 1];
+            int[] neighbors = new int[Math.max(16, unique)];
+            int[] weights = new int[neighbors.length];
+            int edgeCount = 0;
+            int[] accumulator = new int[conceptCount];
+            int[] touched = new int[conceptCount];
+            for (int u = 0; u < conceptCount; u++) {
+                int touchedCount = 0;
+                for (int i = conceptOffsets[u]; i < conceptOffsets[u + 1]; i++) {
+                    int f = conceptFeatures[i];
+                    if (featureOffsets[f + 1] - featureOffsets[f] > maxFeatureSize) {
+                        continue;
+                    }
+                    for (int j = featureOffsets[f]; j < featureOffsets[f + 1]; j++) {
+                        int v = featureMembers[j];
+                        if (v != u && accumulator[v]++ == 0) {
+                            touched[touchedCount++] = v;
+                        }
+                    }
+                }
+                long[] row = new long[touchedCount];
+                for (int i = 0; i < touchedCount; i++) {
+                    int v = touched[i];
+                    // 高位存放取反的边权，使升序排序即为边权降序、id升序
+                    row[i] = ((long) (Integer.MAX_VALUE - accumulator[v]) << 32) | v;
+                    accumulator[v] = 0;
+                }
+                Arrays.sort(row);
+                if (edgeCount + touchedCount > neighbors.length) {
+                    int capacity = Math.max(neighbors.length * 2, edgeCount + touchedCount);
+                    neighbors = Arrays.copyOf(neighbors, capacity);
+                    weights = Arrays.copyOf(weights, capacity);
+                }
+                for (long packed : row) {
+                    neighbors[edgeCount] = (int) packed;
+                    weights[edgeCount] = Integer.MAX_VALUE - (int) (packed >>> 32);
+                    edgeCount++;
+                }
+                offsets[u + 1] = edgeCount;
+            }
+
+            return new Snapshot(
+                conceptNames.toArray(new String[0]),
+                new HashMap<>(conceptIds),
+                offsets,
+                Arrays.copyOf(neighbors, edgeCount),
+                Arrays.copyOf(weights, edgeCount)
+            );
+        }
+    }
+}
@@ -1,14 +1,17 @@
 package com.cs.api.service.analyzer;
 
+import com.cs.api.common.cache.BoundedCache;
+import com.cs.api.service.cache.WikipediaSummaryStore;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 import jakarta.annotation.PostConstruct;
 
-import java.io.File;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.ProxySelector;
@@ -17,7 +20,7 @@ import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -25,7 +28,7 @@ import java.util.regex.Pattern;
 /**
  * 概念知识分析器
  * 从Linux内核概念知识库中查询概念解释
- * 支持从JSON文件读取数据，并在需要时访问Wikipedia获取详细描述
+ * 知识库JSON文件由ConceptKnowledgeBase加载到内存，并在需要时访问Wikipedia获取详细描述
  * 支持代理访问和优化的Wikipedia内容提取
  * 
  * @author YK
@@ -49,9 +52,32 @@ public class ConceptKnowledgeAnalyzer {
     @Value("${proxy.enabled:true}")
     private boolean proxyEnabled;
     
+    @Autowired
+    private ConceptKnowledgeBase conceptKnowledgeBase;
+    
+    @Autowired
+    private WikipediaSummaryStore wikipediaSummaryStore;
+    
+    // 预取器依赖本类获取摘要，这里延迟注入以避免循环依赖
+    @Lazy
+    @Autowired
+    private WikipediaSummaryPrefetcher wikipediaSummaryPrefetcher;
+    
     private final ObjectMapper objectMapper = new ObjectMapper();
     private HttpClient httpClient; // 改为非final，因为需要在@PostConstruct中初始化
-    private final Map<String, ConceptInfo> conceptCache = new ConcurrentHashMap<>();
+    
+    // 解释缓存配置
+    @Value("${knowledge.cache.max-size:10000}")
+    private int cacheMaxSize;
+    
+    @Value("${knowledge.cache.ttl-minutes:360}")
+    private long cacheTtlMinutes;
+    
+    @Value("${knowledge.cache.failure-ttl-seconds:60}")
+    private long cacheFailureTtlSeconds;
+    
+    // 概念解释缓存，键为 知识库加载代数:概念
+    private BoundedCache<String, CachedExplanation> conceptCache;
 
     public ConceptKnowledgeAnalyzer() {
         // 构造函数中不再初始化httpClient，等待@PostConstruct
@@ -64,6 +90,11 @@ public class ConceptKnowledgeAnalyzer {
     @PostConstruct
     public void init() {
         this.httpClient = createHttpClient();
+        // Wikipedia获取失败的结果只短暂缓存，避免网络恢复后仍长期返回后备解释
+        this.conceptCache = new BoundedCache<>("conceptExplanation", cacheMaxSize,
+            cached -> cached.complete()
+                ? Duration.ofMinutes(cacheTtlMinutes)
+                : Duration.ofSeconds(cacheFailureTtlSeconds));
         logger.info("ConceptKnowledgeAnalyzer初始化完成 - 代理配置: enabled={}, host={}, port={}", 
                    proxyEnabled, proxyHost, proxyPort);
     }
@@ -97,66 +128,35 @@ public class ConceptKnowledgeAnalyzer {
     public ConceptInfo getConceptExplanation(String concept, String contextHint) {
         logger.debug("查询概念解释: concept={}, contextHint={}", concept, contextHint);
         
-        // 1. 尝试从缓存获取
-        // String cacheKey = concept + ":" + (contextHint != null ? contextHint : "");
-        // ConceptInfo cachedInfo = conceptCache.get(cacheKey);
-        // if (cachedInfo != null) {
-        //     logger.debug("从缓存获取概念信息: {}", concept);
-        //     return cachedInfo;
-        // }
-        
-        // 2. 从JSON文件查询
+        // 缓存未命中时加载；同一概念的并发请求只会触发一次加载（包括Wikipedia请求）
+        String cacheKey = conceptKnowledgeBase.getGeneration() + ":" + concept;
+        return conceptCache.get(cacheKey, key -> loadExplanation(concept)).info();
+    }
+    
+    /**
+     * 加载概念解释
+     */
+    private CachedExplanation loadExplanation(String concept) {
+        // 1. 从知识库查询
         ConceptInfo conceptInfo = queryFromJsonFile(concept);
         if (conceptInfo == null) {
             logger.warn("未找到概念信息: {}", concept);
-            return createNotFoundResult(concept);
+            return new CachedExplanation(createNotFoundResult(concept), conceptKnowledgeBase.isLoaded());
         }
         
-        // 3. 构建解释结果
-        ConceptInfo result = buildExplanationResult(concept, conceptInfo);
-        
-        // // 4. 缓存结果
-        // conceptCache.put(cacheKey, result);
-        
-        return result;
+        // 2. 构建解释结果
+        return buildExplanationResult(concept, conceptInfo);
     }
     
     /**
-     * 从JSON文件中查询概念信息
+     * 从常驻内存的知识库中查询概念信息
      */
     private ConceptInfo queryFromJsonFile(String concept) {
-        try {
-            File jsonFile = new File(knowledgeBasePath);
-            if (!jsonFile.exists()) {
-                logger.error("知识库文件不存在: {}", knowledgeBasePath);
-                return null;
-            }
-            
-            JsonNode rootNode = objectMapper.readTree(jsonFile);
-            
-            // 尝试精确匹配
-            JsonNode conceptNode = rootNode.get(concept);
-            if (conceptNode != null) {
-                return parseConceptInfo(concept, conceptNode);
-            }
-            
-            return null;
-            
-        } catch (IOException e) {
-            logger.error("读取知识库文件失败: {}", knowledgeBasePath, e);
+        if (!conceptKnowledgeBase.isLoaded()) {
+            logger.error("知识库尚未加载: {}", knowledgeBasePath);
             return null;
         }
-    }
-    
-    /**
-     * 解析JSON节点为概念信息
-     */
-    private ConceptInfo parseConceptInfo(String concept, JsonNode conceptNode) {
-        String context = getStringValue(conceptNode, "context");
-        String description = getStringValue(conceptNode, "description");
-        String url = getStringValue(conceptNode, "url");
-        
-        return new ConceptInfo(concept, context, description, url);
+        return conceptKnowledgeBase.lookup(concept);
     }
     
     /**
@@ -170,13 +170,27 @@ public class ConceptKnowledgeAnalyzer {
     /**
      * 构建解释结果
      */
-    private ConceptInfo buildExplanationResult(String concept, ConceptInfo conceptInfo) {
+    private CachedExplanation buildExplanationResult(String concept, ConceptInfo conceptInfo) {
         String explanation = conceptInfo.getDescription();
+        boolean complete = true;
         
-        // 如果描述为空，尝试从URL获取
-        if (explanation.isEmpty() && !conceptInfo.getUrl().isEmpty()) {
-            logger.debug("描述为空，尝试从URL获取: {}", conceptInfo.getUrl());
-            explanation = fetchDescriptionFromUrl(conceptInfo.getUrl());
+        // 如果描述为空，优先使用本地保存的Wikipedia摘要
+        String url = conceptInfo.getUrl();
+        if (explanation.isEmpty() && !url.isEmpty()) {
+            String storedSummary = wikipediaSummaryPrefetcher.getSummary(url);
+            if (storedSummary != null) {
+                explanation = storedSummary;
+            } else if (wikipediaSummaryPrefetcher.isEnabled()) {
+                // 预取开启时请求路径不等待Wikipedia，交给后台获取
+                logger.debug("本地无Wikipedia摘要，提交后台获取: {}", url);
+                wikipediaSummaryPrefetcher.submit(url);
+                complete = false;
+            } else {
+                logger.debug("描述为空，尝试从URL获取: {}", url);
+                explanation = fetchDescriptionFromUrl(url);
+                wikipediaSummaryStore.put(url, explanation);
+                complete = !explanation.isEmpty();
+            }
         }
     
         // 最后的后备方案
@@ -184,19 +198,19 @@ public class ConceptKnowledgeAnalyzer {
             explanation = "暂未找到关于 '" + concept + "' 的详细解释。这是一个Linux内核相关的概念。";
         }
         
-        return new ConceptInfo(
+        return new CachedExplanation(new ConceptInfo(
             concept,
             explanation,
             conceptInfo.getContext(),
             conceptInfo.getUrl()
-        );
+        ), complete);
     }
     
     /**
      * 从URL获取描述信息（支持代理访问）
      * 优先使用Wikipedia API，失败时回退到HTML解析
      */
-    private String fetchDescriptionFromUrl(String url) {
+    String fetchDescriptionFromUrl(String url) {
         try {
             logger.debug("正在从URL获取描述: {}", url);
             
@@ -249,44 +263,9 @@ public class ConceptKnowledgeAnalyzer {
      */
     private String fetchFromWikipediaAPI(String wikipediaUrl) {
         try {
-            // 从Wikipedia URL提取页面标题
-            String title = extractWikipediaTitle(wikipediaUrl);
-            if (title.isEmpty()) {
-                logger.debug("无法从URL提取Wikipedia标题: {}", wikipediaUrl);
-                return "";
-            }
-            
-            // 构建API URL
-            String apiUrl = String.format("https://en.wikipedia.org/api/rest_v1/page/summary/%s", 
-                                        java.net.URLEncoder.encode(title, "UTF-8"));
-            
-            logger.debug("调用Wikipedia API: {}", apiUrl);
-            
-            HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(apiUrl))
-                .timeout(Duration.ofSeconds(8))
-                .header("User-Agent", "LinuxKernelAnalyzer/1.0 (https://example.com/contact)")
-                .header("Accept", "application/json")
-                .build();
-            
-            HttpResponse<String> response = httpClient.send(request, 
-                HttpResponse.BodyHandlers.ofString(java.nio.charset.StandardCharsets.UTF_8));
-            
-            if (response.statusCode() == 200) {
-                // 解析JSON响应
-                JsonNode jsonNode = objectMapper.readTree(response.body());
-                String extract = getStringValue(jsonNode, "extract");
-                
-                if (!extract.isEmpty() && extract.length() > 20) {
-                    logger.debug("✅ Wikipedia API返回摘要，长度: {}", extract.length());
-                    return extract;
-                } else {
-                    logger.debug("Wikipedia API返回的摘要为空或太短");
-                }
-            } else {
-                logger.debug("Wikipedia API请求失败，状态码: {}", response.statusCode());
-            }
-            
+            return requestWikipediaSummary(wikipediaUrl);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         } catch (Exception e) {
             logger.debug("Wikipedia API调用失败", e);
         }
@@ -294,6 +273,57 @@ public class ConceptKnowledgeAnalyzer {
         return "";
     }
     
+    /**
+     * 请求Wikipedia页面摘要，区分"没有摘要"和"请求失败"
+     * 页面不存在或摘要为空时返回空字符串；网络错误、超时和非200/404状态码抛出异常，由调用方决定是否重试
+     *
+     * @param wikipediaUrl Wikipedia页面URL
+     * @return 摘要，没有可用摘要时返回空字符串
+     */
+    String requestWikipediaSummary(String wikipediaUrl) throws IOException, InterruptedException {
+        // 从Wikipedia URL提取页面标题
+        String title = extractWikipediaTitle(wikipediaUrl);
+        if (title.isEmpty()) {
+            logger.debug("无法从URL提取Wikipedia标题: {}", wikipediaUrl);
+            return "";
+        }
+        
+        // 构建API URL
+        String apiUrl = String.format("https://en.wikipedia.org/api/rest_v1/page/summary/%s", 
+                                    java.net.URLEncoder.encode(title, java.nio.charset.StandardCharsets.UTF_8));
+        
+        logger.debug("调用Wikipedia API: {}", apiUrl);
+        
+        HttpRequest request = HttpRequest.newBuilder()
+            .uri(URI.create(apiUrl))
+            .timeout(Duration.ofSeconds(8))
+            .header("User-Agent", "LinuxKernelAnalyzer/1.0 (https://example.com/contact)")
+            .header("Accept", "application/json")
+            .build();
+        
+        HttpResponse<String> response = httpClient.send(request, 
+            HttpResponse.BodyHandlers.ofString(java.nio.charset.StandardCharsets.UTF_8));
+        
+        if (response.statusCode() == 404) {
+            logger.debug("Wikipedia页面不存在: {}", wikipediaUrl);
+            return "";
+        }
+        if (response.statusCode() != 200) {
+            throw new IOException("Wikipedia API请求失败，状态码: " + response.statusCode());
+        }
+        
+        // 解析JSON响应
+        JsonNode jsonNode = objectMapper.readTree(response.body());
+        String extract = getStringValue(jsonNode, "extract");
+        
+        if (!extract.isEmpty() && extract.length() > 20) {
+            logger.debug("✅ Wikipedia API返回摘要，长度: {}", extract.length());
+            return extract;
+        }
+        logger.debug("Wikipedia API返回的摘要为空或太短");
+        return "";
+    }
+    
     /**
      * 从Wikipedia URL中提取页面标题
      */
@@ -332,7 +362,7 @@ public class ConceptKnowledgeAnalyzer {
      * 清空缓存
      */
     public void clearCache() {
-        conceptCache.clear();
+        conceptCache.invalidateAll();
         logger.info("概念缓存已清空");
     }
     
@@ -340,9 +370,12 @@ public class ConceptKnowledgeAnalyzer {
      * 获取缓存统计信息
      */
     public Map<String, Object> getCacheStatistics() {
-        Map<String, Object> stats = new ConcurrentHashMap<>();
+        Map<String, Object> stats = new LinkedHashMap<>();
         stats.put("cacheSize", conceptCache.size());
+        stats.put("conceptCache", conceptCache.getStatistics());
+        stats.put("wikipediaPrefetch", wikipediaSummaryPrefetcher.getStatistics());
         stats.put("knowledgeBasePath", knowledgeBasePath);
+        stats.put("knowledgeBaseSize", conceptKnowledgeBase.size());
         stats.put("proxyEnabled", proxyEnabled);
         if (proxyEnabled) {
             stats.put("proxyHost", proxyHost);
@@ -351,6 +384,11 @@ public class ConceptKnowledgeAnalyzer {
         return stats;
     }
     
+    /**
+     * 缓存的解释结果，complete为false表示使用了后备解释（如Wikipedia获取失败）
+     */
+    private record CachedExplanation(ConceptInfo info, boolean complete) {}
+    
     /**
      * 概念信息内部类
      */
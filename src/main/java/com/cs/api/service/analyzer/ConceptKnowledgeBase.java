@@ -0,0 +1,252 @@
+package com.cs.api.service.analyzer;
+
+import com.cs.api.service.analyzer.ConceptKnowledgeAnalyzer.ConceptInfo;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 概念知识库
+ * 启动时以流式方式解析知识库JSON文件（不构建完整的JsonNode树），
+ * 生成不可变的 概念 -> 概念信息 映射常驻内存；文件超过阈值时改用KnowledgeBaseIndex磁盘索引。
+ * 后台按修改时间检测文件变化，重新加载后原子替换。
+ *
+ * @author YK
+ * @since 1.0.0
+ */
+@Component
+public class ConceptKnowledgeBase {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConceptKnowledgeBase.class);
+
+    @Value("${knowledge.base.path:/home/fdse/ytest/LinuxKernelKG/output/processed_entities_for_CL.json}")
+    private String knowledgeBasePath;
+
+    /**
+     * 检查知识库文件是否变化的间隔（秒），小于等于0时不做热加载
+     */
+    @Value("${knowledge.base.reload-check-seconds:30}")
+    private long reloadCheckSeconds;
+
+    /**
+     * 知识库文件超过该大小（MB）时改用磁盘索引，小于等于0时始终加载到内存
+     */
+    @Value("${knowledge.base.index-threshold-mb:512}")
+    private long indexThresholdMb;
+
+    /**
+     * 索引文件路径，为空时使用知识库文件路径加.idx后缀
+     */
+    @Value("${knowledge.base.index-path:}")
+    private String indexFilePath;
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    // 每次成功加载后递增，供上层缓存判断知识库是否已更新
+    private volatile long generation;
+    private ScheduledExecutorService watcher;
+
+    @PostConstruct
+    public void init() {
+        reloadIfChanged();
+        if (reloadCheckSeconds > 0) {
+            watcher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "knowledge-base-watcher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            watcher.scheduleWithFixedDelay(this::reloadIfChanged, reloadCheckSeconds, reloadCheckSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (watcher != null) {
+            watcher.shutdownNow();
+        }
+    }
+
+    /**
+     * 查询概念信息
+     *
+     * @param concept 概念名称（精确匹配）
+     * @return 概念信息，不存在时返回null
+     */
+    public ConceptInfo lookup(String concept) {
+        if (concept == null) {
+            return null;
+        }
+        return snapshot.lookup(concept);
+    }
+
+    /**
+     * 遍历当前快照中的全部概念记录
+     */
+    public void forEach(Consumer<ConceptInfo> action) {
+        Snapshot current = snapshot;
+        if (current.index != null) {
+            current.index.forEach(action);
+        } else {
+            current.entries.values().forEach(action);
+        }
+    }
+
+    /**
+     * 知识库文件是否已成功加载
+     */
+    public boolean isLoaded() {
+        return snapshot.lastModified > 0;
+    }
+
+    /**
+     * 是否使用磁盘索引模式
+     */
+    public boolean isIndexed() {
+        return snapshot.index != null;
+    }
+
+    /**
+     * 已加载的概念数量
+     */
+    public int size() {
+        return snapshot.size();
+    }
+
+    /**
+     * 知识库加载代数，每次重新加载后变化
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    public String getKnowledgeBasePath() {
+        return knowledgeBasePath;
+    }
+
+    /**
+     * 文件的修改时间或大小变化时重新加载
+     */
+    public synchronized void reloadIfChanged() {
+        File file = new File(knowledgeBasePath);
+        if (!file.exists()) {
+            if (snapshot.lastModified == 0) {
+                logger.error("知识库文件不存在: {}", knowledgeBasePath);
+            }
+            return;
+        }
+        Snapshot current = snapshot;
+        long lastModified = file.lastModified();
+        long length = file.length();
+        if (lastModified == current.lastModified && length == current.length) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        try {
+            Snapshot loaded;
+            if (indexThresholdMb > 0 && length >= indexThresholdMb * 1024 * 1024) {
+                // 超过阈值时不把知识库放进堆内存，改用内存映射的有序键索引
+                Path indexPath = indexFilePath.isBlank() ? Path.of(knowledgeBasePath + ".idx") : Path.of(indexFilePath);
+                KnowledgeBaseIndex index = KnowledgeBaseIndex.openOrBuild(file.toPath(), indexPath, jsonFactory);
+                loaded = new Snapshot(Map.of(), index, lastModified, length);
+            } else {
+                loaded = new Snapshot(parse(file), null, lastModified, length);
+            }
+            snapshot = loaded;
+            generation++;
+            logger.info("知识库加载完成: path={}, 模式={}, 概念数={}, 耗时={}ms",
+                knowledgeBasePath, loaded.index != null ? "索引" : "内存", loaded.size(), System.currentTimeMillis() - start);
+        } catch (IOException e) {
+            logger.error("读取知识库文件失败，保留旧数据: {}", knowledgeBasePath, e);
+        }
+    }
+
+    /**
+     * 流式解析知识库文件
+     * 文件格式为 {"概念": {"context": "...", "description": "...", "url": "..."}, ...}
+     */
+    Map<String, ConceptInfo> parse(File file) throws IOException {
+        Map<String, ConceptInfo> entries = new HashMap<>();
+        try (JsonParser parser = jsonFactory.createParser(file)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("知识库文件的顶层不是JSON对象");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String concept = parser.getCurrentName();
+                if (parser.nextToken() != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    continue;
+                }
+                entries.put(concept, readEntry(concept, parser));
+            }
+        }
+        return Map.copyOf(entries);
+    }
+
+    /**
+     * 读取一条概念记录，调用时parser应位于记录的START_OBJECT上
+     */
+    static ConceptInfo readEntry(String concept, JsonParser parser) throws IOException {
+        String context = "";
+        String description = "";
+        String url = "";
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            String value = parser.getValueAsString();
+            parser.skipChildren();
+            value = value != null ? value.trim() : "";
+            switch (field) {
+                case "context" -> context = value;
+                case "description" -> description = value;
+                case "url" -> url = value;
+                default -> { }
+            }
+        }
+        return new ConceptInfo(concept, context, description, url);
+    }
+
+    /**
+     * 不可变的知识库快照，小文件使用堆内Map，大文件使用磁盘索引
+     */
+    private static final class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(Map.of(), null, 0, -1);
+
+        final Map<String, ConceptInfo> entries;
+        final KnowledgeBaseIndex index;
+        final long lastModified;
+        final long length;
+
+        Snapshot(Map<String, ConceptInfo> entries, KnowledgeBaseIndex index, long lastModified, long length) {
+            this.entries = entries;
+            this.index = index;
+            this.lastModified = lastModified;
+            this.length = length;
+        }
+
+        ConceptInfo lookup(String concept) {
+            return index != null ? index.lookup(concept) : entries.get(concept);
+        }
+
+        int size() {
+            return index != null ? index.size() : entries.size();
+        }
+    }
+}
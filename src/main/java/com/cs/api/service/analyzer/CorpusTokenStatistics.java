@@ -0,0 +1,437 @@
+package com.cs.api.service.analyzer;
+
+import com.cs.api.common.cache.BoundedCache;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 内核源码的词文档频率统计
+ * 对某个tag下所有 .c/.h 文件统计每个标识符分词出现在多少个文件中，
+ * 用于代码聚类时自动降低 lock、dev 等在整个内核中普遍出现的词的权重。
+ * <ul>
+ *   <li>全量构建：git ls-tree 列出文件，按blob分片后由多个 git cat-file --batch 进程并行读取</li>
+ *   <li>增量构建：基准tag已有统计文件时，只用 git diff-tree 找出两个tag之间变化的文件，减去旧版本、加上新版本</li>
+ * </ul>
+ * 结果保存为gzip压缩的二进制文件（每个tag一个），查询时按需加载。
+ *
+ * @author YK
+ * @since 1.0.0
+ */
+@Component
+public class CorpusTokenStatistics {
+
+    private static final Logger logger = LoggerFactory.getLogger(CorpusTokenStatistics.class);
+
+    // 文件头魔数 "KDF1"
+    private static final int MAGIC = 0x4B444631;
+
+    private static final String NULL_BLOB = "0000000000000000000000000000000000000000";
+
+    @Value("${kernel.source.path:/home/fdse/ytest/codeMap/linux/repo}")
+    private String kernelSourcePath;
+
+    /**
+     * 统计文件目录
+     */
+    @Value("${cluster.corpus.path:./data/corpus-df}")
+    private String storePath;
+
+    /**
+     * 启动后在后台构建的tag，为空时不构建
+     */
+    @Value("${cluster.corpus.build-tag:}")
+    private String buildTag;
+
+    /**
+     * 增量构建的基准tag，其统计文件不存在时全量构建
+     */
+    @Value("${cluster.corpus.base-tag:}")
+    private String baseTag;
+
+    @Value("${cluster.corpus.parallelism:4}")
+    private int parallelism;
+
+    private BoundedCache<String, Optional<DocumentFrequencyTable>> tables;
+
+    @PostConstruct
+    public void init() {
+        this.tables = new BoundedCache<>("corpusDocumentFrequency", 4, Duration.ofDays(3650));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (buildTag == null || buildTag.isEmpty() || Files.exists(tableFile(buildTag))) {
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                build(buildTag, baseTag);
+            } catch (Exception e) {
+                logger.error("构建词文档频率统计失败: tag={}", buildTag, e);
+            }
+        }, "corpus-df-build");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 获取某个tag的统计表
+     *
+     * @param tag 内核版本tag
+     * @return 统计表，文件不存在或读取失败时返回null
+     */
+    public DocumentFrequencyTable get(String tag) {
+        if (tag == null || tag.isEmpty()) {
+            return null;
+        }
+        return tables.get(tag, key -> Optional.ofNullable(load(key))).orElse(null);
+    }
+
+    /**
+     * 构建并保存某个tag的统计表
+     *
+     * @param tag 内核版本tag
+     * @param fromTag 增量构建的基准tag，为空或其统计文件不存在时全量构建
+     * @return 构建的统计表
+     */
+    public DocumentFrequencyTable build(String tag, String fromTag) throws IOException {
+        long start = System.currentTimeMillis();
+        DocumentFrequencyTable base = fromTag != null && !fromTag.isEmpty() ? load(fromTag) : null;
+        DocumentFrequencyTable table = base != null ? buildIncremental(base, tag) : buildFull(tag);
+        save(table);
+        tables.invalidate(tag);
+        logger.info("词文档频率统计构建完成: tag={}, 基准={}, 文件数={}, 词数={}, 耗时={}ms",
+            tag, base != null ? fromTag : "无", table.documentCount(), table.size(), System.currentTimeMillis() - start);
+        return table;
+    }
+
+    private DocumentFrequencyTable buildFull(String tag) throws IOException {
+        // blob ID -> 使用该blob的文件数（相同内容的文件只读取一次）
+        Map<String, Integer> weights = new HashMap<>();
+        int documentCount = 0;
+        String[] entries = runGit("ls-tree", "-r", "-z", "--full-tree", tag).split("\0");
+        for (String entry : entries) {
+            // 格式: "<mode> blob <oid>\t<path>"
+            int tab = entry.indexOf('\t');
+            if (tab < 0 || !isSourceFile(entry.substring(tab + 1))) {
+                continue;
+            }
+            String[] meta = entry.substring(0, tab).split(" ");
+            if (meta.length == 3 && "blob".equals(meta[1])) {
+                weights.merge(meta[2], 1, Integer::sum);
+                documentCount++;
+            }
+        }
+        return new DocumentFrequencyTable(tag, documentCount, countTokens(weights));
+    }
+
+    private DocumentFrequencyTable buildIncremental(DocumentFrequencyTable base, String tag) throws IOException {
+        // 变化的文件：旧blob权重-1，新blob权重+1
+        Map<String, Integer> weights = new HashMap<>();
+        int documentCount = base.documentCount();
+        String[] fields = runGit("diff-tree", "-r", "-z", "--no-renames", base.tag(), tag).split("\0");
+        for (int i = 0; i + 1 < fields.length; i++) {
+            // 格式: ":<旧mode> <新mode> <旧blob> <新blob> <状态>\0<路径>\0"
+            if (!fields[i].startsWith(":")) {
+                continue;
+            }
+            String[] meta = fields[i].substring(1).split(" ");
+            String path = fields[++i];
+            if (meta.length < 5 || !isSourceFile(path)) {
+                continue;
+            }
+            if (!NULL_BLOB.equals(meta[2])) {
+                weights.merge(meta[2], -1, Integer::sum);
+                documentCount--;
+            }
+            if (!NULL_BLOB.equals(meta[3])) {
+                weights.merge(meta[3], 1, Integer::sum);
+                documentCount++;
+            }
+        }
+        weights.values().removeIf(weight -> weight == 0);
+
+        Map<String, int[]> delta = countTokens(weights);
+        Map<String, int[]> merged = new HashMap<>(base.size() + delta.size());
+        for (int i = 0; i < base.size(); i++) {
+            merged.put(base.tokens[i], new int[] {base.frequencies[i]});
+        }
+        delta.forEach((token, count) -> merged.computeIfAbsent(token, key -> new int[1])[0] += count[0]);
+        logger.debug("增量统计: {} -> {}, 变化的blob={}", base.tag(), tag, weights.size());
+        return new DocumentFrequencyTable(tag, documentCount, merged);
+    }
+
+    /**
+     * 并行读取blob并统计每个词的加权文档数
+     */
+    private Map<String, int[]> countTokens(Map<String, Integer> weights) throws IOException {
+        if (weights.isEmpty()) {
+            return new HashMap<>();
+        }
+        int workers = Math.max(1, Math.min(parallelism, weights.size()));
+        List<List<String>> shards = new ArrayList<>();
+        for (int i = 0; i < workers; i++) {
+            shards.add(new ArrayList<>());
+        }
+        int index = 0;
+        for (String blobId : weights.keySet()) {
+            shards.get(index++ % workers).add(blobId);
+        }
+
+        AtomicInteger threadCounter = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(workers, r -> {
+            Thread thread = new Thread(r, "corpus-df-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<Map<String, int[]>>> futures = new ArrayList<>();
+            for (List<String> shard : shards) {
+                futures.add(executor.submit(() -> countShard(shard, weights)));
+            }
+            Map<String, int[]> counts = new HashMap<>();
+            for (Future<Map<String, int[]>> future : futures) {
+                future.get().forEach((token, count) -> counts.computeIfAbsent(token, key -> new int[1])[0] += count[0]);
+            }
+            return counts;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("统计词文档频率时被中断", e);
+        } catch (ExecutionException e) {
+            throw new IOException("统计词文档频率失败: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 用一个 git cat-file --batch 进程读取一组blob
+     */
+    private Map<String, int[]> countShard(List<String> blobIds, Map<String, Integer> weights) throws IOException {
+        ProcessBuilder pb = new ProcessBuilder("git", "cat-file", "--batch");
+        pb.directory(new File(kernelSourcePath));
+        pb.redirectError(ProcessBuilder.Redirect.DISCARD);
+        Process process = pb.start();
+        // 写入和读取在不同线程进行，避免管道写满造成死锁
+        Thread writer = new Thread(() -> {
+            try (BufferedWriter stdin = new BufferedWriter(
+                    new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8))) {
+                for (String blobId : blobIds) {
+                    stdin.write(blobId);
+                    stdin.newLine();
+                }
+            } catch (IOException e) {
+                logger.debug("写入 git cat-file 失败: {}", e.getMessage());
+            }
+        }, Thread.currentThread().getName() + "-writer");
+        writer.setDaemon(true);
+        writer.start();
+
+        Map<String, int[]> counts = new HashMap<>();
+        Set<String> documentTokens = new HashSet<>();
+        try (InputStream stdout = new BufferedInputStream(process.getInputStream(), 1 << 16)) {
+            for (int i = 0; i < blobIds.size(); i++) {
+                String header = readLine(stdout);
+                if (header == null) {
+                    break;
+                }
+                // 格式: "<oid> blob <size>"，不存在时为 "<oid> missing"
+                String[] parts = header.split(" ");
+                if (parts.length != 3) {
+                    continue;
+                }
+                byte[] content = stdout.readNBytes(Integer.parseInt(parts[2]));
+                stdout.read();
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new IOException("统计任务已取消");
+                }
+                // 标识符只含ASCII字符，按ISO-8859-1解码即可，不做UTF-8校验
+                documentTokens.clear();
+                IdentifierTokenizer.forEachIdentifier(new String(content, StandardCharsets.ISO_8859_1),
+                    identifier -> documentTokens.addAll(IdentifierTokenizer.tokenizeIdentifier(identifier)));
+                int weight = weights.get(parts[0]);
+                for (String token : documentTokens) {
+                    counts.computeIfAbsent(token, key -> new int[1])[0] += weight;
+                }
+            }
+        } finally {
+            process.destroy();
+        }
+        return counts;
+    }
+
+    private DocumentFrequencyTable load(String tag) {
+        Path file = tableFile(tag);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(file))))) {
+            if (in.readInt() != MAGIC) {
+                logger.warn("词文档频率统计文件格式不正确: {}", file);
+                return null;
+            }
+            String fileTag = in.readUTF();
+            int documentCount = in.readInt();
+            int size = in.readInt();
+            String[] tokens = new String[size];
+            int[] frequencies = new int[size];
+            for (int i = 0; i < size; i++) {
+                tokens[i] = in.readUTF();
+                frequencies[i] = in.readInt();
+            }
+            logger.info("加载词文档频率统计: tag={}, 文件数={}, 词数={}", fileTag, documentCount, size);
+            return new DocumentFrequencyTable(fileTag, documentCount, tokens, frequencies);
+        } catch (IOException e) {
+            logger.warn("读取词文档频率统计失败: {}, error={}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    private void save(DocumentFrequencyTable table) throws IOException {
+        Path file = tableFile(table.tag());
+        Files.createDirectories(file.getParent());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(tmp))))) {
+            out.writeInt(MAGIC);
+            out.writeUTF(table.tag());
+            out.writeInt(table.documentCount());
+            out.writeInt(table.size());
+            for (int i = 0; i < table.size(); i++) {
+                out.writeUTF(table.tokens[i]);
+                out.writeInt(table.frequencies[i]);
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Path tableFile(String tag) {
+        return Path.of(storePath).toAbsolutePath().resolve(tag.replaceAll("[^A-Za-z0-9._-]", "_") + ".df.gz");
+    }
+
+    private static boolean isSourceFile(String path) {
+        return path.endsWith(".c") || path.endsWith(".h");
+    }
+
+    private String runGit(String... args) throws IOException {
+        String[] command = new String[args.length + 1];
+        command[0] = "git";
+        System.arraycopy(args, 0, command, 1, args.length);
+        ProcessBuilder pb = new ProcessBuilder(command);
+        pb.directory(new File(kernelSourcePath));
+        pb.redirectError(ProcessBuilder.Redirect.DISCARD);
+        Process process = pb.start();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (InputStream stdout = process.getInputStream()) {
+            stdout.transferTo(output);
+        }
+        try {
+            if (process.waitFor() != 0) {
+                throw new IOException("`git " + args[0] + "` 退出码 " + process.exitValue());
+            }
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+            throw new IOException("等待 `git " + args[0] + "` 时被中断", e);
+        }
+        return output.toString(StandardCharsets.UTF_8);
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(64);
+        int b;
+        while ((b = in.read()) != -1 && b != '\n') {
+            line.write(b);
+        }
+        return b == -1 && line.size() == 0 ? null : line.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 某个tag的词文档频率，词按字典序排列，按二分查找
+     */
+    public static final class DocumentFrequencyTable {
+        private final String tag;
+        private final int documentCount;
+        private final String[] tokens;
+        private final int[] frequencies;
+
+        DocumentFrequencyTable(String tag, int documentCount, String[] tokens, int[] frequencies) {
+            this.tag = tag;
+            this.documentCount = documentCount;
+            this.tokens = tokens;
+            this.frequencies = frequencies;
+        }
+
+        DocumentFrequencyTable(String tag, int documentCount, Map<String, int[]> counts) {
+            this.tag = tag;
+            this.documentCount = documentCount;
+            this.tokens = counts.entrySet().stream()
+                .filter(entry -> entry.getValue()[0] > 0)
+                .map(Map.Entry::getKey)
+                .sorted()
+                .toArray(String[]::new);
+            this.frequencies = new int[tokens.length];
+            for (int i = 0; i < tokens.length; i++) {
+                frequencies[i] = counts.get(tokens[i])[0];
+            }
+        }
+
+        public String tag() {
+            return tag;
+        }
+
+        /**
+         * 统计的文件数
+         */
+        public int documentCount() {
+            return documentCount;
+        }
+
+        public int size() {
+            return tokens.length;
+        }
+
+        /**
+         * 包含该词的文件数，不存在时为0
+         */
+        public int frequency(String token) {
+            int index = Arrays.binarySearch(tokens, token);
+            return index >= 0 ? frequencies[index] : 0;
+        }
+    }
+}
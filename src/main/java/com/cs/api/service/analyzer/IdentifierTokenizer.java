@@ -0,0 +1,169 @@
+package com.cs.api.service.analyzer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * C标识符扫描与分词
+ * 代码聚类中对每一行代码提取标识符、再把标识符拆成词，数量可达数千行。
+ * 这里用手写的单遍扫描代替正则：不编译Pattern、不经过Stream，关键字和停用词表为静态常量。
+ * 结果与原先基于正则的实现一致：
+ * <ul>
+ *   <li>标识符：单词边界处以字母或下划线开头的 [A-Za-z0-9_] 序列，去掉C关键字和单字符，保持首次出现顺序去重</li>
+ *   <li>分词：按下划线和"小写字母后接大写字母"处切分，转小写，去掉单字符，去重</li>
+ * </ul>
+ *
+ * @author YK
+ * @since 1.0.0
+ */
+public final class IdentifierTokenizer {
+
+    private static final Set<String> C_KEYWORDS = Set.of(
+        "auto", "break", "case", "char", "const", "continue", "default", "do",
+        "double", "else", "enum", "extern", "float", "for", "goto", "if",
+        "int", "long", "register", "return", "short", "signed", "sizeof", "static",
+        "struct", "switch", "typedef", "union", "unsigned", "void", "volatile", "while"
+    );
+
+    // C关键字的最大长度（volatile、unsigned、register、continue）
+    private static final int MAX_KEYWORD_LENGTH = 8;
+
+    private static final Set<String> STOP_WORDS = Set.of(
+        // 通用停用词
+        "the", "and", "for", "are", "but", "not", "you", "all", "can", "had", "her", "was", "one", "our", "out",
+        "day", "get", "has", "him", "his", "how", "its", "may", "new", "now", "old", "see", "two", "who", "boy",
+        "did", "use", "way", "she", "many", "some", "time",
+        // 代码领域常见词（与通用停用词重复的"for"只保留一次）
+        "void", "int", "char", "long", "short", "unsigned", "signed", "const", "static", "extern", "auto",
+        "register", "volatile", "inline", "return", "break", "continue", "goto", "case", "default", "switch",
+        "while", "do", "if", "else", "sizeof", "typedef", "struct", "union", "enum",
+        // Linux内核常见词
+        "kernel", "linux", "include", "define", "ifdef", "ifndef", "endif", "undef", "line", "file"
+    );
+
+    private IdentifierTokenizer() {
+    }
+
+    /**
+     * 从一行代码中提取标识符
+     *
+     * @param codeLine 代码行
+     * @return 去重后的标识符（不含C关键字和单字符标识符），按首次出现顺序
+     */
+    public static List<String> extractIdentifiers(CharSequence codeLine) {
+        List<String> identifiers = new ArrayList<>();
+        forEachIdentifier(codeLine, identifier -> {
+            if (!identifiers.contains(identifier)) {
+                identifiers.add(identifier);
+            }
+        });
+        return identifiers;
+    }
+
+    /**
+     * 扫描文本中的标识符（不去重），用于整个文件等较长的文本
+     *
+     * @param text 代码文本
+     * @param consumer 依次接收每个标识符（不含C关键字和单字符标识符）
+     */
+    public static void forEachIdentifier(CharSequence text, Consumer<String> consumer) {
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            char c = text.charAt(i);
+            if (!isWordChar(c)) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < length && isWordChar(text.charAt(i))) {
+                i++;
+            }
+            // 以数字开头的序列（如 0x1f、42UL）不是标识符
+            if (isDigit(c) || i - start < 2 || isCKeyword(text, start, i)) {
+                continue;
+            }
+            consumer.accept(text.subSequence(start, i).toString());
+        }
+    }
+
+    /**
+     * 把标识符拆分为小写的词：先按下划线分割，再按驼峰分割
+     *
+     * @param identifier 标识符
+     * @return 去重后的词（不含单字符），按出现顺序
+     */
+    public static List<String> tokenizeIdentifier(CharSequence identifier) {
+        List<String> tokens = new ArrayList<>(4);
+        int length = identifier.length();
+        int start = 0;
+        for (int i = 0; i <= length; i++) {
+            boolean boundary = i == length || identifier.charAt(i) == '_'
+                || (i > start && isUpper(identifier.charAt(i)) && isLower(identifier.charAt(i - 1)));
+            if (!boundary) {
+                continue;
+            }
+            if (i - start > 1) {
+                String token = identifier.subSequence(start, i).toString().toLowerCase(Locale.ROOT);
+                if (!tokens.contains(token)) {
+                    tokens.add(token);
+                }
+            }
+            start = i < length && identifier.charAt(i) == '_' ? i + 1 : i;
+        }
+        return tokens;
+    }
+
+    /**
+     * 是否为C关键字（不区分大小写）
+     */
+    public static boolean isCKeyword(CharSequence word) {
+        return isCKeyword(word, 0, word.length());
+    }
+
+    /**
+     * 是否为停用词（不区分大小写）
+     */
+    public static boolean isStopWord(String token) {
+        // 已是小写时toLowerCase直接返回原字符串
+        return STOP_WORDS.contains(token.toLowerCase(Locale.ROOT));
+    }
+
+    private static boolean isCKeyword(CharSequence text, int start, int end) {
+        int length = end - start;
+        if (length < 2 || length > MAX_KEYWORD_LENGTH) {
+            return false;
+        }
+        // 关键字都是小写字母，含数字、下划线或非ASCII字符时不可能是关键字
+        char[] lower = new char[length];
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(start + i);
+            if (isUpper(c)) {
+                c = (char) (c + ('a' - 'A'));
+            } else if (!isLower(c)) {
+                return false;
+            }
+            lower[i] = c;
+        }
+        return C_KEYWORDS.contains(new String(lower));
+    }
+
+    private static boolean isWordChar(char c) {
+        return isLower(c) || isUpper(c) || isDigit(c) || c == '_';
+    }
+
+    private static boolean isLower(char c) {
+        return c >= 'a' && c <= 'z';
+    }
+
+    private static boolean isUpper(char c) {
+        return c >= 'A' && c <= 'Z';
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -11,8 +11,13 @@ import org.eclipse.cdt.core.dom.ast.*;
 import org.eclipse.cdt.core.dom.ast.gnu.c.GCCLanguage;
 import org.eclipse.cdt.core.model.ILanguage;
 import org.eclipse.cdt.core.parser.*;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
@@ -54,21 +59,11 @@ public class KernelCodeAnalyzer {
             }
             
             // 使用Eclipse CDT解析文件
-            IASTTranslationUnit translationUnit = parseFile(filePath, fileContentBytes);
-            if (translationUnit == null) {
-                logger.debug("CDT解析失败: {}", filePath);
+            ParsedSource source = parseSource(filePath, fileContentBytes);
+            if (source == null) {
                 return null;
             }
-            
-            // 查找指定行号的代码元素
-            CodeElement element = findElementAtLine(translationUnit, lineNumber);
-            if (element == null) {
-                logger.debug("未找到第{}行的代码元素", lineNumber);
-                return null;
-            }
-            // 提取完整的代码块
-            String fileContent = new String(fileContentBytes);
-            return extractCodeBlock(concept, element, filePath, fileContent, commitId);
+            return findCodeElementByLineNumber(source, concept, lineNumber, commitId);
             
         } catch (Exception e) {
             logger.warn("使用CDT查找代码元素失败: file={}, line={}, error={}", filePath, lineNumber, e.getMessage());
@@ -76,6 +71,92 @@ public class KernelCodeAnalyzer {
         }
     }
 
+    /**
+     * 在已解析的文件中按行号查找代码元素，同一文件的多个行号可复用一次解析结果
+     * 
+     * @param source 已解析的文件
+     * @param lineNumber 目标行号
+     * @param commitId Git提交ID
+     * @return CodeSearchResultDTO 包含完整代码定义的结果，如果未找到返回null
+     */
+    public static CodeSearchResultDTO findCodeElementByLineNumber(ParsedSource source, String concept, int lineNumber, String commitId) throws IOException {
+        // CDT的AST不保证并发访问安全，同一文件的查找串行进行
+        CodeElement element;
+        synchronized (source) {
+            element = findElementAtLine(source.translationUnit, lineNumber);
+        }
+        if (element == null) {
+            logger.debug("未找到第{}行的代码元素", lineNumber);
+            return null;
+        }
+        // 提取完整的代码块
+        return extractCodeBlock(concept, element, source.filePath, source.lines(), commitId);
+    }
+
+    /**
+     * 批量查找多个行号所在的代码元素：文件只获取和解析一次
+     * 
+     * @param filePath 文件路径（相对于内核源码根目录）
+     * @param lineNumbers 目标行号（无需排序，可重复）
+     * @param kernelSourcePath 内核源码根路径
+     * @param commitId Git提交ID
+     * @return 包含这些行的代码元素（去重，按起始行号排列），文件不存在或解析失败时返回空列表
+     */
+    public static List<CodeSearchResultDTO> findCodeElementsByLineNumbers(String filePath, String concept, int[] lineNumbers, String kernelSourcePath, String commitId) {
+        logger.debug("使用Eclipse CDT批量查找代码元素: file={}, lines={}, commitId={}", filePath, lineNumbers.length, commitId);
+        
+        try {
+            byte[] fileContentBytes = getFileContentFromGit(kernelSourcePath, filePath, commitId);
+            if (fileContentBytes == null) {
+                logger.debug("文件 {} 在提交 {} 中不存在", filePath, commitId);
+                return new ArrayList<>();
+            }
+            ParsedSource source = parseSource(filePath, fileContentBytes);
+            if (source == null) {
+                return new ArrayList<>();
+            }
+            return findCodeElementsByLineNumbers(source, concept, lineNumbers, commitId);
+            
+        } catch (Exception e) {
+            logger.warn("使用CDT批量查找代码元素失败: file={}, error={}", filePath, e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * 在已解析的文件中批量查找多个行号所在的代码元素
+     * 行号排序后与按起始行排列的顶层声明区间做一次归并扫描，代价为 O(行数 + 声明数)
+     * 
+     * @param source 已解析的文件
+     * @param lineNumbers 目标行号（无需排序，可重复）
+     * @param commitId Git提交ID
+     * @return 包含这些行的代码元素（去重，按起始行号排列）
+     */
+    public static List<CodeSearchResultDTO> findCodeElementsByLineNumbers(ParsedSource source, String concept, int[] lineNumbers, String commitId) throws IOException {
+        int[] sortedLines = Arrays.stream(lineNumbers).sorted().distinct().toArray();
+        List<CodeElement> declarations = source.declarations();
+        List<CodeSearchResultDTO> results = new ArrayList<>();
+        int index = 0;
+        CodeElement lastMatched = null;
+        for (int lineNumber : sortedLines) {
+            // 跳过在该行之前结束的声明，之后的行号只会更大
+            while (index < declarations.size() && declarations.get(index).endLine < lineNumber) {
+                index++;
+            }
+            if (index == declarations.size()) {
+                break;
+            }
+            CodeElement element = declarations.get(index);
+            if (element.startLine <= lineNumber && element != lastMatched) {
+                results.add(extractCodeBlock(concept, element, source.filePath, source.lines(), commitId));
+                lastMatched = element;
+            }
+        }
+        logger.debug("批量查找完成: file={}, 行数={}, 声明数={}, 代码元素={}",
+            source.filePath, sortedLines.length, declarations.size(), results.size());
+        return results;
+    }
+
     /**
      * 使用Eclipse CDT工具通过标识符名称查找代码元素
      * 
@@ -95,29 +176,249 @@ public class KernelCodeAnalyzer {
                 logger.debug("文件 {} 在提交 {} 中不存在", filePath, commitId);
                 return null;
             }
+            return findCodeElementInContent(filePath, List.of(IdentifierQuery.any(concept)), fileContentBytes, commitId);
             
-            // 使用Eclipse CDT解析文件
-            IASTTranslationUnit translationUnit = parseFile(filePath, fileContentBytes);
-            if (translationUnit == null) {
-                logger.debug("CDT解析失败: {}", filePath);
+        } catch (Exception e) {
+            logger.warn("使用CDT查找代码标识符失败: file={}, identifier={}, error={}", filePath, concept, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 按优先级依次匹配多个候选标识符，文件只获取和解析一次
+     * 
+     * @param filePath 文件路径（相对于内核源码根目录）
+     * @param candidates 候选标识符，按优先级排列
+     * @param kernelSourcePath 内核源码根路径
+     * @param commitId Git提交ID
+     * @return 优先级最高的候选对应的代码元素，都未找到返回null
+     */
+    public static CodeSearchResultDTO findFirstCodeElement(String filePath, List<IdentifierQuery> candidates, String kernelSourcePath, String commitId) {
+        logger.debug("使用Eclipse CDT查找候选标识符: file={}, candidates={}, commitId={}", filePath, candidates, commitId);
+        
+        try {
+            byte[] fileContentBytes = getFileContentFromGit(kernelSourcePath, filePath, commitId);
+            if (fileContentBytes == null) {
+                logger.debug("文件 {} 在提交 {} 中不存在", filePath, commitId);
                 return null;
             }
+            return findCodeElementInContent(filePath, candidates, fileContentBytes, commitId);
             
-            // 查找指定标识符的代码元素
-            CodeElement element = findElementByName(translationUnit, concept);
-            if (element == null) {
-                logger.debug("未找到标识符: {}", concept);
-                return null;
+        } catch (Exception e) {
+            logger.warn("使用CDT查找候选标识符失败: file={}, candidates={}, error={}", filePath, candidates, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 使用Eclipse CDT工具在指定blob中查找代码元素
+     * 内容相同的文件版本对应同一个blob，调用方可以按blob缓存结果，避免重复解析
+     * 
+     * @param filePath 文件路径（用于CDT解析和结果展示）
+     * @param candidates 候选标识符，按优先级排列
+     * @param kernelSourcePath 内核源码根路径
+     * @param blobId 文件内容的blob对象ID
+     * @return CodeSearchResultDTO 包含完整代码定义的结果，如果未找到返回null
+     * @throws IOException 读取blob失败（git超时、对象损坏等），与"未找到"区分，调用方不应缓存
+     */
+    public static CodeSearchResultDTO findFirstCodeElementInBlob(String filePath, List<IdentifierQuery> candidates, String kernelSourcePath, String blobId) throws IOException {
+        logger.debug("使用Eclipse CDT在blob中查找候选标识符: file={}, candidates={}, blob={}", filePath, candidates, blobId);
+        
+        byte[] fileContentBytes = getObjectContentFromGit(kernelSourcePath, blobId);
+        if (fileContentBytes == null) {
+            logger.debug("blob {} 不存在", blobId);
+            return null;
+        }
+        return findCodeElementInContent(filePath, candidates, fileContentBytes, blobId);
+    }
+
+    /**
+     * 在同一个blob中查找多组候选标识符，文件只获取和解析一次
+     * 用于同一文件的多个方法共享解析结果
+     * 
+     * @param filePath 文件路径（用于CDT解析和结果展示）
+     * @param candidatesByKey 每组候选标识符，按优先级排列
+     * @param kernelSourcePath 内核源码根路径
+     * @param blobId 文件内容的blob对象ID
+     * @return 键 -> 代码元素，未找到的键对应null；blob无法读取或解析时返回空映射
+     */
+    public static Map<String, CodeSearchResultDTO> findCodeElementsInBlob(String filePath, Map<String, List<IdentifierQuery>> candidatesByKey, String kernelSourcePath, String blobId) {
+        logger.debug("使用Eclipse CDT在blob中批量查找标识符: file={}, keys={}, blob={}", filePath, candidatesByKey.keySet(), blobId);
+        Map<String, CodeSearchResultDTO> results = new HashMap<>();
+        
+        try {
+            byte[] fileContentBytes = getObjectContentFromGit(kernelSourcePath, blobId);
+            if (fileContentBytes == null) {
+                logger.debug("blob {} 不存在", blobId);
+                return results;
+            }
+            IASTTranslationUnit translationUnit = parseFile(filePath, fileContentBytes);
+            if (translationUnit == null) {
+                logger.debug("CDT解析失败: {}", filePath);
+                return results;
             }
             
-            // 提取完整的代码块
             String fileContent = new String(fileContentBytes);
-            return extractCodeBlock(concept, element, filePath, fileContent, commitId);
+            for (Map.Entry<String, List<IdentifierQuery>> entry : candidatesByKey.entrySet()) {
+                List<IdentifierQuery> candidates = entry.getValue();
+                CandidateFinder finder = new CandidateFinder(candidates);
+                translationUnit.accept(finder);
+                int matched = finder.getBestMatchIndex();
+                results.put(entry.getKey(), matched < 0 ? null
+                    : extractCodeBlock(candidates.get(matched).name(), finder.getMatch(matched), filePath, fileContent, blobId));
+            }
+            return results;
             
         } catch (Exception e) {
-            logger.warn("使用CDT查找代码标识符失败: file={}, identifier={}, error={}", filePath, concept, e.getMessage());
+            logger.warn("使用CDT批量查找标识符失败: file={}, blob={}, error={}", filePath, blobId, e.getMessage());
+            return new HashMap<>();
+        }
+    }
+
+    /**
+     * 批量解析多个提交中指定文件对应的blob ID
+     * 通过一次 git cat-file --batch-check 完成，不读取文件内容
+     * 
+     * @param kernelSourcePath 内核源码根路径
+     * @param filePath 文件路径
+     * @param commitIds 提交ID或版本标签列表
+     * @return 提交ID -> blob ID，文件在该提交中不存在的不包含在结果中
+     */
+    public static Map<String, String> resolveBlobIds(String kernelSourcePath, String filePath, Collection<String> commitIds) throws IOException {
+        Map<String, String> blobIds = new HashMap<>();
+        Set<String> distinctCommits = new LinkedHashSet<>();
+        for (String commitId : commitIds) {
+            if (commitId != null && !commitId.isEmpty()) {
+                distinctCommits.add(commitId);
+            }
+        }
+        File repoDir = new File(kernelSourcePath);
+        if (distinctCommits.isEmpty() || !repoDir.isDirectory()) {
+            return blobIds;
+        }
+
+        ProcessBuilder pb = new ProcessBuilder("git", "cat-file", "--batch-check");
+        pb.directory(repoDir);
+        pb.redirectError(ProcessBuilder.Redirect.DISCARD);
+        Process process = pb.start();
+        try (BufferedWriter stdin = new BufferedWriter(
+                 new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+             BufferedReader stdout = new BufferedReader(
+                 new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            // 逐行写入并读取，避免管道缓冲区写满造成死锁
+            for (String commitId : distinctCommits) {
+                stdin.write(commitId + ":" + filePath);
+                stdin.newLine();
+                stdin.flush();
+                String line = stdout.readLine();
+                if (line == null) {
+                    break;
+                }
+                // 输出格式: "<oid> blob <size>"，不存在时为 "<spec> missing"
+                String[] parts = line.split(" ");
+                if (parts.length == 3 && "blob".equals(parts[1])) {
+                    blobIds.put(commitId, parts[0]);
+                }
+            }
+        } finally {
+            process.destroy();
+        }
+        logger.debug("解析blob ID完成: file={}, commits={}, blobs={}", filePath, distinctCommits.size(), new HashSet<>(blobIds.values()).size());
+        return blobIds;
+    }
+
+    /**
+     * 读取blob对象内容
+     * 
+     * @param kernelSourcePath 内核源码根路径
+     * @param blobId blob对象ID
+     * @return 文件内容的字节数组，不存在时返回null
+     */
+    public static byte[] readBlob(String kernelSourcePath, String blobId) throws IOException {
+        return getObjectContentFromGit(kernelSourcePath, blobId);
+    }
+
+    /**
+     * 读取指定提交中的文件内容
+     * 
+     * @param kernelSourcePath 内核源码根路径
+     * @param filePath 文件路径（相对于内核源码根目录）
+     * @param commitId Git提交ID或tag
+     * @return 文件内容的字节数组，文件不存在时返回null
+     */
+    public static byte[] readFile(String kernelSourcePath, String filePath, String commitId) throws IOException {
+        return getFileContentFromGit(kernelSourcePath, filePath, commitId);
+    }
+
+    /**
+     * 使用Eclipse CDT解析文件内容
+     * 
+     * @param filePath 文件路径（用于CDT解析）
+     * @param fileContentBytes 文件内容
+     * @return 解析结果，解析失败时返回null
+     */
+    public static ParsedSource parseSource(String filePath, byte[] fileContentBytes) {
+        IASTTranslationUnit translationUnit = parseFile(filePath, fileContentBytes);
+        if (translationUnit == null) {
+            logger.debug("CDT解析失败: {}", filePath);
+            return null;
+        }
+        return new ParsedSource(filePath, new String(fileContentBytes), translationUnit);
+    }
+
+    /**
+     * 解析文件内容，建立顶层声明的名称 -> 行号范围索引
+     * 同名声明优先保留函数定义（跳过前置的函数原型），其余保留第一次出现的声明
+     * 
+     * @param filePath 文件路径（用于CDT解析）
+     * @param fileContentBytes 文件内容
+     * @return 声明索引，解析失败时返回null
+     */
+    public static Map<String, DeclarationRange> buildDeclarationIndex(String filePath, byte[] fileContentBytes) {
+        IASTTranslationUnit translationUnit = parseFile(filePath, fileContentBytes);
+        if (translationUnit == null) {
+            logger.debug("CDT解析失败: {}", filePath);
             return null;
         }
+        Map<String, DeclarationRange> index = new HashMap<>();
+        for (IASTDeclaration declaration : translationUnit.getDeclarations()) {
+            IASTFileLocation location = declaration.getFileLocation();
+            String name = extractDeclarationName(declaration);
+            if (location == null || "unknown".equals(name)) {
+                continue;
+            }
+            DeclarationRange existing = index.get(name);
+            String type = getDeclarationType(declaration);
+            if (existing == null || (!"function".equals(existing.type()) && "function".equals(type))) {
+                index.put(name, new DeclarationRange(name, type, location.getStartingLineNumber(), location.getEndingLineNumber()));
+            }
+        }
+        return index;
+    }
+
+    /**
+     * 在文件内容中查找候选标识符的代码元素，返回优先级最高的匹配
+     */
+    private static CodeSearchResultDTO findCodeElementInContent(String filePath, List<IdentifierQuery> candidates, byte[] fileContentBytes, String commitId) throws IOException {
+        // 使用Eclipse CDT解析文件
+        IASTTranslationUnit translationUnit = parseFile(filePath, fileContentBytes);
+        if (translationUnit == null) {
+            logger.debug("CDT解析失败: {}", filePath);
+            return null;
+        }
+        
+        // 一次遍历AST匹配所有候选标识符
+        CandidateFinder finder = new CandidateFinder(candidates);
+        translationUnit.accept(finder);
+        int matched = finder.getBestMatchIndex();
+        if (matched < 0) {
+            logger.debug("未找到标识符: {}", candidates);
+            return null;
+        }
+        
+        // 提取完整的代码块
+        String fileContent = new String(fileContentBytes);
+        return extractCodeBlock(candidates.get(matched).name(), finder.getMatch(matched), filePath, fileContent, commitId);
     }
 
     /**
@@ -130,13 +431,25 @@ public class KernelCodeAnalyzer {
      * @throws IOException
      */
     private static byte[] getFileContentFromGit(String repoPath, String filePath, String commitId) throws IOException {
+        return getObjectContentFromGit(repoPath, commitId + ":" + filePath);
+    }
+
+    /**
+     * 通过 git show 读取Git对象内容
+     *
+     * @param repoPath Git仓库路径
+     * @param objectSpec 对象描述，如 commit:path 或 blob ID
+     * @return 对象内容的字节数组，如果未找到则返回null
+     * @throws IOException
+     */
+    private static byte[] getObjectContentFromGit(String repoPath, String objectSpec) throws IOException {
         File repoDir = new File(repoPath);
         if (!repoDir.isDirectory()) {
             logger.warn("Git仓库路径不存在或不是一个目录: {}", repoPath);
             return null;
         }
 
-        ProcessBuilder pb = new ProcessBuilder("git", "show", commitId + ":" + filePath);
+        ProcessBuilder pb = new ProcessBuilder("git", "show", objectSpec);
         pb.directory(repoDir);
         Process process = pb.start();
 
@@ -160,18 +473,18 @@ public class KernelCodeAnalyzer {
 
         if (!finished) {
             process.destroyForcibly();
-            throw new IOException("`git show` command timed out after 30 seconds for " + commitId + ":" + filePath);
+            throw new IOException("`git show` command timed out after 30 seconds for " + objectSpec);
         }
 
         if (process.exitValue() != 0) {
             String errorOutput = errorStream.toString();
             // Log non-fatal errors (like file not found) at a lower level
             if (errorOutput.contains("does not exist in") || errorOutput.contains("exists on disk, but not in")) {
-                logger.debug("File not found in git: {}:{}", commitId, filePath);
+                logger.debug("File not found in git: {}", objectSpec);
                 return null;
             }
             // Log other errors as warnings
-            logger.warn("`git show` command failed for '{}:{}' with exit code {}. Stderr: {}", commitId, filePath, process.exitValue(), errorOutput);
+            logger.warn("`git show` command failed for '{}' with exit code {}. Stderr: {}", objectSpec, process.exitValue(), errorOutput);
             throw new IOException("Git command exited with code " + process.exitValue() + ": " + errorOutput);
         }
         
@@ -231,19 +544,6 @@ public class KernelCodeAnalyzer {
         return finder.getFoundElement();
     }
 
-    /**
-     * 根据标识符名称查找代码元素
-     * 
-     * @param translationUnit AST根节点
-     * @param identifier 标识符名称
-     * @return CodeElement 找到的代码元素
-     */
-    private static CodeElement findElementByName(IASTTranslationUnit translationUnit, String identifier) {
-        NameFinder finder = new NameFinder(identifier);
-        translationUnit.accept(finder);
-        return finder.getFoundElement();
-    }
-
     /**
      * 提取完整的代码块
      * 
@@ -254,8 +554,10 @@ public class KernelCodeAnalyzer {
      * @return CodeSearchResultDTO 代码搜索结果
      */
     private static CodeSearchResultDTO extractCodeBlock(String concept, CodeElement element, String filePath, String fileContent, String commitId) throws IOException {
-        List<String> fileLines = Arrays.asList(fileContent.split("\\R"));
-        
+        return extractCodeBlock(concept, element, filePath, Arrays.asList(fileContent.split("\\R")), commitId);
+    }
+
+    private static CodeSearchResultDTO extractCodeBlock(String concept, CodeElement element, String filePath, List<String> fileLines, String commitId) throws IOException {
         // 计算实际的行号范围（CDT行号从1开始）
         int startLine = Math.max(1, element.startLine);
         int endLine = Math.min(fileLines.size(), element.endLine);
@@ -343,38 +645,123 @@ public class KernelCodeAnalyzer {
     }
 
     /**
-     * 基于名称的元素查找器
+     * 已解析的文件：文件内容和CDT语法树
      */
-    private static class NameFinder extends ASTVisitor {
-        private final String targetName;
-        private CodeElement foundElement;
+    public static final class ParsedSource {
+        private final String filePath;
+        private final String content;
+        private final IASTTranslationUnit translationUnit;
+        private List<String> lines;
+        private List<CodeElement> declarations;
+
+        private ParsedSource(String filePath, String content, IASTTranslationUnit translationUnit) {
+            this.filePath = filePath;
+            this.content = content;
+            this.translationUnit = translationUnit;
+        }
+
+        public String filePath() {
+            return filePath;
+        }
+
+        synchronized List<String> lines() {
+            if (lines == null) {
+                lines = Arrays.asList(content.split("\\R"));
+            }
+            return lines;
+        }
+
+        /**
+         * 有位置信息的顶层声明，按起始行号排列（与按行号查找时命中的元素一致）
+         */
+        synchronized List<CodeElement> declarations() {
+            if (declarations == null) {
+                List<CodeElement> elements = new ArrayList<>();
+                for (IASTDeclaration declaration : translationUnit.getDeclarations()) {
+                    IASTFileLocation location = declaration.getFileLocation();
+                    if (location != null) {
+                        elements.add(new CodeElement(getDeclarationType(declaration), extractDeclarationName(declaration),
+                            location.getStartingLineNumber(), location.getEndingLineNumber()));
+                    }
+                }
+                elements.sort(Comparator.comparingInt(element -> element.startLine));
+                declarations = elements;
+            }
+            return declarations;
+        }
+    }
+
+    /**
+     * 顶层声明的行号范围（从1开始，包含两端）
+     */
+    public record DeclarationRange(String name, String type, int startLine, int endLine) {}
+
+    /**
+     * 候选标识符：名称 + 代码元素类型（function、struct等），类型为null时匹配任意类型
+     */
+    public record IdentifierQuery(String name, String kind) {
+
+        public static IdentifierQuery any(String name) {
+            return new IdentifierQuery(name, null);
+        }
+
+        boolean matches(String elementName, String elementType) {
+            return name.equals(elementName) && (kind == null || kind.equals(elementType));
+        }
+    }
+
+    /**
+     * 基于多个候选名称的元素查找器
+     * 每个候选记录第一个匹配的声明，优先级最高的候选匹配后立即停止遍历
+     */
+    private static class CandidateFinder extends ASTVisitor {
+        private final List<IdentifierQuery> candidates;
+        private final CodeElement[] matches;
         
-        NameFinder(String targetName) {
-            this.targetName = targetName;
+        CandidateFinder(List<IdentifierQuery> candidates) {
+            this.candidates = candidates;
+            this.matches = new CodeElement[candidates.size()];
             this.shouldVisitDeclarations = true;
         }
         
         @Override
         public int visit(IASTDeclaration declaration) {
+            IASTFileLocation location = declaration.getFileLocation();
+            if (location == null) {
+                return PROCESS_CONTINUE;
+            }
             String name = extractDeclarationName(declaration);
-            if (targetName.equals(name)) {
-                IASTFileLocation location = declaration.getFileLocation();
-                if (location != null) {
-                    String type = getDeclarationType(declaration);
-                    foundElement = new CodeElement(
+            String type = null;
+            for (int i = 0; i < matches.length; i++) {
+                if (matches[i] != null || !candidates.get(i).name().equals(name)) {
+                    continue;
+                }
+                if (type == null) {
+                    type = getDeclarationType(declaration);
+                }
+                if (candidates.get(i).matches(name, type)) {
+                    matches[i] = new CodeElement(
                         type, 
                         name,  // 使用提取的真实名称
                         location.getStartingLineNumber(), 
                         location.getEndingLineNumber()
                     );
-                    return PROCESS_ABORT;
                 }
             }
-            return PROCESS_CONTINUE;
+            return matches.length > 0 && matches[0] != null ? PROCESS_ABORT : PROCESS_CONTINUE;
         }
         
-        CodeElement getFoundElement() {
-            return foundElement;
+        int getBestMatchIndex() {
+            for (int i = 0; i < matches.length; i++) {
+                if (matches[i] != null) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        CodeElement getMatch(int index) {
+            return matches[index];
         }
     }
 
@@ -0,0 +1,338 @@
+package com.cs.api.service.analyzer;
+
+import com.cs.api.service.analyzer.ConceptKnowledgeAnalyzer.ConceptInfo;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 知识库有序键索引
+ * 为超大知识库JSON文件生成旁路索引文件：按UTF-8字节序排列的 概念 -> 记录，
+ * 记录的JSON字节在生成时复制进索引文件，查询时只通过内存映射读取索引文件，不再映射知识库JSON：
+ * JSON文件被原地修改或截断时，旧索引仍读取自己的副本，不会在重新加载前访问到文件末尾之外。
+ * 索引文件先写临时文件再原子替换，已映射的旧文件内容不会变化。
+ * 查询时在索引上二分查找，只解码命中的那一条记录，堆内存占用与知识库大小无关。
+ *
+ * 索引文件格式（大端）：
+ * <pre>
+ * header: magic(int) version(int) sourceLength(long) sourceLastModified(long) count(int) keyBlobOffset(long) valueBlobOffset(long)
+ * slots:  count × [keyOffset(int) keyLength(int) valueOffset(long) valueLength(int)]
+ * keys:   所有键的UTF-8字节，按槽位顺序紧密排列
+ * values: 所有记录的JSON字节，按槽位顺序紧密排列，valueOffset相对于values起始位置
+ * </pre>
+ *
+ * @author YK
+ * @since 1.0.0
+ */
+public final class KnowledgeBaseIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(KnowledgeBaseIndex.class);
+
+    private static final int MAGIC = 0x4B424958; // "KBIX"
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 44;
+    private static final int SLOT_SIZE = 20;
+    // 记录区按1GB分段映射，单个MappedByteBuffer最大只能映射2GB
+    private static final long SEGMENT_SIZE = 1L << 30;
+
+    private final JsonFactory jsonFactory;
+    private final MappedByteBuffer index;
+    private final MappedByteBuffer[] segments;
+    private final int count;
+    private final long keyBlobOffset;
+
+    private KnowledgeBaseIndex(JsonFactory jsonFactory, MappedByteBuffer index, MappedByteBuffer[] segments,
+                               int count, long keyBlobOffset) {
+        this.jsonFactory = jsonFactory;
+        this.index = index;
+        this.segments = segments;
+        this.count = count;
+        this.keyBlobOffset = keyBlobOffset;
+    }
+
+    /**
+     * 打开索引，索引不存在或与知识库文件不一致时重新生成
+     *
+     * @param source 知识库JSON文件
+     * @param indexPath 索引文件路径
+     * @param jsonFactory 用于解析记录的JsonFactory
+     * @return 可用的索引
+     */
+    public static KnowledgeBaseIndex openOrBuild(Path source, Path indexPath, JsonFactory jsonFactory) throws IOException {
+        KnowledgeBaseIndex opened = open(source, indexPath, jsonFactory);
+        if (opened != null) {
+            return opened;
+        }
+        build(source, indexPath, jsonFactory);
+        opened = open(source, indexPath, jsonFactory);
+        if (opened == null) {
+            throw new IOException("知识库索引生成后仍无法打开: " + indexPath);
+        }
+        return opened;
+    }
+
+    /**
+     * 打开已有索引
+     *
+     * @return 索引，不存在或已过期时返回null
+     */
+    static KnowledgeBaseIndex open(Path source, Path indexPath, JsonFactory jsonFactory) throws IOException {
+        if (!Files.exists(indexPath) || Files.size(indexPath) < HEADER_SIZE) {
+            return null;
+        }
+        long sourceLength = Files.size(source);
+        long sourceLastModified = Files.getLastModifiedTime(source).toMillis();
+        try (FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.READ)) {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION
+                    || header.getLong(8) != sourceLength || header.getLong(16) != sourceLastModified) {
+                logger.info("知识库索引与源文件不一致，需要重新生成: {}", indexPath);
+                return null;
+            }
+            int count = header.getInt(24);
+            long keyBlobOffset = header.getLong(28);
+            long valueBlobOffset = header.getLong(36);
+            if (valueBlobOffset > Integer.MAX_VALUE || valueBlobOffset > channel.size()) {
+                throw new IOException("知识库索引的键区过大或文件不完整: " + indexPath);
+            }
+            // 槽位和键区整体映射，记录区分段映射
+            MappedByteBuffer index = channel.map(FileChannel.MapMode.READ_ONLY, 0, valueBlobOffset);
+            long valueLength = channel.size() - valueBlobOffset;
+            int segmentCount = (int) ((valueLength + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+            MappedByteBuffer[] segments = new MappedByteBuffer[segmentCount];
+            for (int i = 0; i < segmentCount; i++) {
+                long start = i * SEGMENT_SIZE;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, valueBlobOffset + start,
+                    Math.min(SEGMENT_SIZE, valueLength - start));
+            }
+            return new KnowledgeBaseIndex(jsonFactory, index, segments, count, keyBlobOffset);
+        }
+    }
+
+    /**
+     * 流式扫描知识库文件生成索引，把每条记录复制进索引文件，先写临时文件再原子替换
+     */
+    static void build(Path source, Path indexPath, JsonFactory jsonFactory) throws IOException {
+        long start = System.currentTimeMillis();
+        long sourceLength = Files.size(source);
+        long sourceLastModified = Files.getLastModifiedTime(source).toMillis();
+
+        List<Entry> entries = new ArrayList<>();
+        try (JsonParser parser = jsonFactory.createParser(source.toFile())) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("知识库文件的顶层不是JSON对象");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                byte[] key = parser.getCurrentName().getBytes(StandardCharsets.UTF_8);
+                JsonToken valueToken = parser.nextToken();
+                long valueOffset = parser.getTokenLocation().getByteOffset();
+                parser.skipChildren();
+                if (valueToken != JsonToken.START_OBJECT) {
+                    continue;
+                }
+                long valueEnd = parser.getCurrentLocation().getByteOffset();
+                entries.add(new Entry(key, valueOffset, (int) (valueEnd - valueOffset), entries.size()));
+            }
+        }
+
+        // 按键排序，重复的键保留文件中最后出现的一条（与整体解析时后者覆盖前者一致）
+        entries.sort((a, b) -> {
+            int cmp = Arrays.compareUnsigned(a.key, b.key);
+            return cmp != 0 ? cmp : Integer.compare(a.order, b.order);
+        });
+        List<Entry> unique = new ArrayList<>(entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            if (i + 1 < entries.size() && Arrays.equals(entries.get(i).key, entries.get(i + 1).key)) {
+                continue;
+            }
+            unique.add(entries.get(i));
+        }
+
+        Path tmp = indexPath.resolveSibling(indexPath.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16));
+             FileChannel sourceChannel = FileChannel.open(source, StandardOpenOption.READ)) {
+            long keyBlobOffset = HEADER_SIZE + (long) unique.size() * SLOT_SIZE;
+            long keyBlobLength = 0;
+            for (Entry entry : unique) {
+                keyBlobLength += entry.key.length;
+            }
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(sourceLength);
+            out.writeLong(sourceLastModified);
+            out.writeInt(unique.size());
+            out.writeLong(keyBlobOffset);
+            out.writeLong(keyBlobOffset + keyBlobLength);
+            int keyOffset = 0;
+            long valueOffset = 0;
+            for (Entry entry : unique) {
+                out.writeInt(keyOffset);
+                out.writeInt(entry.key.length);
+                out.writeLong(valueOffset);
+                out.writeInt(entry.valueLength);
+                keyOffset += entry.key.length;
+                valueOffset += entry.valueLength;
+            }
+            for (Entry entry : unique) {
+                out.write(entry.key);
+            }
+            ByteBuffer value = ByteBuffer.allocate(1 << 16);
+            for (Entry entry : unique) {
+                copyRange(sourceChannel, entry.valueOffset, entry.valueLength, value, out);
+            }
+        }
+        Files.move(tmp, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        logger.info("知识库索引生成完成: path={}, 概念数={}, 耗时={}ms",
+            indexPath, unique.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 查询概念信息
+     *
+     * @param concept 概念名称（精确匹配）
+     * @return 概念信息，不存在时返回null
+     */
+    public ConceptInfo lookup(String concept) {
+        if (concept == null) {
+            return null;
+        }
+        int slot = find(concept.getBytes(StandardCharsets.UTF_8));
+        if (slot < 0) {
+            return null;
+        }
+        int slotPos = HEADER_SIZE + slot * SLOT_SIZE;
+        long valueOffset = index.getLong(slotPos + 8);
+        int valueLength = index.getInt(slotPos + 16);
+        try (JsonParser parser = jsonFactory.createParser(readValue(valueOffset, valueLength))) {
+            parser.nextToken();
+            return ConceptKnowledgeBase.readEntry(concept, parser);
+        } catch (IOException e) {
+            logger.warn("解析知识库记录失败: concept={}, error={}", concept, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 按键顺序遍历全部概念记录
+     */
+    public void forEach(Consumer<ConceptInfo> action) {
+        for (int slot = 0; slot < count; slot++) {
+            int slotPos = HEADER_SIZE + slot * SLOT_SIZE;
+            byte[] key = new byte[index.getInt(slotPos + 4)];
+            index.get((int) (keyBlobOffset + index.getInt(slotPos)), key);
+            String concept = new String(key, StandardCharsets.UTF_8);
+            try (JsonParser parser = jsonFactory.createParser(readValue(index.getLong(slotPos + 8), index.getInt(slotPos + 16)))) {
+                parser.nextToken();
+                action.accept(ConceptKnowledgeBase.readEntry(concept, parser));
+            } catch (IOException e) {
+                logger.warn("解析知识库记录失败: concept={}, error={}", concept, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 索引中的概念数量
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * 在有序槽位上二分查找
+     */
+    private int find(byte[] key) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compareKey(mid, key);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private int compareKey(int slot, byte[] key) {
+        int slotPos = HEADER_SIZE + slot * SLOT_SIZE;
+        int keyPos = (int) (keyBlobOffset + index.getInt(slotPos));
+        int keyLength = index.getInt(slotPos + 4);
+        int n = Math.min(keyLength, key.length);
+        for (int i = 0; i < n; i++) {
+            int cmp = Integer.compare(index.get(keyPos + i) & 0xFF, key[i] & 0xFF);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return Integer.compare(keyLength, key.length);
+    }
+
+    /**
+     * 把源文件中 [offset, offset + length) 的字节写入输出
+     */
+    private static void copyRange(FileChannel channel, long offset, int length, ByteBuffer buffer,
+                                  DataOutputStream out) throws IOException {
+        long position = offset;
+        long end = offset + length;
+        while (position < end) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), end - position));
+            int n = channel.read(buffer, position);
+            if (n < 0) {
+                throw new IOException("知识库文件在生成索引期间被截断");
+            }
+            out.write(buffer.array(), 0, n);
+            position += n;
+        }
+    }
+
+    private byte[] readValue(long offset, int length) {
+        byte[] bytes = new byte[length];
+        int copied = 0;
+        while (copied < length) {
+            long position = offset + copied;
+            MappedByteBuffer segment = segments[(int) (position / SEGMENT_SIZE)];
+            int segmentOffset = (int) (position % SEGMENT_SIZE);
+            int n = Math.min(length - copied, segment.capacity() - segmentOffset);
+            segment.get(segmentOffset, bytes, copied, n);
+            copied += n;
+        }
+        return bytes;
+    }
+
+    private static final class Entry {
+        final byte[] key;
+        final long valueOffset;
+        final int valueLength;
+        final int order;
+
+        Entry(byte[] key, long valueOffset, int valueLength, int order) {
+            this.key = key;
+            this.valueOffset = valueOffset;
+            this.valueLength = valueLength;
+            this.order = order;
+        }
+    }
+}
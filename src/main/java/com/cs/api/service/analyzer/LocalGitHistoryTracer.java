@@ -0,0 +1,269 @@
+package com.cs.api.service.analyzer;
+
+import com.cs.api.common.process.ProcessRunner;
+import com.cs.api.dto.CodeSearchResultDTO;
+import com.cs.api.dto.CodeTraceResultDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基于本地Git仓库的方法历史追溯
+ * 外部tracker服务不可用时的替代方案：用 git log --raw 列出修改过文件的commit及其blob，
+ * 由调用方按blob提取函数定义，再比较相邻版本的函数体哈希，只保留函数体发生变化的commit。
+ * 同一个blob只需提取一次，函数体未变化的commit通过哈希比较直接跳过。
+ * 结果的version与tracker一致，为首个包含该commit的发布tag（通过一次 git name-rev 解析），commit本身在commitId中。
+ *
+ * @author YK
+ * @since 1.0.0
+ */
+@Component
+public class LocalGitHistoryTracer {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalGitHistoryTracer.class);
+
+    private static final char RECORD_SEPARATOR = '\u001e';
+    private static final char FIELD_SEPARATOR = '\u001f';
+    private static final char BODY_END = '\u001d';
+    private static final String NULL_BLOB = "0000000000000000000000000000000000000000";
+
+    @Value("${kernel.source.path:/home/fdse/ytest/codeMap/linux/repo}")
+    private String kernelSourcePath;
+
+    @Value("${tracker.api.default.repo:linux-stable}")
+    private String repoName;
+
+    /**
+     * 最多检查的commit数量
+     */
+    @Value("${code-trace.local.max-commits:300}")
+    private int maxCommits;
+
+    @Value("${code-trace.local.git-timeout-seconds:60}")
+    private int gitTimeoutSeconds;
+
+    /**
+     * 列出从起点可达、修改过指定文件的commit（从新到旧），跟踪文件重命名，不含merge commit
+     *
+     * @param filePath 文件路径
+     * @param startRef 起点（commit、tag等），为空时使用HEAD
+     * @param includeDetails 是否读取commit正文
+     * @return commit列表，每项带有该commit中文件的blob ID
+     */
+    public List<LocalCommit> listFileCommits(String filePath, String startRef, boolean includeDetails) throws IOException {
+        File repoDir = new File(kernelSourcePath);
+        if (!repoDir.isDirectory()) {
+            throw new IOException("Git仓库路径不存在或不是一个目录: " + kernelSourcePath);
+        }
+        String format = "--format=" + RECORD_SEPARATOR + "%H" + FIELD_SEPARATOR + "%an" + FIELD_SEPARATOR + "%ae"
+            + FIELD_SEPARATOR + "%cn" + FIELD_SEPARATOR + "%ce" + FIELD_SEPARATOR + "%ad" + FIELD_SEPARATOR + "%cd"
+            + FIELD_SEPARATOR + "%s" + FIELD_SEPARATOR + (includeDetails ? "%b" : "") + BODY_END;
+        ProcessBuilder pb = new ProcessBuilder("git", "log", format, "--date=format:%Y-%m-%d %H:%M:%S",
+            "--raw", "--no-abbrev", "--no-merges", "--follow", "-n", String.valueOf(maxCommits),
+            startRef == null || startRef.isEmpty() ? "HEAD" : startRef, "--", filePath);
+        pb.directory(repoDir);
+        String output = run(pb);
+
+        List<LocalCommit> commits = new ArrayList<>();
+        for (String record : output.split(String.valueOf(RECORD_SEPARATOR))) {
+            int bodyEnd = record.indexOf(BODY_END);
+            if (bodyEnd < 0) {
+                continue;
+            }
+            String[] fields = record.substring(0, bodyEnd).split(String.valueOf(FIELD_SEPARATOR), -1);
+            if (fields.length < 9) {
+                continue;
+            }
+            // raw行格式: ":100644 100644 <旧blob> <新blob> M\t<路径>"，重命名时为 "R100\t<旧路径>\t<新路径>"
+            String blobId = null;
+            String path = filePath;
+            for (String line : record.substring(bodyEnd + 1).split("\n")) {
+                if (!line.startsWith(":")) {
+                    continue;
+                }
+                String[] meta = line.substring(1, line.indexOf('\t')).split(" ");
+                String[] paths = line.substring(line.indexOf('\t') + 1).split("\t");
+                if (meta.length >= 4) {
+                    blobId = NULL_BLOB.equals(meta[3]) ? null : meta[3];
+                    path = paths[paths.length - 1];
+                }
+            }
+            commits.add(new LocalCommit(fields[0], fields[1], fields[2], fields[3], fields[4], fields[5], fields[6],
+                fields[7], fields[8].trim(), blobId, path));
+        }
+        logger.debug("本地git历史: file={}, start={}, commits={}", filePath, startRef, commits.size());
+        return commits;
+    }
+
+    /**
+     * 按函数体哈希筛选发生变化的commit
+     *
+     * @param commits listFileCommits 的结果（从新到旧）
+     * @param bodies blob ID -> 该blob中的函数定义，未找到时不包含或为null
+     * @param includeDetails 是否在结果中保留commit正文
+     * @return 函数体发生变化的commit（从新到旧），version 为首个包含该commit的发布tag，尚未发布或解析失败时为null
+     */
+    public List<CodeTraceResultDTO> selectChangedCommits(List<LocalCommit> commits, Map<String, CodeSearchResultDTO> bodies,
+                                                         boolean includeDetails) {
+        List<CodeTraceResultDTO> changed = new ArrayList<>();
+        String previousHash = null;
+        String previousSnippet = null;
+        // 从旧到新比较相邻版本
+        for (int i = commits.size() - 1; i >= 0; i--) {
+            LocalCommit commit = commits.get(i);
+            CodeSearchResultDTO body = commit.blobId() != null ? bodies.get(commit.blobId()) : null;
+            String snippet = body != null ? body.getCodeSnippet() : null;
+            String hash = snippet != null ? bodyHash(snippet) : null;
+            if (hash != null && !hash.equals(previousHash)) {
+                changed.add(toResult(commit, previousSnippet, snippet, includeDetails));
+            }
+            previousHash = hash;
+            previousSnippet = snippet;
+        }
+        Collections.reverse(changed);
+        Map<String, String> releases = resolveReleaseTags(changed.stream().map(CodeTraceResultDTO::getCommitId).toList());
+        for (CodeTraceResultDTO result : changed) {
+            result.setVersion(releases.get(result.getCommitId()));
+        }
+        logger.debug("本地git历史筛选: commits={}, 函数体变化={}", commits.size(), changed.size());
+        return changed;
+    }
+
+    /**
+     * 解析首个包含各commit的tag，一次 git name-rev 完成
+     * name-rev 输出形如 "v6.1~23^2"，取 ~ 或 ^ 之前的tag名；不被任何tag包含时为 "undefined"
+     *
+     * @return commit ID -> tag，未找到的commit不包含在结果中；解析失败时返回空映射
+     */
+    Map<String, String> resolveReleaseTags(List<String> commitIds) {
+        Map<String, String> releases = new HashMap<>();
+        if (commitIds.isEmpty()) {
+            return releases;
+        }
+        List<String> command = new ArrayList<>(List.of("git", "name-rev", "--tags", "--name-only", "--no-undefined", "--always"));
+        command.addAll(commitIds);
+        ProcessBuilder pb = new ProcessBuilder(command);
+        pb.directory(new File(kernelSourcePath));
+        String output;
+        try {
+            output = run(pb);
+        } catch (IOException e) {
+            logger.warn("解析commit所属的发布tag失败: {}", e.getMessage());
+            return releases;
+        }
+        String[] names = output.split("\n");
+        for (int i = 0; i < commitIds.size() && i < names.length; i++) {
+            String name = names[i].trim();
+            int end = name.length();
+            for (char separator : new char[] {'~', '^'}) {
+                int index = name.indexOf(separator);
+                if (index >= 0) {
+                    end = Math.min(end, index);
+                }
+            }
+            name = name.substring(0, end);
+            // --always 时不被任何tag包含的commit输出缩写SHA，不作为版本
+            if (!name.isEmpty() && !commitIds.get(i).startsWith(name)) {
+                releases.put(commitIds.get(i), name);
+            }
+        }
+        return releases;
+    }
+
+    /**
+     * 忽略空白差异的函数体哈希
+     */
+    static String bodyHash(String snippet) {
+        try {
+            String normalized = normalize(snippet);
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(normalized.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256不可用", e);
+        }
+    }
+
+    private CodeTraceResultDTO toResult(LocalCommit commit, String previousSnippet, String snippet, boolean includeDetails) {
+        CodeTraceResultDTO result = new CodeTraceResultDTO();
+        result.setCommitId(commit.commitId());
+        // 与tracker一致，作者和提交者使用邮箱，公司取邮箱域名
+        result.setAuthorName(commit.authorEmail());
+        result.setCommitterName(commit.committerEmail());
+        result.setAuthorTime(commit.authorTime());
+        result.setCommitTime(commit.commitTime());
+        result.setCommitTitle(commit.title());
+        int at = commit.authorEmail().indexOf('@');
+        result.setCompany(at >= 0 ? commit.authorEmail().substring(at + 1) : null);
+        result.setRepo(repoName);
+        if (includeDetails && !commit.body().isEmpty()) {
+            result.setText(commit.body());
+        }
+        int[] stat = lineDiffStat(previousSnippet, snippet);
+        result.setAdded(stat[0]);
+        result.setDeleted(stat[1]);
+        return result;
+    }
+
+    /**
+     * 函数体的增删行数（按行多重集合比较的近似值）
+     */
+    static int[] lineDiffStat(String before, String after) {
+        Map<String, Integer> counts = new HashMap<>();
+        if (before != null) {
+            for (String line : before.split("\n")) {
+                counts.merge(normalize(line), 1, Integer::sum);
+            }
+        }
+        int added = 0;
+        if (after != null) {
+            for (String line : after.split("\n")) {
+                String key = normalize(line);
+                Integer count = counts.get(key);
+                if (count == null || count == 0) {
+                    added++;
+                } else {
+                    counts.put(key, count - 1);
+                }
+            }
+        }
+        int deleted = counts.values().stream().mapToInt(Integer::intValue).sum();
+        return new int[] {added, deleted};
+    }
+
+    /**
+     * 合并连续空白，哈希和行比较使用同一规则
+     */
+    private static String normalize(String text) {
+        return text.replaceAll("\\s+", " ").trim();
+    }
+
+    /**
+     * 执行git命令并读取标准输出，超时在读取输出期间同样生效
+     */
+    String run(ProcessBuilder pb) throws IOException {
+        return new String(ProcessRunner.run(pb, null, gitTimeoutSeconds), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 修改过目标文件的commit
+     *
+     * @param blobId 该commit中文件的blob ID，文件被删除时为null
+     * @param path 该commit中的文件路径（跟踪重命名）
+     */
+    public record LocalCommit(String commitId, String authorName, String authorEmail, String committerName,
+                              String committerEmail, String authorTime, String commitTime, String title, String body,
+                              String blobId, String path) {}
+}
@@ -0,0 +1,299 @@
+package com.cs.api.service.analyzer;
+
+import com.cs.api.dto.CodeClusterResultDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * 基于TF-IDF向量的代码行聚类
+ * 每行代码表示为标识符分词后的稀疏TF-IDF向量（L2归一化），使用球面k-means（余弦相似度）聚类：
+ * k-means++ 选取初始中心，分配步骤按行并行，每轮代价与行数和非零项数成线性关系。
+ * 随机种子固定，同样的输入得到同样的聚类结果。
+ *
+ * @author YK
+ * @since 1.0.0
+ */
+@Component
+public class TfIdfClusterEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(TfIdfClusterEngine.class);
+
+    // 行数超过该值时并行计算分配步骤
+    private static final int PARALLEL_THRESHOLD = 2048;
+
+    private static final long SEED = 42L;
+
+    // 每个聚类输出的代表词数量
+    private static final int TOP_TOKENS = 3;
+
+    @Value("${cluster.tfidf.max-iterations:20}")
+    private int maxIterations;
+
+    /**
+     * 根据代码行自身计算IDF（每行视为一个文档）：idf = ln((1 + N) / (1 + df)) + 1
+     *
+     * @return 词编号 -> IDF
+     */
+    public static double[] inSampleIdf(List<CodeClusterResultDTO.CodeLineInfo> codeLines, TokenDictionary dictionary) {
+        int[] documentFrequency = new int[dictionary.size()];
+        int[] lastSeen = new int[dictionary.size()];
+        Arrays.fill(lastSeen, -1);
+        for (int line = 0; line < codeLines.size(); line++) {
+            for (int id : codeLines.get(line).getTokenIds()) {
+                if (lastSeen[id] != line) {
+                    lastSeen[id] = line;
+                    documentFrequency[id]++;
+                }
+            }
+        }
+        double[] idf = new double[dictionary.size()];
+        for (int id = 0; id < idf.length; id++) {
+            idf[id] = Math.log((1.0 + codeLines.size()) / (1.0 + documentFrequency[id])) + 1;
+        }
+        return idf;
+    }
+
+    /**
+     * 根据整个内核的词文档频率计算IDF（每个文件视为一个文档），统计中不存在的词按只出现在一个文件中处理
+     *
+     * @return 词编号 -> IDF
+     */
+    public static double[] corpusIdf(TokenDictionary dictionary, CorpusTokenStatistics.DocumentFrequencyTable corpus) {
+        double[] idf = new double[dictionary.size()];
+        for (int id = 0; id < idf.length; id++) {
+            int documentFrequency = Math.max(1, corpus.frequency(dictionary.token(id)));
+            idf[id] = Math.log((1.0 + corpus.documentCount()) / (1.0 + documentFrequency)) + 1;
+        }
+        return idf;
+    }
+
+    /**
+     * 聚类代码行
+     *
+     * @param codeLines 已设置词编号的代码行
+     * @param dictionary 词典
+     * @param k 聚类数量上限
+     * @param idf 词编号 -> IDF
+     * @return 聚类结果，按行数从多到少；不含任何词的代码行不参与聚类
+     */
+    public List<TermCluster> cluster(List<CodeClusterResultDTO.CodeLineInfo> codeLines, TokenDictionary dictionary,
+                                     int k, double[] idf) {
+        long start = System.nanoTime();
+        List<CodeClusterResultDTO.CodeLineInfo> clusteredLines = new ArrayList<>();
+        List<SparseVector> vectors = new ArrayList<>();
+        for (CodeClusterResultDTO.CodeLineInfo codeLine : codeLines) {
+            SparseVector vector = SparseVector.tfIdf(codeLine.getTokenIds(), idf);
+            if (vector != null) {
+                clusteredLines.add(codeLine);
+                vectors.add(vector);
+            }
+        }
+        int n = vectors.size();
+        k = Math.min(k, n);
+        if (k <= 0) {
+            return List.of();
+        }
+
+        int dimension = dictionary.size();
+        double[][] centroids = seedCentroids(vectors, k, dimension);
+        k = centroids.length;
+        int[] assignment = new int[n];
+        Arrays.fill(assignment, -1);
+        int iterations = 0;
+        boolean changed = true;
+        while (changed && iterations < maxIterations) {
+            iterations++;
+            changed = assign(vectors, centroids, assignment);
+            updateCentroids(vectors, assignment, centroids);
+        }
+
+        List<List<CodeClusterResultDTO.CodeLineInfo>> members = new ArrayList<>();
+        for (int c = 0; c < k; c++) {
+            members.add(new ArrayList<>());
+        }
+        for (int i = 0; i < n; i++) {
+            members.get(assignment[i]).add(clusteredLines.get(i));
+        }
+        List<TermCluster> clusters = new ArrayList<>();
+        for (int c = 0; c < k; c++) {
+            if (!members.get(c).isEmpty()) {
+                clusters.add(new TermCluster(members.get(c), topTokens(centroids[c])));
+            }
+        }
+        clusters.sort(Comparator.comparingInt((TermCluster cluster) -> cluster.codeLines().size()).reversed());
+        logger.debug("TF-IDF聚类完成: 行数={}, 词数={}, k={}, 迭代={}, 耗时={}ms",
+            n, dimension, k, iterations, (System.nanoTime() - start) / 1_000_000);
+        return clusters;
+    }
+
+    /**
+     * k-means++：依次按与已选中心的余弦距离平方为权重随机选取下一个中心
+     */
+    private double[][] seedCentroids(List<SparseVector> vectors, int k, int dimension) {
+        Random random = new Random(SEED);
+        double[][] centroids = new double[k][];
+        double[] distance = new double[vectors.size()];
+        Arrays.fill(distance, Double.MAX_VALUE);
+        int next = random.nextInt(vectors.size());
+        for (int c = 0; c < k; c++) {
+            centroids[c] = vectors.get(next).toDense(dimension);
+            double total = 0;
+            for (int i = 0; i < vectors.size(); i++) {
+                double d = 1 - vectors.get(i).dot(centroids[c]);
+                distance[i] = Math.min(distance[i], d * d);
+                total += distance[i];
+            }
+            if (total <= 0) {
+                // 剩余的点都与已有中心重合
+                return Arrays.copyOf(centroids, c + 1);
+            }
+            double target = random.nextDouble() * total;
+            next = vectors.size() - 1;
+            for (int i = 0; i < vectors.size(); i++) {
+                target -= distance[i];
+                if (target <= 0) {
+                    next = i;
+                    break;
+                }
+            }
+        }
+        return centroids;
+    }
+
+    /**
+     * 把每行分配到余弦相似度最高的中心
+     *
+     * @return 是否有行的分配发生变化
+     */
+    private boolean assign(List<SparseVector> vectors, double[][] centroids, int[] assignment) {
+        IntStream indexes = IntStream.range(0, vectors.size());
+        if (vectors.size() >= PARALLEL_THRESHOLD) {
+            indexes = indexes.parallel();
+        }
+        return indexes.map(i -> {
+            SparseVector vector = vectors.get(i);
+            int best = 0;
+            double bestSimilarity = Double.NEGATIVE_INFINITY;
+            for (int c = 0; c < centroids.length; c++) {
+                double similarity = vector.dot(centroids[c]);
+                if (similarity > bestSimilarity) {
+                    bestSimilarity = similarity;
+                    best = c;
+                }
+            }
+            int previous = assignment[i];
+            assignment[i] = best;
+            return previous != best ? 1 : 0;
+        }).sum() > 0;
+    }
+
+    /**
+     * 中心更新为所属向量之和再归一化，空聚类保留原中心
+     */
+    private void updateCentroids(List<SparseVector> vectors, int[] assignment, double[][] centroids) {
+        int dimension = centroids[0].length;
+        double[][] sums = new double[centroids.length][dimension];
+        int[] sizes = new int[centroids.length];
+        for (int i = 0; i < vectors.size(); i++) {
+            vectors.get(i).addTo(sums[assignment[i]]);
+            sizes[assignment[i]]++;
+        }
+        for (int c = 0; c < centroids.length; c++) {
+            if (sizes[c] == 0) {
+                continue;
+            }
+            double norm = 0;
+            for (double value : sums[c]) {
+                norm += value * value;
+            }
+            norm = Math.sqrt(norm);
+            if (norm > 0) {
+                for (int d = 0; d < dimension; d++) {
+                    sums[c][d] /= norm;
+                }
+                centroids[c] = sums[c];
+            }
+        }
+    }
+
+    private static int[] topTokens(double[] centroid) {
+        return IntStream.range(0, centroid.length)
+            .filter(id -> centroid[id] > 0)
+            .boxed()
+            .sorted((a, b) -> Double.compare(centroid[b], centroid[a]))
+            .limit(TOP_TOKENS)
+            .mapToInt(Integer::intValue)
+            .toArray();
+    }
+
+    /**
+     * 一个聚类：所属代码行和中心权重最高的词编号（从高到低）
+     */
+    public record TermCluster(List<CodeClusterResultDTO.CodeLineInfo> codeLines, int[] topTokenIds) {}
+
+    /**
+     * L2归一化的稀疏向量，下标升序
+     */
+    private record SparseVector(int[] indexes, double[] values) {
+
+        static SparseVector tfIdf(int[] tokenIds, double[] idf) {
+            if (tokenIds == null || tokenIds.length == 0) {
+                return null;
+            }
+            int[] sorted = tokenIds.clone();
+            Arrays.sort(sorted);
+            int[] indexes = new int[sorted.length];
+            double[] values = new double[sorted.length];
+            int size = 0;
+            double norm = 0;
+            for (int i = 0; i < sorted.length; ) {
+                int j = i;
+                while (j < sorted.length && sorted[j] == sorted[i]) {
+                    j++;
+                }
+                double weight = (1 + Math.log(j - i)) * idf[sorted[i]];
+                indexes[size] = sorted[i];
+                values[size++] = weight;
+                norm += weight * weight;
+                i = j;
+            }
+            if (norm <= 0) {
+                return null;
+            }
+            norm = Math.sqrt(norm);
+            for (int i = 0; i < size; i++) {
+                values[i] /= norm;
+            }
+            return new SparseVector(Arrays.copyOf(indexes, size), Arrays.copyOf(values, size));
+        }
+
+        double dot(double[] dense) {
+            double sum = 0;
+            for (int i = 0; i < indexes.length; i++) {
+                sum += values[i] * dense[indexes[i]];
+            }
+            return sum;
+        }
+
+        void addTo(double[] dense) {
+            for (int i = 0; i < indexes.length; i++) {
+                dense[indexes[i]] += values[i];
+            }
+        }
+
+        double[] toDense(int dimension) {
+            double[] dense = new double[dimension];
+            addTo(dense);
+            return dense;
+        }
+    }
+}
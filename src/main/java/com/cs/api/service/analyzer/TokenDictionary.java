@@ -0,0 +1,161 @@
+package com.cs.api.service.analyzer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+/**
+ * 代码聚类的词典
+ * 把词映射为连续的int编号，词频保存在int数组中，计数时不产生装箱对象；
+ * 代码行只需保存词编号数组，不再为每行保留词的字符串列表。
+ * 非线程安全，每次聚类分析使用一个实例。
+ *
+ * @author YK
+ * @since 1.0.0
+ */
+public class TokenDictionary {
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> tokens = new ArrayList<>();
+    private int[] counts = new int[64];
+
+    /**
+     * 获取词的编号，不存在时分配新编号
+     */
+    public int intern(String token) {
+        Integer id = ids.get(token);
+        if (id != null) {
+            return id;
+        }
+        int newId = tokens.size();
+        ids.put(token, newId);
+        tokens.add(token);
+        if (newId == counts.length) {
+            counts = Arrays.copyOf(counts, counts.length * 2);
+        }
+        return newId;
+    }
+
+    /**
+     * 把一行代码的标识符分词、编号并计数
+     * 每个标识符内的词已去重，不同标识符中的相同词分别计数
+     *
+     * @param identifiers 代码行中的标识符
+     * @return 按出现顺序排列的词编号
+     */
+    public int[] addIdentifiers(List<String> identifiers) {
+        int[] lineIds = new int[8];
+        int size = 0;
+        for (String identifier : identifiers) {
+            for (String token : IdentifierTokenizer.tokenizeIdentifier(identifier)) {
+                int id = intern(token);
+                counts[id]++;
+                if (size == lineIds.length) {
+                    lineIds = Arrays.copyOf(lineIds, size * 2);
+                }
+                lineIds[size++] = id;
+            }
+        }
+        return Arrays.copyOf(lineIds, size);
+    }
+
+    /**
+     * 词的编号，不存在时返回-1
+     */
+    public int idOf(String token) {
+        Integer id = ids.get(token);
+        return id != null ? id : -1;
+    }
+
+    public String token(int id) {
+        return tokens.get(id);
+    }
+
+    public int frequency(int id) {
+        return id >= 0 && id < tokens.size() ? counts[id] : 0;
+    }
+
+    public int size() {
+        return tokens.size();
+    }
+
+    /**
+     * 选出词频最高的k个词，使用大小为k的最小堆，不对全部词排序
+     * 词频相同时先出现的词优先
+     *
+     * @param k 数量
+     * @param filter 候选条件
+     * @return 词编号，按词频从高到低
+     */
+    public int[] topK(int k, IntPredicate filter) {
+        if (k <= 0) {
+            return new int[0];
+        }
+        // heap[0] 为当前k个中最"弱"的词
+        int[] heap = new int[k];
+        int size = 0;
+        for (int id = 0; id < tokens.size(); id++) {
+            if (!filter.test(id)) {
+                continue;
+            }
+            if (size < k) {
+                heap[size] = id;
+                siftUp(heap, size++);
+            } else if (stronger(id, heap[0])) {
+                heap[0] = id;
+                siftDown(heap, size);
+            }
+        }
+        int[] result = new int[size];
+        for (int i = size - 1; i >= 0; i--) {
+            result[i] = heap[0];
+            heap[0] = heap[i];
+            siftDown(heap, i);
+        }
+        return result;
+    }
+
+    private boolean stronger(int a, int b) {
+        return counts[a] != counts[b] ? counts[a] > counts[b] : a < b;
+    }
+
+    private void siftUp(int[] heap, int index) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (!stronger(heap[parent], heap[index])) {
+                return;
+            }
+            swap(heap, parent, index);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int[] heap, int size) {
+        int index = 0;
+        while (true) {
+            int weakest = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < size && stronger(heap[weakest], heap[left])) {
+                weakest = left;
+            }
+            if (right < size && stronger(heap[weakest], heap[right])) {
+                weakest = right;
+            }
+            if (weakest == index) {
+                return;
+            }
+            swap(heap, index, weakest);
+            index = weakest;
+        }
+    }
+
+    private static void swap(int[] heap, int i, int j) {
+        int tmp = heap[i];
+        heap[i] = heap[j];
+        heap[j] = tmp;
+    }
+}
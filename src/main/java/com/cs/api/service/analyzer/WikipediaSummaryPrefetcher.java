@@ -0,0 +1,308 @@
+package com.cs.api.service.analyzer;
+
+import com.cs.api.service.cache.WikipediaSummaryStore;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Wikipedia摘要预取器
+ * 应用启动后在后台遍历知识库，对缺少description但带有Wikipedia url的条目
+ * 以有限并发和限速的方式获取摘要，写入WikipediaSummaryStore。
+ * 启用后 /concept/explanation 的请求路径不再同步访问Wikipedia，未命中的url交给预取器异步获取。
+ * 已提交但未完成的任务数受queue-capacity限制：预取遍历在名额用完时等待，请求路径提交的url在名额用完时直接放弃，
+ * 下次请求时再提交。
+ * 确认没有摘要的url（404或没有extract）在摘要存储中记录否定标记，有效期内预取遍历和请求路径都不再提交；
+ * 获取失败的url不记录，下次仍会重试。
+ * stub模式下不访问网络，生成占位摘要，用于本地测试。占位摘要只保存在内存中，不写入WikipediaSummaryStore。
+ *
+ * @author YK
+ * @since 1.0.0
+ */
+@Component
+public class WikipediaSummaryPrefetcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(WikipediaSummaryPrefetcher.class);
+
+    @Autowired
+    private ConceptKnowledgeBase conceptKnowledgeBase;
+
+    @Autowired
+    private ConceptKnowledgeAnalyzer conceptKnowledgeAnalyzer;
+
+    @Autowired
+    private WikipediaSummaryStore summaryStore;
+
+    @Value("${knowledge.wikipedia.prefetch.enabled:false}")
+    private boolean enabled;
+
+    @Value("${knowledge.wikipedia.prefetch.parallelism:4}")
+    private int parallelism;
+
+    @Value("${knowledge.wikipedia.prefetch.rate-per-second:5}")
+    private double ratePerSecond;
+
+    @Value("${knowledge.wikipedia.prefetch.queue-capacity:200}")
+    private int queueCapacity;
+
+    @Value("${knowledge.wikipedia.prefetch.stub:false}")
+    private boolean stub;
+
+    private ThreadPoolExecutor executor;
+    private RateLimiter rateLimiter;
+    private Semaphore pendingPermits;
+    private final Set<String> queued = ConcurrentHashMap.newKeySet();
+    // stub模式生成的占位摘要，只在内存中保存
+    private final Map<String, String> stubSummaries = new ConcurrentHashMap<>();
+    private final AtomicInteger fetched = new AtomicInteger();
+    private final AtomicInteger empty = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            return;
+        }
+        // 遍历在独立线程中进行：它会等待任务名额，不能占用执行预取任务的线程
+        Thread scanner = new Thread(this::prefetchAll, "wikipedia-prefetch-scan");
+        scanner.setDaemon(true);
+        scanner.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        summaryStore.flush();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 获取已保存的摘要，stub模式下也返回内存中的占位摘要
+     *
+     * @param url Wikipedia页面URL
+     * @return 摘要；已确认没有摘要（否定标记未过期）时返回空字符串；尚未获取时返回null
+     */
+    public String getSummary(String url) {
+        String summary = summaryStore.get(url);
+        if (summary == null && stub && url != null) {
+            summary = stubSummaries.get(url);
+        }
+        if (summary == null && summaryStore.isMarkedMissing(url)) {
+            return "";
+        }
+        return summary;
+    }
+
+    /**
+     * 遍历知识库，提交所有尚未获取摘要的url
+     * 未完成的任务达到queue-capacity时等待已有任务完成，任务不会在队列中无限堆积
+     */
+    public void prefetchAll() {
+        AtomicInteger submitted = new AtomicInteger();
+        try {
+            conceptKnowledgeBase.forEach(info -> {
+                if (info.getDescription().isEmpty() && !info.getUrl().isEmpty() && getSummary(info.getUrl()) == null) {
+                    try {
+                        if (submit(info.getUrl(), true)) {
+                            submitted.incrementAndGet();
+                        }
+                    } catch (InterruptedException e) {
+                        throw new PrefetchInterruptedException();
+                    }
+                }
+            });
+        } catch (PrefetchInterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.info("Wikipedia摘要预取遍历被中断: 已提交={}", submitted.get());
+            return;
+        }
+        logger.info("Wikipedia摘要预取任务已提交: 待获取={}, 已有摘要={}, 并发={}, 限速={}/s, stub={}",
+            submitted.get(), summaryStore.size(), parallelism, ratePerSecond, stub);
+    }
+
+    /**
+     * 异步获取单个url的摘要，已在队列中的url不会重复提交
+     * 请求路径调用，不等待：未完成的任务已满时放弃提交
+     *
+     * @param url Wikipedia页面URL
+     * @return 是否新提交了任务
+     */
+    public boolean submit(String url) {
+        try {
+            return submit(url, false);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private boolean submit(String url, boolean waitForCapacity) throws InterruptedException {
+        if (url == null || url.isEmpty() || !queued.add(url)) {
+            return false;
+        }
+        Semaphore permits = pendingPermits();
+        boolean acquired = false;
+        try {
+            if (waitForCapacity) {
+                permits.acquire();
+                acquired = true;
+            } else {
+                acquired = permits.tryAcquire();
+            }
+            if (!acquired) {
+                logger.debug("Wikipedia摘要预取任务已满，放弃提交: {}", url);
+                queued.remove(url);
+                return false;
+            }
+            executor().execute(() -> prefetch(url));
+            return true;
+        } catch (RejectedExecutionException e) {
+            logger.debug("Wikipedia摘要预取已关闭，放弃提交: {}", url);
+            permits.release();
+            queued.remove(url);
+            return false;
+        } catch (InterruptedException e) {
+            queued.remove(url);
+            throw e;
+        }
+    }
+
+    private void prefetch(String url) {
+        try {
+            rateLimiter().acquire();
+            String summary = stub ? stubSummary(url) : conceptKnowledgeAnalyzer.requestWikipediaSummary(url);
+            if (summary.isEmpty()) {
+                empty.incrementAndGet();
+                if (!stub) {
+                    summaryStore.markMissing(url);
+                }
+            } else {
+                if (stub) {
+                    stubSummaries.put(url, summary);
+                } else {
+                    summaryStore.put(url, summary);
+                }
+                fetched.incrementAndGet();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            logger.debug("预取Wikipedia摘要失败: {}", url, e);
+        } finally {
+            pendingPermits().release();
+            queued.remove(url);
+            if (queued.isEmpty()) {
+                summaryStore.flush();
+            }
+        }
+    }
+
+    /**
+     * 获取预取统计信息
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("stub", stub);
+        stats.put("queued", queued.size());
+        stats.put("fetched", fetched.get());
+        stats.put("empty", empty.get());
+        stats.put("failed", failed.get());
+        stats.put("storeSize", summaryStore.size());
+        stats.put("missingSize", summaryStore.missingSize());
+        stats.put("stubSize", stubSummaries.size());
+        return stats;
+    }
+
+    private String stubSummary(String url) {
+        return "[stub] Wikipedia summary for " + url;
+    }
+
+    private synchronized ThreadPoolExecutor executor() {
+        if (executor == null) {
+            AtomicInteger counter = new AtomicInteger();
+            int threads = Math.max(1, parallelism);
+            // 提交前已占用名额，队列容量与名额数相同，正常情况下不会拒绝
+            executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(Math.max(1, queueCapacity)), r -> {
+                    Thread thread = new Thread(r, "wikipedia-prefetch-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        }
+        return executor;
+    }
+
+    private synchronized Semaphore pendingPermits() {
+        if (pendingPermits == null) {
+            pendingPermits = new Semaphore(Math.max(1, queueCapacity));
+        }
+        return pendingPermits;
+    }
+
+    private synchronized RateLimiter rateLimiter() {
+        if (rateLimiter == null) {
+            rateLimiter = new RateLimiter(ratePerSecond);
+        }
+        return rateLimiter;
+    }
+
+    /**
+     * 在知识库遍历回调中传递中断
+     */
+    private static final class PrefetchInterruptedException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        PrefetchInterruptedException() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * 简单的匀速限流器，按固定间隔发放许可
+     */
+    static final class RateLimiter {
+        private final long intervalNanos;
+        private final AtomicLong nextPermit = new AtomicLong(System.nanoTime());
+
+        RateLimiter(double permitsPerSecond) {
+            this.intervalNanos = permitsPerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond) : 0;
+        }
+
+        void acquire() throws InterruptedException {
+            if (intervalNanos == 0) {
+                return;
+            }
+            long now = System.nanoTime();
+            long permit = nextPermit.getAndAccumulate(now, (next, current) -> Math.max(next, current) + intervalNanos);
+            long wait = Math.max(permit, now) - now;
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.cs.api.service.cache;
+
+import com.cs.api.common.cache.BoundedCache;
+import com.cs.api.dto.CodeTraceRequestDTO;
+import com.cs.api.dto.CodeTraceResponseDTO;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * 代码追溯结果缓存
+ * 两级缓存：内存LRU + 本地H2表，键为 (filePath, methodName, version, targetCommit, 是否包含描述字段, 追溯引擎)。
+ * targetCommit为完整的40位SHA时，该commit之前的历史不会再变化，结果永久有效；
+ * 其余情况按配置的TTL过期。空结果和失败结果不缓存；有commit未提取到代码片段的结果
+ * （方法未找到、提取异常）只按较短的TTL缓存，不会因完整SHA而永久有效。
+ *
+ * @author YK
+ * @since 1.0.0
+ */
+@Component
+public class CodeTraceResultCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(CodeTraceResultCache.class);
+
+    private static final Pattern FULL_SHA = Pattern.compile("^[0-9a-fA-F]{40}$");
+
+    private static final String CREATE_TABLE =
+        "CREATE TABLE IF NOT EXISTS code_trace_result ("
+            + "cache_key CHAR(64) PRIMARY KEY, "
+            + "request_key VARCHAR(4096) NOT NULL, "
+            + "payload CLOB NOT NULL, "
+            + "expire_at BIGINT, "
+            + "create_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP)";
+
+    @Autowired
+    private LocalCacheDatabase localCacheDatabase;
+
+    @Value("${code-trace.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${code-trace.cache.memory-size:500}")
+    private int memorySize;
+
+    /**
+     * targetCommit不是完整SHA时的缓存时间（分钟）
+     */
+    @Value("${code-trace.cache.ttl-minutes:60}")
+    private long ttlMinutes;
+
+    /**
+     * 有commit缺少代码片段时的缓存时间（分钟）
+     */
+    @Value("${code-trace.cache.incomplete-ttl-minutes:5}")
+    private long incompleteTtlMinutes;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private BoundedCache<String, CachedTrace> memoryCache;
+    private boolean diskAvailable;
+
+    @PostConstruct
+    public void init() {
+        this.memoryCache = new BoundedCache<>("codeTraceResult", memorySize,
+            cached -> cached.expireAt() == null
+                ? Duration.ofDays(3650)
+                : Duration.ofMillis(Math.max(0, cached.expireAt() - System.currentTimeMillis())));
+        this.diskAvailable = enabled && localCacheDatabase.initSchema(CREATE_TABLE);
+    }
+
+    /**
+     * 查询缓存的追溯结果
+     *
+     * @return 缓存结果的不可修改副本，未命中时返回null
+     */
+    public List<CodeTraceResponseDTO> get(CodeTraceRequestDTO request) {
+        if (!enabled) {
+            return null;
+        }
+        String cacheKey = cacheKey(requestKey(request));
+        CachedTrace cached = memoryCache.getIfPresent(cacheKey);
+        if (cached == null && diskAvailable) {
+            cached = loadFromDisk(cacheKey);
+            if (cached != null) {
+                memoryCache.put(cacheKey, cached);
+            }
+        }
+        return cached != null ? List.copyOf(cached.responses()) : null;
+    }
+
+    /**
+     * 缓存追溯结果，空结果或包含失败项的结果不缓存
+     * 保存的是列表的副本，调用方之后修改原列表不影响缓存
+     */
+    public void put(CodeTraceRequestDTO request, List<CodeTraceResponseDTO> responses) {
+        if (!enabled || responses == null || responses.isEmpty()
+                || responses.stream().anyMatch(response -> !response.isSuccess())) {
+            return;
+        }
+        Long expireAt;
+        if (responses.stream().anyMatch(CodeTraceResultCache::isMissingSnippet)) {
+            expireAt = System.currentTimeMillis() + Duration.ofMinutes(incompleteTtlMinutes).toMillis();
+        } else {
+            expireAt = isImmutable(request.getTargetCommit()) ? null : System.currentTimeMillis() + Duration.ofMinutes(ttlMinutes).toMillis();
+        }
+        String requestKey = requestKey(request);
+        String cacheKey = cacheKey(requestKey);
+        memoryCache.put(cacheKey, new CachedTrace(List.copyOf(responses), expireAt));
+        if (diskAvailable) {
+            saveToDisk(cacheKey, requestKey, responses, expireAt);
+        }
+    }
+
+    /**
+     * 清空内存和本地表中的缓存
+     */
+    public void clear() {
+        memoryCache.invalidateAll();
+        if (diskAvailable) {
+            localCacheDatabase.getJdbcTemplate().update("DELETE FROM code_trace_result");
+        }
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = memoryCache.getStatistics();
+        stats.put("diskAvailable", diskAvailable);
+        return stats;
+    }
+
+    /**
+     * targetCommit为完整SHA时结果不会变化
+     */
+    static boolean isImmutable(String targetCommit) {
+        return targetCommit != null && FULL_SHA.matcher(targetCommit).matches();
+    }
+
+    /**
+     * 方法未找到或提取异常时响应中没有代码片段
+     */
+    private static boolean isMissingSnippet(CodeTraceResponseDTO response) {
+        return response.getCodeSnippet() == null || response.getCodeSnippet().isBlank();
+    }
+
+    private CachedTrace loadFromDisk(String cacheKey) {
+        try {
+            JdbcTemplate jdbcTemplate = localCacheDatabase.getJdbcTemplate();
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "SELECT payload, expire_at FROM code_trace_result WHERE cache_key = ?", cacheKey);
+            if (rows.isEmpty()) {
+                return null;
+            }
+            Object expireValue = rows.get(0).get("EXPIRE_AT");
+            Long expireAt = expireValue != null ? ((Number) expireValue).longValue() : null;
+            if (expireAt != null && expireAt <= System.currentTimeMillis()) {
+                jdbcTemplate.update("DELETE FROM code_trace_result WHERE cache_key = ?", cacheKey);
+                return null;
+            }
+            List<CodeTraceResponseDTO> responses = objectMapper.readValue(
+                String.valueOf(rows.get(0).get("PAYLOAD")), new TypeReference<List<CodeTraceResponseDTO>>() {});
+            logger.debug("代码追溯结果命中本地缓存表: {}", cacheKey);
+            return new CachedTrace(responses, expireAt);
+        } catch (Exception e) {
+            logger.warn("读取代码追溯本地缓存失败: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void saveToDisk(String cacheKey, String requestKey, List<CodeTraceResponseDTO> responses, Long expireAt) {
+        try {
+            String payload = objectMapper.writeValueAsString(responses);
+            localCacheDatabase.getJdbcTemplate().update(
+                "MERGE INTO code_trace_result (cache_key, request_key, payload, expire_at) KEY (cache_key) VALUES (?, ?, ?, ?)",
+                cacheKey, requestKey, payload, expireAt);
+        } catch (Exception e) {
+            logger.warn("写入代码追溯本地缓存失败: {}", e.getMessage());
+        }
+    }
+
+    private static String requestKey(CodeTraceRequestDTO request) {
+        String key = request.getFilePath() + "\n" + request.getMethodName() + "\n" + request.getVersion() + "\n" + request.getTargetCommit();
+        // 不含描述字段的结果、非tracker引擎的结果单独缓存
+        if (!request.isIncludeCommitDetails()) {
+            key += "\nlite";
+        }
+        if (request.getEngine() != null && !"tracker".equals(request.getEngine())) {
+            key += "\nengine=" + request.getEngine();
+        }
+        return key;
+    }
+
+    private static String cacheKey(String requestKey) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(requestKey.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256不可用", e);
+        }
+    }
+
+    /**
+     * 缓存的追溯结果，expireAt为null表示永不过期
+     */
+    private record CachedTrace(List<CodeTraceResponseDTO> responses, Long expireAt) {}
+}
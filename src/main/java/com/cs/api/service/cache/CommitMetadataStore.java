@@ -0,0 +1,316 @@
+package com.cs.api.service.cache;
+
+import com.cs.api.common.cache.BoundedCache;
+import com.cs.api.common.process.ProcessExitException;
+import com.cs.api.common.process.ProcessRunner;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Commit元数据存储
+ * commit的提交信息和作者/提交者信息对同一个SHA永不变化，两级缓存：内存LRU + 本地H2表。
+ * 未命中的commit通过一次 git log --no-walk --stdin 批量读取，整个追溯历史只启动一个git进程
+ * （批次中有不存在的commit时，先用 git cat-file --batch-check 过滤再重试）。
+ * 只接受完整的40位SHA，分支、标签等可变引用不缓存。
+ * 时间保存为带时区偏移的ISO 8601格式（git的 %aI/%cI）。
+ *
+ * @author YK
+ * @since 1.0.0
+ */
+@Component
+public class CommitMetadataStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(CommitMetadataStore.class);
+
+    private static final Pattern FULL_SHA = Pattern.compile("^[0-9a-f]{40}$");
+
+    private static final char RECORD_SEPARATOR = '\u001e';
+    private static final char FIELD_SEPARATOR = '\u001f';
+
+    // 每次git调用和每次IN查询的最大commit个数
+    private static final int BATCH_SIZE = 500;
+
+    /**
+     * git log/show 的 --format，一条记录对应一个commit，可由 parseRecord 解析
+     */
+    public static final String GIT_FORMAT = RECORD_SEPARATOR + "%H" + FIELD_SEPARATOR + "%an" + FIELD_SEPARATOR + "%ae"
+        + FIELD_SEPARATOR + "%aI" + FIELD_SEPARATOR + "%cn" + FIELD_SEPARATOR + "%ce" + FIELD_SEPARATOR + "%cI"
+        + FIELD_SEPARATOR + "%B";
+
+    // 早期版本的本地表中时间没有时区偏移，这样的行视为未命中，重新从git读取后覆盖
+    private static final Pattern ISO_TIME = Pattern.compile("^\\d{4}-\\d{2}-\\d{2}T.*");
+
+    private static final String CREATE_TABLE =
+        "CREATE TABLE IF NOT EXISTS commit_metadata ("
+            + "commit_id CHAR(40) PRIMARY KEY, "
+            + "author_name VARCHAR(512), "
+            + "author_email VARCHAR(512), "
+            + "author_time VARCHAR(32), "
+            + "committer_name VARCHAR(512), "
+            + "committer_email VARCHAR(512), "
+            + "commit_time VARCHAR(32), "
+            + "message CLOB)";
+
+    @Autowired
+    private LocalCacheDatabase localCacheDatabase;
+
+    @Value("${kernel.source.path:/home/fdse/ytest/codeMap/linux/repo}")
+    private String kernelSourcePath;
+
+    @Value("${code-trace.commit-metadata.memory-size:5000}")
+    private int memorySize;
+
+    /**
+     * 是否写入本地H2表
+     */
+    @Value("${code-trace.commit-metadata.persist:true}")
+    private boolean persist;
+
+    @Value("${code-trace.local.git-timeout-seconds:60}")
+    private int gitTimeoutSeconds;
+
+    private BoundedCache<String, CommitMetadata> memoryCache;
+    private boolean diskAvailable;
+
+    @PostConstruct
+    public void init() {
+        this.memoryCache = new BoundedCache<>("commitMetadata", memorySize, Duration.ofDays(3650));
+        this.diskAvailable = persist && localCacheDatabase.initSchema(CREATE_TABLE);
+    }
+
+    /**
+     * 获取单个commit的元数据
+     *
+     * @param commitId 完整的40位SHA
+     * @return 元数据，commit不存在或不是完整SHA时返回null
+     */
+    public CommitMetadata get(String commitId) {
+        return getAll(List.of(commitId)).get(commitId);
+    }
+
+    /**
+     * 批量获取commit元数据，依次查询内存、本地表和git，git只调用一次（每批）
+     *
+     * @param commitIds 完整的40位SHA列表
+     * @return commitId -> 元数据，不存在的commit和非完整SHA不包含在结果中
+     */
+    public Map<String, CommitMetadata> getAll(Collection<String> commitIds) {
+        Map<String, CommitMetadata> results = getCached(commitIds);
+        Set<String> missing = new LinkedHashSet<>();
+        for (String commitId : commitIds) {
+            if (commitId != null && FULL_SHA.matcher(commitId).matches() && !results.containsKey(commitId)) {
+                missing.add(commitId);
+            }
+        }
+        if (missing.isEmpty()) {
+            return results;
+        }
+
+        List<String> pending = new ArrayList<>(missing);
+        for (int from = 0; from < pending.size(); from += BATCH_SIZE) {
+            List<String> batch = pending.subList(from, Math.min(pending.size(), from + BATCH_SIZE));
+            try {
+                List<CommitMetadata> loaded;
+                try {
+                    loaded = loadFromGit(batch);
+                } catch (ProcessExitException e) {
+                    // 批次中有仓库里不存在的commit时git log直接失败，过滤后重试一次
+                    loaded = loadFromGit(existingCommits(batch));
+                }
+                for (CommitMetadata metadata : loaded) {
+                    memoryCache.put(metadata.commitId(), metadata);
+                    results.put(metadata.commitId(), metadata);
+                }
+                if (diskAvailable) {
+                    saveToDisk(loaded);
+                }
+            } catch (IOException e) {
+                logger.warn("批量读取commit元数据失败: commits={}, error={}", batch.size(), e.getMessage());
+            }
+        }
+        logger.debug("commit元数据: 请求={}, 读取git={}, 返回={}", commitIds.size(), missing.size(), results.size());
+        return results;
+    }
+
+    /**
+     * 只从内存和本地表获取commit元数据，不启动git
+     *
+     * @param commitIds 完整的40位SHA列表
+     * @return commitId -> 元数据，未缓存的commit和非完整SHA不包含在结果中
+     */
+    public Map<String, CommitMetadata> getCached(Collection<String> commitIds) {
+        Map<String, CommitMetadata> results = new HashMap<>();
+        Set<String> missing = new LinkedHashSet<>();
+        for (String commitId : commitIds) {
+            if (commitId == null || !FULL_SHA.matcher(commitId).matches() || results.containsKey(commitId)) {
+                continue;
+            }
+            CommitMetadata cached = memoryCache.getIfPresent(commitId);
+            if (cached != null) {
+                results.put(commitId, cached);
+            } else {
+                missing.add(commitId);
+            }
+        }
+        if (diskAvailable && !missing.isEmpty()) {
+            for (CommitMetadata metadata : loadFromDisk(missing)) {
+                memoryCache.put(metadata.commitId(), metadata);
+                results.put(metadata.commitId(), metadata);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 保存调用方已从git读取的commit元数据（如 git show 的输出），非完整SHA不保存
+     */
+    public void put(CommitMetadata metadata) {
+        if (metadata == null || !FULL_SHA.matcher(metadata.commitId()).matches()) {
+            return;
+        }
+        memoryCache.put(metadata.commitId(), metadata);
+        if (diskAvailable) {
+            saveToDisk(List.of(metadata));
+        }
+    }
+
+    /**
+     * 解析按 GIT_FORMAT 输出的一条记录（不含开头的记录分隔符）
+     *
+     * @return 元数据，字段不完整时返回null
+     */
+    public static CommitMetadata parseRecord(String record) {
+        String[] fields = record.split(String.valueOf(FIELD_SEPARATOR), -1);
+        if (fields.length < 8) {
+            return null;
+        }
+        return new CommitMetadata(fields[0], fields[1], fields[2], fields[3], fields[4], fields[5], fields[6],
+            fields[7].strip());
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = memoryCache.getStatistics();
+        stats.put("diskAvailable", diskAvailable);
+        return stats;
+    }
+
+    private List<CommitMetadata> loadFromGit(List<String> commitIds) throws IOException {
+        if (commitIds.isEmpty()) {
+            return List.of();
+        }
+        File repoDir = new File(kernelSourcePath);
+        if (!repoDir.isDirectory()) {
+            throw new IOException("Git仓库路径不存在或不是一个目录: " + kernelSourcePath);
+        }
+        ProcessBuilder pb = new ProcessBuilder("git", "log", "--no-walk=unsorted", "--stdin", "--format=" + GIT_FORMAT);
+        pb.directory(repoDir);
+        // git log 在输出之前读完全部stdin，先写后读不会死锁
+        byte[] output = ProcessRunner.run(pb, stdinLines(commitIds), gitTimeoutSeconds);
+
+        List<CommitMetadata> results = new ArrayList<>();
+        for (String record : new String(output, StandardCharsets.UTF_8).split(String.valueOf(RECORD_SEPARATOR))) {
+            CommitMetadata metadata = parseRecord(record);
+            if (metadata != null) {
+                results.add(metadata);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 通过 git cat-file --batch-check 过滤出仓库中存在的commit
+     */
+    private List<String> existingCommits(List<String> commitIds) throws IOException {
+        ProcessBuilder pb = new ProcessBuilder("git", "cat-file", "--batch-check");
+        pb.directory(new File(kernelSourcePath));
+        // 每批最多BATCH_SIZE行，输出不会写满管道缓冲区，可以先写后读
+        byte[] output = ProcessRunner.run(pb, stdinLines(commitIds), gitTimeoutSeconds);
+        List<String> existing = new ArrayList<>();
+        for (String line : new String(output, StandardCharsets.UTF_8).split("\n")) {
+            // 输出格式: "<oid> commit <size>"，不存在时为 "<oid> missing"
+            String[] parts = line.split(" ");
+            if (parts.length == 3 && "commit".equals(parts[1])) {
+                existing.add(parts[0]);
+            }
+        }
+        return existing;
+    }
+
+    private static byte[] stdinLines(List<String> commitIds) {
+        return (String.join("\n", commitIds) + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private List<CommitMetadata> loadFromDisk(Collection<String> commitIds) {
+        List<CommitMetadata> results = new ArrayList<>();
+        List<String> pending = new ArrayList<>(commitIds);
+        try {
+            JdbcTemplate jdbcTemplate = localCacheDatabase.getJdbcTemplate();
+            for (int from = 0; from < pending.size(); from += BATCH_SIZE) {
+                List<String> batch = pending.subList(from, Math.min(pending.size(), from + BATCH_SIZE));
+                String placeholders = String.join(",", Collections.nCopies(batch.size(), "?"));
+                results.addAll(jdbcTemplate.query(
+                    "SELECT commit_id, author_name, author_email, author_time, committer_name, committer_email, commit_time, message "
+                        + "FROM commit_metadata WHERE commit_id IN (" + placeholders + ")",
+                    (rs, rowNum) -> new CommitMetadata(rs.getString(1), rs.getString(2), rs.getString(3), rs.getString(4),
+                        rs.getString(5), rs.getString(6), rs.getString(7), rs.getString(8)),
+                    batch.toArray()));
+            }
+            results.removeIf(metadata -> metadata.authorTime() == null || !ISO_TIME.matcher(metadata.authorTime()).matches());
+        } catch (Exception e) {
+            logger.warn("读取commit元数据本地缓存失败: {}", e.getMessage());
+        }
+        return results;
+    }
+
+    private void saveToDisk(List<CommitMetadata> metadataList) {
+        if (metadataList.isEmpty()) {
+            return;
+        }
+        try {
+            List<Object[]> rows = new ArrayList<>();
+            for (CommitMetadata m : metadataList) {
+                rows.add(new Object[] {m.commitId(), m.authorName(), m.authorEmail(), m.authorTime(),
+                    m.committerName(), m.committerEmail(), m.commitTime(), m.message()});
+            }
+            localCacheDatabase.getJdbcTemplate().batchUpdate(
+                "MERGE INTO commit_metadata (commit_id, author_name, author_email, author_time, committer_name, "
+                    + "committer_email, commit_time, message) KEY (commit_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", rows);
+        } catch (Exception e) {
+            logger.warn("写入commit元数据本地缓存失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * commit元数据，message为完整的提交信息（标题 + 正文）
+     */
+    public record CommitMetadata(String commitId, String authorName, String authorEmail, String authorTime,
+                                 String committerName, String committerEmail, String commitTime, String message) {
+
+        /**
+         * 提交信息的第一行
+         */
+        public String title() {
+            int newline = message.indexOf('\n');
+            return newline < 0 ? message : message.substring(0, newline);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.cs.api.service.cache;
+
+import com.cs.api.dto.ConceptAnalysisResultDTO;
+import com.cs.api.mapper.ConceptAnalysisResultMapper;
+import com.cs.api.mapper.EntityExtractionMapper;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * 概念分析结果存储
+ * 把关系分析、三元组提取等依赖大模型的结果持久化到 concept_analysis_result 表。
+ * 每条结果记录相关feature在entities_extraction中的数据指纹（实体数量、最大eid、最近更新时间），
+ * 只有这些feature的数据发生变化时结果才会失效，否则直接返回已保存的结果。
+ *
+ * @author YK
+ * @since 1.0.0
+ */
+@Component
+public class ConceptAnalysisResultStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConceptAnalysisResultStore.class);
+
+    /** 结果类型：概念关系分析 */
+    public static final String TYPE_RELATIONSHIP = "relationship";
+
+    /** 结果类型：三元组提取 */
+    public static final String TYPE_TRIPLES = "triples";
+
+    // 指纹查询时每批的最大featureId个数
+    private static final int FINGERPRINT_BATCH_SIZE = 500;
+
+    @Autowired
+    private ConceptAnalysisResultMapper resultMapper;
+
+    @Autowired
+    private EntityExtractionMapper entityExtractionMapper;
+
+    @Value("${analysis.result-store.enabled:true}")
+    private boolean enabled;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 计算feature集合的键（与顺序无关）
+     *
+     * @param featureIds 特征ID集合
+     * @return 64位十六进制SHA-256
+     */
+    public String featureSetKey(Collection<Integer> featureIds) {
+        StringBuilder sb = new StringBuilder();
+        for (Integer featureId : new TreeSet<>(nonNull(featureIds))) {
+            sb.append(featureId).append(',');
+        }
+        return sha256(sb.toString());
+    }
+
+    /**
+     * 计算feature集合加附加参数的键，例如概念关系分析的深度
+     *
+     * @param featureIds 特征ID集合
+     * @param qualifier 附加参数
+     * @return 64位十六进制SHA-256
+     */
+    public String featureSetKey(Collection<Integer> featureIds, Object qualifier) {
+        return sha256(qualifier + "|" + featureSetKey(featureIds));
+    }
+
+    /**
+     * 计算feature集合的数据指纹
+     * feature集合本身以及其中任一feature的实体增删改都会改变指纹
+     *
+     * @param featureIds 特征ID集合
+     * @return 64位十六进制SHA-256，查询失败时返回null
+     */
+    public String fingerprint(Collection<Integer> featureIds) {
+        List<Integer> ids = new ArrayList<>(new TreeSet<>(nonNull(featureIds)));
+        StringBuilder sb = new StringBuilder();
+        try {
+            for (int i = 0; i < ids.size(); i += FINGERPRINT_BATCH_SIZE) {
+                List<Integer> chunk = ids.subList(i, Math.min(i + FINGERPRINT_BATCH_SIZE, ids.size()));
+                for (Map<String, Object> row : entityExtractionMapper.summarizeByFeatureIds(chunk)) {
+                    sb.append(row.get("featureId")).append(':')
+                      .append(row.get("entityCount")).append(':')
+                      .append(row.get("maxEid")).append(':')
+                      .append(row.get("lastUpdate")).append(';');
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("计算feature数据指纹失败: {}", e.getMessage());
+            return null;
+        }
+        return sha256(ids + "|" + sb);
+    }
+
+    /**
+     * 读取已保存的结果，数据指纹不一致时视为失效
+     *
+     * @param resultType 结果类型
+     * @param concept 概念名称
+     * @param resultKey 结果键
+     * @param dataVersion 当前数据指纹
+     * @param type 结果类型引用
+     * @return 有效的结果，不存在或已失效时返回null
+     */
+    public <T> T load(String resultType, String concept, String resultKey, String dataVersion, TypeReference<T> type) {
+        if (!enabled || dataVersion == null) {
+            return null;
+        }
+        try {
+            ConceptAnalysisResultDTO stored = resultMapper.findByKey(resultType, concept, resultKey);
+            if (stored == null) {
+                return null;
+            }
+            if (!dataVersion.equals(stored.getDataVersion())) {
+                logger.debug("已保存的结果已失效: type={}, concept={}, key={}", resultType, concept, resultKey);
+                return null;
+            }
+            logger.debug("命中已保存的结果: type={}, concept={}, key={}", resultType, concept, resultKey);
+            return objectMapper.readValue(stored.getPayload(), type);
+        } catch (Exception e) {
+            logger.warn("读取已保存的结果失败: type={}, concept={}, error={}", resultType, concept, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 保存结果，已存在时覆盖
+     *
+     * @param resultType 结果类型
+     * @param concept 概念名称
+     * @param resultKey 结果键
+     * @param dataVersion 计算结果时的数据指纹
+     * @param result 结果对象
+     */
+    public void save(String resultType, String concept, String resultKey, String dataVersion, Object result) {
+        if (!enabled || dataVersion == null || result == null) {
+            return;
+        }
+        try {
+            String payload = objectMapper.writeValueAsString(result);
+            resultMapper.upsert(new ConceptAnalysisResultDTO(resultType, concept, resultKey, dataVersion, payload));
+            logger.debug("分析结果已保存: type={}, concept={}, key={}", resultType, concept, resultKey);
+        } catch (Exception e) {
+            logger.warn("保存分析结果失败: type={}, concept={}, error={}", resultType, concept, e.getMessage());
+        }
+    }
+
+    private static Collection<Integer> nonNull(Collection<Integer> featureIds) {
+        List<Integer> ids = new ArrayList<>();
+        if (featureIds != null) {
+            for (Integer id : featureIds) {
+                if (id != null) {
+                    ids.add(id);
+                }
+            }
+        }
+        return ids;
+    }
+
+    private static String sha256(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256不可用", e);
+        }
+    }
+}
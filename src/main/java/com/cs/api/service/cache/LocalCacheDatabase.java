@@ -0,0 +1,120 @@
+package com.cs.api.service.cache;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 本地缓存数据库
+ * 基于嵌入式H2文件数据库，保存可在重启后复用的本地缓存（如代码追溯结果）。
+ * 数据源只在本类内部使用，不注册为Spring Bean，避免影响MySQL数据源的自动配置。
+ * 使用HikariCP连接池，追溯结果和commit元数据的每次读写复用已打开的连接，不再逐次打开H2文件。
+ *
+ * @author YK
+ * @since 1.0.0
+ */
+@Component
+public class LocalCacheDatabase {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalCacheDatabase.class);
+
+    @Value("${local.cache.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * H2数据库文件路径（不含.mv.db后缀）
+     */
+    @Value("${local.cache.path:./data/local-cache}")
+    private String databasePath;
+
+    /**
+     * 连接池大小
+     */
+    @Value("${local.cache.pool-size:4}")
+    private int poolSize;
+
+    private HikariDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            logger.info("本地缓存数据库未启用");
+            return;
+        }
+        try {
+            Path path = Path.of(databasePath).toAbsolutePath();
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            HikariConfig config = new HikariConfig();
+            config.setPoolName("local-cache");
+            config.setDriverClassName("org.h2.Driver");
+            config.setJdbcUrl("jdbc:h2:file:" + path + ";DB_CLOSE_DELAY=-1");
+            config.setUsername("sa");
+            config.setPassword("");
+            config.setMaximumPoolSize(Math.max(1, poolSize));
+            HikariDataSource pool = new HikariDataSource(config);
+            try {
+                JdbcTemplate template = new JdbcTemplate(pool);
+                template.execute("SELECT 1");
+                this.dataSource = pool;
+                this.jdbcTemplate = template;
+            } catch (Exception e) {
+                pool.close();
+                throw e;
+            }
+            logger.info("本地缓存数据库初始化完成: {}", path);
+        } catch (Exception e) {
+            logger.warn("本地缓存数据库初始化失败，仅使用内存缓存: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (dataSource != null) {
+            dataSource.close();
+        }
+    }
+
+    /**
+     * 本地缓存数据库是否可用
+     */
+    public boolean isAvailable() {
+        return jdbcTemplate != null;
+    }
+
+    /**
+     * 获取JdbcTemplate，不可用时返回null
+     */
+    public JdbcTemplate getJdbcTemplate() {
+        return jdbcTemplate;
+    }
+
+    /**
+     * 执行建表等初始化语句，失败时返回false
+     */
+    public boolean initSchema(String... statements) {
+        if (jdbcTemplate == null) {
+            return false;
+        }
+        try {
+            for (String statement : statements) {
+                jdbcTemplate.execute(statement);
+            }
+            return true;
+        } catch (Exception e) {
+            logger.warn("本地缓存表初始化失败: {}", e.getMessage());
+            return false;
+        }
+    }
+}
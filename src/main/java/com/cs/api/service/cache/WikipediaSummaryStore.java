@@ -0,0 +1,192 @@
+package com.cs.api.service.cache;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Wikipedia摘要本地存储
+ * 以 url -> 摘要 的形式保存已获取的Wikipedia摘要，持久化为本地JSON文件，
+ * 启动时加载，新写入的条目累积到一定数量或关闭时落盘（先写临时文件再原子替换）。
+ * 确认没有摘要的url（404或没有extract）记录为否定标记及其时间，在missing-ttl-days内不再获取。
+ * 文件格式为 {"summaries": {url: 摘要}, "missing": {url: 记录时间毫秒}}，也兼容只有 url -> 摘要 的旧格式。
+ *
+ * @author YK
+ * @since 1.0.0
+ */
+@Component
+public class WikipediaSummaryStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(WikipediaSummaryStore.class);
+
+    // 累积多少条新摘要后自动落盘
+    private static final int FLUSH_THRESHOLD = 100;
+
+    private static final String SUMMARIES_FIELD = "summaries";
+    private static final String MISSING_FIELD = "missing";
+
+    @Value("${knowledge.base.path:/home/fdse/ytest/LinuxKernelKG/output/processed_entities_for_CL.json}")
+    private String knowledgeBasePath;
+
+    /**
+     * 摘要存储文件路径，为空时使用知识库文件路径加.wikipedia.json后缀
+     */
+    @Value("${knowledge.wikipedia.store-path:}")
+    private String storePath;
+
+    /**
+     * 否定标记的有效期（天），过期后重新获取
+     */
+    @Value("${knowledge.wikipedia.missing-ttl-days:7}")
+    private long missingTtlDays;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, String> summaries = new ConcurrentHashMap<>();
+    // url -> 确认没有摘要的时间（毫秒）
+    private final Map<String, Long> missing = new ConcurrentHashMap<>();
+    private final AtomicInteger pendingWrites = new AtomicInteger();
+
+    @PostConstruct
+    public void init() {
+        Path path = getStorePath();
+        if (!Files.exists(path)) {
+            logger.info("Wikipedia摘要存储文件不存在，将在首次写入时创建: {}", path);
+            return;
+        }
+        try {
+            JsonNode root = objectMapper.readTree(path.toFile());
+            if (root.has(SUMMARIES_FIELD) && root.get(SUMMARIES_FIELD).isObject()) {
+                summaries.putAll(objectMapper.convertValue(root.get(SUMMARIES_FIELD), new TypeReference<Map<String, String>>() {}));
+                if (root.has(MISSING_FIELD)) {
+                    missing.putAll(objectMapper.convertValue(root.get(MISSING_FIELD), new TypeReference<Map<String, Long>>() {}));
+                }
+            } else {
+                // 旧格式: url -> 摘要
+                summaries.putAll(objectMapper.convertValue(root, new TypeReference<Map<String, String>>() {}));
+            }
+            logger.info("Wikipedia摘要存储加载完成: path={}, 条目数={}, 否定标记={}", path, summaries.size(), missing.size());
+        } catch (IOException e) {
+            logger.error("读取Wikipedia摘要存储失败: {}", path, e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * 获取已保存的摘要
+     *
+     * @param url Wikipedia页面URL
+     * @return 摘要，不存在时返回null
+     */
+    public String get(String url) {
+        return url != null ? summaries.get(url) : null;
+    }
+
+    public boolean contains(String url) {
+        return url != null && summaries.containsKey(url);
+    }
+
+    /**
+     * 保存摘要，空摘要不保存（获取失败和没有摘要无法区分时，调用方不应记录否定标记）
+     */
+    public void put(String url, String summary) {
+        if (url == null || summary == null || summary.isEmpty()) {
+            return;
+        }
+        boolean changed = !summary.equals(summaries.put(url, summary));
+        changed |= missing.remove(url) != null;
+        if (changed) {
+            recordWrite();
+        }
+    }
+
+    /**
+     * 记录url确认没有摘要（404或没有extract）
+     */
+    public void markMissing(String url) {
+        if (url == null || summaries.containsKey(url)) {
+            return;
+        }
+        missing.put(url, System.currentTimeMillis());
+        recordWrite();
+    }
+
+    /**
+     * url是否有未过期的否定标记，过期的标记被移除
+     */
+    public boolean isMarkedMissing(String url) {
+        Long markedAt = url != null ? missing.get(url) : null;
+        if (markedAt == null) {
+            return false;
+        }
+        if (System.currentTimeMillis() - markedAt < TimeUnit.DAYS.toMillis(missingTtlDays)) {
+            return true;
+        }
+        if (missing.remove(url, markedAt)) {
+            recordWrite();
+        }
+        return false;
+    }
+
+    public int size() {
+        return summaries.size();
+    }
+
+    public int missingSize() {
+        return missing.size();
+    }
+
+    private void recordWrite() {
+        if (pendingWrites.incrementAndGet() >= FLUSH_THRESHOLD) {
+            flush();
+        }
+    }
+
+    /**
+     * 把当前摘要写入存储文件
+     */
+    public synchronized void flush() {
+        if (pendingWrites.getAndSet(0) == 0) {
+            return;
+        }
+        Path path = getStorePath();
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            Map<String, Object> content = new LinkedHashMap<>();
+            content.put(SUMMARIES_FIELD, new TreeMap<>(summaries));
+            content.put(MISSING_FIELD, new TreeMap<>(missing));
+            objectMapper.writeValue(tmp.toFile(), content);
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.debug("Wikipedia摘要存储已落盘: path={}, 条目数={}", path, summaries.size());
+        } catch (IOException e) {
+            logger.error("写入Wikipedia摘要存储失败: {}", path, e);
+        }
+    }
+
+    public Path getStorePath() {
+        return storePath.isBlank() ? Path.of(knowledgeBasePath + ".wikipedia.json") : Path.of(storePath);
+    }
+}
@@ -0,0 +1,489 @@
+package com.cs.api.service.client;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * tracker API客户端
+ * 基于JDK HttpClient（内部复用连接池），提供：
+ * <ul>
+ *   <li>连接超时和请求超时（tracker.api.timeout），超时覆盖响应头、响应体读取和解析的全过程</li>
+ *   <li>指数退避重试（tracker.api.retry.*），只重试网络错误、超时、5xx和429</li>
+ *   <li>熔断：连续失败达到阈值后在一段时间内直接拒绝请求，之后放行一个探测请求</li>
+ *   <li>对冲请求：请求耗时超过近期P95时再发一个相同请求，取先成功的结果</li>
+ * </ul>
+ * tracker不可用时请求快速失败，不再长时间占用Tomcat线程。
+ *
+ * @author YK
+ * @since 1.0.0
+ */
+@Component
+public class TrackerApiClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(TrackerApiClient.class);
+
+    /**
+     * 计算对冲延迟至少需要的样本数
+     */
+    private static final int MIN_LATENCY_SAMPLES = 20;
+
+    @Value("${tracker.api.base-url:http://10.176.34.96:7777}")
+    private String baseUrl;
+
+    /**
+     * 单次请求超时时间（秒），包括读取和解析响应体
+     */
+    @Value("${tracker.api.timeout:30}")
+    private int timeoutSeconds;
+
+    @Value("${tracker.api.connect-timeout-seconds:5}")
+    private int connectTimeoutSeconds;
+
+    /**
+     * 处理HTTP请求的线程数
+     */
+    @Value("${tracker.api.http-threads:32}")
+    private int httpThreads;
+
+    @Value("${tracker.api.retry.max-attempts:3}")
+    private int retryMaxAttempts;
+
+    /**
+     * 首次重试前的等待时间，之后每次翻倍
+     */
+    @Value("${tracker.api.retry.delay-ms:1000}")
+    private long retryDelayMs;
+
+    @Value("${tracker.api.retry.max-delay-ms:8000}")
+    private long retryMaxDelayMs;
+
+    @Value("${tracker.api.circuit-breaker.failure-threshold:5}")
+    private int circuitFailureThreshold;
+
+    @Value("${tracker.api.circuit-breaker.open-seconds:30}")
+    private int circuitOpenSeconds;
+
+    @Value("${tracker.api.hedge.enabled:true}")
+    private boolean hedgeEnabled;
+
+    /**
+     * 固定的对冲延迟（毫秒），<=0 时使用近期成功请求耗时的P95
+     */
+    @Value("${tracker.api.hedge.delay-ms:0}")
+    private long hedgeDelayMs;
+
+    @Value("${tracker.api.hedge.min-delay-ms:500}")
+    private long hedgeMinDelayMs;
+
+    private HttpClient httpClient;
+    private ExecutorService httpExecutor;
+    /**
+     * 读取和解析响应体的线程池，与HttpClient的线程池分开，阻塞读取不会占用投递响应数据的线程
+     */
+    private ExecutorService bodyExecutor;
+    private CircuitBreaker circuitBreaker;
+    private final LatencyWindow latencyWindow = new LatencyWindow(256);
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong hedged = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.httpExecutor = Executors.newFixedThreadPool(Math.max(1, httpThreads), r -> {
+            Thread thread = new Thread(r, "tracker-http-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger bodyThreadCounter = new AtomicInteger();
+        this.bodyExecutor = Executors.newFixedThreadPool(Math.max(1, httpThreads), r -> {
+            Thread thread = new Thread(r, "tracker-body-" + bodyThreadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(connectTimeoutSeconds))
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .executor(httpExecutor)
+            .build();
+        this.circuitBreaker = new CircuitBreaker(circuitFailureThreshold, TimeUnit.SECONDS.toMillis(circuitOpenSeconds));
+        logger.info("TrackerApiClient初始化完成: baseUrl={}, timeout={}s, retry={}, hedge={}",
+            baseUrl, timeoutSeconds, retryMaxAttempts, hedgeEnabled);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (httpExecutor != null) {
+            httpExecutor.shutdownNow();
+        }
+        if (bodyExecutor != null) {
+            bodyExecutor.shutdownNow();
+        }
+    }
+
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    /**
+     * 执行GET请求，失败时按退避策略重试
+     *
+     * @param url 完整的请求URL
+     * @return 响应体
+     * @throws TrackerApiException 重试耗尽、不可重试的错误或熔断中
+     */
+    public String get(String url) {
+        return get(url, body -> new String(body.readAllBytes(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 执行GET请求并以流的方式解析响应体，失败时按退避策略重试
+     * 响应体不会整体读入内存，解析器直接消费网络输入流
+     * 每次尝试从发送请求到解析完成共用一个超时时间，响应体读到一半停住时同样按超时处理
+     *
+     * @param url 完整的请求URL
+     * @param parser 响应体解析器，在响应体线程池中执行，超时时被中断
+     * @return 解析结果
+     * @throws TrackerApiException 重试耗尽、不可重试的错误或熔断中
+     */
+    public <T> T get(String url, BodyParser<T> parser) {
+        requests.incrementAndGet();
+        if (!circuitBreaker.tryAcquire()) {
+            rejected.incrementAndGet();
+            throw new TrackerApiException("tracker服务连续失败，熔断中，请稍后重试", false);
+        }
+
+        long delay = retryDelayMs;
+        int attempts = Math.max(1, retryMaxAttempts);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+                T body = readBody(executeHedged(url, deadline), parser, deadline);
+                circuitBreaker.onSuccess();
+                return body;
+            } catch (TrackerApiException e) {
+                if (!e.isRetryable() || attempt >= attempts) {
+                    failures.incrementAndGet();
+                    // 4xx说明请求本身有问题，不计入熔断
+                    if (e.isRetryable()) {
+                        circuitBreaker.onFailure();
+                    } else {
+                        circuitBreaker.release();
+                    }
+                    throw e;
+                }
+                retries.incrementAndGet();
+                long sleep = ThreadLocalRandom.current().nextLong(delay / 2, delay + 1);
+                logger.warn("tracker API请求失败，{}ms后第{}次重试: {}", sleep, attempt, e.getMessage());
+                try {
+                    TimeUnit.MILLISECONDS.sleep(sleep);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    circuitBreaker.release();
+                    throw new TrackerApiException("等待重试时被中断", false, interrupted);
+                }
+                delay = Math.min(delay * 2, retryMaxDelayMs);
+            }
+        }
+    }
+
+    /**
+     * 获取客户端统计信息
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("baseUrl", baseUrl);
+        stats.put("circuitState", circuitBreaker.getState());
+        stats.put("requests", requests.get());
+        stats.put("failures", failures.get());
+        stats.put("retries", retries.get());
+        stats.put("hedged", hedged.get());
+        stats.put("rejected", rejected.get());
+        stats.put("hedgeDelayMs", currentHedgeDelay());
+        return stats;
+    }
+
+    /**
+     * 在截止时间前读取并解析响应体
+     * 解析在响应体线程池中执行，调用线程按剩余时间等待；超时时关闭响应流并中断解析，释放连接
+     */
+    private <T> T readBody(HttpResponse<InputStream> response, BodyParser<T> parser, long deadlineNanos) {
+        InputStream in = response.body();
+        Future<T> parsing;
+        try {
+            parsing = bodyExecutor.submit(() -> {
+                try (InputStream body = in) {
+                    return parser.parse(body);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            closeQuietly(in);
+            throw new TrackerApiException("tracker API客户端已关闭", false, e);
+        }
+        try {
+            return parsing.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            parsing.cancel(true);
+            closeQuietly(in);
+            throw new TrackerApiException("读取tracker API响应超时(" + timeoutSeconds + "s)", true, e);
+        } catch (InterruptedException e) {
+            parsing.cancel(true);
+            closeQuietly(in);
+            Thread.currentThread().interrupt();
+            throw new TrackerApiException("读取tracker API响应时被中断", false, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw new TrackerApiException("读取tracker API响应失败: " + cause.getMessage(), true, cause);
+            }
+            // 响应内容无法解析，重试也不会改变结果
+            throw new TrackerApiException("解析tracker API响应失败: " + cause.getMessage(), false, cause);
+        }
+    }
+
+    /**
+     * 发送请求，超过对冲延迟仍未返回时再发送一个相同请求，取先成功的响应
+     *
+     * @param deadlineNanos 本次尝试的截止时间（System.nanoTime）
+     */
+    private HttpResponse<InputStream> executeHedged(String url, long deadlineNanos) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+            .timeout(Duration.ofSeconds(timeoutSeconds))
+            .header("Accept", "application/json")
+            .header("User-Agent", "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/136.0.0.0 Safari/537.36")
+            .GET()
+            .build();
+
+        long start = System.nanoTime();
+        HedgedCall call = new HedgedCall();
+        call.launch(send(request));
+        try {
+            long hedgeDelay = currentHedgeDelay();
+            if (hedgeDelay > 0) {
+                try {
+                    return recordLatency(start, call.result.get(hedgeDelay, TimeUnit.MILLISECONDS));
+                } catch (TimeoutException e) {
+                    hedged.incrementAndGet();
+                    logger.debug("tracker API请求超过{}ms未返回，发送对冲请求", hedgeDelay);
+                    call.launch(send(request));
+                }
+            }
+            return recordLatency(start, call.result.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS));
+        } catch (TimeoutException e) {
+            call.abandon();
+            throw new TrackerApiException("tracker API请求超时(" + timeoutSeconds + "s)", true, e);
+        } catch (InterruptedException e) {
+            call.abandon();
+            Thread.currentThread().interrupt();
+            throw new TrackerApiException("tracker API请求被中断", false, e);
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    private CompletableFuture<HttpResponse<InputStream>> send(HttpRequest request) {
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream())
+            .thenApply(response -> {
+                int status = response.statusCode();
+                if (status >= 200 && status < 300) {
+                    return response;
+                }
+                closeQuietly(response.body());
+                boolean retryable = status >= 500 || status == 429;
+                throw new TrackerApiException("tracker API返回状态码 " + status, retryable);
+            });
+    }
+
+    private <T> T recordLatency(long startNanos, T response) {
+        latencyWindow.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        return response;
+    }
+
+    private static void closeQuietly(InputStream in) {
+        try {
+            in.close();
+        } catch (IOException ignored) {
+            // 关闭失败不影响结果
+        }
+    }
+
+    private long currentHedgeDelay() {
+        if (!hedgeEnabled) {
+            return 0;
+        }
+        if (hedgeDelayMs > 0) {
+            return hedgeDelayMs;
+        }
+        long p95 = latencyWindow.percentile(0.95, MIN_LATENCY_SAMPLES);
+        return p95 > 0 ? Math.max(hedgeMinDelayMs, p95) : 0;
+    }
+
+    private static TrackerApiException unwrap(Throwable error) {
+        while (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        if (error instanceof TrackerApiException trackerApiException) {
+            return trackerApiException;
+        }
+        // 连接失败、请求超时（HttpTimeoutException）等网络错误可以重试
+        boolean retryable = error instanceof IOException;
+        return new TrackerApiException("tracker API请求失败: " + error.getMessage(), retryable, error);
+    }
+
+    /**
+     * 响应体解析器
+     */
+    @FunctionalInterface
+    public interface BodyParser<T> {
+        T parse(InputStream body) throws IOException;
+    }
+
+    /**
+     * 一次（可能被对冲的）调用：result取第一个成功的响应，全部失败时取最后一个异常；
+     * 未被采用的响应（对冲落败或调用已放弃）会关闭其响应流，释放连接
+     */
+    private static final class HedgedCall {
+        final CompletableFuture<HttpResponse<InputStream>> result = new CompletableFuture<>();
+        private final AtomicInteger launched = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+
+        void launch(CompletableFuture<HttpResponse<InputStream>> attempt) {
+            launched.incrementAndGet();
+            attempt.whenComplete((response, error) -> {
+                if (error == null) {
+                    if (!result.complete(response)) {
+                        closeQuietly(response.body());
+                    }
+                } else if (failed.incrementAndGet() == launched.get()) {
+                    result.completeExceptionally(error);
+                }
+            });
+        }
+
+        /**
+         * 放弃调用，之后到达的响应直接关闭
+         */
+        void abandon() {
+            if (!result.cancel(false) && !result.isCompletedExceptionally()) {
+                closeQuietly(result.join().body());
+            }
+        }
+    }
+
+    /**
+     * 熔断器：CLOSED -> 连续失败达到阈值 -> OPEN -> 冷却结束 -> HALF_OPEN（只放行一个探测请求）
+     */
+    static final class CircuitBreaker {
+        private final int failureThreshold;
+        private final long openMillis;
+        private int consecutiveFailures;
+        private long openUntil;
+        private boolean probing;
+
+        CircuitBreaker(int failureThreshold, long openMillis) {
+            this.failureThreshold = Math.max(1, failureThreshold);
+            this.openMillis = openMillis;
+        }
+
+        synchronized boolean tryAcquire() {
+            if (consecutiveFailures < failureThreshold) {
+                return true;
+            }
+            if (System.currentTimeMillis() < openUntil || probing) {
+                return false;
+            }
+            probing = true;
+            return true;
+        }
+
+        synchronized void onSuccess() {
+            consecutiveFailures = 0;
+            probing = false;
+        }
+
+        /**
+         * 结束探测但不改变失败计数（请求因自身原因失败或被中断）
+         */
+        synchronized void release() {
+            probing = false;
+        }
+
+        synchronized void onFailure() {
+            probing = false;
+            consecutiveFailures++;
+            if (consecutiveFailures >= failureThreshold) {
+                openUntil = System.currentTimeMillis() + openMillis;
+                logger.warn("tracker API连续失败{}次，熔断{}ms", consecutiveFailures, openMillis);
+            }
+        }
+
+        synchronized String getState() {
+            if (consecutiveFailures < failureThreshold) {
+                return "CLOSED";
+            }
+            return System.currentTimeMillis() < openUntil && !probing ? "OPEN" : "HALF_OPEN";
+        }
+    }
+
+    /**
+     * 最近N次成功请求耗时的环形窗口
+     */
+    static final class LatencyWindow {
+        private final long[] samples;
+        private int next;
+        private int count;
+
+        LatencyWindow(int size) {
+            this.samples = new long[size];
+        }
+
+        synchronized void record(long millis) {
+            samples[next] = millis;
+            next = (next + 1) % samples.length;
+            count = Math.min(count + 1, samples.length);
+        }
+
+        /**
+         * 样本不足minSamples时返回0
+         */
+        synchronized long percentile(double percentile, int minSamples) {
+            if (count < minSamples) {
+                return 0;
+            }
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            return sorted[Math.min(count - 1, (int) Math.ceil(percentile * count) - 1)];
+        }
+    }
+}
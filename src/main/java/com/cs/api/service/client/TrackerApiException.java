@@ -0,0 +1,29 @@
+package com.cs.api.service.client;
+
+/**
+ * tracker API调用异常
+ * retryable表示是否值得重试（网络错误、超时、5xx、429），熔断拒绝和4xx错误不重试
+ *
+ * @author YK
+ * @since 1.0.0
+ */
+public class TrackerApiException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final boolean retryable;
+
+    public TrackerApiException(String message, boolean retryable) {
+        super(message);
+        this.retryable = retryable;
+    }
+
+    public TrackerApiException(String message, boolean retryable, Throwable cause) {
+        super(message, cause);
+        this.retryable = retryable;
+    }
+
+    public boolean isRetryable() {
+        return retryable;
+    }
+}
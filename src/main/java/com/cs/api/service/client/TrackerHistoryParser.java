@@ -0,0 +1,138 @@
+package com.cs.api.service.client;
+
+import com.cs.api.dto.CodeTraceResultDTO;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * tracker trackMethod 响应的流式解析器
+ * 逐个token读取响应，直接把每条commit映射为CodeTraceResultDTO，不经过中间DTO，也不把响应体整体读入内存。
+ * 不需要描述字段时，text/h1/h2 只做词法跳过，不会生成字符串。
+ *
+ * 响应格式：
+ * <pre>
+ * {"success": true, "code": "...", "msg": "...", "data": {"方法签名": [commit, ...], ...}}
+ * </pre>
+ *
+ * @author YK
+ * @since 1.0.0
+ */
+public final class TrackerHistoryParser {
+
+    private final JsonFactory jsonFactory;
+
+    public TrackerHistoryParser(JsonFactory jsonFactory) {
+        this.jsonFactory = jsonFactory;
+    }
+
+    /**
+     * 解析tracker响应
+     *
+     * @param body 响应体输入流
+     * @param includeDetails 是否保留text/h1/h2描述字段
+     * @return 解析结果
+     */
+    public TrackerHistory parse(InputStream body, boolean includeDetails) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("tracker API响应的顶层不是JSON对象");
+            }
+            boolean success = false;
+            String code = null;
+            String msg = null;
+            List<CodeTraceResultDTO> commits = new ArrayList<>();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "success" -> success = value == JsonToken.VALUE_TRUE;
+                    case "code" -> code = textOrNull(parser, value);
+                    case "msg" -> msg = textOrNull(parser, value);
+                    case "data" -> readData(parser, value, includeDetails, commits);
+                    default -> parser.skipChildren();
+                }
+            }
+            return new TrackerHistory(success, code, msg, commits);
+        }
+    }
+
+    /**
+     * 读取 data: {"方法签名": [commit, ...]}，所有方法的commit按出现顺序合并
+     */
+    private void readData(JsonParser parser, JsonToken value, boolean includeDetails,
+                          List<CodeTraceResultDTO> commits) throws IOException {
+        if (value != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                parser.skipChildren();
+                continue;
+            }
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                if (parser.currentToken() == JsonToken.START_OBJECT) {
+                    commits.add(readCommit(parser, includeDetails));
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+    }
+
+    private CodeTraceResultDTO readCommit(JsonParser parser, boolean includeDetails) throws IOException {
+        CodeTraceResultDTO commit = new CodeTraceResultDTO();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "id" -> commit.setId(value.isNumeric() ? parser.getLongValue() : null);
+                case "commitId" -> commit.setCommitId(textOrNull(parser, value));
+                case "authorName" -> commit.setAuthorName(textOrNull(parser, value));
+                case "committerName" -> commit.setCommitterName(textOrNull(parser, value));
+                case "authorTime" -> commit.setAuthorTime(textOrNull(parser, value));
+                case "commitTime" -> commit.setCommitTime(textOrNull(parser, value));
+                case "commitTitle" -> commit.setCommitTitle(textOrNull(parser, value));
+                case "added" -> commit.setAdded(value.isNumeric() ? parser.getIntValue() : null);
+                case "deleted" -> commit.setDeleted(value.isNumeric() ? parser.getIntValue() : null);
+                case "company" -> commit.setCompany(textOrNull(parser, value));
+                case "version" -> commit.setVersion(textOrNull(parser, value));
+                case "repo" -> commit.setRepo(textOrNull(parser, value));
+                case "newbiesVersion" -> commit.setNewbiesVersion(textOrNull(parser, value));
+                case "featureId" -> commit.setFeatureId(textOrNull(parser, value));
+                case "h1" -> commit.setH1(includeDetails ? textOrNull(parser, value) : skip(parser));
+                case "h2" -> commit.setH2(includeDetails ? textOrNull(parser, value) : skip(parser));
+                case "text" -> commit.setText(includeDetails ? textOrNull(parser, value) : skip(parser));
+                default -> parser.skipChildren();
+            }
+        }
+        return commit;
+    }
+
+    private static String textOrNull(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (value.isScalarValue()) {
+            return parser.getValueAsString();
+        }
+        parser.skipChildren();
+        return null;
+    }
+
+    private static String skip(JsonParser parser) throws IOException {
+        parser.skipChildren();
+        return null;
+    }
+
+    /**
+     * 解析结果
+     */
+    public record TrackerHistory(boolean success, String code, String msg, List<CodeTraceResultDTO> commits) {}
+}
@@ -2,27 +2,52 @@ package com.cs.api.service.impl;
 
 import org.springframework.beans.factory.annotation.Autowired;
 
+import com.cs.api.dto.CodeTraceBatchResultDTO;
+import com.cs.api.dto.CodeTraceRequestDTO;
 import com.cs.api.dto.CodeTraceResponseDTO;
 import com.cs.api.dto.CodeTraceResultDTO;
-import com.cs.api.dto.TrackerApiResponseDTO;
 import com.cs.api.dto.CodeSearchResultDTO;
+import com.cs.api.common.bulkhead.ServiceOverloadedException;
+import com.cs.api.common.cache.BoundedCache;
 import com.cs.api.service.CodeTraceService;
 import com.cs.api.service.analyzer.KernelCodeAnalyzer;
 import com.cs.api.service.analyzer.CodeEvolutionAnalyzer;
+import com.cs.api.service.analyzer.LocalGitHistoryTracer;
+import com.cs.api.service.cache.CodeTraceResultCache;
+import com.cs.api.service.client.TrackerApiClient;
+import com.cs.api.service.client.TrackerApiException;
+import com.cs.api.service.client.TrackerHistoryParser;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
 
 /**
  * 代码追溯服务实现类
@@ -35,19 +60,6 @@ public class CodeTraceServiceImpl implements CodeTraceService {
 
     private static final Logger logger = LoggerFactory.getLogger(CodeTraceServiceImpl.class);
 
-    /**
-     * 外部tracker API的基础URL
-     * 可以通过application.yml配置文件进行配置
-     */
-    @Value("${tracker.api.base.url:http://10.176.34.96:7777}")
-    private String trackerApiBaseUrl;
-
-    /**
-     * API请求超时时间（秒）
-     */
-    @Value("${tracker.api.timeout:30}")
-    private int apiTimeoutSeconds;
-
     /**
      * 默认的仓库路径
      */
@@ -61,26 +73,138 @@ public class CodeTraceServiceImpl implements CodeTraceService {
     private String kernelSourcePath;
 
     /**
-     * HTTP客户端实例，用于调用外部API
+     * tracker响应的流式解析器
      */
-    private final RestTemplate restTemplate;
+    private final TrackerHistoryParser trackerHistoryParser;
 
     /**
-     * JSON解析器，用于解析API响应
+     * tracker API客户端，负责超时、重试、熔断和对冲请求
      */
-    private final ObjectMapper objectMapper;
+    @Autowired
+    private TrackerApiClient trackerApiClient;
 
     @Autowired
     private CodeEvolutionAnalyzer codeEvolutionAnalyzer;
 
+    @Autowired
+    private LocalGitHistoryTracer localGitHistoryTracer;
+
+    private static final String ENGINE_TRACKER = "tracker";
+    private static final String ENGINE_LOCAL = "local";
+    private static final String ENGINE_AUTO = "auto";
+
+    /**
+     * 默认的追溯引擎：tracker、local 或 auto
+     */
+    @Value("${code-trace.engine:tracker}")
+    private String defaultEngine;
+
+    @Autowired
+    private CodeTraceResultCache codeTraceResultCache;
+
+    /**
+     * 并发提取代码片段的线程数
+     */
+    @Value("${code-trace.extraction.parallelism:8}")
+    private int extractionParallelism;
+
+    /**
+     * 单次请求提取代码片段的时间预算（秒），超时的commit不返回代码片段
+     */
+    @Value("${code-trace.extraction.time-budget-seconds:60}")
+    private long extractionTimeBudgetSeconds;
+
+    /**
+     * 代码提取线程池，所有请求共享，限制同时进行的git show和CDT解析数量
+     */
+    private ExecutorService extractionExecutor;
+
+    /**
+     * 按blob缓存的代码提取结果数量上限
+     */
+    @Value("${code-trace.extraction.blob-cache-size:2000}")
+    private int blobCacheSize;
+
+    /**
+     * blob+方法名 -> 代码提取结果。blob内容不可变，结果（包括未找到）长期有效
+     */
+    private BoundedCache<String, Optional<CodeSearchResultDTO>> blobSnippetCache;
+
+    /**
+     * 批量追溯时并发调用tracker API的线程数
+     */
+    @Value("${code-trace.batch.parallelism:8}")
+    private int batchParallelism;
+
+    /**
+     * 单次批量追溯的最大请求数
+     */
+    @Value("${code-trace.batch.max-size:200}")
+    private int batchMaxSize;
+
+    /**
+     * 批量追溯线程池等待队列的容量，队列剩余容量不足以容纳一次批量请求时拒绝该请求
+     */
+    @Value("${code-trace.batch.queue-capacity:1000}")
+    private int batchQueueCapacity;
+
+    /**
+     * 批量追溯线程池，执行tracker调用和按文件分组的结果组装
+     */
+    private ThreadPoolExecutor batchExecutor;
+
     public CodeTraceServiceImpl() {
-        this.restTemplate = new RestTemplate();
-        this.objectMapper = new ObjectMapper();
+        this.trackerHistoryParser = new TrackerHistoryParser(new ObjectMapper().getFactory());
         logger.info("CodeTraceServiceImpl初始化完成");
     }
 
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.extractionExecutor = new ThreadPoolExecutor(
+            extractionParallelism, extractionParallelism, 60L, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(1000),
+            r -> {
+                Thread thread = new Thread(r, "code-trace-extract-" + threadCounter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            // 队列满时拒绝：不在请求线程中执行，否则会绕过代码提取的时间预算
+            new ThreadPoolExecutor.AbortPolicy());
+        this.blobSnippetCache = new BoundedCache<>("codeSnippetByBlob", blobCacheSize, Duration.ofDays(3650));
+
+        AtomicInteger batchThreadCounter = new AtomicInteger();
+        this.batchExecutor = new ThreadPoolExecutor(
+            batchParallelism, batchParallelism, 60L, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(batchQueueCapacity),
+            r -> {
+                Thread thread = new Thread(r, "code-trace-batch-" + batchThreadCounter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (extractionExecutor != null) {
+            extractionExecutor.shutdownNow();
+        }
+        if (batchExecutor != null) {
+            batchExecutor.shutdownNow();
+        }
+    }
+
     @Override
     public List<CodeTraceResponseDTO> traceMethodHistory(String filePath, String methodName, String version, String targetCommit) {
+        return traceMethodHistory(new CodeTraceRequestDTO(filePath, methodName, version, targetCommit));
+    }
+
+    @Override
+    public List<CodeTraceResponseDTO> traceMethodHistory(CodeTraceRequestDTO request) {
+        String filePath = request.getFilePath();
+        String methodName = request.getMethodName();
+        String version = request.getVersion();
+        String targetCommit = request.getTargetCommit();
         logger.info("开始追溯方法历史: methodName={}, filePath={}, version={}, targetCommit={}", methodName, filePath, version, targetCommit);
         
         List<CodeTraceResponseDTO> responseList = new ArrayList<>();
@@ -97,75 +221,559 @@ public class CodeTraceServiceImpl implements CodeTraceService {
                 return responseList;
             }
 
-            // 调用外部API获取commit历史信息
-            List<CodeTraceResultDTO> commitHistoryList = fetchCommitHistory(methodName, filePath, version, targetCommit);
+            // 相同请求已缓存时直接返回
+            request.setEngine(resolveEngine(request.getEngine()));
+            List<CodeTraceResponseDTO> cachedResponses = codeTraceResultCache.get(request);
+            if (cachedResponses != null) {
+                logger.info("方法历史追溯命中缓存: methodName={}, 共 {} 条 commit", methodName, cachedResponses.size());
+                return cachedResponses;
+            }
 
-            for (CodeTraceResultDTO commitHistory : commitHistoryList){
-            
-                // 创建响应对象并设置基本信息
-                CodeTraceResponseDTO response = new CodeTraceResponseDTO(commitHistory);
-                response.setFilePath(filePath);
-            
-                // 使用KernelCodeAnalyzer获取代码片段和行号信息
+            // 调用外部API或本地git获取commit历史信息
+            CommitHistory history = fetchHistory(request);
+            List<CodeTraceResultDTO> commitHistoryList = history.commits();
+
+            // 先把每个commit解析为文件的blob ID，内容相同的commit只提取一次
+            List<String> codeVersions = resolveCodeVersions(history, version);
+            Map<String, String> blobIds = history.knownBlobIds() != null
+                ? history.knownBlobIds() : resolveBlobIds(filePath, codeVersions);
+
+            return assembleResponses(request, commitHistoryList, codeVersions, blobIds, !history.truncated());
+
+        } catch (Exception e) {
+            logger.error("追溯方法历史失败", e);
+            CodeTraceResponseDTO errorResponse = new CodeTraceResponseDTO("追溯方法历史失败: " + e.getMessage());
+            responseList.add(errorResponse);
+            return responseList;
+        }
+    }
+
+    @Override
+    public CompletableFuture<List<CodeTraceBatchResultDTO>> traceMethodHistoryBatch(List<CodeTraceRequestDTO> requests) {
+        AtomicReferenceArray<CodeTraceBatchResultDTO> results = new AtomicReferenceArray<>(requests.size());
+        return traceMethodHistoryBatch(requests, result -> results.set(result.getIndex(), result)).thenApply(ignored -> {
+            List<CodeTraceBatchResultDTO> resultList = new ArrayList<>(requests.size());
+            for (int i = 0; i < results.length(); i++) {
+                resultList.add(results.get(i));
+            }
+            return resultList;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> traceMethodHistoryBatch(List<CodeTraceRequestDTO> requests, Consumer<CodeTraceBatchResultDTO> onResult) {
+        if (requests.size() > batchMaxSize) {
+            throw new IllegalArgumentException("批量追溯请求数量超过上限: " + requests.size() + " > " + batchMaxSize);
+        }
+        // 每个方法占用一个队列位置，剩余容量不足时整体拒绝，不接受只能部分执行的请求
+        if (batchExecutor.getQueue().remainingCapacity() < requests.size()) {
+            throw new ServiceOverloadedException("codeTraceBatch", "批量追溯任务过多，请稍后重试");
+        }
+        logger.info("开始批量追溯方法历史: 请求数={}", requests.size());
+
+        // 同一文件的方法归为一组，共享blob解析和CDT解析
+        Map<String, List<Integer>> indexesByFile = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            indexesByFile.computeIfAbsent(String.valueOf(requests.get(i).getFilePath()), key -> new ArrayList<>()).add(i);
+        }
+
+        List<CompletableFuture<Void>> groups = new ArrayList<>(indexesByFile.size());
+        for (Map.Entry<String, List<Integer>> entry : indexesByFile.entrySet()) {
+            groups.add(traceFileGroup(entry.getKey(), entry.getValue(), requests, onResult));
+        }
+        return CompletableFuture.allOf(groups.toArray(new CompletableFuture<?>[0]))
+            .whenComplete((ignored, error) -> logger.info("批量追溯方法历史完成: 请求数={}, 文件数={}", requests.size(), groups.size()));
+    }
+
+    /**
+     * 追溯同一文件中的一组方法
+     * 各方法的tracker调用并发执行，每个方法拿到commit历史后立即提取代码并回调，不等待同组的其他方法；
+     * 同一时刻已就绪的方法一起按blob提取代码，每个blob只解析一次
+     */
+    private CompletableFuture<Void> traceFileGroup(String filePath, List<Integer> indexes, List<CodeTraceRequestDTO> requests,
+                                                   Consumer<CodeTraceBatchResultDTO> onResult) {
+        FileGroupExtraction group = new FileGroupExtraction(filePath, onResult);
+        List<CompletableFuture<Void>> completions = new ArrayList<>(indexes.size());
+        for (int index : indexes) {
+            CodeTraceRequestDTO request = requests.get(index);
+            CompletableFuture<Void> completion = new CompletableFuture<>();
+            completions.add(completion);
+            try {
+                batchExecutor.execute(() -> group.arrive(prepareTrace(index, request), completion));
+            } catch (RejectedExecutionException e) {
+                logger.warn("批量追溯线程池已满: methodName={}", request.getMethodName());
+                emitResult(onResult, new CodeTraceBatchResultDTO(index, request,
+                    new ArrayList<>(List.of(new CodeTraceResponseDTO("批量追溯任务过多，请稍后重试")))));
+                completion.complete(null);
+            }
+        }
+        return CompletableFuture.allOf(completions.toArray(new CompletableFuture<?>[0]));
+    }
+
+    /**
+     * 同一文件一组方法的代码提取
+     * tracker调用完成的方法进入队列，由一个线程取出当前队列中的全部方法一起提取，其余完成的线程直接返回；
+     * 提取期间新完成的方法在下一轮处理。blob ID在组内只解析一次。
+     */
+    private final class FileGroupExtraction {
+
+        private final String filePath;
+        private final Consumer<CodeTraceBatchResultDTO> onResult;
+        private final Queue<Arrival> arrivals = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final Map<String, String> blobIds = new ConcurrentHashMap<>();
+        private final Set<String> resolvedVersions = ConcurrentHashMap.newKeySet();
+
+        FileGroupExtraction(String filePath, Consumer<CodeTraceBatchResultDTO> onResult) {
+            this.filePath = filePath;
+            this.onResult = onResult;
+        }
+
+        void arrive(PendingTrace pending, CompletableFuture<Void> completion) {
+            if (pending.ready() != null) {
+                emit(new Arrival(pending, completion), pending.ready());
+                return;
+            }
+            arrivals.add(new Arrival(pending, completion));
+            // 释放标记后重新检查队列，避免错过其他线程在此期间加入的方法
+            while (!arrivals.isEmpty() && draining.compareAndSet(false, true)) {
                 try {
-                    // 优先使用commitHistory中的版本信息，如果没有则使用输入的version
-                    String codeVersion = (commitHistory != null && commitHistory.getVersion() != null) 
-                    ? commitHistory.getVersion() : version;
-                    
-                    logger.debug("开始使用KernelCodeAnalyzer获取代码信息: filePath={}, methodName={}, version={}", 
-                        filePath, methodName, codeVersion);
-                
-                    // 使用增强的代码搜索方法
-                    CodeSearchResultDTO codeResult = enhancedCodeSearch(filePath, methodName, codeVersion);
-                
-                    if (codeResult != null) {
-                        // 将代码分析结果添加到响应中
-                        response.setCodeSnippet(codeResult.getCodeSnippet());
-                        response.setStartLine(codeResult.getStartLine());
-                        response.setEndLine(codeResult.getEndLine());
-                        response.setExplanation(codeResult.getExplanation());
-                    
-                        logger.info("✅ 成功获取代码片段: startLine={}, endLine={}, snippetLength={}", 
-                            codeResult.getStartLine(), codeResult.getEndLine(), 
-                            codeResult.getCodeSnippet() != null ? codeResult.getCodeSnippet().length() : 0);
+                    List<Arrival> batch = new ArrayList<>();
+                    for (Arrival arrival = arrivals.poll(); arrival != null; arrival = arrivals.poll()) {
+                        batch.add(arrival);
+                    }
+                    extract(batch);
+                } finally {
+                    draining.set(false);
+                }
+            }
+        }
+
+        private void extract(List<Arrival> batch) {
+            try {
+                Set<String> versions = new LinkedHashSet<>();
+                for (Arrival arrival : batch) {
+                    PendingTrace pending = arrival.pending();
+                    if (pending.knownBlobIds() != null) {
+                        blobIds.putAll(pending.knownBlobIds());
                     } else {
-                        logger.warn("所有搜索策略均未找到代码元素: methodName={}, filePath={}", methodName, filePath);
-                        response.setExplanation(String.format("在文件 %s (版本: %s) 中未找到方法 %s 的代码定义。" +
-                            "这可能是因为方法名格式不匹配、文件不存在或版本差异导致的。", filePath, codeVersion, methodName));
+                        for (String version : pending.codeVersions()) {
+                            if (version != null && !resolvedVersions.contains(version)) {
+                                versions.add(version);
+                            }
+                        }
                     }
-                    
-                } catch (Exception codeAnalysisException) {
-                    logger.warn("代码分析过程中发生异常: {}", codeAnalysisException.getMessage());
-                    response.setExplanation("代码分析过程中发生异常: " + codeAnalysisException.getMessage());
                 }
+                if (!versions.isEmpty()) {
+                    blobIds.putAll(resolveBlobIds(filePath, new ArrayList<>(versions)));
+                    resolvedVersions.addAll(versions);
+                }
+                prewarmBlobSnippets(filePath, batch.stream().map(Arrival::pending).toList(), blobIds);
+            } catch (Exception e) {
+                logger.warn("批量预提取代码片段失败，逐commit提取: file={}, error={}", filePath, e.getMessage());
+            }
 
-                responseList.add(response);
+            for (Arrival arrival : batch) {
+                CodeTraceRequestDTO request = arrival.pending().request();
+                List<CodeTraceResponseDTO> responses;
+                try {
+                    responses = assembleResponses(request, arrival.pending().commitHistoryList(),
+                        arrival.pending().codeVersions(), blobIds, !arrival.pending().truncated());
+                } catch (Exception e) {
+                    logger.error("批量追溯方法历史失败: methodName={}", request.getMethodName(), e);
+                    responses = new ArrayList<>(List.of(new CodeTraceResponseDTO("追溯方法历史失败: " + e.getMessage())));
+                }
+                emit(arrival, responses);
             }
-            
+        }
 
-            logger.info("方法历史追溯完成: methodName={}, 找到 {} 条 commit", methodName, responseList.size());
+        private void emit(Arrival arrival, List<CodeTraceResponseDTO> responses) {
+            try {
+                emitResult(onResult, new CodeTraceBatchResultDTO(arrival.pending().index(), arrival.pending().request(), responses));
+            } finally {
+                arrival.completion().complete(null);
+            }
+        }
+    }
 
-            logger.debug("Full Response:{}", responseList);
-            
-            return responseList;
+    /**
+     * tracker调用完成、等待提取代码的方法及其完成通知
+     */
+    private record Arrival(PendingTrace pending, CompletableFuture<Void> completion) {}
 
+    /**
+     * 回调单个追溯结果，回调异常（如客户端断开）不影响其余方法的追溯
+     */
+    private void emitResult(Consumer<CodeTraceBatchResultDTO> onResult, CodeTraceBatchResultDTO result) {
+        try {
+            onResult.accept(result);
         } catch (Exception e) {
-            logger.error("追溯方法历史失败", e);
-            CodeTraceResponseDTO errorResponse = new CodeTraceResponseDTO("追溯方法历史失败: " + e.getMessage());
-            responseList.add(errorResponse);
-            return responseList;
+            logger.warn("批量追溯结果回调失败: index={}, error={}", result.getIndex(), e.getMessage());
         }
     }
-    
+
+    /**
+     * 批量追溯的准备阶段：参数校验、缓存查询和tracker调用
+     */
+    private PendingTrace prepareTrace(int index, CodeTraceRequestDTO request) {
+        String filePath = request.getFilePath();
+        String methodName = request.getMethodName();
+        try {
+            if (methodName == null || methodName.trim().isEmpty() || filePath == null || filePath.isEmpty()) {
+                logger.warn("批量追溯请求缺少文件路径或方法名: {}", request);
+                return PendingTrace.ready(index, request, new ArrayList<>());
+            }
+
+            request.setEngine(resolveEngine(request.getEngine()));
+            List<CodeTraceResponseDTO> cachedResponses = codeTraceResultCache.get(request);
+            if (cachedResponses != null) {
+                logger.debug("批量追溯命中缓存: methodName={}", methodName);
+                return PendingTrace.ready(index, request, cachedResponses);
+            }
+
+            CommitHistory history = fetchHistory(request);
+            return new PendingTrace(index, request, null, history.commits(),
+                resolveCodeVersions(history, request.getVersion()), history.knownBlobIds(), history.truncated());
+        } catch (Exception e) {
+            logger.error("批量追溯方法历史失败: methodName={}", methodName, e);
+            return PendingTrace.ready(index, request,
+                new ArrayList<>(List.of(new CodeTraceResponseDTO("追溯方法历史失败: " + e.getMessage()))));
+        }
+    }
+
+    /**
+     * 预先提取同一文件多个方法的代码片段：每个blob只获取和解析一次，结果写入blob缓存
+     * 超出时间预算时不再等待，未完成的部分由逐commit提取处理
+     */
+    private void prewarmBlobSnippets(String filePath, List<PendingTrace> pendingTraces, Map<String, String> blobIds) {
+        Map<String, Map<String, List<KernelCodeAnalyzer.IdentifierQuery>>> methodsByBlob = new LinkedHashMap<>();
+        for (PendingTrace pending : pendingTraces) {
+            String methodName = pending.request().getMethodName();
+            for (String codeVersion : pending.codeVersions()) {
+                String blobId = codeVersion != null ? blobIds.get(codeVersion) : null;
+                if (blobId == null || blobSnippetCache.getIfPresent(blobCacheKey(blobId, methodName)) != null) {
+                    continue;
+                }
+                methodsByBlob.computeIfAbsent(blobId, key -> new LinkedHashMap<>())
+                    .computeIfAbsent(methodName, this::buildSearchCandidates);
+            }
+        }
+        if (methodsByBlob.isEmpty()) {
+            return;
+        }
+
+        List<Future<?>> extractions = new ArrayList<>(methodsByBlob.size());
+        for (Map.Entry<String, Map<String, List<KernelCodeAnalyzer.IdentifierQuery>>> entry : methodsByBlob.entrySet()) {
+            String blobId = entry.getKey();
+            Map<String, List<KernelCodeAnalyzer.IdentifierQuery>> candidatesByMethod = entry.getValue();
+            Future<?> extraction = submitExtraction(() -> {
+                Map<String, CodeSearchResultDTO> results =
+                    KernelCodeAnalyzer.findCodeElementsInBlob(filePath, candidatesByMethod, kernelSourcePath, blobId);
+                // 只缓存实际完成解析的结果，读取或解析失败时交给逐commit提取重试
+                for (String methodName : candidatesByMethod.keySet()) {
+                    if (results.containsKey(methodName)) {
+                        blobSnippetCache.put(blobCacheKey(blobId, methodName), Optional.ofNullable(results.get(methodName)));
+                    }
+                }
+                return null;
+            });
+            if (extraction.isCancelled()) {
+                // 线程池已满，其余blob交给逐commit提取
+                break;
+            }
+            extractions.add(extraction);
+        }
+        logger.debug("批量预提取代码片段: file={}, 方法数={}, 不同文件版本数={}", filePath, pendingTraces.size(), methodsByBlob.size());
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(extractionTimeBudgetSeconds);
+        for (Future<?> extraction : extractions) {
+            try {
+                extraction.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                logger.warn("批量预提取代码片段超出时间预算({}s): file={}", extractionTimeBudgetSeconds, filePath);
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                logger.warn("批量预提取代码片段失败: file={}, error={}", filePath, e.getCause().getMessage());
+            }
+        }
+    }
+
+    /**
+     * 提交代码提取任务
+     * 线程池队列已满时不在调用线程中执行（会在等待时间预算之前阻塞），返回已取消的Future，调用方按超时处理：不返回代码片段，不缓存
+     */
+    private <T> Future<T> submitExtraction(Callable<T> task) {
+        try {
+            return extractionExecutor.submit(task);
+        } catch (RejectedExecutionException e) {
+            logger.debug("代码提取线程池已满，跳过提取任务");
+            CompletableFuture<T> rejected = new CompletableFuture<>();
+            rejected.cancel(false);
+            return rejected;
+        }
+    }
+
+    /**
+     * 按commit顺序提取代码片段并组装响应，完整结果写入追溯缓存
+     *
+     * @param completeHistory commit历史是否完整，本地git追溯中途停止时为false，结果不缓存
+     */
+    private List<CodeTraceResponseDTO> assembleResponses(CodeTraceRequestDTO request, List<CodeTraceResultDTO> commitHistoryList,
+                                                         List<String> codeVersions, Map<String, String> blobIds,
+                                                         boolean completeHistory) {
+        String filePath = request.getFilePath();
+        String methodName = request.getMethodName();
+        List<CodeTraceResponseDTO> responseList = new ArrayList<>(commitHistoryList.size());
+
+        // 并发提取每个不同blob的代码片段，响应保持commit顺序
+        List<Future<CodeSearchResultDTO>> extractions = new ArrayList<>(commitHistoryList.size());
+        Map<String, Future<CodeSearchResultDTO>> extractionsByKey = new HashMap<>();
+        for (String codeVersion : codeVersions) {
+            String blobId = codeVersion != null ? blobIds.get(codeVersion) : null;
+            String extractionKey = blobId != null ? "blob:" + blobId : "commit:" + codeVersion;
+            extractions.add(extractionsByKey.computeIfAbsent(extractionKey, key -> submitExtraction(
+                () -> blobId != null
+                    ? extractFromBlob(filePath, methodName, blobId)
+                    : enhancedCodeSearch(filePath, methodName, codeVersion))));
+        }
+        logger.debug("代码提取任务: commit数={}, 不同文件版本数={}", codeVersions.size(), extractionsByKey.size());
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(extractionTimeBudgetSeconds);
+        boolean timedOut = false;
+        for (int i = 0; i < commitHistoryList.size(); i++) {
+            CodeTraceResultDTO commitHistory = commitHistoryList.get(i);
+            Future<CodeSearchResultDTO> extraction = extractions.get(i);
+
+            // 创建响应对象并设置基本信息
+            CodeTraceResponseDTO response = new CodeTraceResponseDTO(commitHistory);
+            response.setFilePath(filePath);
+
+            // 优先使用commitHistory中的版本信息，如果没有则使用输入的version
+            String codeVersion = codeVersions.get(i);
+            try {
+                long remaining = Math.max(0, deadline - System.nanoTime());
+                CodeSearchResultDTO codeResult = extraction.get(remaining, TimeUnit.NANOSECONDS);
+                applyCodeResult(response, codeResult, filePath, methodName, codeVersion);
+                // 与上一个commit是同一个blob时，代码片段没有变化
+                String blobId = codeVersion != null ? blobIds.get(codeVersion) : null;
+                String previousBlobId = i > 0 && codeVersions.get(i - 1) != null ? blobIds.get(codeVersions.get(i - 1)) : null;
+                response.setUnchangedSincePrevious(codeResult != null && blobId != null && blobId.equals(previousBlobId));
+            } catch (TimeoutException | CancellationException e) {
+                // 超出时间预算的commit不再等待，只返回commit信息
+                timedOut = true;
+                extraction.cancel(true);
+                response.setExplanation("代码提取超出时间预算，未获取该commit的代码片段");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                timedOut = true;
+                extraction.cancel(true);
+                response.setExplanation("代码提取被中断，未获取该commit的代码片段");
+            } catch (ExecutionException codeAnalysisException) {
+                logger.warn("代码分析过程中发生异常: {}", codeAnalysisException.getCause().getMessage());
+                response.setExplanation("代码分析过程中发生异常: " + codeAnalysisException.getCause().getMessage());
+            }
+
+            responseList.add(response);
+        }
+
+        if (timedOut) {
+            logger.warn("部分commit的代码提取超出时间预算({}s): methodName={}", extractionTimeBudgetSeconds, methodName);
+        }
+
+        logger.info("方法历史追溯完成: methodName={}, 找到 {} 条 commit", methodName, responseList.size());
+
+        logger.debug("Full Response:{}", responseList);
+        
+        // 有commit未完成代码提取或commit历史不完整时不缓存，下次请求重新提取
+        if (!timedOut && completeHistory) {
+            codeTraceResultCache.put(request, responseList);
+        }
+        
+        return responseList;
+    }
+
+    /**
+     * 确定每个commit提取代码使用的版本
+     * 本地git追溯直接使用commit本身，version只是包含该commit的发布tag
+     */
+    private List<String> resolveCodeVersions(CommitHistory history, String version) {
+        List<String> codeVersions = new ArrayList<>(history.commits().size());
+        for (CodeTraceResultDTO commitHistory : history.commits()) {
+            codeVersions.add(history.knownBlobIds() != null
+                ? commitHistory.getCommitId() : resolveCodeVersion(commitHistory, version));
+        }
+        return codeVersions;
+    }
+
+    /**
+     * 批量解析各版本中文件的blob ID，失败时返回空映射，退化为逐commit提取
+     */
+    private Map<String, String> resolveBlobIds(String filePath, List<String> codeVersions) {
+        try {
+            return KernelCodeAnalyzer.resolveBlobIds(kernelSourcePath, filePath, codeVersions);
+        } catch (IOException e) {
+            logger.warn("解析文件blob ID失败，逐commit提取代码: filePath={}, error={}", filePath, e.getMessage());
+            return Collections.emptyMap();
+        }
+    }
+
+    /**
+     * 从blob中提取代码片段，结果按 blob+方法名 缓存
+     * 只缓存实际完成解析的结果（包括未找到）；读取blob失败时抛出异常，不写入缓存，下次请求重新提取
+     */
+    private CodeSearchResultDTO extractFromBlob(String filePath, String methodName, String blobId) {
+        return blobSnippetCache.get(blobCacheKey(blobId, methodName), key -> {
+            try {
+                return Optional.ofNullable(KernelCodeAnalyzer.findFirstCodeElementInBlob(
+                    filePath, buildSearchCandidates(methodName), kernelSourcePath, blobId));
+            } catch (IOException e) {
+                logger.warn("读取blob失败: filePath={}, blob={}, error={}", filePath, blobId, e.getMessage());
+                throw new UncheckedIOException(e);
+            }
+        }).orElse(null);
+    }
+
+    private static String blobCacheKey(String blobId, String methodName) {
+        return blobId + "\n" + methodName;
+    }
+
+    /**
+     * 确定提取代码使用的版本：优先使用commit记录中的版本，没有时使用请求的version
+     */
+    private String resolveCodeVersion(CodeTraceResultDTO commitHistory, String version) {
+        return (commitHistory != null && commitHistory.getVersion() != null)
+            ? commitHistory.getVersion() : version;
+    }
+
+    /**
+     * 将代码搜索结果写入响应
+     */
+    private void applyCodeResult(CodeTraceResponseDTO response, CodeSearchResultDTO codeResult,
+                                 String filePath, String methodName, String codeVersion) {
+        if (codeResult != null) {
+            // 将代码分析结果添加到响应中
+            response.setCodeSnippet(codeResult.getCodeSnippet());
+            response.setStartLine(codeResult.getStartLine());
+            response.setEndLine(codeResult.getEndLine());
+            response.setExplanation(codeResult.getExplanation());
+
+            logger.info("✅ 成功获取代码片段: startLine={}, endLine={}, snippetLength={}", 
+                codeResult.getStartLine(), codeResult.getEndLine(), 
+                codeResult.getCodeSnippet() != null ? codeResult.getCodeSnippet().length() : 0);
+        } else {
+            logger.warn("所有搜索策略均未找到代码元素: methodName={}, filePath={}", methodName, filePath);
+            response.setExplanation(String.format("在文件 %s (版本: %s) 中未找到方法 %s 的代码定义。" +
+                "这可能是因为方法名格式不匹配、文件不存在或版本差异导致的。", filePath, codeVersion, methodName));
+        }
+    }
+
+    /**
+     * 规范化追溯引擎：tracker（外部tracker服务）、local（本地git历史）、auto（tracker失败时改用本地git）
+     */
+    private String resolveEngine(String engine) {
+        String resolved = (engine == null || engine.isBlank() ? defaultEngine : engine).trim().toLowerCase(Locale.ROOT);
+        if (!ENGINE_TRACKER.equals(resolved) && !ENGINE_LOCAL.equals(resolved) && !ENGINE_AUTO.equals(resolved)) {
+            throw new IllegalArgumentException("不支持的追溯引擎: " + engine + "，可选值为 tracker、local、auto");
+        }
+        return resolved;
+    }
+
+    /**
+     * 按请求选择的引擎获取commit历史
+     */
+    private CommitHistory fetchHistory(CodeTraceRequestDTO request) {
+        String engine = request.getEngine();
+        if (!ENGINE_LOCAL.equals(engine)) {
+            List<CodeTraceResultDTO> commits = fetchCommitHistory(request.getMethodName(), request.getFilePath(),
+                request.getVersion(), request.getTargetCommit(), request.isIncludeCommitDetails());
+            if (commits != null || ENGINE_TRACKER.equals(engine)) {
+                return new CommitHistory(commits != null ? commits : new ArrayList<>(), null, false);
+            }
+            logger.warn("tracker API不可用，改用本地git历史追溯: methodName={}", request.getMethodName());
+        }
+        return traceLocalHistory(request);
+    }
+
+    /**
+     * 使用本地git历史追溯：列出修改过文件的commit，并发提取每个不同blob中的函数定义，
+     * 只保留函数体哈希发生变化的commit
+     */
+    private CommitHistory traceLocalHistory(CodeTraceRequestDTO request) {
+        String filePath = request.getFilePath();
+        String methodName = request.getMethodName();
+        String startRef = request.getTargetCommit() != null && !request.getTargetCommit().isEmpty()
+            ? request.getTargetCommit() : request.getVersion();
+
+        List<LocalGitHistoryTracer.LocalCommit> commits;
+        try {
+            commits = localGitHistoryTracer.listFileCommits(filePath, startRef, request.isIncludeCommitDetails());
+        } catch (IOException e) {
+            logger.error("读取本地git历史失败: filePath={}, start={}, error={}", filePath, startRef, e.getMessage());
+            return new CommitHistory(new ArrayList<>(), Collections.emptyMap(), true);
+        }
+
+        Map<String, Future<CodeSearchResultDTO>> extractions = new HashMap<>();
+        Map<String, String> blobIdsByCommit = new HashMap<>();
+        for (LocalGitHistoryTracer.LocalCommit commit : commits) {
+            String blobId = commit.blobId();
+            if (blobId != null) {
+                blobIdsByCommit.put(commit.commitId(), blobId);
+                extractions.computeIfAbsent(blobId, key -> submitExtraction(
+                    () -> extractFromBlob(filePath, methodName, blobId)));
+            }
+        }
+
+        // 从新到旧收集函数定义；超出时间预算或读取blob失败时只比较之前已完成的较新部分，结果不缓存。
+        // 读取失败不能当作“函数不存在”，否则哈希链断开，下一个版本会被误报为函数体变化
+        Map<String, CodeSearchResultDTO> bodies = new HashMap<>();
+        List<LocalGitHistoryTracer.LocalCommit> completed = commits;
+        boolean truncated = false;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(extractionTimeBudgetSeconds);
+        for (int i = 0; i < commits.size(); i++) {
+            String blobId = commits.get(i).blobId();
+            if (blobId == null || bodies.containsKey(blobId)) {
+                continue;
+            }
+            try {
+                bodies.put(blobId, extractions.get(blobId).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+                continue;
+            } catch (TimeoutException | InterruptedException | CancellationException e) {
+                if (e instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+                logger.warn("本地git历史追溯超出时间预算({}s)，只返回较新的 {} 个commit: methodName={}",
+                    extractionTimeBudgetSeconds, i, methodName);
+            } catch (ExecutionException e) {
+                logger.warn("读取blob失败，本地git历史追溯只返回较新的 {} 个commit: methodName={}, blob={}, error={}",
+                    i, methodName, blobId, e.getCause().getMessage());
+            }
+            completed = commits.subList(0, i);
+            truncated = true;
+            extractions.values().forEach(future -> future.cancel(true));
+            break;
+        }
+
+        List<CodeTraceResultDTO> changed = localGitHistoryTracer.selectChangedCommits(
+            completed, bodies, request.isIncludeCommitDetails());
+        logger.info("✅ 本地git历史追溯完成: methodName={}, 检查 {} 个commit, 函数体变化 {} 个",
+            methodName, completed.size(), changed.size());
+        return new CommitHistory(changed, blobIdsByCommit, truncated);
+    }
+
     /**
      * 调用外部tracker API获取commit历史
      * 
      * @param methodName 方法名称
      * @param filePaths 文件路径列表
      * @param version 版本号
-     * @return commit历史记录列表
+     * @param includeDetails 是否保留commit的text/h1/h2描述字段
+     * @return commit历史记录列表，tracker请求失败时返回null
      */
-    private List<CodeTraceResultDTO> fetchCommitHistory(String methodName, String filePaths, String version, String targetCommit) {
+    private List<CodeTraceResultDTO> fetchCommitHistory(String methodName, String filePaths, String version, String targetCommit,
+                                                        boolean includeDetails) {
         logger.debug("开始获取commit历史: methodName={}, filePaths={}, version={}, targetCommit={}", methodName, filePaths, version, targetCommit);
         
         // 在现有的 logger.debug 语句后添加 version 预处理逻辑
@@ -184,35 +792,27 @@ public class CodeTraceServiceImpl implements CodeTraceService {
             String apiUrl = buildTrackerApiUrl(methodName, filePaths, version, targetCommit);
             logger.info("调用tracker API: {}", apiUrl);
             // String apiUrl2 = "http://10.176.34.96:7777/tracker/trackMethod?repoPath=linux-stable&filePaths=mm/memory-failure.c&methodName=static%20void%20collect_procs_file(struct%20page%20*page,%20struct%20list_head%20*to_kill,int%20force_early)&version=6.4";
-            // 执行HTTP请求
-            ResponseEntity<String> response = executeTrackerApiRequest(apiUrl);
+            // 执行HTTP请求，响应体流式解析为commit记录
+            TrackerHistoryParser.TrackerHistory history = executeTrackerApiRequest(apiUrl, includeDetails);
             
-            if (response == null || response.getBody() == null) {
-                logger.warn("tracker API返回空响应");
-                return result;
-            }
-            
-            // 解析API响应
-            TrackerApiResponseDTO apiResponse = parseTrackerApiResponse(response.getBody());
-            
-            if (apiResponse == null) {
-                logger.warn("无法解析tracker API响应");
-                return result;
+            if (history == null) {
+                logger.warn("无法获取或解析tracker API响应");
+                return null;
             }
             
-            if (!apiResponse.isSuccess()) {
-                logger.warn("tracker API调用失败: code={}, msg={}", apiResponse.getCode(), apiResponse.getMsg());
+            if (!history.success()) {
+                logger.warn("tracker API调用失败: code={}, msg={}", history.code(), history.msg());
                 return result;
             }
             
-            // 转换数据格式
-            result = convertToCodeTraceResult(apiResponse);
+            result = history.commits();
             
             logger.info("✅ 成功获取到 {} 条commit历史记录", result.size());
             
         } catch (Exception e) {
             logger.error("获取commit历史时发生异常: methodName={}, filePaths={}, version={}", 
                         methodName, filePaths, version, e);
+            return null;
         }
         
         return result;
@@ -224,7 +824,7 @@ public class CodeTraceServiceImpl implements CodeTraceService {
     private String buildTrackerApiUrl(String methodName, String filePath, String version, String targetCommit) {
         try {
             // 构建URL参数
-            UriComponentsBuilder builder = UriComponentsBuilder.fromHttpUrl(trackerApiBaseUrl)
+            UriComponentsBuilder builder = UriComponentsBuilder.fromHttpUrl(trackerApiClient.getBaseUrl())
                 .path("/tracker/trackMethod")
                 .queryParam("repoPath", defaultRepoPath)
                 .queryParam("filePaths", filePath)
@@ -242,34 +842,21 @@ public class CodeTraceServiceImpl implements CodeTraceService {
     }
 
     /**
-     * 执行tracker API HTTP请求
+     * 执行tracker API HTTP请求并流式解析响应
+     * 解析与请求共用tracker.api.timeout，超时的解析会被中断，不会占住调用线程
+     * 
+     * @return 解析结果，请求、解析失败或超时时返回null
      */
-    private ResponseEntity<String> executeTrackerApiRequest(String apiUrl) {
+    private TrackerHistoryParser.TrackerHistory executeTrackerApiRequest(String apiUrl, boolean includeDetails) {
         try {
-            // 设置请求头
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("User-Agent", "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/136.0.0.0 Safari/537.36");
-            headers.set("Accept", "application/json");
-            headers.set("Content-Type", "application/json;charset=UTF-8");
-            HttpEntity<String> entity = new HttpEntity<>(headers);
-            
-            // 执行GET请求
-            ResponseEntity<String> response = restTemplate.exchange(
-                apiUrl,
-                HttpMethod.GET,
-                entity,
-                String.class
-            );
-            
-            logger.debug("tracker API响应状态: {}, 响应体长度: {}", 
-                        response.getStatusCode(), 
-                        response.getBody() != null ? response.getBody().length() : 0);
-            
-            return response;
+            TrackerHistoryParser.TrackerHistory history =
+                trackerApiClient.get(apiUrl, body -> trackerHistoryParser.parse(body, includeDetails));
+            logger.debug("成功解析tracker API响应: success={}, code={}, commits={}",
+                history.success(), history.code(), history.commits().size());
+            return history;
             
-        } catch (HttpClientErrorException e) {
-            logger.error("tracker API HTTP请求失败: 状态码={}, 响应体={}", 
-                        e.getStatusCode().value(), e.getResponseBodyAsString());
+        } catch (TrackerApiException e) {
+            logger.error("tracker API请求失败: {}", e.getMessage());
             return null;
         } catch (Exception e) {
             logger.error("tracker API请求异常", e);
@@ -277,62 +864,10 @@ public class CodeTraceServiceImpl implements CodeTraceService {
         }
     }
 
-    
-    /**
-     * 解析tracker API响应JSON
-     */
-    private TrackerApiResponseDTO parseTrackerApiResponse(String responseBody) {
-        try {
-            TrackerApiResponseDTO apiResponse = objectMapper.readValue(responseBody, TrackerApiResponseDTO.class);
-            logger.debug("成功解析tracker API响应: success={}, code={}, msg={}", 
-                        apiResponse.isSuccess(), apiResponse.getCode(), apiResponse.getMsg());
-            return apiResponse;
-        } catch (Exception e) {
-            logger.error("解析tracker API响应失败: {}", responseBody, e);
-            return null;
-        }
-    }
-
-    /**
-     * 将tracker API响应数据转换为CodeTraceResultDTO列表
-     */
-    private List<CodeTraceResultDTO> convertToCodeTraceResult(TrackerApiResponseDTO apiResponse) {
-        
-        List<CodeTraceResultDTO> resultList = new ArrayList<>();
-        
-        if (apiResponse.getData() == null || apiResponse.getData().isEmpty()) {
-            logger.debug("tracker API响应中没有数据");
-            return resultList;
-        }
-        
-        try {
-            // 遍历data中的所有方法
-            for (Map.Entry<String, List<TrackerApiResponseDTO.TrackerCommitInfoDTO>> entry : apiResponse.getData().entrySet()) {
-                String methodSignature = entry.getKey();
-                List<TrackerApiResponseDTO.TrackerCommitInfoDTO> commitInfos = entry.getValue();
-                
-                logger.debug("处理方法签名: {}, commit数量: {}", methodSignature, commitInfos.size());
-
-                // 转换每个commit信息
-                for (TrackerApiResponseDTO.TrackerCommitInfoDTO commitInfo : commitInfos) {
-                    CodeTraceResultDTO result = convertToCodeTraceResult(commitInfo);
-                    resultList.add(result);
-
-                }
-            }
-            
-            logger.debug("成功转换 {} 条commit记录", resultList.size());
-            
-        } catch (Exception e) {
-            logger.error("转换tracker API响应数据失败", e);
-        }
-        
-        return resultList;
-    }
-
     /**
      * 增强的代码搜索方法
-     * 当通过方法名无法找到代码时，尝试其他搜索策略
+     * 依次尝试完整方法名、简化方法名、结构体，最后不限类型匹配；
+     * 所有候选在同一次文件获取和CDT解析中完成匹配
      * 
      * @param filePath 文件路径
      * @param methodName 方法名
@@ -343,46 +878,38 @@ public class CodeTraceServiceImpl implements CodeTraceService {
         logger.debug("开始增强代码搜索: filePath={}, methodName={}, commitId={}", filePath, methodName, commitId);
         
         try {
-            // 1. 首先尝试通过完整方法名搜索
-            CodeSearchResultDTO result = KernelCodeAnalyzer.findCodeElementByIdentifier(
-                filePath, methodName, "function", kernelSourcePath, commitId);
-            
-            if (result != null) {
-                logger.debug("通过完整方法名找到代码元素");
-                return result;
-            }
-            
-            // 2. 如果方法名包含参数或者修饰符，尝试提取简化的方法名
-            String simplifiedMethodName = extractSimpleMethodName(methodName);
-            if (!simplifiedMethodName.equals(methodName)) {
-                logger.debug("尝试使用简化方法名搜索: {}", simplifiedMethodName);
-                result = KernelCodeAnalyzer.findCodeElementByIdentifier(
-                    filePath, simplifiedMethodName, "function", kernelSourcePath, commitId);
-                    
-                if (result != null) {
-                    logger.debug("通过简化方法名找到代码元素");
-                    return result;
-                }
-            }
+            List<KernelCodeAnalyzer.IdentifierQuery> candidates = buildSearchCandidates(methodName);
+            CodeSearchResultDTO result = KernelCodeAnalyzer.findFirstCodeElement(filePath, candidates, kernelSourcePath, commitId);
             
-            // 3. 尝试搜索结构体或其他类型的代码元素
-            logger.debug("尝试搜索结构体类型");
-            result = KernelCodeAnalyzer.findCodeElementByIdentifier(
-                filePath, simplifiedMethodName, "struct", kernelSourcePath, commitId);
-                
-            if (result != null) {
-                logger.debug("找到结构体定义");
-                return result;
+            if (result == null) {
+                logger.debug("所有搜索策略均未找到代码元素");
             }
-            
-            logger.debug("所有搜索策略均未找到代码元素");
-            return null;
+            return result;
             
         } catch (Exception e) {
             logger.warn("增强代码搜索过程中发生异常: {}", e.getMessage());
             return null;
         }
     }
+
+    /**
+     * 按优先级构建候选标识符
+     */
+    private List<KernelCodeAnalyzer.IdentifierQuery> buildSearchCandidates(String methodName) {
+        String simplifiedMethodName = extractSimpleMethodName(methodName);
+        List<KernelCodeAnalyzer.IdentifierQuery> candidates = new ArrayList<>();
+        // 1. 完整方法名
+        candidates.add(new KernelCodeAnalyzer.IdentifierQuery(methodName, "function"));
+        // 2. 方法名包含参数或者修饰符时，使用简化的方法名
+        if (!simplifiedMethodName.equals(methodName)) {
+            candidates.add(new KernelCodeAnalyzer.IdentifierQuery(simplifiedMethodName, "function"));
+        }
+        // 3. 结构体
+        candidates.add(new KernelCodeAnalyzer.IdentifierQuery(simplifiedMethodName, "struct"));
+        // 4. 任意类型的同名声明（如函数原型、宏展开后的声明）
+        candidates.add(KernelCodeAnalyzer.IdentifierQuery.any(simplifiedMethodName));
+        return candidates;
+    }
     
     /**
      * 提取简化的方法名
@@ -420,33 +947,6 @@ public class CodeTraceServiceImpl implements CodeTraceService {
         return simplified;
     }
 
-    /**
-     * 将单个TrackerCommitInfoDTO转换为CodeTraceResultDTO
-     */
-    private CodeTraceResultDTO convertToCodeTraceResult(TrackerApiResponseDTO.TrackerCommitInfoDTO commitInfo) {
-        CodeTraceResultDTO result = new CodeTraceResultDTO();
-        
-        result.setId(commitInfo.getId());
-        result.setCommitId(commitInfo.getCommitId());
-        result.setAuthorName(commitInfo.getAuthorName());
-        result.setCommitterName(commitInfo.getCommitterName());
-        result.setAuthorTime(commitInfo.getAuthorTime());
-        result.setCommitTime(commitInfo.getCommitTime());
-        result.setCommitTitle(commitInfo.getCommitTitle());
-        result.setAdded(commitInfo.getAdded());
-        result.setDeleted(commitInfo.getDeleted());
-        result.setCompany(commitInfo.getCompany());
-        result.setVersion(commitInfo.getVersion());
-        result.setRepo(commitInfo.getRepo());
-        result.setH1(commitInfo.getH1());
-        result.setH2(commitInfo.getH2());
-        result.setText(commitInfo.getText());
-        result.setNewbiesVersion(commitInfo.getNewbiesVersion());
-        result.setFeatureId(commitInfo.getFeatureId());
-        
-        return result;
-    }
-
     /**
      * 使用大模型分析 CodeTrace 的 Pipeline
      */
@@ -458,4 +958,24 @@ public class CodeTraceServiceImpl implements CodeTraceService {
 
     }
 
-} 
\ No newline at end of file
+    /**
+     * 批量追溯中已完成准备阶段的请求
+     * ready不为null时表示结果已确定（缓存命中、参数无效或失败），无需提取代码
+     */
+    private record PendingTrace(int index, CodeTraceRequestDTO request, List<CodeTraceResponseDTO> ready,
+                                List<CodeTraceResultDTO> commitHistoryList, List<String> codeVersions,
+                                Map<String, String> knownBlobIds, boolean truncated) {
+
+        static PendingTrace ready(int index, CodeTraceRequestDTO request, List<CodeTraceResponseDTO> responses) {
+            return new PendingTrace(index, request, responses, null, null, null, false);
+        }
+    }
+
+    /**
+     * 获取到的commit历史
+     * knownBlobIds不为null时（本地git追溯）已包含每个commit对应的blob ID，无需再解析；
+     * truncated为true时历史不完整（本地git追溯超时或读取失败），追溯结果不缓存
+     */
+    private record CommitHistory(List<CodeTraceResultDTO> commits, Map<String, String> knownBlobIds, boolean truncated) {}
+
+}
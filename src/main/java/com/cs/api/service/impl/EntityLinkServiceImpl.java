@@ -21,18 +21,25 @@ import com.cs.api.mapper.EntityExtractionMapper;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.cs.api.service.EntityLinkService;
 import com.cs.api.service.analyzer.BootlinSearchService;
+import com.cs.api.service.analyzer.ClusterAnalysisContext;
+import com.cs.api.service.analyzer.ConceptCooccurrenceGraph;
 import com.cs.api.service.analyzer.ConceptKnowledgeAnalyzer;
+import com.cs.api.service.analyzer.CorpusTokenStatistics;
+import com.cs.api.service.analyzer.IdentifierTokenizer;
 import com.cs.api.service.analyzer.KernelCodeAnalyzer;
+import com.cs.api.service.analyzer.TfIdfClusterEngine;
+import com.cs.api.service.analyzer.TokenDictionary;
+import com.cs.api.service.cache.ConceptAnalysisResultStore;
+import com.fasterxml.jackson.core.type.TypeReference;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.regex.Pattern;
-import java.util.regex.Matcher;
 import java.util.stream.Collectors;
 import java.nio.file.Files;
 import java.nio.file.Paths;
@@ -60,12 +67,41 @@ public class EntityLinkServiceImpl implements EntityLinkService {
     
     @Autowired
     private EntityExtractionMapper entityExtractionMapper;
+    
+    @Autowired
+    private ConceptCooccurrenceGraph conceptCooccurrenceGraph;
+    
+    @Autowired
+    private ConceptAnalysisResultStore analysisResultStore;
 
     @Value("${kernel.source.path:/home/fdse/ytest/codeMap/linux/repo}")
     private String kernelSourcePath;
+
+    @Autowired
+    private TfIdfClusterEngine tfIdfClusterEngine;
+
+    private static final String CLUSTER_ENGINE_TFIDF = "tfidf";
+
+    /**
+     * 代码聚类引擎：tfidf（TF-IDF向量 + 球面k-means）或 heuristic（按第一个包含的核心概念分配）
+     */
+    @Value("${cluster.engine:tfidf}")
+    private String clusterEngine;
+
+    @Autowired
+    private CorpusTokenStatistics corpusTokenStatistics;
+
+    /**
+     * 在超过该比例的内核文件中出现的词不作为核心概念
+     */
+    @Value("${cluster.corpus.max-df-ratio:0.2}")
+    private double corpusMaxDfRatio;
     
     private final ObjectMapper objectMapper = new ObjectMapper();
     
+    // 批量IN查询时每批的最大参数个数
+    private static final int IN_QUERY_BATCH_SIZE = 500;
+    
     // JSONL文件路径
     private static final String JSONL_FILE_PATH = "/home/fdse/ytest/LinuxKernelKG/output/entity_extraction/extraction_results_20250509_0958.jsonl";
 
@@ -644,14 +680,31 @@ public class EntityLinkServiceImpl implements EntityLinkService {
                 return new ArrayList<>();
             }
             
-            // 2. 提取feature描述
+            // 2. 相关feature未变化时直接返回已保存的结果
+            Set<Integer> featureIds = collectFeatureIds(relatedEntities);
+            String resultKey = analysisResultStore.featureSetKey(featureIds);
+            String dataVersion = analysisResultStore.isEnabled() ? analysisResultStore.fingerprint(featureIds) : null;
+            List<TripleSearchResultDTO> storedResults = analysisResultStore.load(
+                    ConceptAnalysisResultStore.TYPE_TRIPLES, concept, resultKey, dataVersion,
+                    new TypeReference<List<TripleSearchResultDTO>>() {});
+            if (storedResults != null) {
+                logger.info("三元组搜索命中已保存的结果，共{}个结果", storedResults.size());
+                return storedResults;
+            }
+            
+            // 3. 提取feature描述
             List<String> featureDescriptions = extractFeatureDescriptions(relatedEntities);
             logger.debug("提取到{}个feature描述", featureDescriptions.size());
             
-            // 3. 分批处理大模型调用，提取三元组
-            List<TripleSearchResultDTO> results = extractTriplesInBatches(concept, context, featureDescriptions);
+            // 4. 分批处理大模型调用，提取三元组
+            AnalysisOutcome<List<TripleSearchResultDTO>> outcome = extractTriplesInBatches(concept, context, featureDescriptions);
+            List<TripleSearchResultDTO> results = outcome.result();
             logger.info("三元组搜索完成，共提取{}个结果", results.size());
             
+            // 只保存所有批次都成功的结果，部分批次失败时下次重新计算
+            if (outcome.complete() && !results.isEmpty()) {
+                analysisResultStore.save(ConceptAnalysisResultStore.TYPE_TRIPLES, concept, resultKey, dataVersion, results);
+            }
             return results;
             
         } catch (Exception e) {
@@ -694,6 +747,18 @@ public class EntityLinkServiceImpl implements EntityLinkService {
         return uniqueEntities;
     }
     
+    /**
+     * 收集实体所属的featureId
+     * @param entities 实体列表
+     * @return featureId集合
+     */
+    private Set<Integer> collectFeatureIds(List<EntityExtractionDTO> entities) {
+        return entities.stream()
+                .map(EntityExtractionDTO::getFeatureId)
+                .filter(id -> id != null)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+    
     /**
      * 从实体列表中提取feature描述
      * @param entities 实体列表
@@ -713,12 +778,13 @@ public class EntityLinkServiceImpl implements EntityLinkService {
      * @param context 上下文信息
      * @param featureDescriptions feature描述列表
      * @param originalEntities 原始实体列表（用于构建结果）
-     * @return 三元组搜索结果列表
+     * @return 三元组搜索结果列表，有批次失败时标记为不完整
      */
-    private List<TripleSearchResultDTO> extractTriplesInBatches(String concept, String context, 
+    private AnalysisOutcome<List<TripleSearchResultDTO>> extractTriplesInBatches(String concept, String context, 
             List<String> featureDescriptions) {
         
         List<TripleSearchResultDTO> allResults = new ArrayList<>();
+        boolean complete = true;
         final int BATCH_SIZE = 5; // 每批处理5个feature描述
         
         // 按批次处理
@@ -738,13 +804,18 @@ public class EntityLinkServiceImpl implements EntityLinkService {
                     Thread.sleep(1000); // 1秒延迟
                 }
                 
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.warn("三元组提取被中断，已处理{}批", (i / BATCH_SIZE + 1));
+                return new AnalysisOutcome<>(allResults, false);
             } catch (Exception e) {
                 logger.warn("处理第{}批三元组提取失败: {}", (i / BATCH_SIZE + 1), e.getMessage());
                 // 继续处理下一批，不中断整个流程
+                complete = false;
             }
         }
         
-        return allResults;
+        return new AnalysisOutcome<>(allResults, complete);
     }
     
     /**
@@ -769,8 +840,7 @@ public class EntityLinkServiceImpl implements EntityLinkService {
             String aiResponse = AIService.deepseek(prompt);
             
             if (aiResponse == null || aiResponse.trim().isEmpty()) {
-                logger.warn("AI模型返回空结果，批次: {}", batchStartIndex / 5 + 1);
-                return new ArrayList<>();
+                throw new IllegalStateException("AI模型返回空结果，批次: " + (batchStartIndex / 5 + 1));
             }
             
             // 解析三元组结果
@@ -984,9 +1054,23 @@ public class EntityLinkServiceImpl implements EntityLinkService {
             List<String> featureDescriptions = extractFeatureDescriptions(relatedEntities);
             result.setTotalFeatures(featureDescriptions.size());
             
-            // 3. 从feature中发现其他概念（通过featureId关联）
-            List<String> relatedConcepts = discoverRelatedConcepts(concept, relatedEntities, analysisDepth);
-            logger.debug("发现{}个关联概念", relatedConcepts.size());
+            // 3. 从feature中发现其他概念（通过featureId关联），同时记录扩展过程涉及的所有feature
+            Set<Integer> seedFeatureIds = collectFeatureIds(relatedEntities);
+            Set<Integer> involvedFeatureIds = new LinkedHashSet<>(seedFeatureIds);
+            List<String> relatedConcepts = discoverRelatedConcepts(concept, relatedEntities, analysisDepth, involvedFeatureIds);
+            logger.debug("发现{}个关联概念，涉及{}个feature", relatedConcepts.size(), involvedFeatureIds.size());
+            
+            // 同一context命中的feature集合、同一深度，且涉及的feature都未变化时直接返回已保存的结果
+            String resultKey = analysisResultStore.featureSetKey(seedFeatureIds, analysisDepth);
+            String dataVersion = analysisResultStore.isEnabled()
+                    ? analysisResultStore.fingerprint(involvedFeatureIds) : null;
+            ConceptRelationshipResultDTO storedResult = analysisResultStore.load(
+                    ConceptAnalysisResultStore.TYPE_RELATIONSHIP, concept, resultKey, dataVersion,
+                    new TypeReference<ConceptRelationshipResultDTO>() {});
+            if (storedResult != null) {
+                logger.info("概念关系分析命中已保存的结果: concept={}, depth={}", concept, analysisDepth);
+                return storedResult;
+            }
             
             if (relatedConcepts.isEmpty()) {
                 result.setRelationshipSummary("该概念相对独立，未发现明显的关联概念");
@@ -995,8 +1079,9 @@ public class EntityLinkServiceImpl implements EntityLinkService {
             }
             
             // 4. 使用AI分析概念关系
-            List<ConceptRelationshipResultDTO.RelatedConcept> analyzedRelationships = 
+            AnalysisOutcome<List<ConceptRelationshipResultDTO.RelatedConcept>> outcome = 
                 analyzeRelationshipsWithAI(concept, relatedConcepts, featureDescriptions);
+            List<ConceptRelationshipResultDTO.RelatedConcept> analyzedRelationships = outcome.result();
             
             // 5. 构建最终结果
             result.setRelatedConcepts(analyzedRelationships);
@@ -1005,6 +1090,11 @@ public class EntityLinkServiceImpl implements EntityLinkService {
             // 6. 生成关系总结
             generateRelationshipSummary(result);
             
+            // AI调用失败时使用的后备关系不保存，下次重新分析
+            if (outcome.complete() && !analyzedRelationships.isEmpty()) {
+                analysisResultStore.save(ConceptAnalysisResultStore.TYPE_RELATIONSHIP, concept, resultKey, dataVersion, result);
+            }
+            
             logger.info("概念关系分析完成: concept={}, 发现{}个关系", concept, analyzedRelationships.size());
             return result;
             
@@ -1016,69 +1106,142 @@ public class EntityLinkServiceImpl implements EntityLinkService {
     
     /**
      * 从相关实体中发现其他关联概念
+     * 按featureId逐跳扩展：每一跳只发起一次批量IN查询，分析深度即为最大跳数
      * @param coreConcept 核心概念
      * @param relatedEntities 相关实体列表
      * @param analysisDepth 分析深度
+     * @param involvedFeatureIds 输出：结果所依赖的feature（扩展时访问的feature和关联概念所在的feature），用于结果的数据指纹
      * @return 发现的关联概念列表
      */
-    private List<String> discoverRelatedConcepts(String coreConcept, List<EntityExtractionDTO> relatedEntities, Integer analysisDepth) {
+    private List<String> discoverRelatedConcepts(String coreConcept, List<EntityExtractionDTO> relatedEntities, Integer analysisDepth,
+                                                 Set<Integer> involvedFeatureIds) {
         logger.debug("开始发现关联概念: coreConcept={}, entities={}, depth={}", coreConcept, relatedEntities.size(), analysisDepth);
         
-        // 收集所有涉及的featureId
-        List<Integer> featureIds = relatedEntities.stream()
-                .map(EntityExtractionDTO::getFeatureId)
-                .filter(id -> id != null)
-                .distinct()
-                .collect(Collectors.toList());
+        // 根据分析深度限制返回数量
+        int maxConcepts = Math.min(analysisDepth * 5, 15); // 深度1最多5个，深度2最多10个，深度3最多15个
         
-        logger.debug("涉及的featureId: {}", featureIds);
+        // 优先使用内存中的共现图，按边权排序；图未就绪或概念不在图中时回退到数据库查询
+        ConceptCooccurrenceGraph.Snapshot graph = conceptCooccurrenceGraph.getSnapshot();
+        if (graph != null && graph.contains(coreConcept)) {
+            List<String> rankedConcepts = graph.rankRelated(coreConcept, analysisDepth, maxConcepts, 2).stream()
+                    .map(ConceptCooccurrenceGraph.RankedConcept::getName)
+                    .collect(Collectors.toList());
+            logger.debug("共现图发现关联概念: {}", rankedConcepts);
+            addFeatureIdsOfConcepts(rankedConcepts, involvedFeatureIds);
+            return rankedConcepts;
+        }
         
-        // 通过featureId查找其他概念
-        List<String> discoveredConcepts = new ArrayList<>();
+        // 第一跳的featureId（保持原有顺序）
+        Set<Integer> frontierFeatureIds = collectFeatureIds(relatedEntities);
         
-        for (Integer featureId : featureIds) {
-            try {
-                // 查找同一feature下的其他实体
-                List<EntityExtractionDTO> sameFeatureEntities = entityExtractionMapper.findByFeatureId(featureId);
-                
-                for (EntityExtractionDTO entity : sameFeatureEntities) {
-                    String entityName = entity.getNameEn();
-                    // 排除核心概念本身和已发现的概念
+        logger.debug("涉及的featureId: {}", frontierFeatureIds);
+        
+        // 使用哈希集合去重，LinkedHashSet保持发现顺序
+        Set<Integer> visitedFeatureIds = new HashSet<>();
+        Set<String> discoveredConcepts = new LinkedHashSet<>();
+        
+        for (int hop = 1; hop <= analysisDepth && !frontierFeatureIds.isEmpty(); hop++) {
+            visitedFeatureIds.addAll(frontierFeatureIds);
+            
+            // 批量查找这些feature下的所有实体，并按featureId分组以保持遍历顺序
+            Map<Integer, List<String>> conceptsByFeature = new HashMap<>();
+            for (EntityExtractionDTO entity : findNameEnByFeatureIdsInChunks(frontierFeatureIds)) {
+                conceptsByFeature.computeIfAbsent(entity.getFeatureId(), k -> new ArrayList<>()).add(entity.getNameEn());
+            }
+            
+            List<String> newConcepts = new ArrayList<>();
+            for (Integer featureId : frontierFeatureIds) {
+                for (String entityName : conceptsByFeature.getOrDefault(featureId, List.of())) {
+                    // 排除核心概念本身、已发现的概念和过短的概念
                     if (entityName != null && 
                         !entityName.equals(coreConcept) && 
-                        !discoveredConcepts.contains(entityName) &&
-                        entityName.length() > 2) {  // 排除过短的概念
-                        discoveredConcepts.add(entityName);
+                        entityName.length() > 2 &&
+                        discoveredConcepts.size() < maxConcepts &&
+                        discoveredConcepts.add(entityName)) {
+                        newConcepts.add(entityName);
                     }
                 }
-            } catch (Exception e) {
-                logger.warn("查询featureId={}的其他实体失败: {}", featureId, e.getMessage());
             }
+            logger.debug("第{}跳发现{}个新概念", hop, newConcepts.size());
+            
+            if (hop == analysisDepth || newConcepts.isEmpty() || discoveredConcepts.size() >= maxConcepts) {
+                break;
+            }
+            
+            // 下一跳：新发现概念所在的、尚未访问过的feature
+            Set<Integer> nextFeatureIds = new LinkedHashSet<>();
+            for (EntityExtractionDTO entity : findFeatureIdByNameEnsInChunks(newConcepts)) {
+                if (entity.getFeatureId() != null && !visitedFeatureIds.contains(entity.getFeatureId())) {
+                    nextFeatureIds.add(entity.getFeatureId());
+                }
+            }
+            frontierFeatureIds = nextFeatureIds;
         }
         
-        // 根据分析深度限制返回数量
-        int maxConcepts = Math.min(analysisDepth * 5, 15); // 深度1最多5个，深度2最多10个，深度3最多15个
-        List<String> limitedConcepts = discoveredConcepts.stream()
-                .distinct()
-                .limit(maxConcepts)
-                .collect(Collectors.toList());
-        
+        List<String> limitedConcepts = new ArrayList<>(discoveredConcepts);
         logger.debug("发现关联概念: {}", limitedConcepts);
+        involvedFeatureIds.addAll(visitedFeatureIds);
+        addFeatureIdsOfConcepts(limitedConcepts, involvedFeatureIds);
         return limitedConcepts;
     }
     
+    /**
+     * 把概念所在的feature加入集合
+     */
+    private void addFeatureIdsOfConcepts(List<String> concepts, Set<Integer> featureIds) {
+        if (concepts.isEmpty()) {
+            return;
+        }
+        for (EntityExtractionDTO entity : findFeatureIdByNameEnsInChunks(concepts)) {
+            if (entity.getFeatureId() != null) {
+                featureIds.add(entity.getFeatureId());
+            }
+        }
+    }
+    
+    /**
+     * 分批执行featureId的IN查询，避免单条SQL参数过多
+     */
+    private List<EntityExtractionDTO> findNameEnByFeatureIdsInChunks(Set<Integer> featureIds) {
+        List<EntityExtractionDTO> entities = new ArrayList<>();
+        List<Integer> ids = new ArrayList<>(featureIds);
+        for (int i = 0; i < ids.size(); i += IN_QUERY_BATCH_SIZE) {
+            List<Integer> chunk = ids.subList(i, Math.min(i + IN_QUERY_BATCH_SIZE, ids.size()));
+            try {
+                entities.addAll(entityExtractionMapper.findNameEnByFeatureIds(chunk));
+            } catch (Exception e) {
+                logger.warn("批量查询featureId对应实体失败: size={}, error={}", chunk.size(), e.getMessage());
+            }
+        }
+        return entities;
+    }
+    
+    /**
+     * 分批执行name_en的IN查询，获取概念所在的feature
+     */
+    private List<EntityExtractionDTO> findFeatureIdByNameEnsInChunks(List<String> nameEns) {
+        List<EntityExtractionDTO> entities = new ArrayList<>();
+        for (int i = 0; i < nameEns.size(); i += IN_QUERY_BATCH_SIZE) {
+            List<String> chunk = nameEns.subList(i, Math.min(i + IN_QUERY_BATCH_SIZE, nameEns.size()));
+            try {
+                entities.addAll(entityExtractionMapper.findFeatureIdByNameEns(chunk));
+            } catch (Exception e) {
+                logger.warn("批量查询概念所在feature失败: size={}, error={}", chunk.size(), e.getMessage());
+            }
+        }
+        return entities;
+    }
+    
     /**
      * 使用AI分析概念关系
      * @param coreConcept 核心概念
      * @param relatedConcepts 关联概念列表
      * @param featureDescriptions feature描述列表
-     * @return 分析后的关系列表
+     * @return 分析后的关系列表，AI调用失败而使用后备关系时标记为不完整
      */
-    private List<ConceptRelationshipResultDTO.RelatedConcept> analyzeRelationshipsWithAI(
+    private AnalysisOutcome<List<ConceptRelationshipResultDTO.RelatedConcept>> analyzeRelationshipsWithAI(
             String coreConcept, List<String> relatedConcepts, List<String> featureDescriptions) {
         
-        List<ConceptRelationshipResultDTO.RelatedConcept> analyzedRelationships = new ArrayList<>();
-        
         try {
             // 构建AI分析提示词
             String prompt = Prompt.analyzeConceptRelationships(coreConcept, relatedConcepts, featureDescriptions);
@@ -1089,20 +1252,20 @@ public class EntityLinkServiceImpl implements EntityLinkService {
             
             if (aiResponse == null || aiResponse.trim().isEmpty()) {
                 logger.warn("AI模型返回空结果");
-                return analyzedRelationships;
+                return new AnalysisOutcome<>(new ArrayList<>(), false);
             }
             
             // 解析AI响应
-            analyzedRelationships = parseRelationshipAnalysisResponse(aiResponse, featureDescriptions);
+            List<ConceptRelationshipResultDTO.RelatedConcept> analyzedRelationships =
+                parseRelationshipAnalysisResponse(aiResponse, featureDescriptions);
             logger.debug("AI分析完成，解析出{}个关系", analyzedRelationships.size());
+            return new AnalysisOutcome<>(analyzedRelationships, true);
             
         } catch (Exception e) {
             logger.error("AI关系分析失败: {}", e.getMessage());
             // 创建后备关系（简单的共现关系）
-            analyzedRelationships = createFallbackRelationships(relatedConcepts, featureDescriptions);
+            return new AnalysisOutcome<>(createFallbackRelationships(coreConcept, relatedConcepts, featureDescriptions), false);
         }
-        
-        return analyzedRelationships;
     }
     
     /**
@@ -1177,20 +1340,33 @@ public class EntityLinkServiceImpl implements EntityLinkService {
     
     /**
      * 创建后备关系（当AI分析失败时）
+     * @param coreConcept 核心概念
      * @param relatedConcepts 关联概念列表
      * @param featureDescriptions feature描述列表
      * @return 简单的共现关系列表
      */
     private List<ConceptRelationshipResultDTO.RelatedConcept> createFallbackRelationships(
-            List<String> relatedConcepts, List<String> featureDescriptions) {
+            String coreConcept, List<String> relatedConcepts, List<String> featureDescriptions) {
         
         List<ConceptRelationshipResultDTO.RelatedConcept> fallbackRelationships = new ArrayList<>();
         
+        // 共现图可用时，以共享feature数（边权）衡量关系强度
+        ConceptCooccurrenceGraph.Snapshot graph = conceptCooccurrenceGraph.getSnapshot();
+        Map<String, Integer> edgeWeights = graph != null
+                ? graph.directNeighbors(coreConcept, Integer.MAX_VALUE)
+                : Map.of();
+        
         for (String conceptName : relatedConcepts) {
-            // 计算概念在feature描述中的出现频率作为关系强度
-            long occurrenceCount = featureDescriptions.stream()
-                    .mapToLong(desc -> countOccurrences(desc.toLowerCase(), conceptName.toLowerCase()))
-                    .sum();
+            long occurrenceCount;
+            Integer weight = edgeWeights.get(conceptName);
+            if (weight != null) {
+                occurrenceCount = weight;
+            } else {
+                // 计算概念在feature描述中的出现频率作为关系强度
+                occurrenceCount = featureDescriptions.stream()
+                        .mapToLong(desc -> countOccurrences(desc.toLowerCase(), conceptName.toLowerCase()))
+                        .sum();
+            }
             
             double strength = Math.min(0.1 + (occurrenceCount * 0.1), 0.8); // 最低0.1，最高0.8
             
@@ -1562,6 +1738,9 @@ public class EntityLinkServiceImpl implements EntityLinkService {
             version = "v6.14"; // 默认版本
         }
         
+        // 本次请求内共享的文件内容和解析结果
+        ClusterAnalysisContext analysisContext = new ClusterAnalysisContext(kernelSourcePath);
+        
         try {
             // 1. 直接获取Bootlin搜索结果，不获取完整代码片段
             List<BootlinSearchResultDTO> bootlinResults = getBootlinSearchResults(concept, context, version);
@@ -1572,7 +1751,7 @@ public class EntityLinkServiceImpl implements EntityLinkService {
             }
             
             // 2. 直接从Bootlin结果中提取单行代码信息
-            List<CodeClusterResultDTO.CodeLineInfo> codeLines = extractCodeLinesFromBootlinResults(bootlinResults);
+            List<CodeClusterResultDTO.CodeLineInfo> codeLines = extractCodeLinesFromBootlinResults(bootlinResults, analysisContext);
             logger.debug("提取到{}行代码进行分析", codeLines.size());
             
             if (codeLines.isEmpty()) {
@@ -1581,16 +1760,17 @@ public class EntityLinkServiceImpl implements EntityLinkService {
             }
             
             // 3. 词袋模型处理
-            Map<String, Integer> tokenFrequency = buildTokenFrequencyMap(codeLines);
-            Set<String> filteredTokens = filterStopWords(tokenFrequency.keySet());
-            List<String> coreTokens = identifyCoreConcepts(filteredTokens, tokenFrequency);
+            TokenDictionary dictionary = buildTokenDictionary(codeLines);
+            // 该版本的全内核词文档频率，未构建时为null
+            CorpusTokenStatistics.DocumentFrequencyTable corpus = corpusTokenStatistics.get(version);
+            List<String> coreTokens = identifyCoreConcepts(dictionary, corpus);
             
             // 4. 代码聚类
             List<CodeClusterResultDTO.ConceptCluster> clusters = performCodeClustering(
-                concept, codeLines, coreTokens, tokenFrequency);
+                concept, codeLines, coreTokens, dictionary, corpus);
             
             // 5. 为每个聚类增强：获取完整代码片段、AI解释和汇总说明
-            enhanceClusterAnalysis(clusters, concept, version);
+            enhanceClusterAnalysis(clusters, concept, version, analysisContext);
             
             // 6. 构建结果
             String analysisSummary = generateClusterAnalysisSummary(concept, codeLines.size(), clusters.size());
@@ -1604,8 +1784,8 @@ public class EntityLinkServiceImpl implements EntityLinkService {
                 version
             );
             
-            logger.info("代码聚类分析完成: concept={}, 代码行数={}, 聚类数={}", 
-                concept, codeLines.size(), clusters.size());
+            logger.info("代码聚类分析完成: concept={}, 代码行数={}, 聚类数={}, {}", 
+                concept, codeLines.size(), clusters.size(), analysisContext.statistics());
             
             return result;
             
@@ -1663,7 +1843,8 @@ public class EntityLinkServiceImpl implements EntityLinkService {
     /**
      * 从Bootlin搜索结果中直接提取单行代码信息
      */
-    private List<CodeClusterResultDTO.CodeLineInfo> extractCodeLinesFromBootlinResults(List<BootlinSearchResultDTO> bootlinResults) {
+    private List<CodeClusterResultDTO.CodeLineInfo> extractCodeLinesFromBootlinResults(List<BootlinSearchResultDTO> bootlinResults,
+                                                                                   ClusterAnalysisContext analysisContext) {
         List<CodeClusterResultDTO.CodeLineInfo> codeLines = new ArrayList<>();
         
         for (BootlinSearchResultDTO bootlinResult : bootlinResults) {
@@ -1673,7 +1854,7 @@ public class EntityLinkServiceImpl implements EntityLinkService {
             if (bootlinResult.getDefinitions() != null) {
                 for (BootlinSearchResultDTO.SearchResultItem def : bootlinResult.getDefinitions()) {
                     if (def.getType().equals("struct") || def.getType().equals("function")) {
-                        List<CodeClusterResultDTO.CodeLineInfo> defCodeLines = extractCodeLinesFromSearchItem(def, version, "definitions");
+                        List<CodeClusterResultDTO.CodeLineInfo> defCodeLines = extractCodeLinesFromSearchItem(def, version, "definitions", analysisContext);
                         codeLines.addAll(defCodeLines);
                     }
                 }
@@ -1686,7 +1867,7 @@ public class EntityLinkServiceImpl implements EntityLinkService {
                     .collect(Collectors.toList());
                     
                 for (BootlinSearchResultDTO.SearchResultItem ref : limitedRefs) {
-                    List<CodeClusterResultDTO.CodeLineInfo> refCodeLines = extractCodeLinesFromSearchItem(ref, version, "references");
+                    List<CodeClusterResultDTO.CodeLineInfo> refCodeLines = extractCodeLinesFromSearchItem(ref, version, "references", analysisContext);
                     codeLines.addAll(refCodeLines);
                 }
             }
@@ -1755,15 +1936,16 @@ public class EntityLinkServiceImpl implements EntityLinkService {
     /**
      * 从单个搜索结果项中提取代码行
      */
-    private List<CodeClusterResultDTO.CodeLineInfo> extractCodeLinesFromSearchItem(BootlinSearchResultDTO.SearchResultItem item, String version, String sourceType) {
+    private List<CodeClusterResultDTO.CodeLineInfo> extractCodeLinesFromSearchItem(BootlinSearchResultDTO.SearchResultItem item, String version, String sourceType,
+                                                                               ClusterAnalysisContext analysisContext) {
         List<CodeClusterResultDTO.CodeLineInfo> codeLines = new ArrayList<>();
         
         if (item.getLine() != null && !item.getLine().isEmpty()) {
             for (String lineStr : item.getLine()) {
                 int lineNumber = parseLineNumber(lineStr);
                 if (lineNumber > 0) {
-                    // 使用Git命令从指定版本读取文件的指定行
-                    String singleLineCode = readSingleLineFromFile(item.getPath(), lineNumber, version);
+                    // 从指定版本读取文件的指定行，同一文件在本次请求内只读取一次
+                    String singleLineCode = readSingleLineFromFile(item.getPath(), lineNumber, version, analysisContext);
                     if (singleLineCode != null && !singleLineCode.trim().isEmpty()) {
                         List<String> identifiers = extractIdentifiers(singleLineCode);
                         
@@ -1784,12 +1966,11 @@ public class EntityLinkServiceImpl implements EntityLinkService {
     }
     
     /**
-     * 从指定文件的指定行号读取单行代码，使用Git命令获取指定版本的文件内容
+     * 从指定文件的指定行号读取单行代码，文件内容从请求上下文获取
      */
-    private String readSingleLineFromFile(String filePath, int lineNumber, String version) {
+    private String readSingleLineFromFile(String filePath, int lineNumber, String version, ClusterAnalysisContext analysisContext) {
         try {
-            // 使用Git命令获取指定版本的文件内容
-            List<String> lines = readFileFromGitVersion(filePath, version);
+            List<String> lines = analysisContext.lines(version, filePath);
             
             if (lines != null && lineNumber > 0 && lineNumber <= lines.size()) {
                 return lines.get(lineNumber - 1); // 行号从1开始，数组从0开始
@@ -1804,190 +1985,42 @@ public class EntityLinkServiceImpl implements EntityLinkService {
         }
     }
     
-    /**
-     * 使用Git命令从指定版本读取文件内容
-     * @param filePath 文件路径
-     * @param version 版本标签（如v6.14）
-     * @return 文件行列表，如果读取失败返回null
-     */
-    private List<String> readFileFromGitVersion(String filePath, String version) {
-        try {
-            // 构建Git命令：git show <version>:<file_path>
-            ProcessBuilder pb = new ProcessBuilder("git", "show", version + ":" + filePath);
-            pb.directory(new java.io.File(kernelSourcePath)); // 设置工作目录
-            pb.redirectErrorStream(true); // 合并错误流和标准输出流
-            
-            Process process = pb.start();
-            
-            // 读取命令输出
-            List<String> lines = new ArrayList<>();
-            try (java.io.BufferedReader reader = new java.io.BufferedReader(
-                    new java.io.InputStreamReader(process.getInputStream()))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    lines.add(line);
-                }
-            }
-            
-            // 等待命令完成
-            int exitCode = process.waitFor();
-            if (exitCode == 0) {
-                logger.debug("Git命令成功: file={}, version={}, lines={}", filePath, version, lines.size());
-                return lines;
-            } else {
-                logger.debug("Git命令失败: file={}, version={}, exitCode={}", filePath, version, exitCode);
-                return null;
-            }
-            
-        } catch (IOException e) {
-            logger.debug("执行Git命令失败: file={}, version={}, error={}", filePath, version, e.getMessage());
-            return null;
-        } catch (InterruptedException e) {
-            logger.debug("Git命令被中断: file={}, version={}", filePath, version);
-            Thread.currentThread().interrupt();
-            return null;
-        } catch (Exception e) {
-            logger.warn("Git命令异常: file={}, version={}", filePath, version, e);
-            return null;
-        }
-    }
-    
     /**
      * 从代码行中提取标识符
-     * 使用正则表达式匹配C语言标识符
+     * 单遍扫描C语言标识符，过滤C关键字和单字符标识符
      */
     private List<String> extractIdentifiers(String codeLine) {
-        List<String> identifiers = new ArrayList<>();
-        
-        // C语言标识符的正则表达式：字母或下划线开头，后跟字母、数字或下划线
-        Pattern identifierPattern = Pattern.compile("\\b[a-zA-Z_][a-zA-Z0-9_]*\\b");
-        Matcher matcher = identifierPattern.matcher(codeLine);
-        
-        while (matcher.find()) {
-            String identifier = matcher.group();
-            // 过滤掉C语言关键字
-            if (!isCKeyword(identifier) && identifier.length() > 1) {
-                identifiers.add(identifier);
-            }
-        }
-        
-        return identifiers.stream().distinct().collect(Collectors.toList());
-    }
-    
-    /**
-     * 判断是否为C语言关键字
-     */
-    private boolean isCKeyword(String word) {
-        Set<String> cKeywords = Set.of(
-            "auto", "break", "case", "char", "const", "continue", "default", "do",
-            "double", "else", "enum", "extern", "float", "for", "goto", "if",
-            "int", "long", "register", "return", "short", "signed", "sizeof", "static",
-            "struct", "switch", "typedef", "union", "unsigned", "void", "volatile", "while"
-        );
-        return cKeywords.contains(word.toLowerCase());
+        return IdentifierTokenizer.extractIdentifiers(codeLine);
     }
     
     /**
-     * 构建词汇频率映射表
+     * 构建词典：对每行代码的标识符分词计数，并在代码行上记录词编号
      */
-    private Map<String, Integer> buildTokenFrequencyMap(List<CodeClusterResultDTO.CodeLineInfo> codeLines) {
-        Map<String, Integer> frequency = new HashMap<>();
-        
+    private TokenDictionary buildTokenDictionary(List<CodeClusterResultDTO.CodeLineInfo> codeLines) {
+        TokenDictionary dictionary = new TokenDictionary();
         for (CodeClusterResultDTO.CodeLineInfo codeLine : codeLines) {
-            for (String identifier : codeLine.getIdentifiers()) {
-                // 进一步分词：处理驼峰命名和下划线命名
-                List<String> tokens = tokenizeIdentifier(identifier);
-                for (String token : tokens) {
-                    frequency.put(token, frequency.getOrDefault(token, 0) + 1);
-                }
-            }
+            // 处理驼峰命名和下划线命名
+            codeLine.setTokenIds(dictionary.addIdentifiers(codeLine.getIdentifiers()));
         }
-        
-        return frequency;
-    }
-    
-    /**
-     * 分词：处理驼峰命名和下划线命名
-     */
-    private List<String> tokenizeIdentifier(String identifier) {
-        List<String> tokens = new ArrayList<>();
-        
-        // 先按下划线分割
-        String[] underscoreParts = identifier.split("_");
-        
-        for (String part : underscoreParts) {
-            if (part.isEmpty()) continue;
-            
-            // 再按驼峰命名分割
-            List<String> camelCaseTokens = splitCamelCase(part);
-            tokens.addAll(camelCaseTokens);
-        }
-        
-        return tokens.stream()
-                .filter(token -> token.length() > 1) // 过滤单字符
-                .map(String::toLowerCase)
-                .distinct()
-                .collect(Collectors.toList());
+        return dictionary;
     }
     
     /**
-     * 按驼峰命名法分割字符串
+     * 识别核心概念：过滤停用词和短词后，取出现至少2次的前10个高频词
+     * 有全内核词文档频率时，同时过滤在大部分文件中都出现的词
      */
-    private List<String> splitCamelCase(String str) {
-        List<String> tokens = new ArrayList<>();
-        
-        // 使用正则表达式分割驼峰命名
-        Pattern pattern = Pattern.compile("([a-z])([A-Z])");
-        String[] parts = pattern.matcher(str).replaceAll("$1 $2").split(" ");
-        
-        for (String part : parts) {
-            if (!part.trim().isEmpty()) {
-                tokens.add(part.trim());
-            }
+    private List<String> identifyCoreConcepts(TokenDictionary dictionary, CorpusTokenStatistics.DocumentFrequencyTable corpus) {
+        double maxFrequency = corpus != null ? corpus.documentCount() * corpusMaxDfRatio : Double.MAX_VALUE;
+        int[] topIds = dictionary.topK(10, id -> {
+            String token = dictionary.token(id);
+            return dictionary.frequency(id) >= 2 && token.length() > 2 && !IdentifierTokenizer.isStopWord(token)
+                && (corpus == null || corpus.frequency(token) <= maxFrequency);
+        });
+        List<String> coreTokens = new ArrayList<>(topIds.length);
+        for (int id : topIds) {
+            coreTokens.add(dictionary.token(id));
         }
-        
-        return tokens;
-    }
-    
-    /**
-     * 过滤停用词
-     */
-    private Set<String> filterStopWords(Set<String> tokens) {
-        Set<String> stopWords = getStopWords();
-        
-        return tokens.stream()
-                .filter(token -> !stopWords.contains(token.toLowerCase()))
-                .filter(token -> token.length() > 2) // 过滤长度小于3的词
-                .collect(Collectors.toSet());
-    }
-    
-    /**
-     * 获取停用词集合
-     */
-    private Set<String> getStopWords() {
-        Set<String> stopWords = new HashSet<>();
-        
-        // 通用停用词
-        stopWords.addAll(Set.of("the", "and", "for", "are", "but", "not", "you", "all", "can", "had", "her", "was", "one", "our", "out", "day", "get", "has", "him", "his", "how", "its", "may", "new", "now", "old", "see", "two", "who", "boy", "did", "use", "way", "she", "many", "some", "time"));
-        
-        // 代码领域常见词
-        stopWords.addAll(Set.of("void", "int", "char", "long", "short", "unsigned", "signed", "const", "static", "extern", "auto", "register", "volatile", "inline", "return", "break", "continue", "goto", "case", "default", "switch", "while", "for", "do", "if", "else", "sizeof", "typedef", "struct", "union", "enum"));
-        
-        // Linux内核常见词
-        stopWords.addAll(Set.of("kernel", "linux", "include", "define", "ifdef", "ifndef", "endif", "undef", "line", "file"));
-        
-        return stopWords;
-    }
-    
-    /**
-     * 识别核心概念
-     */
-    private List<String> identifyCoreConcepts(Set<String> filteredTokens, Map<String, Integer> frequency) {
-        return filteredTokens.stream()
-                .filter(token -> frequency.get(token) >= 2) // 至少出现2次
-                .sorted((a, b) -> frequency.get(b) - frequency.get(a)) // 按频率降序
-                .limit(10) // 取前10个核心概念
-                .collect(Collectors.toList());
+        return coreTokens;
     }
     
     /**
@@ -1997,9 +2030,11 @@ public class EntityLinkServiceImpl implements EntityLinkService {
             String originalConcept, 
             List<CodeClusterResultDTO.CodeLineInfo> codeLines,
             List<String> coreTokens,
-            Map<String, Integer> tokenFrequency) {
+            TokenDictionary dictionary,
+            CorpusTokenStatistics.DocumentFrequencyTable corpus) {
         
         Map<String, List<CodeClusterResultDTO.CodeLineInfo>> clusters = new HashMap<>();
+        int[] coreIds = coreTokens.stream().mapToInt(dictionary::idOf).toArray();
         
         // 1. 首先创建默认聚类组用于存放 definitions 代码段
         String defaultClusterName = "核心定义";
@@ -2025,18 +2060,8 @@ public class EntityLinkServiceImpl implements EntityLinkService {
             }
         }
         
-        // 4. 将剩余代码行（主要是 references）按原有逻辑分配到其他聚类
-        for (CodeClusterResultDTO.CodeLineInfo codeLine : remainingCodeLines) {
-            String bestMatch = findBestMatchingConcept(codeLine, coreTokens);
-            if (bestMatch != null) {
-                clusters.get(bestMatch).add(codeLine);
-            }
-        }
-        
-        // 5. 构建聚类结果
+        // 4. 首先添加默认聚类组（definitions）
         List<CodeClusterResultDTO.ConceptCluster> result = new ArrayList<>();
-        
-        // 首先添加默认聚类组（definitions）
         List<CodeClusterResultDTO.CodeLineInfo> defaultClusterLines = clusters.get(defaultClusterName);
         if (!defaultClusterLines.isEmpty()) {
             CodeClusterResultDTO.ConceptCluster defaultCluster = new CodeClusterResultDTO.ConceptCluster(
@@ -2049,7 +2074,41 @@ public class EntityLinkServiceImpl implements EntityLinkService {
             logger.debug("创建默认聚类组: {}, 包含{}行代码", defaultClusterName, defaultClusterLines.size());
         }
         
-        // 然后添加其他概念聚类
+        // 5. 剩余代码行（主要是 references）使用TF-IDF向量聚类，聚类数与核心概念数相同
+        if (CLUSTER_ENGINE_TFIDF.equals(clusterEngine) && !coreTokens.isEmpty()) {
+            double[] idf = corpus != null
+                ? TfIdfClusterEngine.corpusIdf(dictionary, corpus)
+                : TfIdfClusterEngine.inSampleIdf(codeLines, dictionary);
+            Set<String> usedNames = new HashSet<>();
+            usedNames.add(defaultClusterName);
+            for (TfIdfClusterEngine.TermCluster termCluster : tfIdfClusterEngine.cluster(remainingCodeLines, dictionary, coreTokens.size(), idf)) {
+                List<String> topTokens = new ArrayList<>();
+                for (int tokenId : termCluster.topTokenIds()) {
+                    topTokens.add(dictionary.token(tokenId));
+                }
+                // 聚类名使用中心权重最高且未被使用的词
+                String concept = topTokens.stream().filter(usedNames::add).findFirst()
+                    .orElse(topTokens.get(0) + "#" + (result.size() + 1));
+                result.add(new CodeClusterResultDTO.ConceptCluster(
+                    concept,
+                    dictionary.frequency(dictionary.idOf(concept)),
+                    termCluster.codeLines(),
+                    topTokens
+                ));
+                logger.debug("创建TF-IDF聚类: {}, 包含{}行代码", concept, termCluster.codeLines().size());
+            }
+            return result;
+        }
+        
+        // 按原有逻辑分配到第一个包含的核心概念
+        for (CodeClusterResultDTO.CodeLineInfo codeLine : remainingCodeLines) {
+            String bestMatch = findBestMatchingConcept(codeLine, coreIds, dictionary);
+            if (bestMatch != null) {
+                clusters.get(bestMatch).add(codeLine);
+            }
+        }
+        
+        // 6. 然后添加其他概念聚类
         for (Map.Entry<String, List<CodeClusterResultDTO.CodeLineInfo>> entry : clusters.entrySet()) {
             String concept = entry.getKey();
             List<CodeClusterResultDTO.CodeLineInfo> clusterLines = entry.getValue();
@@ -2061,7 +2120,7 @@ public class EntityLinkServiceImpl implements EntityLinkService {
             
             CodeClusterResultDTO.ConceptCluster cluster = new CodeClusterResultDTO.ConceptCluster(
                 concept,
-                tokenFrequency.get(concept),
+                dictionary.frequency(dictionary.idOf(concept)),
                 clusterLines,
                 List.of(concept) // 简化版核心词汇
             );
@@ -2075,18 +2134,18 @@ public class EntityLinkServiceImpl implements EntityLinkService {
     /**
      * 为代码行找到最佳匹配的核心概念
      */
-    private String findBestMatchingConcept(CodeClusterResultDTO.CodeLineInfo codeLine, List<String> coreTokens) {
-        for (String identifier : codeLine.getIdentifiers()) {
-            List<String> tokens = tokenizeIdentifier(identifier);
-            for (String token : tokens) {
-                if (coreTokens.contains(token.toLowerCase())) {
-                    return token.toLowerCase();
+    private String findBestMatchingConcept(CodeClusterResultDTO.CodeLineInfo codeLine, int[] coreIds, TokenDictionary dictionary) {
+        // 核心概念最多10个，线性查找即可
+        for (int tokenId : codeLine.getTokenIds()) {
+            for (int coreId : coreIds) {
+                if (tokenId == coreId) {
+                    return dictionary.token(tokenId);
                 }
             }
         }
         
         // 如果没有直接匹配，返回第一个核心概念（作为默认）
-        return coreTokens.isEmpty() ? null : coreTokens.get(0);
+        return coreIds.length == 0 ? null : dictionary.token(coreIds[0]);
     }
 
     /**
@@ -2097,13 +2156,14 @@ public class EntityLinkServiceImpl implements EntityLinkService {
      * @param concept 原始搜索概念
      * @param version Git版本
      */
-    private void enhanceClusterAnalysis(List<CodeClusterResultDTO.ConceptCluster> clusters, String concept, String commitId) {
+    private void enhanceClusterAnalysis(List<CodeClusterResultDTO.ConceptCluster> clusters, String concept, String commitId,
+                                        ClusterAnalysisContext analysisContext) {
         logger.info("开始为{}个聚类进行增强分析", clusters.size());
         
         for (CodeClusterResultDTO.ConceptCluster cluster : clusters) {
             try {
                 // 1. 获取完整代码片段
-                List<CodeSearchResultDTO> codeSnippets = getCompleteCodeSnippets(cluster, commitId);
+                List<CodeSearchResultDTO> codeSnippets = getCompleteCodeSnippets(cluster, commitId, analysisContext);
                 cluster.setCodeSnippets(codeSnippets);
                 logger.debug("聚类'{}'获取到{}个完整代码片段", cluster.getClusterConcept(), codeSnippets.size());
                 
@@ -2123,32 +2183,29 @@ public class EntityLinkServiceImpl implements EntityLinkService {
     }
     
     /**
-     * 获取聚类中每个代码行的完整代码片段 - 优化版本
-     * 通过智能采样、文件级缓存和去重来提高性能
+     * 获取聚类中每个代码行的完整代码片段
+     * 按文件分组，每个文件只解析一次并批量定位所有代码行
      * 
      * @param cluster 概念聚类
      * @param version Git版本
      * @return 完整代码片段列表
      */
-    private List<CodeSearchResultDTO> getCompleteCodeSnippets(CodeClusterResultDTO.ConceptCluster cluster, String commitId) {
+    private List<CodeSearchResultDTO> getCompleteCodeSnippets(CodeClusterResultDTO.ConceptCluster cluster, String commitId,
+                                                              ClusterAnalysisContext analysisContext) {
         List<CodeSearchResultDTO> codeSnippets = new ArrayList<>();
         
-        // 1. 性能优化：限制处理的代码行数量，避免处理几百行
-        List<CodeClusterResultDTO.CodeLineInfo> selectedLines = selectRepresentativeCodeLines(cluster.getCodeLines());
-        logger.debug("从{}行代码中选择{}行进行详细分析", cluster.getCodeLines().size(), selectedLines.size());
-        
-        // 2. 按文件分组，实现文件级批量处理
-        Map<String, List<CodeClusterResultDTO.CodeLineInfo>> fileGroups = groupCodeLinesByFile(selectedLines);
-        logger.debug("代码行分布在{}个文件中", fileGroups.size());
+        // 1. 按文件分组，实现文件级批量处理
+        Map<String, List<CodeClusterResultDTO.CodeLineInfo>> fileGroups = groupCodeLinesByFile(cluster.getCodeLines());
+        logger.debug("{}行代码分布在{}个文件中", cluster.getCodeLines().size(), fileGroups.size());
         
-        // 3. 为每个文件批量获取代码片段
+        // 2. 为每个文件批量获取代码片段
         for (Map.Entry<String, List<CodeClusterResultDTO.CodeLineInfo>> entry : fileGroups.entrySet()) {
             String filePath = entry.getKey();
             List<CodeClusterResultDTO.CodeLineInfo> fileLines = entry.getValue();
             
             try {
                 // 批量处理同一文件的多行
-                List<CodeSearchResultDTO> fileSnippets = getCodeSnippetsForFile(filePath, fileLines, cluster.getClusterConcept(), commitId);
+                List<CodeSearchResultDTO> fileSnippets = getCodeSnippetsForFile(filePath, fileLines, cluster.getClusterConcept(), commitId, analysisContext);
                 codeSnippets.addAll(fileSnippets);
                 logger.debug("文件{}成功获取{}个代码片段", filePath, fileSnippets.size());
             } catch (Exception e) {
@@ -2159,83 +2216,13 @@ public class EntityLinkServiceImpl implements EntityLinkService {
             }
         }
         
-        // 4. 最终去重和排序
+        // 3. 最终去重和排序
         List<CodeSearchResultDTO> finalResults = deduplicateAndSortCodeSnippets(codeSnippets);
         logger.debug("最终返回{}个去重后的代码片段", finalResults.size());
         
         return finalResults;
     }
     
-    /**
-     * 智能选择有代表性的代码行，避免处理过多行数
-     * 
-     * @param allCodeLines 所有代码行
-     * @return 选择的代表性代码行
-     */
-    private List<CodeClusterResultDTO.CodeLineInfo> selectRepresentativeCodeLines(List<CodeClusterResultDTO.CodeLineInfo> allCodeLines) {
-        if (allCodeLines.size() <= 10) {
-            // 如果总数不多，直接返回所有行
-            return new ArrayList<>(allCodeLines);
-        }
-        
-        List<CodeClusterResultDTO.CodeLineInfo> selected = new ArrayList<>();
-        
-        // 1. 按文件分组
-        Map<String, List<CodeClusterResultDTO.CodeLineInfo>> fileGroups = allCodeLines.stream()
-                .collect(Collectors.groupingBy(CodeClusterResultDTO.CodeLineInfo::getFilePath));
-        
-        // 2. 为每个文件选择代表性行
-        for (Map.Entry<String, List<CodeClusterResultDTO.CodeLineInfo>> entry : fileGroups.entrySet()) {
-            List<CodeClusterResultDTO.CodeLineInfo> fileLines = entry.getValue();
-            
-            if (fileLines.size() <= 3) {
-                // 文件行数较少，全部保留
-                selected.addAll(fileLines);
-            } else {
-                // 文件行数较多，智能采样
-                selected.addAll(sampleCodeLinesFromFile(fileLines));
-            }
-        }
-        
-        // 3. 如果选择的行数还是太多，进行全局采样
-        if (selected.size() > 15) {
-            selected = selected.stream()
-                    .limit(15)  // 最多保留15行
-                    .collect(Collectors.toList());
-        }
-        
-        return selected;
-    }
-    
-    /**
-     * 从单个文件中采样代表性代码行
-     * 
-     * @param fileLines 文件中的所有代码行
-     * @return 采样的代表性代码行
-     */
-    private List<CodeClusterResultDTO.CodeLineInfo> sampleCodeLinesFromFile(List<CodeClusterResultDTO.CodeLineInfo> fileLines) {
-        List<CodeClusterResultDTO.CodeLineInfo> sampled = new ArrayList<>();
-        
-        // 按行号排序
-        List<CodeClusterResultDTO.CodeLineInfo> sortedLines = fileLines.stream()
-                .sorted(Comparator.comparingInt(CodeClusterResultDTO.CodeLineInfo::getLineNumber))
-                .collect(Collectors.toList());
-        
-        // 采样策略：取开头、中间和结尾的代表性行
-        int size = sortedLines.size();
-        if (size >= 1) sampled.add(sortedLines.get(0));                    // 第一行
-        if (size >= 3) sampled.add(sortedLines.get(size / 2));             // 中间行
-        if (size >= 2) sampled.add(sortedLines.get(size - 1));             // 最后一行
-        
-        // 如果还有空间，添加更多样本
-        if (sampled.size() < 5 && size > 3) {
-            if (size >= 5) sampled.add(sortedLines.get(size / 4));         // 四分之一位置
-            if (size >= 6) sampled.add(sortedLines.get(size * 3 / 4));     // 四分之三位置
-        }
-        
-        return sampled.stream().distinct().collect(Collectors.toList());
-    }
-    
     /**
      * 按文件路径对代码行进行分组
      * 
@@ -2258,46 +2245,24 @@ public class EntityLinkServiceImpl implements EntityLinkService {
      * @return 代码片段列表
      */
     private List<CodeSearchResultDTO> getCodeSnippetsForFile(String filePath, List<CodeClusterResultDTO.CodeLineInfo> fileLines, 
-                                                             String concept, String commitId) {
-        List<CodeSearchResultDTO> snippets = new ArrayList<>();
-        
-        // 对文件中的代码行进行预处理
-        List<CodeClusterResultDTO.CodeLineInfo> processedLines = preprocessFileLines(fileLines);
+                                                             String concept, String commitId, ClusterAnalysisContext analysisContext) throws IOException {
+        // 文件只解析一次，所有代码行共用（其他聚类中的同一文件也复用）
+        KernelCodeAnalyzer.ParsedSource parsedSource = analysisContext.parsedSource(commitId, filePath);
+        if (parsedSource == null) {
+            return createFallbackSnippetsForFile(filePath, fileLines, concept, commitId);
+        }
         
-        // 限制每个文件最多处理5个代码片段
-        int processLimit = Math.min(processedLines.size(), 5);
+        // 一次归并扫描找出所有代码行所在的代码元素（已去重）
+        int[] lineNumbers = fileLines.stream().mapToInt(CodeClusterResultDTO.CodeLineInfo::getLineNumber).toArray();
+        List<CodeSearchResultDTO> snippets = KernelCodeAnalyzer.findCodeElementsByLineNumbers(
+            parsedSource, concept, lineNumbers, commitId);
         
-        for (int i = 0; i < processLimit; i++) {
-            CodeClusterResultDTO.CodeLineInfo codeLineInfo = processedLines.get(i);
-            
-            try {
-                // 使用现有的KernelCodeAnalyzer获取完整代码片段
-                CodeSearchResultDTO completeCodeSnippet = KernelCodeAnalyzer.findCodeElementByLineNumber(
-                    codeLineInfo.getFilePath(),
-                    concept,
-                    codeLineInfo.getLineNumber(),
-                    kernelSourcePath,
-                    commitId
-                );
-                
-                if (completeCodeSnippet != null) {
-                    snippets.add(completeCodeSnippet);
-                    logger.debug("成功获取完整代码片段: {}:{}", 
-                        codeLineInfo.getFilePath(), codeLineInfo.getLineNumber());
-                } else {
-                    // 如果获取完整片段失败，创建一个基于单行的简化版本
-                    CodeSearchResultDTO fallbackSnippet = createFallbackCodeSnippet(
-                        codeLineInfo, concept, commitId);
-                    if (fallbackSnippet != null) {
-                        snippets.add(fallbackSnippet);
-                    }
-                }
-                
-            } catch (Exception e) {
-                logger.warn("获取代码片段失败: {}:{}, error={}", 
-                    codeLineInfo.getFilePath(), codeLineInfo.getLineNumber(), e.getMessage());
-                
-                // 创建后备片段
+        // 不在任何代码元素中的行使用单行后备片段
+        for (CodeClusterResultDTO.CodeLineInfo codeLineInfo : fileLines) {
+            int lineNumber = codeLineInfo.getLineNumber();
+            boolean covered = snippets.stream()
+                .anyMatch(snippet -> snippet.getStartLine() <= lineNumber && lineNumber <= snippet.getEndLine());
+            if (!covered) {
                 CodeSearchResultDTO fallbackSnippet = createFallbackCodeSnippet(codeLineInfo, concept, commitId);
                 if (fallbackSnippet != null) {
                     snippets.add(fallbackSnippet);
@@ -2308,32 +2273,6 @@ public class EntityLinkServiceImpl implements EntityLinkService {
         return snippets;
     }
     
-    /**
-     * 预处理文件中的代码行：排序、去重相邻行
-     * 
-     * @param fileLines 原始代码行
-     * @return 处理后的代码行
-     */
-    private List<CodeClusterResultDTO.CodeLineInfo> preprocessFileLines(List<CodeClusterResultDTO.CodeLineInfo> fileLines) {
-        // 按行号排序
-        List<CodeClusterResultDTO.CodeLineInfo> sorted = fileLines.stream()
-                .sorted(Comparator.comparingInt(CodeClusterResultDTO.CodeLineInfo::getLineNumber))
-                .collect(Collectors.toList());
-        
-        // 去重相邻行（如果行号相差小于5，认为是相邻的）
-        List<CodeClusterResultDTO.CodeLineInfo> deduplicated = new ArrayList<>();
-        int lastLineNumber = -10;
-        
-        for (CodeClusterResultDTO.CodeLineInfo line : sorted) {
-            if (line.getLineNumber() - lastLineNumber >= 5) {
-                deduplicated.add(line);
-                lastLineNumber = line.getLineNumber();
-            }
-        }
-        
-        return deduplicated;
-    }
-    
     /**
      * 为文件创建后备代码片段列表
      * 
@@ -2648,4 +2587,12 @@ public class EntityLinkServiceImpl implements EntityLinkService {
         );
     }
 
-} 
\ No newline at end of file
+    /**
+     * 依赖大模型的分析步骤的结果
+     *
+     * @param result 结果
+     * @param complete 是否所有AI调用都成功；为false时结果可返回给用户，但不能持久化
+     */
+    private record AnalysisOutcome<T>(T result, boolean complete) {}
+
+}
@@ -0,0 +1,17 @@
+-- 概念分析结果持久化表
+-- 保存 analyzeConceptRelationships / searchTriples 的计算结果，避免重复调用大模型
+--   result_type = 'relationship' 时 result_key 为相关feature集合与分析深度的哈希
+--   result_type = 'triples'      时 result_key 为feature集合的哈希
+-- data_version 为相关feature在entities_extraction中的数据指纹，指纹变化即视为失效
+CREATE TABLE IF NOT EXISTS concept_analysis_result (
+    id           BIGINT       NOT NULL AUTO_INCREMENT,
+    result_type  VARCHAR(32)  NOT NULL,
+    concept      VARCHAR(255) NOT NULL,
+    result_key   VARCHAR(64)  NOT NULL,
+    data_version CHAR(64)     NOT NULL,
+    payload      LONGTEXT     NOT NULL,
+    create_time  DATETIME     NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    update_time  DATETIME     NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    PRIMARY KEY (id),
+    UNIQUE KEY uk_type_concept_key (result_type, concept, result_key)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
@@ -0,0 +1,72 @@
+package com.cs.api;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 测试用的临时Git仓库
+ * git命令的输出按UTF-8解码，命令失败时断言失败；提交统一使用 Tester &lt;tester@example.com&gt;
+ */
+public final class GitTestRepo {
+
+    private final Path dir;
+
+    private GitTestRepo(Path dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * 在目录中初始化空仓库
+     */
+    public static GitTestRepo init(Path dir) throws IOException, InterruptedException {
+        GitTestRepo repo = new GitTestRepo(dir);
+        repo.run("init", "-q");
+        return repo;
+    }
+
+    /**
+     * 在仓库中执行git命令，返回合并后的标准输出和标准错误
+     */
+    public String run(String... args) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add("git");
+        command.addAll(List.of(args));
+        Process process = new ProcessBuilder(command).directory(dir.toFile()).redirectErrorStream(true).start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        assertEquals(0, process.waitFor(), output);
+        return output;
+    }
+
+    /**
+     * 写入工作区文件，按需创建父目录
+     */
+    public void write(String path, String content) throws IOException {
+        Path file = dir.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 提交工作区的全部改动，返回commit ID
+     */
+    public String commit(String message) throws IOException, InterruptedException {
+        run("add", "-A");
+        run("-c", "user.name=Tester", "-c", "user.email=tester@example.com", "commit", "-q", "-m", message);
+        return run("rev-parse", "HEAD").trim();
+    }
+
+    /**
+     * 以标签名作为提交信息提交全部改动并打标签，返回commit ID
+     */
+    public String commitAndTag(String tag) throws IOException, InterruptedException {
+        String commitId = commit(tag);
+        run("tag", tag);
+        return commitId;
+    }
+}
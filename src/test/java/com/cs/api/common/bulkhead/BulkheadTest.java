@@ -0,0 +1,58 @@
+package com.cs.api.common.bulkhead;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Bulkhead单元测试
+ */
+class BulkheadTest {
+
+    @Test
+    void testRejectsWhenConcurrencyAndQueueAreFull() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Bulkhead bulkhead = new Bulkhead("test", 1, 1, registry);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            CompletableFuture<String> running = bulkhead.submit(() -> {
+                started.countDown();
+                await(release);
+                return "first";
+            });
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            CompletableFuture<String> queued = bulkhead.submit(() -> "second");
+
+            assertEquals(1.0, registry.get("bulkhead.queue.depth").tag("name", "test").gauge().value());
+            assertEquals(1.0, registry.get("bulkhead.active").tag("name", "test").gauge().value());
+            ServiceOverloadedException e = assertThrows(ServiceOverloadedException.class, () -> bulkhead.submit(() -> "third"));
+            assertEquals("test", e.getBulkheadName());
+            assertEquals(1.0, registry.get("bulkhead.rejected").tag("name", "test").counter().count());
+
+            release.countDown();
+            assertEquals("first", running.get(5, TimeUnit.SECONDS));
+            assertEquals("second", queued.get(5, TimeUnit.SECONDS));
+            // 队列空出后可以继续提交
+            assertEquals("fourth", bulkhead.submit(() -> "fourth").get(5, TimeUnit.SECONDS));
+            assertEquals(3L, bulkhead.getStatistics().get("submitted"));
+            assertEquals(1L, bulkhead.getStatistics().get("rejected"));
+        } finally {
+            release.countDown();
+            bulkhead.shutdown();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
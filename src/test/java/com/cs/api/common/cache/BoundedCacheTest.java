@@ -0,0 +1,110 @@
+package com.cs.api.common.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * BoundedCache单元测试
+ */
+class BoundedCacheTest {
+
+    @Test
+    void testLruEviction() {
+        BoundedCache<String, String> cache = new BoundedCache<>("test", 2, Duration.ofMinutes(1));
+        cache.put("a", "A");
+        cache.put("b", "B");
+        assertEquals("A", cache.getIfPresent("a"));
+        cache.put("c", "C");
+
+        // b最久未访问，被淘汰
+        assertNull(cache.getIfPresent("b"));
+        assertEquals("A", cache.getIfPresent("a"));
+        assertEquals("C", cache.getIfPresent("c"));
+
+        Map<String, Object> stats = cache.getStatistics();
+        assertEquals(2, stats.get("size"));
+        assertEquals(1L, stats.get("evictions"));
+        assertEquals(3L, stats.get("hits"));
+        assertEquals(1L, stats.get("misses"));
+    }
+
+    @Test
+    void testPerEntryTtl() throws Exception {
+        BoundedCache<String, String> cache = new BoundedCache<>("test", 10,
+            value -> value.startsWith("fail") ? Duration.ofMillis(1) : Duration.ofMinutes(1));
+        cache.put("ok", "value");
+        cache.put("bad", "failed");
+        Thread.sleep(20);
+
+        assertEquals("value", cache.getIfPresent("ok"));
+        assertNull(cache.getIfPresent("bad"));
+        assertEquals(1L, cache.getStatistics().get("expirations"));
+    }
+
+    @Test
+    void testNullValueNotCached() {
+        BoundedCache<String, String> cache = new BoundedCache<>("test", 10, Duration.ofMinutes(1));
+        AtomicInteger loads = new AtomicInteger();
+        assertNull(cache.get("k", key -> { loads.incrementAndGet(); return null; }));
+        assertNull(cache.get("k", key -> { loads.incrementAndGet(); return null; }));
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testConcurrentLoadsAreCoalesced() throws Exception {
+        BoundedCache<String, String> cache = new BoundedCache<>("test", 10, Duration.ofMinutes(1));
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> cache.get("concept", key -> {
+                    loads.incrementAndGet();
+                    loaderStarted.countDown();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return "explanation";
+                })));
+            }
+            assertTrue(loaderStarted.await(5, TimeUnit.SECONDS));
+            // 等其余线程进入等待后再放行
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<String> future : futures) {
+                assertEquals("explanation", future.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+        assertEquals(1L, cache.getStatistics().get("loads"));
+    }
+
+    @Test
+    void testLoaderFailurePropagatesAndIsNotCached() {
+        BoundedCache<String, String> cache = new BoundedCache<>("test", 10, Duration.ofMinutes(1));
+        assertThrows(IllegalStateException.class,
+            () -> cache.get("k", key -> { throw new IllegalStateException("upstream"); }));
+        assertEquals("v", cache.get("k", key -> "v"));
+        assertEquals(1L, cache.getStatistics().get("loadFailures"));
+    }
+}
@@ -0,0 +1,46 @@
+package com.cs.api.common.process;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ProcessRunner单元测试：标准输入输出、退出码，以及读写期间的超时
+ */
+class ProcessRunnerTest {
+
+    @Test
+    void testReturnsOutputAndExitCode() throws Exception {
+        byte[] output = ProcessRunner.run(new ProcessBuilder("cat"), "a\nb\n".getBytes(StandardCharsets.UTF_8), 10);
+        assertEquals("a\nb\n", new String(output, StandardCharsets.UTF_8));
+
+        ProcessExitException e = assertThrows(ProcessExitException.class,
+            () -> ProcessRunner.run(new ProcessBuilder("sh", "-c", "exit 3"), null, 10));
+        assertEquals(3, e.getExitCode());
+    }
+
+    @Test
+    void testTimeoutAppliesWhileOutputIsStreaming() {
+        // 持续输出、永不退出的进程
+        assertTimesOut(new ProcessBuilder("sh", "-c", "while true; do echo line; sleep 0.1; done"), null);
+    }
+
+    @Test
+    void testTimeoutAppliesWhileProcessIgnoresInput() {
+        // 不读取标准输入也不退出的进程，输入大于管道缓冲区时写入阻塞
+        assertTimesOut(new ProcessBuilder("sleep", "30"), new byte[1 << 20]);
+    }
+
+    private static void assertTimesOut(ProcessBuilder pb, byte[] input) {
+        long start = System.nanoTime();
+        IOException e = assertThrows(IOException.class, () -> ProcessRunner.run(pb, input, 1));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(e.getMessage().contains("超时"), e.getMessage());
+        assertTrue(elapsedMillis < 5_000, "elapsed " + elapsedMillis);
+    }
+}
@@ -0,0 +1,70 @@
+package com.cs.api.service.analyzer;
+
+import com.cs.api.GitTestRepo;
+import com.cs.api.dto.CodeSearchResultDTO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ClusterAnalysisContext单元测试：同一文件在一次请求内只读取和解析一次
+ */
+class ClusterAnalysisContextTest {
+
+    @TempDir
+    Path repo;
+
+    @Test
+    void testConcurrentRequestsLoadFileOnce() throws Exception {
+        GitTestRepo git = GitTestRepo.init(repo);
+        git.write("sched.c", "int nr_running;\n\nstatic int pick_task(int cpu)\n{\n\treturn cpu + nr_running;\n}\n");
+        git.commitAndTag("v1");
+
+        ClusterAnalysisContext context = new ClusterAnalysisContext(repo.toString());
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<CompletableFuture<KernelCodeAnalyzer.ParsedSource>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    assertEquals("\treturn cpu + nr_running;", context.lines("v1", "sched.c").get(4));
+                    return context.parsedSource("v1", "sched.c");
+                }, executor));
+            }
+            start.countDown();
+            KernelCodeAnalyzer.ParsedSource first = futures.get(0).join();
+            assertNotNull(first);
+            for (CompletableFuture<KernelCodeAnalyzer.ParsedSource> future : futures) {
+                assertSame(first, future.join());
+            }
+
+            CodeSearchResultDTO element = KernelCodeAnalyzer.findCodeElementByLineNumber(first, "pick_task", 5, "v1");
+            assertEquals("pick_task", element.getElementName());
+            assertEquals(3, element.getStartLine().intValue());
+            assertEquals(6, element.getEndLine().intValue());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertNull(context.lines("v1", "missing.c"));
+        assertNull(context.parsedSource("v1", "missing.c"));
+        assertEquals(2, ((AtomicInteger) ReflectionTestUtils.getField(context, "fileReads")).get());
+        assertEquals(1, ((AtomicInteger) ReflectionTestUtils.getField(context, "parses")).get());
+    }
+}
@@ -0,0 +1,166 @@
+package com.cs.api.service.analyzer;
+
+import com.cs.api.GitTestRepo;
+import com.cs.api.common.cache.BoundedCache;
+import com.cs.api.dto.CodeTraceResponseDTO;
+import com.cs.api.dto.CommitDetailsDTO;
+import com.cs.api.dto.CodeTraceResultDTO;
+import com.cs.api.dto.FunctionDiffDTO;
+import com.cs.api.service.cache.CommitMetadataStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CodeEvolutionAnalyzer关键commit筛选和函数级diff单元测试
+ */
+class CodeEvolutionAnalyzerTest {
+
+    private final CodeEvolutionAnalyzer analyzer = new CodeEvolutionAnalyzer();
+
+    @Test
+    void testFilterKeyCommitsKeepsTopScoredAndIntroduction() {
+        ReflectionTestUtils.setField(analyzer, "keyCommitLimit", 3);
+        // 从新到旧
+        List<CodeTraceResponseDTO> history = new ArrayList<>();
+        history.add(response("c6", "sched: fix typo in comment", "v6.2", 2, 2, "int f(int x) { return x * 2 + y; }"));
+        history.add(response("c5", "Merge branch 'sched/core'", "v6.1", 40, 10, "int f(int x) { return x * 2 + y; }"));
+        history.add(response("c4", "sched: rework load balancing", "v6.1", 30, 20, "int f(int x) { return x * 2 + y; }"));
+        history.add(response("c3", "sched: whitespace cleanup", "v6.0", 5, 5, "int f(int x) { return x * 2; }"));
+        history.add(response("c2", "sched: handle overflow", "v6.0", 8, 1, "int f(int x) { return x * 2; }"));
+        history.add(response("c1", "sched: add f", "v5.19", 10, 0, "int f(int x) { return x; }"));
+        history.get(1).setUnchangedSincePrevious(true);
+
+        List<CodeTraceResponseDTO> keyCommits = analyzer.filterKeyCommits(history);
+
+        assertEquals(List.of("c4", "c2", "c1"),
+            keyCommits.stream().map(r -> r.getCommitHistory().getCommitId()).toList());
+    }
+
+    @Test
+    void testFilterKeyCommitsSkipsFailedAndKeepsShortHistory() {
+        ReflectionTestUtils.setField(analyzer, "keyCommitLimit", 3);
+        List<CodeTraceResponseDTO> history = new ArrayList<>();
+        history.add(response("c2", "change", "v6.0", 1, 1, "int f() { return 1; }"));
+        history.add(new CodeTraceResponseDTO("提取失败"));
+        history.add(response("c1", "add", "v5.0", 1, 0, "int f() { return 0; }"));
+
+        assertEquals(2, analyzer.filterKeyCommits(history).size());
+        assertEquals(0, CodeEvolutionAnalyzer.tokenDiffSize("a + b", "a  +\n b"));
+        assertEquals(2, CodeEvolutionAnalyzer.tokenDiffSize("return a;", "return b;"));
+    }
+
+    @Test
+    void testUnifiedDiffUsesFileLineNumbers() {
+        List<String> before = List.of("int f(int x)", "{", "\tint y = 0;", "\treturn x;", "}");
+        List<String> after = List.of("int f(int x)", "{", "\tint y = 0;", "\ty++;", "\treturn x + y;", "}");
+        int[] stat = new int[2];
+
+        String patch = CodeEvolutionAnalyzer.unifiedDiff(before, 10, after, 12, 1, stat);
+
+        assertEquals("@@ -12,3 +14,4 @@\n \tint y = 0;\n-\treturn x;\n+\ty++;\n+\treturn x + y;\n }\n", patch);
+        assertArrayEquals(new int[] {2, 1}, stat);
+    }
+
+    @Test
+    void testGetFunctionDiffOnlyCoversFunction(@TempDir Path repo) throws Exception {
+        ReflectionTestUtils.setField(analyzer, "indexCacheSize", 8);
+        ReflectionTestUtils.setField(analyzer, "contextLines", 3);
+        analyzer.init();
+        GitTestRepo git = GitTestRepo.init(repo);
+        git.write("a.c", "int g(void)\n{\n\treturn 0;\n}\n\nint f(int x)\n{\n\treturn x;\n}\n");
+        git.commit("update");
+        git.write("a.c", "int g(void)\n{\n\treturn 1;\n}\n\nint f(int x)\n{\n\treturn x + 1;\n}\n");
+        String commitId = git.commit("update");
+
+        FunctionDiffDTO diff = analyzer.getFunctionDiff(repo.toString(), "a.c", commitId, "f");
+
+        assertNotNull(diff);
+        assertEquals(6, diff.getNewStartLine());
+        assertEquals(9, diff.getNewEndLine());
+        assertEquals(1, diff.getAdded());
+        assertEquals(1, diff.getDeleted());
+        assertTrue(diff.getPatch().contains("+\treturn x + 1;"));
+        assertFalse(diff.getPatch().contains("return 1;"));
+    }
+
+    @Test
+    void testBlobReadFailureIsNotCached(@TempDir Path repo) throws Exception {
+        ReflectionTestUtils.setField(analyzer, "indexCacheSize", 8);
+        analyzer.init();
+        GitTestRepo git = GitTestRepo.init(repo);
+        git.write("a.c", "int f(int x)\n{\n\treturn x;\n}\n");
+        git.commit("update");
+        String blobId = git.run("rev-parse", "HEAD:a.c").trim();
+        BoundedCache<?, ?> indexCache = (BoundedCache<?, ?>) ReflectionTestUtils.getField(analyzer, "indexCache");
+
+        // blob无法读取：抛出异常，不缓存为“无声明”
+        assertThrows(UncheckedIOException.class,
+            () -> analyzer.indexedBlob(repo.toString(), "a.c", "0123456789abcdef0123456789abcdef01234567"));
+        assertEquals(0, indexCache.getStatistics().get("size"));
+
+        assertNotNull(analyzer.indexedBlob(repo.toString(), "a.c", blobId));
+        assertEquals(1, indexCache.getStatistics().get("size"));
+    }
+
+    @Test
+    void testCommitDetailsReadMessagesFromMetadataStore(@TempDir Path repo) throws Exception {
+        CommitMetadataStore store = new CommitMetadataStore();
+        ReflectionTestUtils.setField(store, "kernelSourcePath", repo.toString());
+        ReflectionTestUtils.setField(store, "memorySize", 10);
+        ReflectionTestUtils.setField(store, "persist", false);
+        ReflectionTestUtils.setField(store, "gitTimeoutSeconds", 30);
+        store.init();
+        ReflectionTestUtils.setField(analyzer, "commitMetadataStore", store);
+        GitTestRepo git = GitTestRepo.init(repo);
+        git.write("a.c", "int f(int x)\n{\n\treturn x;\n}\n");
+        String first = git.commit("update");
+        git.write("a.c", "int f(int x)\n{\n\treturn x + 1;\n}\n");
+        String second = git.commit("update");
+
+        // 单个未缓存的commit：git show 同时输出提交信息和patch，结果写入元数据存储
+        CommitDetailsDTO single = analyzer.getCommitDetails(repo.toString(), "a.c", first);
+        assertTrue(single.getCommitMessage().startsWith("commit " + first + "\nAuthor:     Tester <tester@example.com>"));
+        assertTrue(single.getPatch().startsWith("diff --git a/a.c b/a.c"));
+        assertEquals(1, store.getStatistics().get("size"));
+
+        Map<String, CommitDetailsDTO> details = analyzer.getCommitDetails(repo.toString(), "a.c", List.of(second, first, "HEAD"));
+
+        assertEquals(List.of(second, first, "HEAD"), List.copyOf(details.keySet()));
+        CommitDetailsDTO latest = details.get(second);
+        assertTrue(latest.getCommitMessage().startsWith("commit " + second + "\nAuthor:     Tester <tester@example.com>"));
+        // 时间带时区偏移
+        assertTrue(latest.getCommitMessage().matches("(?s).*\nAuthorDate: \\d{4}-\\d{2}-\\d{2}T[\\d:]+([+-]\\d{2}:\\d{2}|Z)\n.*"),
+            latest.getCommitMessage());
+        assertTrue(latest.getCommitMessage().endsWith("\n\n    update"));
+        assertTrue(latest.getPatch().startsWith("diff --git a/a.c b/a.c"));
+        assertTrue(latest.getPatch().contains("+\treturn x + 1;"));
+        assertEquals(single.getCommitMessage(), details.get(first).getCommitMessage());
+        assertEquals(single.getPatch(), details.get(first).getPatch());
+        assertEquals(2, store.getStatistics().get("size"));
+        // 不是完整SHA的引用不缓存，提交信息格式与缓存命中时相同
+        assertEquals(latest.getCommitMessage(), details.get("HEAD").getCommitMessage());
+        assertEquals(latest.getPatch(), details.get("HEAD").getPatch());
+    }
+
+    private static CodeTraceResponseDTO response(String commitId, String title, String version,
+                                                 int added, int deleted, String snippet) {
+        CodeTraceResultDTO commit = new CodeTraceResultDTO();
+        commit.setCommitId(commitId);
+        commit.setCommitTitle(title);
+        commit.setVersion(version);
+        commit.setAdded(added);
+        commit.setDeleted(deleted);
+        CodeTraceResponseDTO response = new CodeTraceResponseDTO(commit);
+        response.setCodeSnippet(snippet);
+        return response;
+    }
+}
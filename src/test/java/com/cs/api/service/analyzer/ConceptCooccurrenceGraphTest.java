@@ -0,0 +1,68 @@
+package com.cs.api.service.analyzer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ConceptCooccurrenceGraph单元测试
+ */
+class ConceptCooccurrenceGraphTest {
+
+    private ConceptCooccurrenceGraph.Snapshot buildSample(int maxFeatureSize) {
+        ConceptCooccurrenceGraph.Builder builder = new ConceptCooccurrenceGraph.Builder();
+        // feature 1: mmap, vma, page_fault
+        builder.add("mmap", 1);
+        builder.add("vma", 1);
+        builder.add("page_fault", 1);
+        // feature 2: mmap, vma（重复记录应去重）
+        builder.add("mmap", 2);
+        builder.add("vma", 2);
+        builder.add("vma", 2);
+        // feature 3: page_fault, swap
+        builder.add("page_fault", 3);
+        builder.add("swap", 3);
+        // 空值忽略
+        builder.add(null, 4);
+        builder.add("ignored", null);
+        return builder.build(maxFeatureSize);
+    }
+
+    @Test
+    void testDirectNeighborsSortedByWeight() {
+        ConceptCooccurrenceGraph.Snapshot snapshot = buildSample(200);
+
+        assertEquals(4, snapshot.conceptCount());
+        Map<String, Integer> neighbors = snapshot.directNeighbors("mmap", 10);
+        assertEquals(List.of("vma", "page_fault"), List.copyOf(neighbors.keySet()));
+        assertEquals(2, neighbors.get("vma"));
+        assertEquals(1, neighbors.get("page_fault"));
+        assertTrue(snapshot.directNeighbors("unknown", 10).isEmpty());
+    }
+
+    @Test
+    void testRankRelatedHonorsDepth() {
+        ConceptCooccurrenceGraph.Snapshot snapshot = buildSample(200);
+
+        List<ConceptCooccurrenceGraph.RankedConcept> depth1 = snapshot.rankRelated("mmap", 1, 10, 2);
+        assertEquals(List.of("vma", "page_fault"), depth1.stream().map(ConceptCooccurrenceGraph.RankedConcept::getName).toList());
+        assertEquals(1.0, depth1.get(0).getScore(), 1e-9);
+
+        List<ConceptCooccurrenceGraph.RankedConcept> depth2 = snapshot.rankRelated("mmap", 2, 10, 2);
+        assertEquals("swap", depth2.get(depth2.size() - 1).getName());
+        assertEquals(2, depth2.get(depth2.size() - 1).getHop());
+        assertEquals(0, depth2.get(depth2.size() - 1).getWeight());
+    }
+
+    @Test
+    void testOversizedFeatureSkipped() {
+        ConceptCooccurrenceGraph.Snapshot snapshot = buildSample(2);
+
+        // feature 1 有3个实体，超过上限后mmap与page_fault不再共现
+        Map<String, Integer> neighbors = snapshot.directNeighbors("mmap", 10);
+        assertEquals(Map.of("vma", 1), neighbors);
+    }
+}
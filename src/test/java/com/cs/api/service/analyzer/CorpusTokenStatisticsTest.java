@@ -0,0 +1,82 @@
+package com.cs.api.service.analyzer;
+
+import com.cs.api.GitTestRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CorpusTokenStatistics单元测试：全量构建与增量构建结果一致
+ */
+class CorpusTokenStatisticsTest {
+
+    @TempDir
+    Path repo;
+
+    @TempDir
+    Path store;
+
+    private final CorpusTokenStatistics statistics = new CorpusTokenStatistics();
+
+    private GitTestRepo git;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ReflectionTestUtils.setField(statistics, "kernelSourcePath", repo.toString());
+        ReflectionTestUtils.setField(statistics, "storePath", store.toString());
+        ReflectionTestUtils.setField(statistics, "parallelism", 2);
+        statistics.init();
+        git = GitTestRepo.init(repo);
+    }
+
+    @Test
+    void testIncrementalBuildMatchesFullBuild() throws Exception {
+        git.write("kernel/sched/core.c", "static void schedule_task(struct task_struct *p) { spin_lock(&rq_lock); }");
+        git.write("kernel/fork.c", "int copy_task(struct task_struct *p) { return 0; }");
+        git.write("include/linux/lock.h", "void spin_lock(spinlock_t *lock);");
+        // 内容相同的文件按两个文件计数
+        git.write("include/linux/lock_copy.h", "void spin_lock(spinlock_t *lock);");
+        git.write("README", "schedule task lock");
+        git.commitAndTag("v1");
+
+        git.write("kernel/sched/core.c", "static void schedule_entity(struct sched_entity *se) { }");
+        Files.delete(repo.resolve("kernel/fork.c"));
+        git.write("mm/page_alloc.c", "struct page *alloc_pages(gfp_t gfp) { spin_lock(&zone_lock); }");
+        git.commitAndTag("v2");
+
+        CorpusTokenStatistics.DocumentFrequencyTable v1 = statistics.build("v1", null);
+        assertEquals(4, v1.documentCount());
+        assertEquals(3, v1.frequency("spin"));
+        assertEquals(2, v1.frequency("task"));
+        assertEquals(0, v1.frequency("readme"));
+
+        CorpusTokenStatistics.DocumentFrequencyTable incremental = statistics.build("v2", "v1");
+        ReflectionTestUtils.setField(statistics, "storePath", store.resolve("full").toString());
+        CorpusTokenStatistics.DocumentFrequencyTable full = statistics.build("v2", null);
+
+        assertEquals(full.documentCount(), incremental.documentCount());
+        assertEquals(full.size(), incremental.size());
+        for (String token : List.of("spin", "lock", "task", "sched", "entity", "page", "alloc", "copy")) {
+            assertEquals(full.frequency(token), incremental.frequency(token), token);
+        }
+        assertEquals(4, incremental.documentCount());
+        assertEquals(0, incremental.frequency("copy"));
+        assertEquals(1, incremental.frequency("entity"));
+
+        // 从文件重新加载
+        ReflectionTestUtils.setField(statistics, "storePath", store.toString());
+        statistics.init();
+        CorpusTokenStatistics.DocumentFrequencyTable loaded = statistics.get("v2");
+        assertNotNull(loaded);
+        assertEquals(incremental.size(), loaded.size());
+        assertEquals(incremental.frequency("spin"), loaded.frequency("spin"));
+        assertNull(statistics.get("v3"));
+    }
+}
@@ -0,0 +1,82 @@
+package com.cs.api.service.analyzer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * IdentifierTokenizer单元测试，与原先基于正则的实现对比
+ */
+class IdentifierTokenizerTest {
+
+    private static final Pattern IDENTIFIER = Pattern.compile("\\b[a-zA-Z_][a-zA-Z0-9_]*\\b");
+    private static final Pattern CAMEL_CASE = Pattern.compile("([a-z])([A-Z])");
+    private static final Set<String> C_KEYWORDS = Set.of(
+        "auto", "break", "case", "char", "const", "continue", "default", "do",
+        "double", "else", "enum", "extern", "float", "for", "goto", "if",
+        "int", "long", "register", "return", "short", "signed", "sizeof", "static",
+        "struct", "switch", "typedef", "union", "unsigned", "void", "volatile", "while"
+    );
+
+    private static final List<String> LINES = List.of(
+        "static int __init sched_init_smp(void) { return 0; }",
+        "\tif (unlikely(!rq->cfs.nr_running && TASK_ON_RQ_QUEUED)) return;",
+        "#define MAX_NR_CPUS 0x1fUL + 42 /* getHTTPResponse parseXMLData */",
+        "for (i = 0; i < NR_CPUS; i++) INT Void x __ _a a_ a__b aB kmalloc_node_trackCaller",
+        "struct task_struct *p = current; p->se.vruntime += delta_exec;"
+    );
+
+    @Test
+    void testExtractIdentifiersMatchesRegex() {
+        for (String line : LINES) {
+            assertEquals(regexIdentifiers(line), IdentifierTokenizer.extractIdentifiers(line), line);
+        }
+    }
+
+    @Test
+    void testTokenizeIdentifierMatchesRegex() {
+        for (String line : LINES) {
+            for (String identifier : regexIdentifiers(line)) {
+                assertEquals(regexTokens(identifier), IdentifierTokenizer.tokenizeIdentifier(identifier), identifier);
+            }
+        }
+        assertEquals(List.of("kmalloc", "node", "track", "caller"), IdentifierTokenizer.tokenizeIdentifier("kmalloc_node_trackCaller"));
+        assertTrue(IdentifierTokenizer.isCKeyword("Unsigned"));
+        assertTrue(IdentifierTokenizer.isStopWord("Kernel"));
+        assertFalse(IdentifierTokenizer.isStopWord("sched"));
+    }
+
+    private static List<String> regexIdentifiers(String line) {
+        List<String> identifiers = new ArrayList<>();
+        Matcher matcher = IDENTIFIER.matcher(line);
+        while (matcher.find()) {
+            String identifier = matcher.group();
+            if (!C_KEYWORDS.contains(identifier.toLowerCase()) && identifier.length() > 1) {
+                identifiers.add(identifier);
+            }
+        }
+        return identifiers.stream().distinct().collect(Collectors.toList());
+    }
+
+    private static List<String> regexTokens(String identifier) {
+        List<String> tokens = new ArrayList<>();
+        for (String part : identifier.split("_")) {
+            if (part.isEmpty()) {
+                continue;
+            }
+            for (String token : CAMEL_CASE.matcher(part).replaceAll("$1 $2").split(" ")) {
+                if (!token.trim().isEmpty()) {
+                    tokens.add(token.trim());
+                }
+            }
+        }
+        return tokens.stream().filter(token -> token.length() > 1).map(String::toLowerCase).distinct().collect(Collectors.toList());
+    }
+}
@@ -1 +1,88 @@
- 
\ No newline at end of file
+package com.cs.api.service.analyzer;
+
+import com.cs.api.GitTestRepo;
+import com.cs.api.dto.CodeSearchResultDTO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * KernelCodeAnalyzer单元测试
+ */
+class KernelCodeAnalyzerTest {
+
+    @TempDir
+    Path repo;
+
+    @Test
+    void testBlobLookupDistinguishesMissFromReadError() throws Exception {
+        GitTestRepo git = GitTestRepo.init(repo);
+        git.write("core.c", "static int pick_task(int cpu)\n{\n\treturn cpu;\n}\n");
+        git.run("add", "core.c");
+        String blobId = git.run("rev-parse", ":core.c").trim();
+        List<KernelCodeAnalyzer.IdentifierQuery> pickTask = List.of(new KernelCodeAnalyzer.IdentifierQuery("pick_task", "function"));
+
+        CodeSearchResultDTO found = KernelCodeAnalyzer.findFirstCodeElementInBlob("core.c", pickTask, repo.toString(), blobId);
+        assertEquals(1, found.getStartLine().intValue());
+        assertEquals(4, found.getEndLine().intValue());
+
+        // 标识符不存在：确定的未找到，返回null
+        assertNull(KernelCodeAnalyzer.findFirstCodeElementInBlob("core.c",
+            List.of(new KernelCodeAnalyzer.IdentifierQuery("enqueue_task", "function")), repo.toString(), blobId));
+
+        // blob无法读取：抛出异常，调用方不能把它当作未找到缓存
+        assertThrows(IOException.class, () -> KernelCodeAnalyzer.findFirstCodeElementInBlob("core.c", pickTask,
+            repo.toString(), "0123456789abcdef0123456789abcdef01234567"));
+    }
+
+    @Test
+    void testBulkLineLookupMatchesSingleLineLookup() throws Exception {
+        // enqueue与dequeue相邻，第4、13行为空行，第14行为注释
+        byte[] content = ("struct rq {\n\tint nr;\n};\n\n"
+            + "static void enqueue(struct rq *rq)\n{\n\trq->nr++;\n}\n"
+            + "static void dequeue(struct rq *rq)\n{\n\trq->nr--;\n}\n\n"
+            + "/* end of file */\n").getBytes(StandardCharsets.UTF_8);
+        KernelCodeAnalyzer.ParsedSource source = KernelCodeAnalyzer.parseSource("fair.c", content);
+        assertNotNull(source);
+        // 无序、重复，包含不在任何声明中的行和超出文件范围的行
+        int[] lines = {12, 2, 7, 4, 9, 8, 7, 14, 100, 0, 13, 2};
+
+        List<CodeSearchResultDTO> elements = KernelCodeAnalyzer.findCodeElementsByLineNumbers(source, "rq", lines, "HEAD");
+
+        // 按起始行号排列，重复命中的声明只返回一次
+        assertEquals(List.of("rq", "enqueue", "dequeue"), elements.stream().map(CodeSearchResultDTO::getElementName).toList());
+        assertEquals(List.of(1, 5, 9), elements.stream().map(CodeSearchResultDTO::getStartLine).toList());
+        assertEquals(List.of(3, 8, 12), elements.stream().map(CodeSearchResultDTO::getEndLine).toList());
+
+        // 相邻声明的边界行分别属于各自的声明
+        assertEquals(List.of("enqueue"), names(KernelCodeAnalyzer.findCodeElementsByLineNumbers(source, "rq", new int[] {8}, "HEAD")));
+        assertEquals(List.of("dequeue"), names(KernelCodeAnalyzer.findCodeElementsByLineNumbers(source, "rq", new int[] {9}, "HEAD")));
+        // 只有声明之外的行
+        assertTrue(KernelCodeAnalyzer.findCodeElementsByLineNumbers(source, "rq", new int[] {14, 4, 13, 4}, "HEAD").isEmpty());
+        assertTrue(KernelCodeAnalyzer.findCodeElementsByLineNumbers(source, "rq", new int[0], "HEAD").isEmpty());
+
+        // 与逐行查找的结果一致
+        for (int line = 1; line <= 14; line++) {
+            CodeSearchResultDTO single = KernelCodeAnalyzer.findCodeElementByLineNumber(source, "rq", line, "HEAD");
+            List<CodeSearchResultDTO> bulk = KernelCodeAnalyzer.findCodeElementsByLineNumbers(source, "rq", new int[] {line}, "HEAD");
+            if (single == null) {
+                assertTrue(bulk.isEmpty(), "line " + line);
+                continue;
+            }
+            assertEquals(1, bulk.size(), "line " + line);
+            assertEquals(single.getStartLine(), bulk.get(0).getStartLine(), "line " + line);
+            assertEquals(single.getEndLine(), bulk.get(0).getEndLine(), "line " + line);
+            assertEquals(single.getCodeSnippet(), bulk.get(0).getCodeSnippet(), "line " + line);
+        }
+    }
+
+    private static List<String> names(List<CodeSearchResultDTO> elements) {
+        return elements.stream().map(CodeSearchResultDTO::getElementName).toList();
+    }
+}
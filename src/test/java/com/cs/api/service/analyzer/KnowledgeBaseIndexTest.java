@@ -0,0 +1,92 @@
+package com.cs.api.service.analyzer;
+
+import com.cs.api.service.analyzer.ConceptKnowledgeAnalyzer.ConceptInfo;
+import com.fasterxml.jackson.core.JsonFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * KnowledgeBaseIndex单元测试
+ */
+class KnowledgeBaseIndexTest {
+
+    private static final String KNOWLEDGE_BASE = "{\n"
+            + "  \"page cache\": {\"context\": \"mm\", \"description\": \" Caches file pages. \", \"url\": \"https://en.wikipedia.org/wiki/Page_cache\"},\n"
+            + "  \"RCU\": {\"context\": \"sync\", \"description\": \"Read-copy-update\", \"extra\": {\"nested\": [1, 2]}},\n"
+            + "  \"调度器\": {\"context\": \"sched\", \"description\": \"中文描述\"},\n"
+            + "  \"esc\\\"aped\": {\"description\": \"quoted key\", \"url\": null},\n"
+            + "  \"not-an-object\": \"ignored\",\n"
+            + "  \"RCU\": {\"context\": \"sync\", \"description\": \"last one wins\"}\n"
+            + "}\n";
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    @Test
+    void testLookupMatchesFullParse(@TempDir Path dir) throws Exception {
+        Path source = dir.resolve("kb.json");
+        Files.writeString(source, KNOWLEDGE_BASE, StandardCharsets.UTF_8);
+
+        Map<String, ConceptInfo> expected = new ConceptKnowledgeBase().parse(source.toFile());
+        KnowledgeBaseIndex index = KnowledgeBaseIndex.openOrBuild(source, dir.resolve("kb.json.idx"), jsonFactory);
+
+        assertEquals(expected.size(), index.size());
+        assertEquals(4, index.size());
+        for (Map.Entry<String, ConceptInfo> entry : expected.entrySet()) {
+            ConceptInfo actual = index.lookup(entry.getKey());
+            assertNotNull(actual, entry.getKey());
+            assertEquals(entry.getValue().getContext(), actual.getContext());
+            assertEquals(entry.getValue().getDescription(), actual.getDescription());
+            assertEquals(entry.getValue().getUrl(), actual.getUrl());
+        }
+        assertEquals("Caches file pages.", index.lookup("page cache").getDescription());
+        assertEquals("last one wins", index.lookup("RCU").getDescription());
+        assertEquals("中文描述", index.lookup("调度器").getDescription());
+        assertEquals("", index.lookup("esc\"aped").getUrl());
+        assertNull(index.lookup("not-an-object"));
+        assertNull(index.lookup("missing"));
+        assertNull(index.lookup("RC"));
+    }
+
+    @Test
+    void testStaleIndexIsRebuilt(@TempDir Path dir) throws Exception {
+        Path source = dir.resolve("kb.json");
+        Path indexPath = dir.resolve("kb.json.idx");
+        Files.writeString(source, KNOWLEDGE_BASE, StandardCharsets.UTF_8);
+        KnowledgeBaseIndex.openOrBuild(source, indexPath, jsonFactory);
+        assertNotNull(KnowledgeBaseIndex.open(source, indexPath, jsonFactory));
+
+        Files.writeString(source, "{\"mmap\": {\"description\": \"maps files\"}}", StandardCharsets.UTF_8);
+        Files.setLastModifiedTime(source, FileTime.fromMillis(System.currentTimeMillis() + 5000));
+        assertNull(KnowledgeBaseIndex.open(source, indexPath, jsonFactory));
+
+        KnowledgeBaseIndex rebuilt = KnowledgeBaseIndex.openOrBuild(source, indexPath, jsonFactory);
+        assertEquals(1, rebuilt.size());
+        assertEquals("maps files", rebuilt.lookup("mmap").getDescription());
+        assertNull(rebuilt.lookup("RCU"));
+    }
+
+    @Test
+    void testLookupSurvivesInPlaceTruncationOfSource(@TempDir Path dir) throws Exception {
+        Path source = dir.resolve("kb.json");
+        Files.writeString(source, KNOWLEDGE_BASE, StandardCharsets.UTF_8);
+        KnowledgeBaseIndex index = KnowledgeBaseIndex.openOrBuild(source, dir.resolve("kb.json.idx"), jsonFactory);
+
+        // 相当于 "> kb.json"：同一个inode被截断，监听器重新加载之前旧索引仍在使用
+        Files.write(source, new byte[0], StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+
+        assertEquals("last one wins", index.lookup("RCU").getDescription());
+        assertEquals("中文描述", index.lookup("调度器").getDescription());
+        int[] visited = {0};
+        index.forEach(info -> visited[0]++);
+        assertEquals(4, visited[0]);
+    }
+}
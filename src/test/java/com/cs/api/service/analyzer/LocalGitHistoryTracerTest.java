@@ -0,0 +1,81 @@
+package com.cs.api.service.analyzer;
+
+import com.cs.api.GitTestRepo;
+import com.cs.api.dto.CodeSearchResultDTO;
+import com.cs.api.dto.CodeTraceResultDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * LocalGitHistoryTracer单元测试，在临时目录中构造Git仓库
+ */
+class LocalGitHistoryTracerTest {
+
+    @TempDir
+    Path repo;
+
+    private final LocalGitHistoryTracer tracer = new LocalGitHistoryTracer();
+
+    private GitTestRepo git;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ReflectionTestUtils.setField(tracer, "kernelSourcePath", repo.toString());
+        ReflectionTestUtils.setField(tracer, "repoName", "test-repo");
+        ReflectionTestUtils.setField(tracer, "maxCommits", 100);
+        ReflectionTestUtils.setField(tracer, "gitTimeoutSeconds", 30);
+        git = GitTestRepo.init(repo);
+    }
+
+    @Test
+    void testSelectsOnlyCommitsChangingFunctionBody() throws Exception {
+        git.write("a.c", "int foo(int x)\n{\n\treturn x;\n}\n");
+        String first = git.commit("add foo");
+        git.run("tag", "v1");
+        // 只修改函数之外的内容
+        git.write("a.c", "int foo(int x)\n{\n\treturn x;\n}\n\nint bar(void)\n{\n\treturn 0;\n}\n");
+        git.commit("add bar");
+        // 只修改空白
+        git.write("a.c", "int foo(int x)\n{\n\treturn  x;\n}\n\nint bar(void)\n{\n\treturn 0;\n}\n");
+        git.commit("whitespace");
+        git.write("a.c", "int foo(int x)\n{\n\tx++;\n\treturn x;\n}\n\nint bar(void)\n{\n\treturn 0;\n}\n");
+        String fourth = git.commit("change foo");
+
+        List<LocalGitHistoryTracer.LocalCommit> commits = tracer.listFileCommits("a.c", null, true);
+        assertEquals(4, commits.size());
+        assertEquals(fourth, commits.get(0).commitId());
+
+        Map<String, CodeSearchResultDTO> bodies = new HashMap<>();
+        for (LocalGitHistoryTracer.LocalCommit commit : commits) {
+            bodies.put(commit.blobId(), KernelCodeAnalyzer.findFirstCodeElementInBlob("a.c",
+                List.of(new KernelCodeAnalyzer.IdentifierQuery("foo", "function")), repo.toString(), commit.blobId()));
+        }
+
+        List<CodeTraceResultDTO> changed = tracer.selectChangedCommits(commits, bodies, true);
+        assertEquals(2, changed.size());
+        assertEquals(fourth, changed.get(0).getCommitId());
+        assertEquals("change foo", changed.get(0).getCommitTitle());
+        // 尚未发布的commit没有版本，version不是commit ID
+        assertNull(changed.get(0).getVersion());
+        assertEquals(1, changed.get(0).getAdded());
+        assertEquals(0, changed.get(0).getDeleted());
+        assertEquals("example.com", changed.get(0).getCompany());
+        assertEquals(first, changed.get(1).getCommitId());
+        assertEquals("v1", changed.get(1).getVersion());
+    }
+
+    @Test
+    void testLineDiffStat() {
+        assertArrayEquals(new int[] {1, 1}, LocalGitHistoryTracer.lineDiffStat("a\nb\nc", "a\nc\nd"));
+        assertArrayEquals(new int[] {2, 0}, LocalGitHistoryTracer.lineDiffStat(null, "a\nb"));
+    }
+}
@@ -0,0 +1,51 @@
+package com.cs.api.service.analyzer;
+
+import com.cs.api.dto.CodeClusterResultDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TfIdfClusterEngine单元测试
+ */
+class TfIdfClusterEngineTest {
+
+    @Test
+    void testSeparatesLinesByVocabulary() {
+        TfIdfClusterEngine engine = new TfIdfClusterEngine();
+        ReflectionTestUtils.setField(engine, "maxIterations", 20);
+        TokenDictionary dictionary = new TokenDictionary();
+        List<CodeClusterResultDTO.CodeLineInfo> lines = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            lines.add(line(dictionary, "rq" + i, List.of("rq_lock", "rq_clock_task", "update_rq_clock")));
+            lines.add(line(dictionary, "mm" + i, List.of("page_alloc", "alloc_pages_node", "page_mapping")));
+        }
+        lines.add(line(dictionary, "empty", List.of()));
+
+        List<TfIdfClusterEngine.TermCluster> clusters = engine.cluster(lines, dictionary, 2,
+            TfIdfClusterEngine.inSampleIdf(lines, dictionary));
+
+        assertEquals(2, clusters.size());
+        for (TfIdfClusterEngine.TermCluster cluster : clusters) {
+            Set<String> prefixes = cluster.codeLines().stream()
+                .map(line -> line.getCodeContent().substring(0, 2))
+                .collect(Collectors.toSet());
+            assertEquals(1, prefixes.size());
+            assertEquals(6, cluster.codeLines().size());
+            String top = dictionary.token(cluster.topTokenIds()[0]);
+            assertTrue(top.equals("rq") || top.equals("page") || top.equals("clock") || top.equals("alloc"), top);
+        }
+    }
+
+    private static CodeClusterResultDTO.CodeLineInfo line(TokenDictionary dictionary, String content, List<String> identifiers) {
+        CodeClusterResultDTO.CodeLineInfo line = new CodeClusterResultDTO.CodeLineInfo("a.c", 1, content, identifiers, "references");
+        line.setTokenIds(dictionary.addIdentifiers(identifiers));
+        return line;
+    }
+}
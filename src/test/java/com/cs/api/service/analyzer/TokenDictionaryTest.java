@@ -0,0 +1,47 @@
+package com.cs.api.service.analyzer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TokenDictionary单元测试
+ */
+class TokenDictionaryTest {
+
+    @Test
+    void testAddIdentifiersCountsPerIdentifier() {
+        TokenDictionary dictionary = new TokenDictionary();
+
+        int[] first = dictionary.addIdentifiers(List.of("sched_entity", "sched_class", "se"));
+        int[] second = dictionary.addIdentifiers(List.of("schedEntity"));
+
+        int sched = dictionary.idOf("sched");
+        int entity = dictionary.idOf("entity");
+        assertArrayEquals(new int[] {sched, entity, sched, dictionary.idOf("class"), dictionary.idOf("se")}, first);
+        assertArrayEquals(new int[] {sched, entity}, second);
+        assertEquals(3, dictionary.frequency(sched));
+        assertEquals(2, dictionary.frequency(entity));
+        assertEquals(0, dictionary.frequency(dictionary.idOf("missing")));
+    }
+
+    @Test
+    void testTopKOrdersByFrequencyThenFirstSeen() {
+        TokenDictionary dictionary = new TokenDictionary();
+        String[] tokens = {"aa", "bb", "cc", "dd", "ee"};
+        int[] counts = {1, 4, 2, 4, 3};
+        for (int i = 0; i < tokens.length; i++) {
+            for (int c = 0; c < counts[i]; c++) {
+                dictionary.addIdentifiers(List.of(tokens[i]));
+            }
+        }
+
+        int[] top = dictionary.topK(3, id -> true);
+        assertArrayEquals(new int[] {dictionary.idOf("bb"), dictionary.idOf("dd"), dictionary.idOf("ee")}, top);
+
+        int[] filtered = dictionary.topK(10, id -> dictionary.frequency(id) >= 2 && !"dd".equals(dictionary.token(id)));
+        assertArrayEquals(new int[] {dictionary.idOf("bb"), dictionary.idOf("ee"), dictionary.idOf("cc")}, filtered);
+    }
+}
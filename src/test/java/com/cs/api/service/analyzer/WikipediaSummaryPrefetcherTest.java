@@ -0,0 +1,176 @@
+package com.cs.api.service.analyzer;
+
+import com.cs.api.service.analyzer.ConceptKnowledgeAnalyzer.ConceptInfo;
+import com.cs.api.service.cache.WikipediaSummaryStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * WikipediaSummaryPrefetcher单元测试：stub摘要不落盘、失败计数、任务数上限和限速
+ */
+@ExtendWith(MockitoExtension.class)
+class WikipediaSummaryPrefetcherTest {
+
+    private static final String RCU = "https://en.wikipedia.org/wiki/Read-copy-update";
+    private static final String SPINLOCK = "https://en.wikipedia.org/wiki/Spinlock";
+    private static final String SLAB = "https://en.wikipedia.org/wiki/Slab_allocation";
+
+    @TempDir
+    Path dir;
+
+    @Mock
+    private ConceptKnowledgeBase conceptKnowledgeBase;
+
+    @Mock
+    private ConceptKnowledgeAnalyzer conceptKnowledgeAnalyzer;
+
+    @InjectMocks
+    private WikipediaSummaryPrefetcher prefetcher;
+
+    private WikipediaSummaryStore summaryStore;
+
+    @BeforeEach
+    void setUp() {
+        summaryStore = new WikipediaSummaryStore();
+        ReflectionTestUtils.setField(summaryStore, "knowledgeBasePath", dir.resolve("kb.json").toString());
+        ReflectionTestUtils.setField(summaryStore, "storePath", dir.resolve("summaries.json").toString());
+        ReflectionTestUtils.setField(summaryStore, "missingTtlDays", 7L);
+        ReflectionTestUtils.setField(prefetcher, "summaryStore", summaryStore);
+        ReflectionTestUtils.setField(prefetcher, "enabled", true);
+        ReflectionTestUtils.setField(prefetcher, "parallelism", 2);
+        ReflectionTestUtils.setField(prefetcher, "ratePerSecond", 0.0);
+        ReflectionTestUtils.setField(prefetcher, "queueCapacity", 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        prefetcher.shutdown();
+    }
+
+    @Test
+    void testStubSummariesStayInMemory() throws Exception {
+        ReflectionTestUtils.setField(prefetcher, "stub", true);
+        knowledgeBase(new ConceptInfo("rcu", "", "", RCU), new ConceptInfo("spinlock", "", "", SPINLOCK),
+            new ConceptInfo("slab", "", "Slab allocator.", SLAB));
+
+        prefetcher.prefetchAll();
+        awaitIdle();
+
+        assertEquals(2, prefetcher.getStatistics().get("fetched"));
+        assertEquals("[stub] Wikipedia summary for " + RCU, prefetcher.getSummary(RCU));
+        assertNull(prefetcher.getSummary(SLAB));
+        // 占位摘要不进入持久化存储
+        assertEquals(0, summaryStore.size());
+        summaryStore.flush();
+        assertFalse(Files.exists(summaryStore.getStorePath()));
+        verifyNoInteractions(conceptKnowledgeAnalyzer);
+    }
+
+    @Test
+    void testFailedFetchesAreCounted() throws Exception {
+        knowledgeBase(new ConceptInfo("rcu", "", "", RCU), new ConceptInfo("spinlock", "", "", SPINLOCK),
+            new ConceptInfo("slab", "", "", SLAB));
+        when(conceptKnowledgeAnalyzer.requestWikipediaSummary(RCU)).thenReturn("RCU is a synchronization mechanism.");
+        when(conceptKnowledgeAnalyzer.requestWikipediaSummary(SPINLOCK)).thenReturn("");
+        when(conceptKnowledgeAnalyzer.requestWikipediaSummary(SLAB)).thenThrow(new IOException("timeout"));
+
+        prefetcher.prefetchAll();
+        awaitIdle();
+
+        assertEquals(1, prefetcher.getStatistics().get("fetched"));
+        assertEquals(1, prefetcher.getStatistics().get("empty"));
+        assertEquals(1, prefetcher.getStatistics().get("failed"));
+        assertEquals("RCU is a synchronization mechanism.", summaryStore.get(RCU));
+        // 失败的url没有保存，下次预取时会重新获取
+        assertNull(prefetcher.getSummary(SLAB));
+        // 没有摘要的url记录否定标记，请求路径不再提交
+        assertEquals("", prefetcher.getSummary(SPINLOCK));
+        assertEquals(1, prefetcher.getStatistics().get("missingSize"));
+        summaryStore.flush();
+        assertTrue(Files.exists(summaryStore.getStorePath()));
+
+        // 再次遍历只重试失败的url
+        prefetcher.prefetchAll();
+        awaitIdle();
+        verify(conceptKnowledgeAnalyzer, times(1)).requestWikipediaSummary(RCU);
+        verify(conceptKnowledgeAnalyzer, times(1)).requestWikipediaSummary(SPINLOCK);
+        verify(conceptKnowledgeAnalyzer, times(2)).requestWikipediaSummary(SLAB);
+    }
+
+    @Test
+    void testSubmitFromRequestPathDoesNotExceedCapacity() throws Exception {
+        ReflectionTestUtils.setField(prefetcher, "parallelism", 1);
+        ReflectionTestUtils.setField(prefetcher, "queueCapacity", 2);
+        CountDownLatch release = new CountDownLatch(1);
+        when(conceptKnowledgeAnalyzer.requestWikipediaSummary(any())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return "";
+        });
+
+        assertTrue(prefetcher.submit(RCU));
+        assertFalse(prefetcher.submit(RCU));
+        assertTrue(prefetcher.submit(SPINLOCK));
+        // 未完成的任务已满，请求路径不等待，直接放弃
+        assertFalse(prefetcher.submit(SLAB));
+
+        release.countDown();
+        awaitIdle();
+        assertEquals(2, prefetcher.getStatistics().get("empty"));
+        assertTrue(prefetcher.submit(SLAB));
+        awaitIdle();
+    }
+
+    @Test
+    void testRateLimiterSpacesPermits() throws Exception {
+        WikipediaSummaryPrefetcher.RateLimiter limiter = new WikipediaSummaryPrefetcher.RateLimiter(20);
+        long start = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            limiter.acquire();
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        // 第一个许可立即发放，之后每50ms一个
+        assertTrue(elapsedMillis >= 190, "elapsed " + elapsedMillis);
+
+        WikipediaSummaryPrefetcher.RateLimiter unlimited = new WikipediaSummaryPrefetcher.RateLimiter(0);
+        start = System.nanoTime();
+        for (int i = 0; i < 100; i++) {
+            unlimited.acquire();
+        }
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 50);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void knowledgeBase(ConceptInfo... infos) {
+        doAnswer(invocation -> {
+            List.of(infos).forEach(invocation.getArgument(0, Consumer.class));
+            return null;
+        }).when(conceptKnowledgeBase).forEach(any());
+    }
+
+    private void awaitIdle() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!prefetcher.getStatistics().get("queued").equals(0)) {
+            assertTrue(System.nanoTime() < deadline, "prefetch did not finish");
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.cs.api.service.cache;
+
+import com.cs.api.dto.CodeTraceRequestDTO;
+import com.cs.api.dto.CodeTraceResponseDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CodeTraceResultCache单元测试：缺少代码片段的结果不长期缓存，读取返回不可修改的副本
+ */
+@ExtendWith(MockitoExtension.class)
+class CodeTraceResultCacheTest {
+
+    private static final String SHA = "0123456789abcdef0123456789abcdef01234567";
+
+    @Mock
+    private LocalCacheDatabase localCacheDatabase;
+
+    @InjectMocks
+    private CodeTraceResultCache cache;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "memorySize", 10);
+        ReflectionTestUtils.setField(cache, "ttlMinutes", 60L);
+        ReflectionTestUtils.setField(cache, "incompleteTtlMinutes", 0L);
+        cache.init();
+    }
+
+    @Test
+    void testResponsesWithoutSnippetAreNotKeptForFullSha() {
+        CodeTraceRequestDTO request = new CodeTraceRequestDTO("kernel/sched/fair.c", "pick_next_task_fair", "v6.6", SHA);
+        CodeTraceResponseDTO found = response("static struct task_struct *pick_next_task_fair(...) { }");
+        CodeTraceResponseDTO missing = response(null);
+
+        cache.put(request, List.of(found, missing));
+        // 未找到方法的commit只按incomplete-ttl-minutes缓存（此处为0），完整SHA也不例外
+        assertNull(cache.get(request));
+
+        cache.put(request, List.of(found));
+        assertEquals(1, cache.get(request).size());
+    }
+
+    @Test
+    void testGetReturnsUnmodifiableCopy() {
+        CodeTraceRequestDTO request = new CodeTraceRequestDTO("mm/slub.c", "kmem_cache_alloc", "v6.6", SHA);
+        List<CodeTraceResponseDTO> responses = new ArrayList<>(List.of(response("void *kmem_cache_alloc(...) { }")));
+
+        cache.put(request, responses);
+        responses.clear();
+
+        List<CodeTraceResponseDTO> cached = cache.get(request);
+        assertEquals(1, cached.size());
+        assertThrows(UnsupportedOperationException.class, () -> cached.add(response("x")));
+        assertEquals(1, cache.get(request).size());
+    }
+
+    private static CodeTraceResponseDTO response(String snippet) {
+        CodeTraceResponseDTO response = new CodeTraceResponseDTO();
+        response.setCodeSnippet(snippet);
+        return response;
+    }
+}
@@ -0,0 +1,58 @@
+package com.cs.api.service.cache;
+
+import com.cs.api.GitTestRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CommitMetadataStore单元测试，只使用内存缓存
+ */
+class CommitMetadataStoreTest {
+
+    @TempDir
+    Path repo;
+
+    private final CommitMetadataStore store = new CommitMetadataStore();
+
+    private GitTestRepo git;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ReflectionTestUtils.setField(store, "localCacheDatabase", new LocalCacheDatabase());
+        ReflectionTestUtils.setField(store, "kernelSourcePath", repo.toString());
+        ReflectionTestUtils.setField(store, "memorySize", 100);
+        ReflectionTestUtils.setField(store, "persist", false);
+        ReflectionTestUtils.setField(store, "gitTimeoutSeconds", 30);
+        store.init();
+        git = GitTestRepo.init(repo);
+    }
+
+    @Test
+    void testBatchLoadSkipsMissingAndNonShaRefs() throws Exception {
+        git.write("a.c", "one");
+        String first = git.commit("sched: first\n\nbody of first");
+        git.write("a.c", "two");
+        String second = git.commit("sched: second");
+        String missing = "0123456789abcdef0123456789abcdef01234567";
+
+        Map<String, CommitMetadataStore.CommitMetadata> metadata = store.getAll(List.of(second, missing, "HEAD", first));
+
+        assertEquals(2, metadata.size());
+        assertEquals("sched: first\n\nbody of first", metadata.get(first).message());
+        assertEquals("sched: first", metadata.get(first).title());
+        assertEquals("tester@example.com", metadata.get(second).authorEmail());
+        assertEquals("Tester", metadata.get(second).committerName());
+
+        // 第二次从内存缓存读取，不再访问git
+        ReflectionTestUtils.setField(store, "kernelSourcePath", repo.resolve("missing").toString());
+        assertSame(metadata.get(first), store.get(first));
+    }
+}
@@ -0,0 +1,106 @@
+package com.cs.api.service.cache;
+
+import com.cs.api.dto.ConceptAnalysisResultDTO;
+import com.cs.api.mapper.ConceptAnalysisResultMapper;
+import com.cs.api.mapper.EntityExtractionMapper;
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+/**
+ * ConceptAnalysisResultStore单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class ConceptAnalysisResultStoreTest {
+
+    @Mock
+    private ConceptAnalysisResultMapper resultMapper;
+
+    @Mock
+    private EntityExtractionMapper entityExtractionMapper;
+
+    @InjectMocks
+    private ConceptAnalysisResultStore store;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(store, "enabled", true);
+    }
+
+    @Test
+    void testFeatureSetKeyIgnoresOrderAndNulls() {
+        assertEquals(store.featureSetKey(List.of(3, 1, 2)), store.featureSetKey(Arrays.asList(2, null, 3, 1, 1)));
+        assertNotEquals(store.featureSetKey(List.of(1, 2)), store.featureSetKey(List.of(1, 2, 3)));
+        assertEquals(store.featureSetKey(List.of(2, 1), 2), store.featureSetKey(List.of(1, 2), 2));
+        assertNotEquals(store.featureSetKey(List.of(1, 2), 2), store.featureSetKey(List.of(1, 2), 3));
+        assertNotEquals(store.featureSetKey(List.of(1, 2), 2), store.featureSetKey(List.of(1, 3), 2));
+        assertEquals(64, store.featureSetKey(List.of(1, 2), 2).length());
+    }
+
+    @Test
+    void testFingerprintChangesWithFeatureSetAndData() {
+        when(entityExtractionMapper.summarizeByFeatureIds(anyCollection()))
+            .thenReturn(List.of(summary(1, 5, 100L)), List.of(summary(1, 5, 100L)), List.of(summary(1, 6, 101L)));
+
+        String original = store.fingerprint(Set.of(1));
+        assertEquals(original, store.fingerprint(Set.of(1)));
+        // 同一feature新增实体
+        assertNotEquals(original, store.fingerprint(Set.of(1)));
+
+        // feature集合扩大（例如更深的分析深度）也会改变指纹
+        when(entityExtractionMapper.summarizeByFeatureIds(anyCollection())).thenReturn(List.of(summary(1, 5, 100L)));
+        assertNotEquals(original, store.fingerprint(Set.of(1, 2)));
+
+        when(entityExtractionMapper.summarizeByFeatureIds(anyCollection())).thenThrow(new RuntimeException("db down"));
+        assertNull(store.fingerprint(Set.of(1)));
+    }
+
+    @Test
+    void testSaveAndLoadRoundTrip() {
+        store.save(ConceptAnalysisResultStore.TYPE_TRIPLES, "rcu", "key", "v1", List.of("(rcu, protects, list)"));
+
+        ArgumentCaptor<ConceptAnalysisResultDTO> saved = ArgumentCaptor.forClass(ConceptAnalysisResultDTO.class);
+        verify(resultMapper).upsert(saved.capture());
+        assertEquals("v1", saved.getValue().getDataVersion());
+        when(resultMapper.findByKey(ConceptAnalysisResultStore.TYPE_TRIPLES, "rcu", "key")).thenReturn(saved.getValue());
+
+        TypeReference<List<String>> type = new TypeReference<>() {};
+        assertEquals(List.of("(rcu, protects, list)"),
+            store.load(ConceptAnalysisResultStore.TYPE_TRIPLES, "rcu", "key", "v1", type));
+        // 数据指纹变化后结果失效
+        assertNull(store.load(ConceptAnalysisResultStore.TYPE_TRIPLES, "rcu", "key", "v2", type));
+        // 指纹计算失败时不读取也不保存
+        assertNull(store.load(ConceptAnalysisResultStore.TYPE_TRIPLES, "rcu", "key", null, type));
+        store.save(ConceptAnalysisResultStore.TYPE_TRIPLES, "rcu", "key", null, List.of());
+        verify(resultMapper, times(1)).upsert(any());
+    }
+
+    @Test
+    void testDisabledStoreDoesNothing() {
+        ReflectionTestUtils.setField(store, "enabled", false);
+
+        store.save(ConceptAnalysisResultStore.TYPE_RELATIONSHIP, "rcu", "2", "v1", Map.of("a", 1));
+        assertNull(store.load(ConceptAnalysisResultStore.TYPE_RELATIONSHIP, "rcu", "2", "v1", new TypeReference<Map<String, Integer>>() {}));
+        verifyNoInteractions(resultMapper);
+    }
+
+    private static Map<String, Object> summary(int featureId, long entityCount, long maxEid) {
+        return Map.of("featureId", featureId, "entityCount", entityCount, "maxEid", maxEid, "lastUpdate", "2026-01-01 00:00:00");
+    }
+}
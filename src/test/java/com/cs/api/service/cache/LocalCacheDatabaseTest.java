@@ -0,0 +1,50 @@
+package com.cs.api.service.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.nio.file.Path;
+import java.sql.Connection;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * LocalCacheDatabase单元测试：连接池复用连接，关闭后释放
+ */
+class LocalCacheDatabaseTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testQueriesReusePooledConnection() throws Exception {
+        LocalCacheDatabase database = new LocalCacheDatabase();
+        ReflectionTestUtils.setField(database, "enabled", true);
+        ReflectionTestUtils.setField(database, "databasePath", dir.resolve("cache").toString());
+        ReflectionTestUtils.setField(database, "poolSize", 1);
+        database.init();
+        try {
+            assertTrue(database.isAvailable());
+            assertTrue(database.initSchema("CREATE TABLE IF NOT EXISTS t (k VARCHAR(8) PRIMARY KEY, v INT)"));
+            JdbcTemplate jdbcTemplate = database.getJdbcTemplate();
+            jdbcTemplate.update("MERGE INTO t (k, v) KEY (k) VALUES (?, ?)", "a", 1);
+            assertEquals(1, jdbcTemplate.queryForObject("SELECT v FROM t WHERE k = ?", Integer.class, "a"));
+
+            // 池中只有一个连接，每次获取得到的都是同一个物理连接
+            DataSource dataSource = jdbcTemplate.getDataSource();
+            Connection first;
+            try (Connection connection = dataSource.getConnection()) {
+                first = connection.unwrap(Connection.class);
+            }
+            try (Connection connection = dataSource.getConnection()) {
+                assertSame(first, connection.unwrap(Connection.class));
+            }
+        } finally {
+            database.shutdown();
+        }
+        assertThrows(Exception.class, () -> database.getJdbcTemplate().execute("SELECT 1"));
+    }
+}
@@ -0,0 +1,85 @@
+package com.cs.api.service.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * WikipediaSummaryStore单元测试：落盘后重新加载得到相同摘要
+ */
+class WikipediaSummaryStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testFlushAndReload() {
+        Path file = dir.resolve("summaries.json");
+        WikipediaSummaryStore store = newStore(file);
+        store.init();
+        assertFalse(Files.exists(file));
+
+        store.put("https://en.wikipedia.org/wiki/Read-copy-update", "RCU is a synchronization mechanism.");
+        store.put("https://en.wikipedia.org/wiki/Spinlock", "");
+        store.put(null, "ignored");
+        store.flush();
+        assertTrue(Files.exists(file));
+        assertFalse(Files.exists(dir.resolve("summaries.json.tmp")));
+
+        WikipediaSummaryStore reloaded = newStore(file);
+        reloaded.init();
+        assertEquals(1, reloaded.size());
+        assertEquals("RCU is a synchronization mechanism.", reloaded.get("https://en.wikipedia.org/wiki/Read-copy-update"));
+        // 空摘要不保存
+        assertFalse(reloaded.contains("https://en.wikipedia.org/wiki/Spinlock"));
+        assertNull(reloaded.get(null));
+    }
+
+    @Test
+    void testMissingMarkersArePersistedAndExpire() throws Exception {
+        Path file = dir.resolve("summaries.json");
+        WikipediaSummaryStore store = newStore(file);
+        store.init();
+        String spinlock = "https://en.wikipedia.org/wiki/Spinlock";
+
+        store.markMissing(spinlock);
+        assertTrue(store.isMarkedMissing(spinlock));
+        store.flush();
+
+        WikipediaSummaryStore reloaded = newStore(file);
+        reloaded.init();
+        assertTrue(reloaded.isMarkedMissing(spinlock));
+        assertNull(reloaded.get(spinlock));
+        // 之后获取到摘要时清除否定标记
+        reloaded.put(spinlock, "A spinlock is a lock.");
+        assertFalse(reloaded.isMarkedMissing(spinlock));
+
+        // 过期的标记不再生效
+        reloaded.markMissing("https://en.wikipedia.org/wiki/Slab_allocation");
+        ReflectionTestUtils.setField(reloaded, "missingTtlDays", 0L);
+        assertFalse(reloaded.isMarkedMissing("https://en.wikipedia.org/wiki/Slab_allocation"));
+        assertEquals(0, reloaded.missingSize());
+    }
+
+    @Test
+    void testLoadsLegacyFormat() throws Exception {
+        Path file = dir.resolve("summaries.json");
+        Files.writeString(file, "{\"https://en.wikipedia.org/wiki/Read-copy-update\":\"RCU.\"}");
+        WikipediaSummaryStore store = newStore(file);
+        store.init();
+        assertEquals("RCU.", store.get("https://en.wikipedia.org/wiki/Read-copy-update"));
+    }
+
+    private static WikipediaSummaryStore newStore(Path file) {
+        WikipediaSummaryStore store = new WikipediaSummaryStore();
+        ReflectionTestUtils.setField(store, "knowledgeBasePath", file.resolveSibling("kb.json").toString());
+        ReflectionTestUtils.setField(store, "storePath", file.toString());
+        ReflectionTestUtils.setField(store, "missingTtlDays", 7L);
+        return store;
+    }
+}
@@ -0,0 +1,188 @@
+package com.cs.api.service.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TrackerApiClient单元测试，使用本地HttpServer模拟tracker服务
+ */
+class TrackerApiClientTest {
+
+    private HttpServer server;
+    private TrackerApiClient client;
+    private final AtomicInteger calls = new AtomicInteger();
+    // 响应体发送一半后等待该latch
+    private final CountDownLatch stalledBody = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/flaky", exchange -> {
+            // 前两次返回503，之后成功
+            respond(exchange, calls.incrementAndGet() <= 2 ? 503 : 200, "ok");
+        });
+        server.createContext("/ok", exchange -> respond(exchange, 200, "ok"));
+        server.createContext("/missing", exchange -> {
+            calls.incrementAndGet();
+            respond(exchange, 404, "not found");
+        });
+        server.createContext("/down", exchange -> {
+            calls.incrementAndGet();
+            respond(exchange, 500, "error");
+        });
+        server.createContext("/slow-first", exchange -> {
+            // 第一个请求卡住，对冲请求立即返回
+            if (calls.incrementAndGet() == 1) {
+                sleep(3000);
+            }
+            respond(exchange, 200, "hedged");
+        });
+        server.createContext("/stall-body", exchange -> {
+            calls.incrementAndGet();
+            // 响应头和部分响应体立即返回，之后停住
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write("{\"code\":\"200\",\"data\":[".getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                stalledBody.await(10, TimeUnit.SECONDS);
+                out.write("]}".getBytes(StandardCharsets.UTF_8));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        server.start();
+
+        client = new TrackerApiClient();
+        ReflectionTestUtils.setField(client, "baseUrl", "http://127.0.0.1:" + server.getAddress().getPort());
+        ReflectionTestUtils.setField(client, "timeoutSeconds", 5);
+        ReflectionTestUtils.setField(client, "connectTimeoutSeconds", 1);
+        ReflectionTestUtils.setField(client, "httpThreads", 4);
+        ReflectionTestUtils.setField(client, "retryMaxAttempts", 3);
+        ReflectionTestUtils.setField(client, "retryDelayMs", 10L);
+        ReflectionTestUtils.setField(client, "retryMaxDelayMs", 40L);
+        ReflectionTestUtils.setField(client, "circuitFailureThreshold", 2);
+        ReflectionTestUtils.setField(client, "circuitOpenSeconds", 60);
+        ReflectionTestUtils.setField(client, "hedgeEnabled", false);
+        client.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        stalledBody.countDown();
+        client.shutdown();
+        server.stop(0);
+    }
+
+    @Test
+    void testRetriesServerErrorsWithBackoff() {
+        assertEquals("ok", client.get(client.getBaseUrl() + "/flaky"));
+        assertEquals(3, calls.get());
+        assertEquals(2L, client.getStatistics().get("retries"));
+    }
+
+    @Test
+    void testClientErrorIsNotRetried() {
+        TrackerApiException e = assertThrows(TrackerApiException.class, () -> client.get(client.getBaseUrl() + "/missing"));
+        assertFalse(e.isRetryable());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void testCircuitOpensAfterConsecutiveFailures() {
+        assertThrows(TrackerApiException.class, () -> client.get(client.getBaseUrl() + "/down"));
+        assertThrows(TrackerApiException.class, () -> client.get(client.getBaseUrl() + "/down"));
+        assertEquals(6, calls.get());
+
+        // 熔断后直接拒绝，不再访问tracker
+        TrackerApiException e = assertThrows(TrackerApiException.class, () -> client.get(client.getBaseUrl() + "/down"));
+        assertFalse(e.isRetryable());
+        assertEquals(6, calls.get());
+        assertEquals("OPEN", client.getStatistics().get("circuitState"));
+    }
+
+    @Test
+    void testHedgedRequestWinsOverStalledRequest() {
+        ReflectionTestUtils.setField(client, "hedgeEnabled", true);
+        ReflectionTestUtils.setField(client, "hedgeDelayMs", 200L);
+
+        long start = System.currentTimeMillis();
+        assertEquals("hedged", client.get(client.getBaseUrl() + "/slow-first"));
+        assertTrue(System.currentTimeMillis() - start < 2500);
+        assertEquals(1L, client.getStatistics().get("hedged"));
+    }
+
+    @Test
+    void testBodyStalledMidwayTimesOut() {
+        ReflectionTestUtils.setField(client, "timeoutSeconds", 1);
+        ReflectionTestUtils.setField(client, "retryMaxAttempts", 1);
+
+        long start = System.currentTimeMillis();
+        TrackerApiException e = assertThrows(TrackerApiException.class, () -> client.get(client.getBaseUrl() + "/stall-body"));
+        // 响应头已在超时前返回，超时仍然覆盖响应体读取
+        assertTrue(System.currentTimeMillis() - start < 3000);
+        assertTrue(e.isRetryable());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void testSlowParserTimesOut() {
+        ReflectionTestUtils.setField(client, "timeoutSeconds", 1);
+        ReflectionTestUtils.setField(client, "retryMaxAttempts", 1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+
+        long start = System.currentTimeMillis();
+        assertThrows(TrackerApiException.class, () -> client.get(client.getBaseUrl() + "/ok", body -> {
+            body.readAllBytes();
+            try {
+                Thread.sleep(5000);
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+                throw new IOException("interrupted", e);
+            }
+            return "parsed";
+        }));
+        assertTrue(System.currentTimeMillis() - start < 3000);
+        await(interrupted);
+    }
+
+    private static void await(AtomicBoolean flag) {
+        long deadline = System.currentTimeMillis() + 3000;
+        while (!flag.get() && System.currentTimeMillis() < deadline) {
+            sleep(10);
+        }
+        assertTrue(flag.get(), "parser was not interrupted");
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.cs.api.service.client;
+
+import com.cs.api.dto.CodeTraceResultDTO;
+import com.fasterxml.jackson.core.JsonFactory;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TrackerHistoryParser单元测试
+ */
+class TrackerHistoryParserTest {
+
+    private static final String RESPONSE = """
+        {"data": {
+            "static void collect_procs_file(struct page *page)": [
+              {"id": 283991, "commitId": "c36e2024", "authorName": "ruansy", "added": 88, "deleted": 10,
+               "version": "v5.19-rc4", "h1": "mm", "h2": "memory-failure", "text": "very long diff text",
+               "featureId": 42, "unknownField": {"nested": [1, 2, 3]}},
+              {"id": 283992, "commitId": "a1b2c3d4", "added": null, "text": null}
+            ],
+            "other": [{"id": 1, "commitId": "ffff"}]
+          },
+         "success": true, "code": "200", "msg": "ok"}
+        """;
+
+    private final TrackerHistoryParser parser = new TrackerHistoryParser(new JsonFactory());
+
+    @Test
+    void testParsesCommitsWithDetails() throws Exception {
+        TrackerHistoryParser.TrackerHistory history = parse(true);
+
+        assertTrue(history.success());
+        assertEquals("200", history.code());
+        List<CodeTraceResultDTO> commits = history.commits();
+        assertEquals(3, commits.size());
+
+        CodeTraceResultDTO first = commits.get(0);
+        assertEquals(283991L, first.getId());
+        assertEquals("c36e2024", first.getCommitId());
+        assertEquals(88, first.getAdded());
+        assertEquals("v5.19-rc4", first.getVersion());
+        assertEquals("very long diff text", first.getText());
+        assertEquals("mm", first.getH1());
+        assertEquals("42", first.getFeatureId());
+
+        assertNull(commits.get(1).getAdded());
+        assertNull(commits.get(1).getText());
+        assertEquals("ffff", commits.get(2).getCommitId());
+    }
+
+    @Test
+    void testSkipsDetailFieldsWhenNotRequested() throws Exception {
+        TrackerHistoryParser.TrackerHistory history = parse(false);
+
+        CodeTraceResultDTO first = history.commits().get(0);
+        assertEquals("c36e2024", first.getCommitId());
+        assertNull(first.getText());
+        assertNull(first.getH1());
+        assertNull(first.getH2());
+    }
+
+    private TrackerHistoryParser.TrackerHistory parse(boolean includeDetails) throws Exception {
+        return parser.parse(new ByteArrayInputStream(RESPONSE.getBytes(StandardCharsets.UTF_8)), includeDetails);
+    }
+}
@@ -0,0 +1,251 @@
+package com.cs.api.service.impl;
+
+import com.cs.api.GitTestRepo;
+import com.cs.api.common.cache.BoundedCache;
+import com.cs.api.dto.CodeTraceBatchResultDTO;
+import com.cs.api.dto.CodeTraceRequestDTO;
+import com.cs.api.dto.CodeTraceResponseDTO;
+import com.cs.api.dto.CodeTraceResultDTO;
+import com.cs.api.service.analyzer.LocalGitHistoryTracer;
+import com.cs.api.service.cache.CodeTraceResultCache;
+import com.cs.api.service.client.TrackerApiClient;
+import com.cs.api.service.client.TrackerHistoryParser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * CodeTraceServiceImpl单元测试：批量追溯的分组与顺序、代码提取时间预算、按blob去重
+ * tracker API使用mock，代码从临时目录中的Git仓库提取
+ */
+@ExtendWith(MockitoExtension.class)
+class CodeTraceServiceImplTest {
+
+    @TempDir
+    Path repo;
+
+    @Mock
+    private TrackerApiClient trackerApiClient;
+
+    @Mock
+    private CodeTraceResultCache codeTraceResultCache;
+
+    @InjectMocks
+    private CodeTraceServiceImpl service;
+
+    // 方法名为slow的tracker调用等待该latch
+    private final CountDownLatch slowTracker = new CountDownLatch(1);
+
+    private GitTestRepo git;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        git = GitTestRepo.init(repo);
+        git.write("a.c", "int foo(int x)\n{\n\treturn x;\n}\n\nint bar(void)\n{\n\treturn 0;\n}\n");
+        git.write("b.c", "void baz(void)\n{\n}\n");
+        git.commitAndTag("v1");
+        // 只修改其他文件，a.c的blob与v1相同
+        git.write("README", "readme\n");
+        git.commitAndTag("v2");
+        git.write("a.c", "int foo(int x)\n{\n\treturn x + 1;\n}\n\nint bar(void)\n{\n\treturn 0;\n}\n");
+        git.commitAndTag("v3");
+
+        ReflectionTestUtils.setField(service, "kernelSourcePath", repo.toString());
+        ReflectionTestUtils.setField(service, "defaultRepoPath", "test-repo");
+        ReflectionTestUtils.setField(service, "defaultEngine", "tracker");
+        ReflectionTestUtils.setField(service, "extractionParallelism", 4);
+        ReflectionTestUtils.setField(service, "extractionTimeBudgetSeconds", 60L);
+        ReflectionTestUtils.setField(service, "blobCacheSize", 100);
+        ReflectionTestUtils.setField(service, "batchParallelism", 4);
+        ReflectionTestUtils.setField(service, "batchMaxSize", 10);
+        ReflectionTestUtils.setField(service, "batchQueueCapacity", 10);
+        service.init();
+
+        // 追溯结果缓存未命中（mock默认返回空列表，会被当作命中）
+        when(codeTraceResultCache.get(any())).thenReturn(null);
+        // 本地git追溯的测试不调用tracker
+        lenient().when(trackerApiClient.getBaseUrl()).thenReturn("http://tracker.test");
+        lenient().when(trackerApiClient.get(anyString(), any())).thenAnswer(invocation -> {
+            String methodName = UriComponentsBuilder.fromUriString(invocation.getArgument(0, String.class))
+                .build().getQueryParams().getFirst("methodName");
+            if ("slow".equals(methodName)) {
+                slowTracker.await(30, TimeUnit.SECONDS);
+            }
+            // 每个方法的commit历史从新到旧：v3, v2, v1
+            List<CodeTraceResultDTO> commits = new ArrayList<>();
+            for (String version : List.of("v3", "v2", "v1")) {
+                CodeTraceResultDTO commit = new CodeTraceResultDTO();
+                commit.setCommitId(methodName + "@" + version);
+                commit.setVersion(version);
+                commits.add(commit);
+            }
+            return new TrackerHistoryParser.TrackerHistory(true, "200", "ok", commits);
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void testBatchResultsFollowRequestOrderAndShareBlobs() throws Exception {
+        List<CodeTraceRequestDTO> requests = List.of(
+            new CodeTraceRequestDTO("a.c", "foo", "v3", null),
+            new CodeTraceRequestDTO("b.c", "baz", "v3", null),
+            new CodeTraceRequestDTO("a.c", "bar", "v3", null),
+            new CodeTraceRequestDTO("a.c", "", "v3", null));
+
+        List<CodeTraceBatchResultDTO> results = service.traceMethodHistoryBatch(requests).get(30, TimeUnit.SECONDS);
+
+        assertEquals(4, results.size());
+        for (int i = 0; i < requests.size(); i++) {
+            assertEquals(i, results.get(i).getIndex());
+            assertSame(requests.get(i), results.get(i).getRequest());
+        }
+        List<CodeTraceResponseDTO> foo = results.get(0).getHistory();
+        assertEquals(List.of("foo@v3", "foo@v2", "foo@v1"), foo.stream().map(r -> r.getCommitHistory().getCommitId()).toList());
+        assertTrue(foo.get(0).getCodeSnippet().contains("x + 1"));
+        assertTrue(foo.get(1).getCodeSnippet().contains("return x;"));
+        // v2与v1是a.c的同一个blob
+        assertFalse(foo.get(1).isUnchangedSincePrevious());
+        assertTrue(foo.get(2).isUnchangedSincePrevious());
+        assertTrue(results.get(1).getHistory().get(0).getCodeSnippet().contains("baz"));
+        assertTrue(results.get(2).getHistory().get(0).getCodeSnippet().contains("bar"));
+        assertTrue(results.get(3).getHistory().isEmpty());
+
+        // a.c有2个不同blob × 2个方法，b.c有1个blob × 1个方法；全部由批量预提取完成，逐commit组装时只命中缓存
+        Map<String, Object> blobCacheStats = ((BoundedCache<?, ?>) ReflectionTestUtils.getField(service, "blobSnippetCache")).getStatistics();
+        assertEquals(5, blobCacheStats.get("size"));
+        assertEquals(0L, blobCacheStats.get("loads"));
+    }
+
+    @Test
+    void testStreamingBatchEmitsEachResultWithoutWaitingForGroup() throws Exception {
+        List<CodeTraceRequestDTO> requests = List.of(
+            new CodeTraceRequestDTO("a.c", "slow", "v3", null),
+            new CodeTraceRequestDTO("a.c", "foo", "v3", null),
+            new CodeTraceRequestDTO("a.c", "bar", "v3", null),
+            new CodeTraceRequestDTO("b.c", "baz", "v3", null));
+        List<Integer> emitted = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch othersEmitted = new CountDownLatch(3);
+
+        CompletableFuture<Void> done = service.traceMethodHistoryBatch(requests, result -> {
+            emitted.add(result.getIndex());
+            othersEmitted.countDown();
+        });
+
+        // 同一文件中的slow还在等待tracker，foo和bar已经返回
+        assertTrue(othersEmitted.await(30, TimeUnit.SECONDS));
+        assertFalse(done.isDone());
+        assertEquals(List.of(1, 2, 3), emitted.stream().sorted().toList());
+
+        slowTracker.countDown();
+        done.get(30, TimeUnit.SECONDS);
+        assertEquals(4, emitted.size());
+        assertEquals(List.of(0, 1, 2, 3), emitted.stream().sorted().toList());
+        assertThrows(IllegalArgumentException.class,
+            () -> service.traceMethodHistoryBatch(Collections.nCopies(11, requests.get(0)), result -> {}));
+    }
+
+    @Test
+    void testExtractionPastDeadlineReturnsCommitsWithoutCaching() throws Exception {
+        ReflectionTestUtils.setField(service, "extractionTimeBudgetSeconds", 1L);
+        // 占满提取线程池，代码提取无法在时间预算内完成
+        ExecutorService blocked = Executors.newSingleThreadExecutor();
+        CountDownLatch release = new CountDownLatch(1);
+        blocked.submit(() -> release.await(30, TimeUnit.SECONDS));
+        ReflectionTestUtils.setField(service, "extractionExecutor", blocked);
+        try {
+            long start = System.nanoTime();
+            List<CodeTraceResponseDTO> responses = service.traceMethodHistory(new CodeTraceRequestDTO("a.c", "foo", "v3", null));
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            assertEquals(3, responses.size());
+            for (CodeTraceResponseDTO response : responses) {
+                assertTrue(response.isSuccess());
+                assertNull(response.getCodeSnippet());
+                assertEquals("代码提取超出时间预算，未获取该commit的代码片段", response.getExplanation());
+            }
+            assertTrue(elapsedMillis < 10_000, "elapsed " + elapsedMillis);
+            verify(codeTraceResultCache, never()).put(any(), any());
+        } finally {
+            release.countDown();
+            blocked.shutdownNow();
+        }
+    }
+
+    @Test
+    void testRejectedExtractionDoesNotRunOnCallerThread() throws Exception {
+        // 唯一的线程被占用且没有等待队列：提交的提取任务全部被拒绝
+        ThreadPoolExecutor saturated = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.SECONDS, new SynchronousQueue<>());
+        CountDownLatch release = new CountDownLatch(1);
+        saturated.submit(() -> release.await(30, TimeUnit.SECONDS));
+        ReflectionTestUtils.setField(service, "extractionExecutor", saturated);
+        try {
+            long start = System.nanoTime();
+            List<CodeTraceResponseDTO> responses = service.traceMethodHistory(new CodeTraceRequestDTO("a.c", "foo", "v3", null));
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            // 与超时相同：只返回commit信息，不缓存，也不等待时间预算
+            assertEquals(3, responses.size());
+            for (CodeTraceResponseDTO response : responses) {
+                assertNull(response.getCodeSnippet());
+            }
+            assertTrue(elapsedMillis < 10_000, "elapsed " + elapsedMillis);
+            verify(codeTraceResultCache, never()).put(any(), any());
+        } finally {
+            release.countDown();
+            saturated.shutdownNow();
+        }
+    }
+
+    @Test
+    void testLocalHistoryStopsAtUnreadableBlobWithoutCaching() throws Exception {
+        LocalGitHistoryTracer tracer = new LocalGitHistoryTracer();
+        ReflectionTestUtils.setField(tracer, "kernelSourcePath", repo.toString());
+        ReflectionTestUtils.setField(tracer, "repoName", "test-repo");
+        ReflectionTestUtils.setField(tracer, "maxCommits", 100);
+        ReflectionTestUtils.setField(tracer, "gitTimeoutSeconds", 30);
+        ReflectionTestUtils.setField(service, "localGitHistoryTracer", tracer);
+        // v1/v2中a.c的blob损坏：读取失败，不能当作函数不存在
+        String oldBlob = git.run("rev-parse", "v1:a.c").trim();
+        Files.delete(repo.resolve(".git/objects/" + oldBlob.substring(0, 2) + "/" + oldBlob.substring(2)));
+        CodeTraceRequestDTO request = new CodeTraceRequestDTO("a.c", "foo", null, null);
+        request.setEngine("local");
+
+        List<CodeTraceResponseDTO> responses = service.traceMethodHistory(request);
+
+        // 只返回读取失败之前的较新commit，历史不完整，不写入追溯缓存
+        assertEquals(1, responses.size());
+        assertEquals(git.run("rev-parse", "v3").trim(), responses.get(0).getCommitHistory().getCommitId());
+        assertTrue(responses.get(0).getCodeSnippet().contains("x + 1"));
+        verify(codeTraceResultCache, never()).put(any(), any());
+    }
+}